@@ -0,0 +1,766 @@
+package com.obtuse.graphs;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+/**
+ An immutable directed graph stored in compressed sparse row (CSR) form.
+ <p>Each vertex is identified by a dense {@code int} id in the range {@code 0} through {@code vertexCount() - 1}.
+ The destinations of all the arcs leaving vertex {@code v} are stored contiguously in one {@code int[]}
+ starting at {@code offsets[v]} and ending just before {@code offsets[v+1]}.
+ Consequently, walking the graph involves no boxing, no hashing and no per-arc objects.</p>
+ <p>All of the algorithms in this class are iterative so that they can cope with graphs whose
+ paths are far longer than the Java stack is deep.</p>
+ <p>Use a {@link Builder} (or {@link #fromEdges(Collection)} if you have a collection of {@link Edge}s)
+ to create instances of this class.
+ The original vertex objects are available via {@link #getVertex(int)} and {@link #getVertexId(Object)}.</p>
+ @param <T> the type of the objects which identify the vertices.
+ */
+
+public class CompactDirectedGraph<T> {
+
+    /**
+     Accumulates vertices and arcs and then builds a {@link CompactDirectedGraph}.
+     @param <T> the type of the objects which identify the vertices.
+     */
+
+    public static class Builder<T> {
+
+        private final Map<T, Integer> _ids;
+
+        private final List<T> _vertices = new ArrayList<>();
+
+        private int[] _sources = new int[16];
+
+        private int[] _destinations = new int[16];
+
+        private int _arcCount = 0;
+
+        /**
+         Create a builder which uses a {@link HashMap} to assign vertex ids.
+         */
+
+        public Builder() {
+
+            this( new HashMap<>() );
+
+        }
+
+        /**
+         Create a builder which uses a caller-provided map to assign vertex ids.
+         <p>This is useful if the vertex objects define their identity via {@link Comparable#compareTo(Object)}
+         rather than via {@link Object#equals(Object)} and {@link Object#hashCode()} (pass in an empty {@link TreeMap}).</p>
+         @param emptyIdMap the (empty) map to use.
+         @throws IllegalArgumentException if the map is not empty.
+         */
+
+        public Builder( final @NotNull Map<T, Integer> emptyIdMap ) {
+
+            super();
+
+            if ( !emptyIdMap.isEmpty() ) {
+
+                throw new IllegalArgumentException( "CompactDirectedGraph.Builder:  id map must start out empty" );
+
+            }
+
+            _ids = emptyIdMap;
+
+        }
+
+        /**
+         Add a vertex to the graph (does nothing if the vertex is already in the graph).
+         @param vertex the vertex.
+         @return the vertex's id.
+         */
+
+        public int addVertex( final @NotNull T vertex ) {
+
+            Integer id = _ids.get( vertex );
+            if ( id == null ) {
+
+                id = _vertices.size();
+                _ids.put( vertex, id );
+                _vertices.add( vertex );
+
+            }
+
+            return id.intValue();
+
+        }
+
+        /**
+         Add an arc to the graph (adding either or both of its vertices if they are not already in the graph).
+         @param source the vertex that the arc leaves.
+         @param destination the vertex that the arc enters.
+         */
+
+        public void addArc( final @NotNull T source, final @NotNull T destination ) {
+
+            int sourceId = addVertex( source );
+            int destinationId = addVertex( destination );
+
+            if ( _arcCount == _sources.length ) {
+
+                _sources = Arrays.copyOf( _sources, _arcCount * 2 );
+                _destinations = Arrays.copyOf( _destinations, _arcCount * 2 );
+
+            }
+
+            _sources[_arcCount] = sourceId;
+            _destinations[_arcCount] = destinationId;
+            _arcCount += 1;
+
+        }
+
+        /**
+         Build the graph.
+         <p>The builder should not be used after this method has been called.</p>
+         @return the graph.
+         */
+
+        @NotNull
+        public CompactDirectedGraph<T> build() {
+
+            return new CompactDirectedGraph<>( _vertices, _ids, _sources, _destinations, _arcCount );
+
+        }
+
+    }
+
+    private final List<T> _vertices;
+
+    private final Map<T, Integer> _ids;
+
+    private final int[] _offsets;
+
+    private final int[] _targets;
+
+    private CompactDirectedGraph(
+            final @NotNull List<T> vertices,
+            final @NotNull Map<T, Integer> ids,
+            final int @NotNull [] sources,
+            final int @NotNull [] destinations,
+            final int arcCount
+    ) {
+
+        super();
+
+        _vertices = Collections.unmodifiableList( vertices );
+        _ids = ids;
+
+        // A counting sort of the arcs by source vertex.
+
+        int n = vertices.size();
+        _offsets = new int[n + 1];
+        for ( int i = 0; i < arcCount; i += 1 ) {
+
+            _offsets[sources[i] + 1] += 1;
+
+        }
+
+        for ( int v = 0; v < n; v += 1 ) {
+
+            _offsets[v + 1] += _offsets[v];
+
+        }
+
+        _targets = new int[arcCount];
+        int[] next = Arrays.copyOf( _offsets, n );
+        for ( int i = 0; i < arcCount; i += 1 ) {
+
+            _targets[next[sources[i]]] = destinations[i];
+            next[sources[i]] += 1;
+
+        }
+
+    }
+
+    /**
+     Build a graph from a collection of {@link Edge}s.
+     <p>Each edge becomes an arc from its {@link Edge#getA()} vertex to its {@link Edge#getB()} vertex
+     (for a {@link DirectedArc}, from its source to its destination).</p>
+     @param edges the edges.
+     @param <V> the type of value used to name vertices.
+     @return the graph.
+     */
+
+    @NotNull
+    public static <V> CompactDirectedGraph<Vertex<V>> fromEdges( final @NotNull Collection<? extends Edge<V>> edges ) {
+
+        Builder<Vertex<V>> builder = new Builder<>();
+        for ( Edge<V> edge : edges ) {
+
+            builder.addArc( edge.getA(), edge.getB() );
+
+        }
+
+        return builder.build();
+
+    }
+
+    public int getVertexCount() {
+
+        return _vertices.size();
+
+    }
+
+    public int getArcCount() {
+
+        return _targets.length;
+
+    }
+
+    /**
+     Get the vertex with a specified id.
+     @param id the id.
+     @return the vertex.
+     @throws IndexOutOfBoundsException if there is no such vertex.
+     */
+
+    @NotNull
+    public T getVertex( final int id ) {
+
+        return _vertices.get( id );
+
+    }
+
+    /**
+     Get the id of a vertex.
+     @param vertex the vertex.
+     @return the vertex's id or {@code -1} if the vertex is not in this graph.
+     */
+
+    public int getVertexId( final @NotNull T vertex ) {
+
+        Integer id = _ids.get( vertex );
+
+        return id == null ? -1 : id.intValue();
+
+    }
+
+    /**
+     Get the vertices corresponding to an array of vertex ids.
+     @param ids the ids.
+     @return the vertices in the same order as their ids.
+     */
+
+    @NotNull
+    public List<T> getVertices( final int @NotNull [] ids ) {
+
+        List<T> rval = new ArrayList<>( ids.length );
+        for ( int id : ids ) {
+
+            rval.add( _vertices.get( id ) );
+
+        }
+
+        return rval;
+
+    }
+
+    public int getOutDegree( final int id ) {
+
+        return _offsets[id + 1] - _offsets[id];
+
+    }
+
+    /**
+     Get the destination of one of the arcs leaving a vertex.
+     @param id the vertex's id.
+     @param ix which of the vertex's arcs (in the range {@code 0} through {@code getOutDegree( id ) - 1}).
+     @return the id of the arc's destination vertex.
+     */
+
+    public int getSuccessor( final int id, final int ix ) {
+
+        if ( ix < 0 || ix >= getOutDegree( id ) ) {
+
+            throw new IndexOutOfBoundsException( "CompactDirectedGraph.getSuccessor:  vertex " + id + " has no arc " + ix );
+
+        }
+
+        return _targets[_offsets[id] + ix];
+
+    }
+
+    /**
+     Topologically sort this graph using Kahn's algorithm.
+     @return an {@link Optional} containing the vertex ids in an order in which every arc goes from an earlier vertex to a later vertex;
+     {@link Optional#empty()} if the graph contains one or more loops.
+     */
+
+    @NotNull
+    public Optional<int[]> topologicalOrder() {
+
+        int n = getVertexCount();
+        int[] inDegrees = new int[n];
+        for ( int target : _targets ) {
+
+            inDegrees[target] += 1;
+
+        }
+
+        // The order array doubles as the queue of vertices whose in-degree has dropped to zero.
+
+        int[] order = new int[n];
+        int tail = 0;
+        for ( int v = 0; v < n; v += 1 ) {
+
+            if ( inDegrees[v] == 0 ) {
+
+                order[tail] = v;
+                tail += 1;
+
+            }
+
+        }
+
+        for ( int head = 0; head < tail; head += 1 ) {
+
+            int v = order[head];
+            for ( int a = _offsets[v]; a < _offsets[v + 1]; a += 1 ) {
+
+                int w = _targets[a];
+                inDegrees[w] -= 1;
+                if ( inDegrees[w] == 0 ) {
+
+                    order[tail] = w;
+                    tail += 1;
+
+                }
+
+            }
+
+        }
+
+        return tail == n ? Optional.of( order ) : Optional.empty();
+
+    }
+
+    /**
+     Order this graph's vertices so that each vertex comes after every vertex that it has an arc to.
+     <p>This is the order in which a depth-first search finishes with each vertex when it starts from each unvisited vertex in id order
+     and follows each vertex's arcs in the order that they were added to the {@link Builder}.
+     The result depends only on the order in which the vertices and arcs were added
+     (it is the order that the recursive topological sorts which this class replaced produced when they were given the same input).</p>
+     @return an {@link Optional} containing the vertex ids in an order in which every arc goes from a later vertex to an earlier vertex;
+     {@link Optional#empty()} if the graph contains one or more loops.
+     */
+
+    @NotNull
+    public Optional<int[]> dependencyOrder() {
+
+        int n = getVertexCount();
+
+        // 0 = unvisited, 1 = on the current path, 2 = finished.
+
+        byte[] state = new byte[n];
+        int[] pathVertices = new int[n];
+        int[] pathArcs = new int[n];
+        int[] order = new int[n];
+        int finished = 0;
+
+        for ( int root = 0; root < n; root += 1 ) {
+
+            if ( state[root] != 0 ) {
+
+                continue;
+
+            }
+
+            int depth = 0;
+            pathVertices[0] = root;
+            pathArcs[0] = _offsets[root];
+            state[root] = 1;
+
+            while ( depth >= 0 ) {
+
+                int v = pathVertices[depth];
+                if ( pathArcs[depth] < _offsets[v + 1] ) {
+
+                    int w = _targets[pathArcs[depth]];
+                    pathArcs[depth] += 1;
+
+                    if ( state[w] == 1 ) {
+
+                        return Optional.empty();
+
+                    } else if ( state[w] == 0 ) {
+
+                        depth += 1;
+                        pathVertices[depth] = w;
+                        pathArcs[depth] = _offsets[w];
+                        state[w] = 1;
+
+                    }
+
+                } else {
+
+                    state[v] = 2;
+                    order[finished] = v;
+                    finished += 1;
+                    depth -= 1;
+
+                }
+
+            }
+
+        }
+
+        return Optional.of( order );
+
+    }
+
+    /**
+     Determine if this graph is acyclic.
+     @return {@code true} if this graph contains no loops; {@code false} otherwise.
+     */
+
+    public boolean isAcyclic() {
+
+        return topologicalOrder().isPresent();
+
+    }
+
+    /**
+     Find a loop in this graph.
+     @return an {@link Optional} containing the ids of the vertices in a loop in the order that the loop visits them
+     (the loop's last vertex has an arc back to its first vertex);
+     {@link Optional#empty()} if this graph is acyclic.
+     */
+
+    @NotNull
+    public Optional<int[]> findCycle() {
+
+        int n = getVertexCount();
+
+        // 0 = unvisited, 1 = on the current path, 2 = finished.
+
+        byte[] state = new byte[n];
+        int[] pathVertices = new int[n];
+        int[] pathArcs = new int[n];
+
+        for ( int root = 0; root < n; root += 1 ) {
+
+            if ( state[root] != 0 ) {
+
+                continue;
+
+            }
+
+            int depth = 0;
+            pathVertices[0] = root;
+            pathArcs[0] = _offsets[root];
+            state[root] = 1;
+
+            while ( depth >= 0 ) {
+
+                int v = pathVertices[depth];
+                if ( pathArcs[depth] < _offsets[v + 1] ) {
+
+                    int w = _targets[pathArcs[depth]];
+                    pathArcs[depth] += 1;
+
+                    if ( state[w] == 1 ) {
+
+                        // Found a loop - it is the part of the current path which starts at w.
+
+                        int start = depth;
+                        while ( pathVertices[start] != w ) {
+
+                            start -= 1;
+
+                        }
+
+                        return Optional.of( Arrays.copyOfRange( pathVertices, start, depth + 1 ) );
+
+                    } else if ( state[w] == 0 ) {
+
+                        depth += 1;
+                        pathVertices[depth] = w;
+                        pathArcs[depth] = _offsets[w];
+                        state[w] = 1;
+
+                    }
+
+                } else {
+
+                    state[v] = 2;
+                    depth -= 1;
+
+                }
+
+            }
+
+        }
+
+        return Optional.empty();
+
+    }
+
+    /**
+     Find a shortest loop that passes through a specified vertex.
+     @param id the id of the vertex.
+     @return an {@link Optional} containing the ids of the vertices in the loop starting with the specified vertex
+     (the loop's last vertex has an arc back to the specified vertex);
+     {@link Optional#empty()} if no loop passes through the specified vertex.
+     */
+
+    @NotNull
+    public Optional<int[]> findCycleThrough( final int id ) {
+
+        int n = getVertexCount();
+        int[] parents = new int[n];
+        Arrays.fill( parents, -1 );
+        int[] queue = new int[n];
+        int tail = 0;
+
+        // Breadth-first search from the vertex until we get back to it.
+
+        queue[tail] = id;
+        tail += 1;
+        for ( int head = 0; head < tail; head += 1 ) {
+
+            int v = queue[head];
+            for ( int a = _offsets[v]; a < _offsets[v + 1]; a += 1 ) {
+
+                int w = _targets[a];
+                if ( w == id ) {
+
+                    // Walk the parent chain back to the vertex.
+
+                    int length = 1;
+                    for ( int u = v; u != id; u = parents[u] ) {
+
+                        length += 1;
+
+                    }
+
+                    int[] cycle = new int[length];
+                    int ix = length - 1;
+                    for ( int u = v; u != id; u = parents[u] ) {
+
+                        cycle[ix] = u;
+                        ix -= 1;
+
+                    }
+
+                    cycle[0] = id;
+
+                    return Optional.of( cycle );
+
+                }
+
+                if ( parents[w] < 0 ) {
+
+                    parents[w] = v;
+                    queue[tail] = w;
+                    tail += 1;
+
+                }
+
+            }
+
+        }
+
+        return Optional.empty();
+
+    }
+
+    /**
+     Find the strongly connected components of this graph using an iterative version of Tarjan's algorithm.
+     <p>Two vertices are in the same strongly connected component if and only if there is a path from each to the other.
+     A vertex which is not on any loop is in a component of its own.</p>
+     @return the components (each an array of vertex ids).
+     The components are in reverse topological order (i.e. no arc goes from a component to an earlier component).
+     */
+
+    @NotNull
+    public List<int[]> stronglyConnectedComponents() {
+
+        int n = getVertexCount();
+        int[] index = new int[n];
+        Arrays.fill( index, -1 );
+        int[] lowLink = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callVertices = new int[n];
+        int[] callArcs = new int[n];
+        int nextIndex = 0;
+
+        List<int[]> components = new ArrayList<>();
+
+        for ( int root = 0; root < n; root += 1 ) {
+
+            if ( index[root] >= 0 ) {
+
+                continue;
+
+            }
+
+            int depth = 0;
+            callVertices[0] = root;
+            callArcs[0] = _offsets[root];
+            index[root] = lowLink[root] = nextIndex;
+            nextIndex += 1;
+            stack[stackSize] = root;
+            stackSize += 1;
+            onStack[root] = true;
+
+            while ( depth >= 0 ) {
+
+                int v = callVertices[depth];
+                if ( callArcs[depth] < _offsets[v + 1] ) {
+
+                    int w = _targets[callArcs[depth]];
+                    callArcs[depth] += 1;
+
+                    if ( index[w] < 0 ) {
+
+                        depth += 1;
+                        callVertices[depth] = w;
+                        callArcs[depth] = _offsets[w];
+                        index[w] = lowLink[w] = nextIndex;
+                        nextIndex += 1;
+                        stack[stackSize] = w;
+                        stackSize += 1;
+                        onStack[w] = true;
+
+                    } else if ( onStack[w] ) {
+
+                        lowLink[v] = Math.min( lowLink[v], index[w] );
+
+                    }
+
+                } else {
+
+                    if ( lowLink[v] == index[v] ) {
+
+                        int start = stackSize;
+                        do {
+
+                            start -= 1;
+                            onStack[stack[start]] = false;
+
+                        } while ( stack[start] != v );
+
+                        components.add( Arrays.copyOfRange( stack, start, stackSize ) );
+                        stackSize = start;
+
+                    }
+
+                    depth -= 1;
+                    if ( depth >= 0 ) {
+
+                        int parent = callVertices[depth];
+                        lowLink[parent] = Math.min( lowLink[parent], lowLink[v] );
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        return components;
+
+    }
+
+    /**
+     Separate this graph into clusters of vertices which are connected if arc directions are ignored
+     (i.e. find the weakly connected components).
+     @return an array which maps each vertex id to the number of its cluster.
+     Clusters are numbered densely from {@code 0} in order of their lowest numbered vertex.
+     */
+
+    public int @NotNull [] weaklyConnectedComponents() {
+
+        int n = getVertexCount();
+
+        // Union-find with path halving and union by size.
+
+        int[] parents = new int[n];
+        int[] sizes = new int[n];
+        for ( int v = 0; v < n; v += 1 ) {
+
+            parents[v] = v;
+            sizes[v] = 1;
+
+        }
+
+        for ( int v = 0; v < n; v += 1 ) {
+
+            for ( int a = _offsets[v]; a < _offsets[v + 1]; a += 1 ) {
+
+                int r1 = findRoot( parents, v );
+                int r2 = findRoot( parents, _targets[a] );
+                if ( r1 != r2 ) {
+
+                    if ( sizes[r1] < sizes[r2] ) {
+
+                        int r3 = r1;
+                        r1 = r2;
+                        r2 = r3;
+
+                    }
+
+                    parents[r2] = r1;
+                    sizes[r1] += sizes[r2];
+
+                }
+
+            }
+
+        }
+
+        int[] clusters = new int[n];
+        int[] clusterOfRoot = new int[n];
+        Arrays.fill( clusterOfRoot, -1 );
+        int clusterCount = 0;
+        for ( int v = 0; v < n; v += 1 ) {
+
+            int root = findRoot( parents, v );
+            if ( clusterOfRoot[root] < 0 ) {
+
+                clusterOfRoot[root] = clusterCount;
+                clusterCount += 1;
+
+            }
+
+            clusters[v] = clusterOfRoot[root];
+
+        }
+
+        return clusters;
+
+    }
+
+    private static int findRoot( final int @NotNull [] parents, final int v ) {
+
+        int x = v;
+        while ( parents[x] != x ) {
+
+            parents[x] = parents[parents[x]];
+            x = parents[x];
+
+        }
+
+        return x;
+
+    }
+
+    public String toString() {
+
+        return "CompactDirectedGraph( " + getVertexCount() + " vertices, " + getArcCount() + " arcs )";
+
+    }
+
+}
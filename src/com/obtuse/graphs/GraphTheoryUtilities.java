@@ -122,6 +122,8 @@ public class GraphTheoryUtilities {
      *                 any loops.
      * @return an {@link Optional} containing the vertices in topological order if it is acyclic (contains no loops);
      * {@code null} if impossible to topologically sort the graph's vertices because it contains one or more loops.
+     * Each vertex appears after all the vertices that it has arcs to.
+     * The order is fully determined by the order of {@code directedArcs} (see {@link CompactDirectedGraph#dependencyOrder()}).
      */
 
     @NotNull
@@ -131,57 +133,28 @@ public class GraphTheoryUtilities {
             @Nullable final List<Vertex<V>> foundLoop
     ) {
 
-        Map<V,Set<V>> dependencies = new HashMap<>();
-        Map<V,Vertex<V>> allVertices = new HashMap<>();
+        CompactDirectedGraph<Vertex<V>> graph = CompactDirectedGraph.fromEdges( directedArcs );
 
-        initializeMaps( directedArcs, dependencies, allVertices );
+        Optional<int[]> optOrder = graph.dependencyOrder();
+        if ( optOrder.isEmpty() ) {
 
-        List<V> temporarilyMarkedNodes = new ArrayList<>(  );
-        Set<V> permanentlyMarkedNodes = new HashSet<>();
+            if ( foundLoop != null ) {
 
-        List<Vertex<V>> sortedNodes = new ArrayList<>();
-        List<Vertex<V>> unvisitedNodes = new ArrayList<>( allVertices.values() );
-        while ( !unvisitedNodes.isEmpty() ) {
+                int[] loop = graph.findCycle()
+                                  .orElseThrow( () -> new HowDidWeGetHereError( "topological sort failed but no loop found" ) );
 
-            Vertex<V> node = unvisitedNodes.remove( 0 );
-
-            if ( !permanentlyMarkedNodes.contains( node.getV() ) ) {
-
-                if (
-                        !topologicalSortVisitNode(
-                                node,
-                                temporarilyMarkedNodes,
-                                permanentlyMarkedNodes,
-                                sortedNodes,
-                                dependencies,
-                                allVertices
-                        )
-                ) {
-
-                    if ( foundLoop != null ) {
-
-                        foundLoop.clear();
-                        for (V v : temporarilyMarkedNodes ) {
-
-                            foundLoop.add( allVertices.get( v ) );
-
-                        }
-
-                    }
-
-                    return Optional.empty();
-
-                }
+                foundLoop.clear();
+                foundLoop.addAll( graph.getVertices( loop ) );
 
             }
 
-        }
+            return Optional.empty();
 
-        if ( sortedNodes.size() != allVertices.size() ) {
+        }
 
-            throw new HowDidWeGetHereError( "topological sort did not return all nodes" );
+        // Our callers expect each vertex to appear after all the vertices that it has arcs to.
 
-        }
+        List<Vertex<V>> sortedNodes = graph.getVertices( optOrder.get() );
 
         return Optional.of( sortedNodes );
 
@@ -199,56 +172,6 @@ public class GraphTheoryUtilities {
 
     }
 
-    private static <V extends Comparable<V>> boolean topologicalSortVisitNode(
-            @NotNull Vertex<V> node,
-            @NotNull Collection<V> temporarilyMarkedNodes,
-            @NotNull Set<V> permanentlyMarkedNodes,
-            @NotNull List<Vertex<V>> sortedNodes,
-            @NotNull Map<V,Set<V>> dependencies,
-            @NotNull Map<V,Vertex<V>>  allVertices
-    ) {
-
-        if ( temporarilyMarkedNodes.contains( node.getV() ) ) {
-
-            return false;
-
-        }
-
-        if ( !permanentlyMarkedNodes.contains( node.getV() ) ) {
-
-            temporarilyMarkedNodes.add( node.getV() );
-
-            Set<V> nodeDependencies = dependencies.getOrDefault( node.getV(), Collections.emptySet() );
-
-            for ( V dependency : nodeDependencies ) {
-
-                if (
-                        !topologicalSortVisitNode(
-                                allVertices.get(dependency),
-                                temporarilyMarkedNodes,
-                                permanentlyMarkedNodes,
-                                sortedNodes, dependencies,
-                                allVertices
-                        )
-                ) {
-
-                    return false;
-
-                }
-
-            }
-
-            permanentlyMarkedNodes.add( node.getV() );
-            sortedNodes.add( node );
-
-            temporarilyMarkedNodes.remove( node.getV() );
-
-        }
-
-        return true;
-
-    }
-
     /**
      Separate a graph into clusters where each cluster is a standalone connected graph and where
      no pair of clusters shares an arc (i.e. no pair of clusters is connected by an arc).
@@ -278,62 +201,27 @@ public class GraphTheoryUtilities {
     public static <V extends Comparable<V>>
     Map<Vertex<V>, Set<Vertex<V>>> clusterizeGraph( @NotNull Collection<? extends Edge<V>> directedArcs ) {
 
-        // Build a map of clusters where each vertex starts out in its own cluster.
-        // This is a directory/index of which cluster each vertex is a member of.
-
-        Map<Vertex<V>,Set<Vertex<V>>> directory = new HashMap<>();
-        for ( Edge<V> directedArc : directedArcs ) {
-
-            directory.computeIfAbsent( directedArc.getA(), v -> new UniqueSet<>() ).add( directedArc.getA() );
-            directory.computeIfAbsent( directedArc.getB(), v -> new UniqueSet<>() ).add( directedArc.getB() );
-
-        }
-
-        // For each arc, if its vertices are in different clusters then merge the two clusters into one.
-
-        for ( Edge<V> directedArc : directedArcs ) {
-
-            Vertex<V> a = directedArc.getA();
-            Vertex<V> b = directedArc.getB();
-
-            // Are the two vertices in different clusters?
-
-            Set<Vertex<V>> c1 = directory.get( a );
-            Set<Vertex<V>> c2 = directory.get( b );
-
-            if ( directory.get(a) != directory.get(b) ) {
-
-                // Yes. Merge the smaller cluster into the larger one.
-                // We do this by ensuring that c1 is the small cluster if they are of different sizes.
-
-                if ( c1.size() > c2.size() ) {
-
-                    Set<Vertex<V>> c3 = c1;
-                    c1 = c2;
-                    c2 = c3;
-
-                }
-
-                // Add all of the vertices in the smaller cluster into the larger cluster.
-
-                c2.addAll( c1 );
+        // Find the clusters using the compact representation and then build the directory.
+        // Each cluster's members all share one set.
 
-                // Update the directory for each of the vertices in the smaller cluster.
+        CompactDirectedGraph<Vertex<V>> graph = CompactDirectedGraph.fromEdges( directedArcs );
+        int[] clusterNumbers = graph.weaklyConnectedComponents();
 
-                for ( Vertex<V> v : c1 ) {
+        List<Set<Vertex<V>>> clusters = new ArrayList<>();
+        Map<Vertex<V>,Set<Vertex<V>>> directory = new HashMap<>();
+        for ( int v = 0; v < clusterNumbers.length; v += 1 ) {
 
-                    directory.put( v, c2 );
+            if ( clusterNumbers[v] == clusters.size() ) {
 
-                }
+                clusters.add( new UniqueSet<>() );
 
             }
 
-        }
+            Set<Vertex<V>> cluster = clusters.get( clusterNumbers[v] );
+            cluster.add( graph.getVertex( v ) );
+            directory.put( graph.getVertex( v ), cluster );
 
-        // We now have a directory of which cluster each vertex is in.
-        // Since we ensured that no pair of vertices that are connected by an arc are ever in different clusters,
-        // we know for an absolute fact that we have correctly partitioned the graph into unconnected clusters that
-        // each only contain vertices which are somehow connected.
+        }
 
         // We're going to return the directory.
         // The caller can turn it into a collection of clusters by just calling {@link Map#values} on the map.
@@ -365,27 +253,6 @@ public class GraphTheoryUtilities {
         }
     }
 
-    private static <V extends Comparable<V>> void initializeMaps(
-            final Collection<DirectedArc<V>> directedArcs,
-            final Map<V, Set<V>> dependencies,
-            final Map<V, Vertex<V>> allVertices
-    ) {
-
-        for ( DirectedArc<V> a : directedArcs ) {
-
-            allVertices.put( a.getSrc().getV(), a.getSrc() );
-            allVertices.put( a.getDst().getV(), a.getDst() );
-            if ( !dependencies.containsKey( a.getSrc().getV() ) ) {
-
-                dependencies.put( a.getSrc().getV(), new HashSet<>() );
-
-            }
-
-            dependencies.get( a.getSrc().getV() ).add( a.getDst().getV() );
-
-        }
-    }
-
     /**
      Try to find a loop in a directed graph which includes a specified vertex.
      @param directedArcs the directedArcs in the graph.
@@ -405,33 +272,43 @@ public class GraphTheoryUtilities {
             @NotNull Vertex<V> vertex
     ) {
 
-        Map<V,Set<V>> dependencies = new HashMap<>();
-        Map<V,Vertex<V>> allVertices = new HashMap<>();
+        CompactDirectedGraph<Vertex<V>> graph = CompactDirectedGraph.fromEdges( directedArcs );
+        int id = graph.getVertexId( vertex );
+        if ( id < 0 ) {
 
-        initializeMaps( directedArcs, dependencies, allVertices );
-
-        List<V> temporarilyMarkedNodes = new LinkedList<>();
-        Set<V> permanentlyMarkedNodes = new HashSet<>();
+            return Optional.empty();
 
-        List<Vertex<V>> sortedNodes = new LinkedList<>();
+        }
 
-        if ( topologicalSortVisitNode( vertex, temporarilyMarkedNodes, permanentlyMarkedNodes, sortedNodes, dependencies, allVertices ) ) {
+        return graph.findCycleThrough( id ).map( graph::getVertices );
 
-            return Optional.empty();
+    }
 
-        } else {
+    /**
+     Find the strongly connected components of a directed graph.
+     <p>Two vertices are in the same strongly connected component if and only if there is a path from each to the other.
+     Every loop in the graph lies entirely within one strongly connected component.</p>
+     @param directedArcs the directedArcs in the graph.
+     @param <V> the type of value used to name vertices.
+     @return the components in reverse topological order (no arc goes from a component to an earlier component).
+     */
 
-            List<Vertex<V>> rval = new ArrayList<>();
-            for ( V v : temporarilyMarkedNodes ) {
+    @NotNull
+    public static <V extends Comparable<V>> List<List<Vertex<V>>> findStronglyConnectedComponents(
+            @NotNull Collection<DirectedArc<V>> directedArcs
+    ) {
 
-                rval.add( allVertices.get(v) );
+        CompactDirectedGraph<Vertex<V>> graph = CompactDirectedGraph.fromEdges( directedArcs );
 
-            }
+        List<List<Vertex<V>>> rval = new ArrayList<>();
+        for ( int[] component : graph.stronglyConnectedComponents() ) {
 
-            return Optional.of( rval );
+            rval.add( graph.getVertices( component ) );
 
         }
 
+        return rval;
+
     }
 
     /**
@@ -446,9 +323,7 @@ public class GraphTheoryUtilities {
 
     public static <V extends Comparable<V>> boolean isGraphAcyclic( Collection<DirectedArc<V>> directedArcs ) {
 
-        Optional<List<Vertex<V>>> optSortedNodes = topologicalSort( directedArcs );
-
-        return optSortedNodes.isEmpty();
+        return CompactDirectedGraph.fromEdges( directedArcs ).isAcyclic();
 
     }
 
@@ -460,13 +335,13 @@ public class GraphTheoryUtilities {
         List<Vertex<V>> foundLoop = new ArrayList<>();
         Optional<List<Vertex<V>>> optResult = topologicalSort( arcsAsList, foundLoop );
 
-        if ( optResult.isPresent() && isGraphAcyclic( arcsAsList ) ) {
+        if ( optResult.isEmpty() && isGraphAcyclic( arcsAsList ) ) {
 
             Logger.logMsg( "found a loop but isGraphAcyclic claims that the graph is acyclic" );
 
             ObtuseUtil.doNothing();
 
-        } else if ( optResult.isEmpty() && !isGraphAcyclic( arcsAsList ) ) {
+        } else if ( optResult.isPresent() && !isGraphAcyclic( arcsAsList ) ) {
 
             Logger.logMsg( "did NOT find a loop but isGraphAcyclic claims that the graph is NOT acyclic" );
 
@@ -12,7 +12,7 @@ import java.awt.geom.CubicCurve2D;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
 
@@ -26,6 +26,8 @@ public class BezierCurveSequence extends AbstractCurveSequence {
 
     private double _cachedStrength = -1.0;
 
+    private CurveHierarchy _curveHierarchy = null;
+
     public static class PointOnCurve implements PointOnGraphicsElement {
 
         @SuppressWarnings("FieldCanBeLocal") private int _curveIndex;
@@ -54,6 +56,315 @@ public class BezierCurveSequence extends AbstractCurveSequence {
 
         }
 
+        public int getCurveIndex() {
+
+            return _curveIndex;
+
+        }
+
+    }
+
+    /**
+     A bounding volume hierarchy over the curves' control point bounding boxes.
+     <p/>
+     A cubic Bezier curve lies within the convex hull of its four control points (and therefore within their bounding box).
+     The distance from a point to a box is therefore a lower bound on the distance from the point to any curve in the box.
+     This lets {@link #findNearest} skip whole groups of curves without doing the (expensive) exact calculation on them.
+     <p/>
+     The nodes are stored in arrays in depth first order.
+     The left child of an interior node immediately follows it and the node records where its right child is.
+     */
+
+    private static final class CurveHierarchy {
+
+        private static final int LEAF_SIZE = 4;
+
+        private static final int MAX_DEPTH = 64;
+
+        private final List<CubicBezierCurve> _curves;
+
+        /**
+         Each curve's control point bounding box.
+         */
+
+        private final double[] _curveBounds;
+
+        /**
+         The curve indices, grouped so that each leaf's curves are contiguous.
+         */
+
+        private final int[] _order;
+
+        private final double[] _nodeBounds;
+
+        /**
+         For a leaf, where its curves start in {@link #_order}; -1 for an interior node.
+         */
+
+        private final int[] _first;
+
+        /**
+         For a leaf, how many curves it has; for an interior node, the index of its right child.
+         */
+
+        private final int[] _countOrRight;
+
+        private int _nodeCount = 0;
+
+        private CurveHierarchy( final List<CubicBezierCurve> curves ) {
+
+            super();
+
+            _curves = curves;
+
+            int n = curves.size();
+            _curveBounds = new double[4 * n];
+            double[] centres = new double[2 * n];
+            _order = new int[n];
+            for ( int ix = 0; ix < n; ix += 1 ) {
+
+                Rectangle2D bounds = curves.get( ix ).getBounds2D();
+                _curveBounds[4 * ix] = bounds.getMinX();
+                _curveBounds[4 * ix + 1] = bounds.getMinY();
+                _curveBounds[4 * ix + 2] = bounds.getMaxX();
+                _curveBounds[4 * ix + 3] = bounds.getMaxY();
+                centres[2 * ix] = bounds.getCenterX();
+                centres[2 * ix + 1] = bounds.getCenterY();
+                _order[ix] = ix;
+
+            }
+
+            // Every leaf has at least one curve so there are fewer than 2n nodes.
+
+            int maxNodes = Math.max( 1, 2 * n );
+            _nodeBounds = new double[4 * maxNodes];
+            _first = new int[maxNodes];
+            _countOrRight = new int[maxNodes];
+
+            build( 0, n, centres );
+
+        }
+
+        /**
+         Build the subtree for the curves in {@code _order[lo..hi)}.
+         @return the subtree's root node.
+         */
+
+        private int build( final int lo, final int hi, final double[] centres ) {
+
+            int node = _nodeCount;
+            _nodeCount += 1;
+
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            double minCX = Double.POSITIVE_INFINITY;
+            double minCY = Double.POSITIVE_INFINITY;
+            double maxCX = Double.NEGATIVE_INFINITY;
+            double maxCY = Double.NEGATIVE_INFINITY;
+            for ( int ix = lo; ix < hi; ix += 1 ) {
+
+                int curve = _order[ix];
+                minX = Math.min( minX, _curveBounds[4 * curve] );
+                minY = Math.min( minY, _curveBounds[4 * curve + 1] );
+                maxX = Math.max( maxX, _curveBounds[4 * curve + 2] );
+                maxY = Math.max( maxY, _curveBounds[4 * curve + 3] );
+                minCX = Math.min( minCX, centres[2 * curve] );
+                minCY = Math.min( minCY, centres[2 * curve + 1] );
+                maxCX = Math.max( maxCX, centres[2 * curve] );
+                maxCY = Math.max( maxCY, centres[2 * curve + 1] );
+
+            }
+
+            _nodeBounds[4 * node] = minX;
+            _nodeBounds[4 * node + 1] = minY;
+            _nodeBounds[4 * node + 2] = maxX;
+            _nodeBounds[4 * node + 3] = maxY;
+
+            if ( hi - lo <= LEAF_SIZE ) {
+
+                _first[node] = lo;
+                _countOrRight[node] = hi - lo;
+
+                return node;
+
+            }
+
+            // Split at the median centre along whichever axis the centres are more spread out on.
+
+            int axis = maxCX - minCX >= maxCY - minCY ? 0 : 1;
+            int mid = ( lo + hi ) >>> 1;
+            select( lo, hi - 1, mid, centres, axis );
+
+            _first[node] = -1;
+            build( lo, mid, centres );
+            _countOrRight[node] = build( mid, hi, centres );
+
+            return node;
+
+        }
+
+        /**
+         Rearrange {@code _order[lo..hi]} so that the curve whose centre is k-th along an axis is at position k,
+         with the curves before it not after it along the axis and the curves after it not before it (Hoare's quickselect).
+         */
+
+        private void select( final int lo, final int hi, final int k, final double[] centres, final int axis ) {
+
+            int left = lo;
+            int right = hi;
+            while ( left < right ) {
+
+                double pivot = centres[2 * _order[( left + right ) >>> 1] + axis];
+                int i = left;
+                int j = right;
+                while ( i <= j ) {
+
+                    while ( centres[2 * _order[i] + axis] < pivot ) {
+
+                        i += 1;
+
+                    }
+
+                    while ( centres[2 * _order[j] + axis] > pivot ) {
+
+                        j -= 1;
+
+                    }
+
+                    if ( i <= j ) {
+
+                        int tmp = _order[i];
+                        _order[i] = _order[j];
+                        _order[j] = tmp;
+                        i += 1;
+                        j -= 1;
+
+                    }
+
+                }
+
+                if ( k <= j ) {
+
+                    right = j;
+
+                } else if ( k >= i ) {
+
+                    left = i;
+
+                } else {
+
+                    return;
+
+                }
+
+            }
+
+        }
+
+        private static double boxDistanceSq( final double[] bounds, final int ix, final double x, final double y ) {
+
+            double dx = Math.max( Math.max( bounds[4 * ix] - x, x - bounds[4 * ix + 2] ), 0.0 );
+            double dy = Math.max( Math.max( bounds[4 * ix + 1] - y, y - bounds[4 * ix + 3] ), 0.0 );
+
+            return dx * dx + dy * dy;
+
+        }
+
+        /**
+         Find the nearest point on any of the curves.
+         <p/>The result is the same as trying every curve in order and keeping the first one which is strictly closer than the ones before it.
+         @param p the point.
+         @param hintIndex a curve which is likely to be close to the point (for example, the answer for a nearby point) or -1.
+         Trying it first means that more of the hierarchy can be skipped.
+         @return the nearest point or {@code null} if there are no curves.
+         */
+
+        private PointOnCurve findNearest( final Point2D p, final int hintIndex ) {
+
+            if ( _curves.isEmpty() ) {
+
+                return null;
+
+            }
+
+            double x = p.getX();
+            double y = p.getY();
+
+            int bestIndex = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            Point2D bestPoint = null;
+
+            if ( hintIndex >= 0 && hintIndex < _curves.size() ) {
+
+                bestPoint = new Point2D.Float();
+                bestDistance = NearestPoint.onCurve( _curves.get( hintIndex ), p, bestPoint );
+                bestIndex = hintIndex;
+
+            }
+
+            int[] stack = new int[MAX_DEPTH];
+            int stackSize = 0;
+            stack[stackSize++] = 0;
+            while ( stackSize > 0 ) {
+
+                int node = stack[--stackSize];
+                if ( boxDistanceSq( _nodeBounds, node, x, y ) > bestDistance ) {
+
+                    continue;
+
+                }
+
+                if ( _first[node] >= 0 ) {
+
+                    for ( int ix = _first[node]; ix < _first[node] + _countOrRight[node]; ix += 1 ) {
+
+                        int curve = _order[ix];
+                        if ( curve == hintIndex || boxDistanceSq( _curveBounds, curve, x, y ) > bestDistance ) {
+
+                            continue;
+
+                        }
+
+                        Point2D np = new Point2D.Float();
+                        double distance = NearestPoint.onCurve( _curves.get( curve ), p, np );
+                        if ( distance < bestDistance || ( distance == bestDistance && curve < bestIndex ) ) {
+
+                            bestIndex = curve;
+                            bestDistance = distance;
+                            bestPoint = np;
+
+                        }
+
+                    }
+
+                } else {
+
+                    // Visit the nearer child first (it goes on the stack last).
+
+                    int left = node + 1;
+                    int right = _countOrRight[node];
+                    if ( boxDistanceSq( _nodeBounds, left, x, y ) <= boxDistanceSq( _nodeBounds, right, x, y ) ) {
+
+                        stack[stackSize++] = right;
+                        stack[stackSize++] = left;
+
+                    } else {
+
+                        stack[stackSize++] = left;
+                        stack[stackSize++] = right;
+
+                    }
+
+                }
+
+            }
+
+            return new PointOnCurve( _curves.get( bestIndex ), bestIndex, bestPoint );
+
+        }
+
     }
 
     /**
@@ -73,6 +384,7 @@ public class BezierCurveSequence extends AbstractCurveSequence {
         _curvesPath = null;
         _controlsPath = null;
         _cachedStrength = -1.0;
+        _curveHierarchy = null;
 
     }
 
@@ -105,28 +417,63 @@ public class BezierCurveSequence extends AbstractCurveSequence {
 
     }
 
+    /**
+     Get the bounding volume hierarchy over the curves (building it if necessary).
+     */
+
+    private CurveHierarchy getCurveHierarchy() {
+
+        getCubicCurves();
+
+        if ( _curveHierarchy == null ) {
+
+            _curveHierarchy = new CurveHierarchy( _curves );
+
+        }
+
+        return _curveHierarchy;
+
+    }
+
     /**
      Find the nearest point on one of the curves and return both the point and the curve.
+     <p/>
+     Only the curves whose control point bounding boxes are closer than the best curve found so far are looked at closely.
+     The hierarchy of bounding boxes that makes this possible is built on the first call and kept until the curves change.
 
      @param p the point from which we must find the shortest line to the curve from.
      @return the closest point to p (null if the curve sequence is empty).
+     If more than one curve is equally close then the first of them is used.
      */
 
     public PointOnCurve findNearestPoint( final Point2D p ) {
 
-        getCubicCurves();
+        return getCurveHierarchy().findNearest( p, -1 );
 
-        PointOnCurve rval = null;
-        double bestDistance = -1.0;
-        for ( int i = 0; i < _curves.size(); i += 1 ) {
+    }
 
-            Point2D np = new Point2D.Float();
-            double distance = NearestPoint.onCurve( _curves.get( i ), p, np );
+    /**
+     Find the nearest point on the curves to each of several points.
+     <p/>
+     This is faster than calling {@link #findNearestPoint(Point2D)} for each point when consecutive points are close together
+     (for example, the points along a mouse drag) since each point's search starts with the curve that was nearest to the previous point.
+
+     @param points the points.
+     @return an array containing the closest point to each of the points (all nulls if the curve sequence is empty).
+     */
+
+    public PointOnCurve[] findNearestPoints( final Point2D[] points ) {
+
+        CurveHierarchy curveHierarchy = getCurveHierarchy();
+
+        PointOnCurve[] rval = new PointOnCurve[points.length];
+        int hintIndex = -1;
+        for ( int ix = 0; ix < points.length; ix += 1 ) {
 
-            if ( bestDistance < 0.0 || distance < bestDistance ) {
+            rval[ix] = curveHierarchy.findNearest( points[ix], hintIndex );
+            if ( rval[ix] != null ) {
 
-                rval = new PointOnCurve( _curves.get( i ), i, np );
-                bestDistance = distance;
+                hintIndex = rval[ix].getCurveIndex();
 
             }
 
@@ -200,7 +547,8 @@ public class BezierCurveSequence extends AbstractCurveSequence {
 
         }
 
-        _curves = new LinkedList<>();
+        _curves = new ArrayList<>();
+        _curveHierarchy = null;
 
         _curvesPath = new GeneralPath();
         _controlsPath = new GeneralPath();
@@ -40,6 +40,14 @@ public class IndexCardBox<E extends SelectableIndexCard> extends AbstractScrolla
 
     private final Consumer<IndexCardBox<E>> _doubleClickOnImageConsumer;
 
+    /**
+     Where each of our components is in our list of components (see {@link #getComponentIx(SelectableIndexCard)}).
+     <p/>Appending or removing the last component keeps this up to date.
+     Any other change sets it to {@code null} and it is rebuilt the next time that it is needed.
+     */
+
+    private Map<Component, Integer> _componentIndices;
+
     public IndexCardBox( final String name, final LinearOrientation linearOrientation, final @NotNull Consumer<IndexCardBox<E>> doubleClickOnImageConsumer ) {
 
         super( name, linearOrientation );
@@ -50,17 +58,25 @@ public class IndexCardBox<E extends SelectableIndexCard> extends AbstractScrolla
 
         _selectionModel.addListSelectionListener(
                 e -> {
-                    SortedSet<Integer> selectedIndices = new TreeSet<>();
-                    for ( int ix = _selectionModel.getMinSelectionIndex(); ix <= _selectionModel.getMaxSelectionIndex(); ix += 1 ) {
-                        if ( _selectionModel.isSelectedIndex( ix ) ) {
-                            selectedIndices.add( ix );
-                        }
+
+                    // Wait for the last event of a series of adjustments.
+                    // It covers every index that changed during the series so each card is told about its final state once.
+
+                    if ( e.getValueIsAdjusting() ) {
+
+                        return;
+
                     }
 
-                    Logger.logMsg( "IndexCardBox:  selection changed:  " + Arrays.toString( selectedIndices.toArray() ) );
+                    // The event tells us which range of indices might have changed so only the cards in that range need to be told.
+
                     int size = getComponentCount();
+                    int first = Math.max( 0, e.getFirstIndex() );
+                    int last = Math.min( size - 1, e.getLastIndex() );
 
-                    for ( int ix = 0; ix < size; ix += 1 ) {
+                    Logger.logMsg( "IndexCardBox:  selection changed in [" + e.getFirstIndex() + "," + e.getLastIndex() + "]" );
+
+                    for ( int ix = first; ix <= last; ix += 1 ) {
 
                         Component c = getComponent( ix );
 
@@ -68,7 +84,12 @@ public class IndexCardBox<E extends SelectableIndexCard> extends AbstractScrolla
 
                             SelectableIndexCard indexCard = (SelectableIndexCard)c;
 
-                            indexCard.setSelected( selectedIndices.contains( ix ) );
+                            boolean isSelected = _selectionModel.isSelectedIndex( ix );
+                            if ( indexCard.isSelected() != isSelected ) {
+
+                                indexCard.setSelected( isSelected );
+
+                            }
 
                         }
 
@@ -184,21 +205,106 @@ public class IndexCardBox<E extends SelectableIndexCard> extends AbstractScrolla
 
     }
 
+    /**
+     Find a card in this box.
+     <p/>This takes constant time (except for the first call after a component has been inserted before or removed from before the end of the box,
+     or the components have been reordered).
+     @param indexCard the card.
+     @return the card's index or -1 if it isn't in this box.
+     */
+
     public int getComponentIx( final SelectableIndexCard indexCard ) {
 
-        for ( int ix = 0; ix < getModelSize(); ix += 1 ) {
+        Integer ix = getComponentIndices().get( indexCard );
+
+        return ix == null ? -1 : ix;
+
+    }
+
+    @NotNull
+    private Map<Component, Integer> getComponentIndices() {
+
+        if ( _componentIndices == null ) {
+
+            Component[] components = getComponents();
+            Map<Component, Integer> componentIndices = new IdentityHashMap<>( components.length );
+            for ( int ix = 0; ix < components.length; ix += 1 ) {
+
+                componentIndices.put( components[ix], ix );
+
+            }
+
+            _componentIndices = componentIndices;
+
+        }
+
+        return _componentIndices;
+
+    }
+
+    @Override
+    protected void addImpl( final Component comp, final Object constraints, final int index ) {
+
+        super.addImpl( comp, constraints, index );
+
+        if ( _componentIndices != null ) {
+
+            int lastIx = getComponentCount() - 1;
+            if ( lastIx >= 0 && getComponent( lastIx ) == comp ) {
+
+                _componentIndices.put( comp, lastIx );
 
-            Component c = getComponent( ix );
+            } else {
 
-            if ( indexCard == c ) {
+                // It went somewhere other than the end so everything after it moved.
 
-                return ix;
+                _componentIndices = null;
 
             }
 
         }
 
-        return -1;
+    }
+
+    @Override
+    public void remove( final int index ) {
+
+        Component comp = index >= 0 && index < getComponentCount() ? getComponent( index ) : null;
+        boolean wasLast = index == getComponentCount() - 1;
+
+        super.remove( index );
+
+        if ( _componentIndices != null ) {
+
+            if ( wasLast && comp != null ) {
+
+                _componentIndices.remove( comp );
+
+            } else {
+
+                _componentIndices = null;
+
+            }
+
+        }
+
+    }
+
+    @Override
+    public void removeAll() {
+
+        super.removeAll();
+
+        _componentIndices = null;
+
+    }
+
+    @Override
+    public void setComponentZOrder( final Component comp, final int index ) {
+
+        super.setComponentZOrder( comp, index );
+
+        _componentIndices = null;
 
     }
 
@@ -679,17 +785,152 @@ public class IndexCardBox<E extends SelectableIndexCard> extends AbstractScrolla
 
     public void setSelectedIndices( final int@NotNull[] indices ) {
 
+        changeSelection( indices, true, true );
+
+    }
+
+    /**
+     Change the selection using runs of consecutive indices.
+     <p/>Each run of consecutive indices is one call to the selection model.
+     The changes are made with the selection model's {@code valueIsAdjusting} property set to {@code true}
+     so selection listeners get an event with {@link ListSelectionEvent#getValueIsAdjusting()} {@code true} for each change
+     and then one event with it {@code false} which covers the whole change.
+     The cards in this box (and any listener which ignores adjusting events) only hear about that last event.
+     @param indices the indices (in any order; any which are out of range are ignored).
+     @param clearFirst {@code true} if the selection should be cleared first.
+     @param select {@code true} if the indices are to be selected; {@code false} if they are to be deselected.
+     */
+
+    private void changeSelection( final int@NotNull[] indices, final boolean clearFirst, final boolean select ) {
+
+        int[] sorted = indices.clone();
+        Arrays.sort( sorted );
+
         ListSelectionModel sm = getSelectionModel();
-        sm.clearSelection();
         int size = getModelSize();
-        for ( int i : indices ) {
+        boolean wasAdjusting = sm.getValueIsAdjusting();
+        sm.setValueIsAdjusting( true );
+        try {
 
-            if ( i < size ) {
+            if ( clearFirst ) {
 
-                sm.addSelectionInterval( i, i );
+                sm.clearSelection();
 
             }
 
+            int ix = 0;
+            while ( ix < sorted.length ) {
+
+                int runStart = sorted[ix];
+                int runEnd = runStart;
+                ix += 1;
+                while ( ix < sorted.length && sorted[ix] <= runEnd + 1 ) {
+
+                    runEnd = sorted[ix];
+                    ix += 1;
+
+                }
+
+                runStart = Math.max( runStart, 0 );
+                runEnd = Math.min( runEnd, size - 1 );
+                if ( runStart <= runEnd ) {
+
+                    if ( select ) {
+
+                        sm.addSelectionInterval( runStart, runEnd );
+
+                    } else {
+
+                        sm.removeSelectionInterval( runStart, runEnd );
+
+                    }
+
+                }
+
+            }
+
+        } finally {
+
+            sm.setValueIsAdjusting( wasAdjusting );
+
+        }
+
+    }
+
+    /**
+     Find the indices of some cards in this box.
+     @param cards the cards.
+     @return the indices of those of the cards which are in this box.
+     */
+
+    @NotNull
+    private int[] getComponentIndices( final @NotNull Collection<? extends SelectableIndexCard> cards ) {
+
+        Map<Component, Integer> componentIndices = getComponentIndices();
+        int[] indices = new int[cards.size()];
+        int count = 0;
+        for ( SelectableIndexCard card : cards ) {
+
+            Integer ix = componentIndices.get( card );
+            if ( ix != null ) {
+
+                indices[count] = ix;
+                count += 1;
+
+            }
+
+        }
+
+        return Arrays.copyOf( indices, count );
+
+    }
+
+    /**
+     Select exactly the specified cards (any which are not in this box are ignored).
+     <p/>The cards are found via an identity map and selected in runs of consecutive indices
+     so the cost depends on how many cards are specified rather than on how many cards are in this box.
+     @param cards the cards to select.
+     */
+
+    public void setSelectedValues( final @NotNull Collection<? extends SelectableIndexCard> cards ) {
+
+        changeSelection( getComponentIndices( cards ), true, true );
+
+    }
+
+    /**
+     Add the specified cards to the selection (any which are not in this box are ignored).
+     @param cards the cards to select.
+     */
+
+    public void addSelectedValues( final @NotNull Collection<? extends SelectableIndexCard> cards ) {
+
+        changeSelection( getComponentIndices( cards ), false, true );
+
+    }
+
+    /**
+     Remove the specified cards from the selection (any which are not in this box are ignored).
+     @param cards the cards to deselect.
+     */
+
+    public void removeSelectedValues( final @NotNull Collection<? extends SelectableIndexCard> cards ) {
+
+        changeSelection( getComponentIndices( cards ), false, false );
+
+    }
+
+    /**
+     Select every card in this box.
+     */
+
+    public void selectAll() {
+
+        int size = getModelSize();
+        if ( size > 0 ) {
+
+            getSelectionModel().setSelectionInterval( 0, size - 1 );
+
         }
 
     }
@@ -744,6 +985,24 @@ public class IndexCardBox<E extends SelectableIndexCard> extends AbstractScrolla
 
         } else if ( !anObject.equals( getSelectedValue() ) ) {
 
+            // Try the identity map first (which is almost always what finds it).
+
+            Integer ix = anObject instanceof Component ? getComponentIndices().get( anObject ) : null;
+            if ( ix != null && anObject.equals( getModelElementAt( ix ) ) ) {
+
+                setSelectedIndex( ix );
+                if ( shouldScroll ) {
+
+                    ensureIndexIsVisible( ix );
+
+                }
+
+                repaint();  // FIX-ME setSelectedIndex does not redraw all the time with the basic l&f
+
+                return;
+
+            }
+
             int i, c;
 
             for ( i = 0, c = getModelSize(); i < c; i++ ) {
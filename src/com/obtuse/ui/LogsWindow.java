@@ -77,7 +77,15 @@ public class LogsWindow extends WindowWithMenus {
 
     private JButton _closeButton;
 
-    private final DefaultListModel _messagesListModel = new DefaultListModel();
+    private final SearchableLinesListModel _messagesListModel = new SearchableLinesListModel( LogsWindow.MAX_LINES_IN_MESSAGE_WINDOW );
+
+    /**
+     The length of the longest line that we've displayed (which determines how wide the list's cells are).
+     */
+
+    private int _longestLineLength = 0;
+
+    private int _charWidth = 0;
 
     private static final Long WINDOW_LOCK = 0L;
 
@@ -87,10 +95,16 @@ public class LogsWindow extends WindowWithMenus {
     private static boolean s_useHTML = false;
 
     private static final List<TimestampedMessage> s_asyncMessages = new ArrayList<>();
-    private static Runnable s_backgroundMessageProcessor = null;
+    private static Timer s_batchTimer = null;
 
     public static final int MAX_LINES_IN_MESSAGE_WINDOW = 1000;
 
+    /**
+     How long a message waits before it is added to the window along with any other messages that arrived in the meantime.
+     */
+
+    public static final int BATCH_INTERVAL_MILLIS = 100;
+
     @SuppressWarnings("CanBeFinal")
     private Clipboard _systemClipboard;
 
@@ -133,6 +147,18 @@ public class LogsWindow extends WindowWithMenus {
         );
 
         _messageWindowList.setModel( _messagesListModel );
+
+        // Draw the lines as plain text in a monospaced font.
+        // Fixed cell sizes mean that the list doesn't need to measure every cell whenever lines arrive.
+
+        Font font = new Font( Font.MONOSPACED, Font.PLAIN, _messageWindowList.getFont().getSize() );
+        FontMetrics fontMetrics = _messageWindowList.getFontMetrics( font );
+        DefaultListCellRenderer renderer = new DefaultListCellRenderer();
+        renderer.putClientProperty( "html.disable", Boolean.TRUE );
+        _messageWindowList.setCellRenderer( renderer );
+        _messageWindowList.setFont( font );
+        _messageWindowList.setFixedCellHeight( fontMetrics.getHeight() + 2 );
+        _charWidth = fontMetrics.charWidth( 'm' );
         _messageWindowList.setSelectionMode( ListSelectionModel.SINGLE_INTERVAL_SELECTION );
         _messageWindowList.addListSelectionListener(
                 listSelectionEvent -> {
@@ -194,34 +220,43 @@ public class LogsWindow extends WindowWithMenus {
 
     private static void processAsyncMessages() {
 
-        synchronized ( s_asyncMessages ) {
+        if ( !SwingUtilities.isEventDispatchThread() ) {
 
-            if ( SwingUtilities.isEventDispatchThread() ) {
+            throw new HowDidWeGetHereError( "LogsWindow.processAsyncMessages:  must be called on event thread" );
 
-                for ( TimestampedMessage msg : s_asyncMessages ) {
+        }
 
-                    try {
+        // Only the event thread takes messages off the queue so they still go into the window in the order that they were queued.
 
-                        LogsWindow.getInstance()
-                                  .insertMessageAtEnd( msg.format() );
+        List<TimestampedMessage> batch;
+        synchronized ( s_asyncMessages ) {
 
-                    } catch ( RuntimeException e ) {
+            batch = new ArrayList<>( s_asyncMessages );
+            s_asyncMessages.clear();
 
-                        Logger.logErr( "unable to insert message " + msg + " into log messages", e );
+        }
 
-                    }
+        if ( batch.isEmpty() ) {
 
-                }
+            return;
 
-                s_asyncMessages.clear();
+        }
 
-            } else {
+        List<String> lines = new ArrayList<>( batch.size() );
+        for ( TimestampedMessage msg : batch ) {
 
-                throw new HowDidWeGetHereError( "LogsWindow.processAsyncMessages:  must be called on event thread" );
+            lines.add( msg.format() );
 
-            }
+        }
+
+        try {
+
+            LogsWindow.getInstance()
+                      .insertMessagesAtEnd( lines );
 
-            s_backgroundMessageProcessor = null;
+        } catch ( RuntimeException e ) {
+
+            Logger.logErr( "unable to insert " + lines.size() + " messages into log messages", e );
 
         }
 
@@ -229,7 +264,8 @@ public class LogsWindow extends WindowWithMenus {
 
     /**
      Timestamp and queue a message.
-     <p>Messages are guaranteed to appear in the log window in the order in which this method timestamps them.</p>
+     <p>Messages are guaranteed to appear in the log window in the order in which this method timestamps them.
+     Queued messages are added to the window in batches at most every {@link #BATCH_INTERVAL_MILLIS} milliseconds.</p>
      @param msg the message.
      */
 
@@ -241,15 +277,16 @@ public class LogsWindow extends WindowWithMenus {
 
             s_asyncMessages.add( timestampedMessage );
 
-            if ( SwingUtilities.isEventDispatchThread() ) {
+            if ( s_batchTimer == null ) {
 
-                processAsyncMessages();
+                s_batchTimer = new Timer( LogsWindow.BATCH_INTERVAL_MILLIS, actionEvent -> processAsyncMessages() );
+                s_batchTimer.setRepeats( false );
 
-            } else if ( s_backgroundMessageProcessor == null ) {
+            }
 
-                s_backgroundMessageProcessor = () -> processAsyncMessages();
+            if ( !s_batchTimer.isRunning() ) {
 
-                SwingUtilities.invokeLater( s_backgroundMessageProcessor );
+                s_batchTimer.start();
 
             }
 
@@ -307,33 +344,31 @@ public class LogsWindow extends WindowWithMenus {
 
     }
 
-    private void insertMessageAtEnd( final String timeStampedMessage ) {
-
-        int listSize = _messagesListModel.getSize();
-        if ( listSize >= LogsWindow.MAX_LINES_IN_MESSAGE_WINDOW ) {
+    private void insertMessagesAtEnd( final @NotNull List<String> timeStampedMessages ) {
 
-            _messagesListModel.remove( 0 );
-            listSize -= 1;
+        // Follow the new lines if the last line is currently visible.
 
-        }
+        boolean atEnd = _messageWindowList.getLastVisibleIndex() == _messagesListModel.getSize() - 1;
 
-        int lastVisibleIx = _messageWindowList.getLastVisibleIndex();
+        int longestLineLength = _longestLineLength;
+        for ( String line : timeStampedMessages ) {
 
-        if ( LogsWindow.s_useHTML ) {
+            longestLineLength = Math.max( longestLineLength, line.length() );
 
-            //noinspection unchecked
-            _messagesListModel.addElement( "<html><tt>" + ObtuseUtil.htmlEscape( timeStampedMessage ) + "</tt></html>" );
+        }
 
-        } else {
+        if ( longestLineLength > _longestLineLength ) {
 
-            //noinspection unchecked
-            _messagesListModel.addElement( timeStampedMessage );
+            _longestLineLength = longestLineLength;
+            _messageWindowList.setFixedCellWidth( _charWidth * longestLineLength + 8 );
 
         }
 
-        if ( lastVisibleIx + 1 == listSize ) {
+        _messagesListModel.addAll( timeStampedMessages );
+
+        if ( atEnd ) {
 
-            _messageWindowList.ensureIndexIsVisible( lastVisibleIx + 1 );
+            _messageWindowList.ensureIndexIsVisible( _messagesListModel.getSize() - 1 );
 
         }
 
@@ -346,6 +381,53 @@ public class LogsWindow extends WindowWithMenus {
 
     }
 
+    /**
+     Find the log messages which contain all of the words in a query (see {@link SearchableLinesListModel#findLinesWithWords(String)}).
+     @param query the query.
+     @return the matching messages, oldest first.
+     */
+
+    @NotNull
+    public List<String> findMessagesWithWords( final @NotNull String query ) {
+
+        List<String> rval = new ArrayList<>();
+        for ( int index : _messagesListModel.findLinesWithWords( query ) ) {
+
+            rval.add( _messagesListModel.getElementAt( index ) );
+
+        }
+
+        return rval;
+
+    }
+
+    /**
+     Select and scroll to the next log message after the current selection which contains all of the words in a query.
+     @param query the query.
+     @return {@code true} if a message was found; {@code false} otherwise.
+     */
+
+    public boolean selectNextMessageWithWords( final @NotNull String query ) {
+
+        int index = _messagesListModel.findNextLineWithWords( query, _messageWindowList.getMaxSelectionIndex() );
+        if ( index < 0 ) {
+
+            return false;
+
+        }
+
+        _messageWindowList.setSelectedIndex( index );
+        _messageWindowList.ensureIndexIsVisible( index );
+
+        return true;
+
+    }
+
+    /**
+     @deprecated messages are always drawn as plain text in a monospaced font (which is what the HTML was for).
+     */
+
+    @Deprecated
     @SuppressWarnings({ "UnusedDeclaration" })
     public void setUseHTML( final boolean useHTML ) {
 
@@ -417,7 +499,7 @@ public class LogsWindow extends WindowWithMenus {
 
                         _messageWindowList.getSelectionModel().setSelectionInterval(
                                 0,
-                                _messagesListModel.size() - 1
+                                _messagesListModel.getSize() - 1
                         );
 
                     }
@@ -0,0 +1,290 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.ui;
+
+import com.obtuse.util.ObtuseUtil;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ A {@link ListModel} which holds at most a fixed number of elements in a circular buffer.
+ <p/>
+ Appending to a full model discards the oldest elements.
+ Unlike {@link DefaultListModel#remove(int)}, this doesn't shift the remaining elements
+ (each append and each discard takes constant time no matter how big the model is).
+ {@link #addAll(Collection)} appends a whole batch of elements and tells the listeners about it with at most one
+ {@link javax.swing.event.ListDataEvent#INTERVAL_REMOVED} event and one {@link javax.swing.event.ListDataEvent#INTERVAL_ADDED} event.
+ <p/>
+ Each element is given a sequence number when it is appended (0 for the first element ever appended, 1 for the next one, etc).
+ Sequence numbers are not reused so they can be used to refer to an element after older elements have been discarded.
+ <p/>
+ Like Swing's other models, instances of this class should only be used on the event dispatch thread.
+ */
+
+public class RingBufferListModel<E> extends AbstractListModel<E> {
+
+    private static final long serialVersionUID = 4873115920462751893L;
+
+    private final Object[] _elements;
+
+    /**
+     Where the element at index 0 lives in {@link #_elements}.
+     */
+
+    private int _head = 0;
+
+    private int _size = 0;
+
+    /**
+     The sequence number of the element at index 0.
+     */
+
+    private long _firstSequenceNumber = 0L;
+
+    /**
+     Create an empty model.
+     @param capacity the most elements that the model holds at once.
+     @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+
+    public RingBufferListModel( final int capacity ) {
+
+        super();
+
+        if ( capacity <= 0 ) {
+
+            throw new IllegalArgumentException( "RingBufferListModel:  capacity must be positive (is " + capacity + ")" );
+
+        }
+
+        _elements = new Object[capacity];
+
+    }
+
+    public int getCapacity() {
+
+        return _elements.length;
+
+    }
+
+    @Override
+    public int getSize() {
+
+        return _size;
+
+    }
+
+    @Override
+    public E getElementAt( final int index ) {
+
+        if ( index < 0 || index >= _size ) {
+
+            throw new ArrayIndexOutOfBoundsException( "RingBufferListModel.getElementAt:  index " + index + " is not in [0," + _size + ")" );
+
+        }
+
+        return elementAt( index );
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt( final int index ) {
+
+        return (E)_elements[( _head + index ) % _elements.length];
+
+    }
+
+    /**
+     Get the sequence number of the element at a specified index.
+     */
+
+    public long getSequenceNumber( final int index ) {
+
+        if ( index < 0 || index >= _size ) {
+
+            throw new ArrayIndexOutOfBoundsException( "RingBufferListModel.getSequenceNumber:  index " + index + " is not in [0," + _size + ")" );
+
+        }
+
+        return _firstSequenceNumber + index;
+
+    }
+
+    /**
+     Get the current index of the element with a specified sequence number.
+     @param sequenceNumber the sequence number.
+     @return the element's index or -1 if the element has been discarded (or hasn't been appended yet).
+     */
+
+    public int getIndex( final long sequenceNumber ) {
+
+        long index = sequenceNumber - _firstSequenceNumber;
+
+        return index < 0 || index >= _size ? -1 : (int)index;
+
+    }
+
+    /**
+     Append one element, discarding the oldest element if the model is full.
+     */
+
+    public void add( final E element ) {
+
+        List<E> batch = new ArrayList<>( 1 );
+        batch.add( element );
+        addAll( batch );
+
+    }
+
+    /**
+     Append a batch of elements, discarding as many of the oldest elements as necessary to make room for them.
+     <p/>If the batch is bigger than the model's capacity then only its newest elements are kept
+     (the others use up sequence numbers but are never seen by {@link #elementAdded(Object, long)} or {@link #elementDiscarded(Object, long)}).
+     @param batch the elements to append, oldest first.
+     */
+
+    public void addAll( final @NotNull Collection<? extends E> batch ) {
+
+        if ( batch.isEmpty() ) {
+
+            return;
+
+        }
+
+        int capacity = _elements.length;
+        int batchSize = batch.size();
+        int keep = Math.min( batchSize, capacity );
+        int discard = Math.max( 0, _size + keep - capacity );
+
+        // Elements of the batch which would be discarded right away are never stored.
+
+        int skip = batchSize - keep;
+        long sequenceNumber = _firstSequenceNumber + _size;
+        for ( int ix = 0; ix < discard; ix += 1 ) {
+
+            int slot = ( _head + ix ) % capacity;
+            @SuppressWarnings("unchecked") E discarded = (E)_elements[slot];
+            _elements[slot] = null;
+            elementDiscarded( discarded, _firstSequenceNumber + ix );
+
+        }
+
+        if ( discard > 0 ) {
+
+            _head = ( _head + discard ) % capacity;
+            _size -= discard;
+            _firstSequenceNumber += discard;
+            fireIntervalRemoved( this, 0, discard - 1 );
+
+        }
+
+        int firstNewIndex = _size;
+        for ( E element : batch ) {
+
+            if ( skip > 0 ) {
+
+                skip -= 1;
+
+            } else {
+
+                _elements[( _head + _size ) % capacity] = element;
+                _size += 1;
+                elementAdded( element, sequenceNumber );
+
+            }
+
+            sequenceNumber += 1;
+
+        }
+
+        // The skipped elements used up sequence numbers too.
+
+        _firstSequenceNumber += batchSize - keep;
+
+        fireIntervalAdded( this, firstNewIndex, _size - 1 );
+
+    }
+
+    /**
+     Discard every element.
+     */
+
+    public void clear() {
+
+        if ( _size == 0 ) {
+
+            return;
+
+        }
+
+        int oldSize = _size;
+        for ( int ix = 0; ix < oldSize; ix += 1 ) {
+
+            int slot = ( _head + ix ) % _elements.length;
+            @SuppressWarnings("unchecked") E discarded = (E)_elements[slot];
+            _elements[slot] = null;
+            elementDiscarded( discarded, _firstSequenceNumber + ix );
+
+        }
+
+        _head = 0;
+        _size = 0;
+        _firstSequenceNumber += oldSize;
+        fireIntervalRemoved( this, 0, oldSize - 1 );
+
+    }
+
+    /**
+     Get the elements, oldest first.
+     @return a new list containing the elements.
+     */
+
+    @NotNull
+    public List<E> toList() {
+
+        List<E> rval = new ArrayList<>( _size );
+        for ( int ix = 0; ix < _size; ix += 1 ) {
+
+            rval.add( elementAt( ix ) );
+
+        }
+
+        return rval;
+
+    }
+
+    /**
+     Called for each element as it is appended (before the listeners hear about it).
+     <p/>Elements are always added in sequence number order. This implementation does nothing.
+     */
+
+    protected void elementAdded( final E element, final long sequenceNumber ) {
+
+        ObtuseUtil.doNothing();
+
+    }
+
+    /**
+     Called for each element as it is discarded (before the listeners hear about it).
+     <p/>Elements are always discarded in sequence number order (oldest first). This implementation does nothing.
+     */
+
+    protected void elementDiscarded( final E element, final long sequenceNumber ) {
+
+        ObtuseUtil.doNothing();
+
+    }
+
+    public String toString() {
+
+        return "RingBufferListModel( size=" + _size + ", capacity=" + _elements.length + ", first=" + _firstSequenceNumber + " )";
+
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.ui;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ A {@link RingBufferListModel} of lines of text which keeps an index of the words in the lines that it holds.
+ <p/>
+ A word is a maximal run of letters and digits. Words are indexed and searched for without regard to case.
+ The index maps each word to the sequence numbers of the lines that contain it.
+ Since lines are discarded oldest first, discarding a line only ever removes the first entry of each of its words' lists.
+ <p/>
+ Like Swing's other models, instances of this class should only be used on the event dispatch thread.
+ */
+
+public class SearchableLinesListModel extends RingBufferListModel<String> {
+
+    private static final long serialVersionUID = -6201938475520817364L;
+
+    private final Map<String, ArrayDeque<Long>> _wordIndex = new HashMap<>();
+
+    public SearchableLinesListModel( final int capacity ) {
+
+        super( capacity );
+
+    }
+
+    /**
+     Split a string into lower case words.
+     @param line the string.
+     @return the words in the order that they appear (including any duplicates).
+     */
+
+    @NotNull
+    public static List<String> getWords( final @NotNull String line ) {
+
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for ( int ix = 0; ix <= line.length(); ix += 1 ) {
+
+            boolean inWord = ix < line.length() && Character.isLetterOrDigit( line.charAt( ix ) );
+            if ( inWord && start < 0 ) {
+
+                start = ix;
+
+            } else if ( !inWord && start >= 0 ) {
+
+                words.add( line.substring( start, ix ).toLowerCase( Locale.ROOT ) );
+                start = -1;
+
+            }
+
+        }
+
+        return words;
+
+    }
+
+    @Override
+    protected void elementAdded( final String line, final long sequenceNumber ) {
+
+        for ( String word : getWords( line ) ) {
+
+            ArrayDeque<Long> sequenceNumbers = _wordIndex.computeIfAbsent( word, k -> new ArrayDeque<>() );
+
+            // A word which appears more than once in a line is only indexed once.
+
+            Long last = sequenceNumbers.peekLast();
+            if ( last == null || last != sequenceNumber ) {
+
+                sequenceNumbers.addLast( sequenceNumber );
+
+            }
+
+        }
+
+    }
+
+    @Override
+    protected void elementDiscarded( final String line, final long sequenceNumber ) {
+
+        for ( String word : getWords( line ) ) {
+
+            ArrayDeque<Long> sequenceNumbers = _wordIndex.get( word );
+            if ( sequenceNumbers != null ) {
+
+                Long first = sequenceNumbers.peekFirst();
+                if ( first != null && first == sequenceNumber ) {
+
+                    sequenceNumbers.pollFirst();
+                    if ( sequenceNumbers.isEmpty() ) {
+
+                        _wordIndex.remove( word );
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     Find the lines which contain all of the words in a query.
+     <p/>This takes time proportional to the number of lines which contain the query's least common word
+     rather than to the number of lines in the model.
+     @param query the query (for example, {@code "disk full"}).
+     @return the indices of the matching lines in ascending order
+     (every line's index if the query doesn't contain any words).
+     */
+
+    @NotNull
+    public int[] findLinesWithWords( final @NotNull String query ) {
+
+        Set<String> queryWords = new HashSet<>( getWords( query ) );
+        if ( queryWords.isEmpty() ) {
+
+            int[] rval = new int[getSize()];
+            for ( int ix = 0; ix < rval.length; ix += 1 ) {
+
+                rval[ix] = ix;
+
+            }
+
+            return rval;
+
+        }
+
+        // Start with the least common word's lines.
+
+        ArrayDeque<Long> candidates = null;
+        for ( String word : queryWords ) {
+
+            ArrayDeque<Long> sequenceNumbers = _wordIndex.get( word );
+            if ( sequenceNumbers == null ) {
+
+                return new int[0];
+
+            }
+
+            if ( candidates == null || sequenceNumbers.size() < candidates.size() ) {
+
+                candidates = sequenceNumbers;
+
+            }
+
+        }
+
+        int[] matches = new int[candidates.size()];
+        int matchCount = 0;
+        for ( long sequenceNumber : candidates ) {
+
+            int index = getIndex( sequenceNumber );
+            if ( queryWords.size() == 1 || new HashSet<>( getWords( getElementAt( index ) ) ).containsAll( queryWords ) ) {
+
+                matches[matchCount] = index;
+                matchCount += 1;
+
+            }
+
+        }
+
+        return Arrays.copyOf( matches, matchCount );
+
+    }
+
+    /**
+     Find the lines which contain a string (without regard to case).
+     <p/>This looks at every line. Use {@link #findLinesWithWords(String)} when whole words are good enough.
+     @param text the string.
+     @return the indices of the matching lines in ascending order.
+     */
+
+    @NotNull
+    public int[] findLinesContaining( final @NotNull String text ) {
+
+        int[] matches = new int[getSize()];
+        int matchCount = 0;
+        for ( int index = 0; index < getSize(); index += 1 ) {
+
+            String line = getElementAt( index );
+            for ( int offset = 0; offset + text.length() <= line.length(); offset += 1 ) {
+
+                if ( line.regionMatches( true, offset, text, 0, text.length() ) ) {
+
+                    matches[matchCount] = index;
+                    matchCount += 1;
+                    break;
+
+                }
+
+            }
+
+        }
+
+        return Arrays.copyOf( matches, matchCount );
+
+    }
+
+    /**
+     Find the next line after a specified line which contains all of the words in a query, wrapping around to the start if necessary.
+     @param query the query.
+     @param afterIndex the specified line's index (-1 to start at the beginning).
+     @return the next matching line's index or -1 if no line matches.
+     */
+
+    public int findNextLineWithWords( final @NotNull String query, final int afterIndex ) {
+
+        int[] matches = findLinesWithWords( query );
+        if ( matches.length == 0 ) {
+
+            return -1;
+
+        }
+
+        for ( int match : matches ) {
+
+            if ( match > afterIndex ) {
+
+                return match;
+
+            }
+
+        }
+
+        return matches[0];
+
+    }
+
+    /**
+     Get the number of distinct words in the lines that this model holds.
+     */
+
+    public int getIndexedWordCount() {
+
+        return _wordIndex.size();
+
+    }
+
+    public String toString() {
+
+        return "SearchableLinesListModel( size=" + getSize() + ", capacity=" + getCapacity() + ", words=" + _wordIndex.size() + " )";
+
+    }
+
+}
@@ -11,7 +11,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.awt.Component;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 
 /**
  A model that manages the sorting of {@link SortableEntityReference} within a {@link SortedPanel}.
@@ -28,6 +30,62 @@ public class SortedPanelModel<K extends Comparable<K>, E extends SortableEntity>
 
     private SortedPanel<K,E> _owner = null;
 
+    private boolean _consistencyChecking = true;
+
+    /**
+     Describe a single change to the sorting key of an entity that is being managed by a {@link SortedPanelModel}.
+     <p/>Instances of this class are used to feed changes to {@link SortedPanelModel#changeSortingKeys(Collection)}.
+     */
+
+    public static class SortingKeyChange<K extends Comparable<K>, E extends SortableEntity> {
+
+        private final K _oldKey;
+
+        private final K _newKey;
+
+        private final E _entity;
+
+        public SortingKeyChange( final @NotNull K oldKey, final @NotNull K newKey, final @NotNull E entity ) {
+
+            super();
+
+            _oldKey = oldKey;
+
+            _newKey = newKey;
+
+            _entity = entity;
+
+        }
+
+        @NotNull
+        public K getOldKey() {
+
+            return _oldKey;
+
+        }
+
+        @NotNull
+        public K getNewKey() {
+
+            return _newKey;
+
+        }
+
+        @NotNull
+        public E getEntity() {
+
+            return _entity;
+
+        }
+
+        public String toString() {
+
+            return "SortingKeyChange( oldKey=\"" + _oldKey + "\", newKey=\"" + _newKey + "\", entity={" + _entity + "} )";
+
+        }
+
+    }
+
     /**
      Create a sorted panel model with an initial set of entities.
 
@@ -113,7 +171,7 @@ public class SortedPanelModel<K extends Comparable<K>, E extends SortableEntity>
     public int reAddEntity( final @NotNull SortableEntityReference<K, E> entityReference, @Nullable final SortableEntityView<K, E> view ) {
 
         String what = "reAddEntity( " + entityReference.getActiveKey() + ", " + entityReference.getValue() + ", " + view + " )";
-        verifyConsistency( "start of " + what );
+        maybeVerifyConsistency( "start of " + what );
 
         // Figure out where this entity is going to land.
 
@@ -143,11 +201,15 @@ public class SortedPanelModel<K extends Comparable<K>, E extends SortableEntity>
             SortableEntityView<K, ? extends SortableEntity> newEntityView = view == null ? createEntityView( entityReference ) : view;
             newEntityView.setActiveKey( entityReference.getActiveKey() );
             _owner.add( (JComponent)newEntityView, index );
-            _owner.verifyConsistency( _treeSorter );
+            if ( _consistencyChecking ) {
+
+                _owner.verifyConsistency( _treeSorter );
+
+            }
 
         }
 
-        verifyConsistency( what );
+        maybeVerifyConsistency( what );
 
         return 0;
 
@@ -320,6 +382,8 @@ public class SortedPanelModel<K extends Comparable<K>, E extends SortableEntity>
 
                 }
 
+                _owner.revalidate();
+
             }
 
         } else {
@@ -336,7 +400,7 @@ public class SortedPanelModel<K extends Comparable<K>, E extends SortableEntity>
     public int changeSortingKey( final K oldKey, final K newKey, final E myEntity ) { //} SortableEntityReference<K,E> myEntity ) {
 
         String what = "changeSortingKey( " + oldKey + ", " + newKey + ", " + myEntity + " )";
-        verifyConsistency( "start of " + what );
+        maybeVerifyConsistency( "start of " + what );
 
         SortableEntityReference<K, E> myEntityReference = new SortableEntityReference<>( this, oldKey, myEntity );
         int oldIndex = _treeSorter.getFullValueIndex( oldKey, target -> target.getValue() == myEntity );
@@ -373,12 +437,240 @@ public class SortedPanelModel<K extends Comparable<K>, E extends SortableEntity>
 
         int count = reAddEntity( newKey, myEntity, oldView );
 
-        verifyConsistency( " end of " + what );
+        maybeVerifyConsistency( " end of " + what );
 
         return count;
 
     }
 
+    /**
+     Apply a batch of sorting key changes to this model.
+     <p/>This is equivalent to calling {@link #changeSortingKey(Comparable, Comparable, SortableEntity)} once for each of the specified changes
+     although it is considerably more efficient if this model has an owner.
+     Rather than removing and re-inserting one component per change, this method works out where each entity's view
+     lands once all of the changes have been applied and then moves only those views which are not part of the longest run of views
+     whose relative order is unchanged (i.e. the longest increasing subsequence of the old indices in the new ordering).
+     The owner is revalidated exactly once after all the moves have been done.
+     <p/>Every value associated with a change's old key that is the change's entity (using reference equality) is moved to the change's new key.
+
+     @param changes the changes to apply (applied in the order returned by the collection's iterator).
+     @return the number of views that had to be moved within our owner (always zero if this model does not have an owner).
+     @throws HowDidWeGetHereError if any of the changes refers to an entity which is not associated with the change's old key.
+     */
+
+    public int changeSortingKeys( final @NotNull Collection<SortingKeyChange<K, E>> changes ) {
+
+        String what = "changeSortingKeys( " + changes.size() + " changes )";
+        maybeVerifyConsistency( "start of " + what );
+
+        if ( changes.isEmpty() ) {
+
+            return 0;
+
+        }
+
+        // Remember where everything is before we start.
+
+        IdentityHashMap<SortableEntityReference<K, E>, Integer> oldIndices = new IdentityHashMap<>();
+        int ix = 0;
+        for ( SortableEntityReference<K, E> entityReference : _treeSorter ) {
+
+            oldIndices.put( entityReference, ix );
+            ix += 1;
+
+        }
+
+        Component[] oldViews = _owner == null ? null : _owner.getComponents();
+        if ( oldViews != null && oldViews.length != oldIndices.size() ) {
+
+            throw new HowDidWeGetHereError( "SortedPanelModel \"" + getName() + "\":  " +
+                                            "owner has " + oldViews.length + " views but model has " + oldIndices.size() + " entities" );
+
+        }
+
+        // Update the tree sorter.
+        // Each new entity reference inherits the old index of the reference that it replaces.
+
+        for ( SortingKeyChange<K, E> change : changes ) {
+
+            Collection<SortableEntityReference<K, E>> removedValueList = _treeSorter.removeValue(
+                    change.getOldKey(),
+                    target -> target.getValue() == change.getEntity()
+            );
+
+            if ( removedValueList.isEmpty() ) {
+
+                throw new HowDidWeGetHereError( "entity being moved is not in our tree sorter:  " + change );
+
+            }
+
+            for ( SortableEntityReference<K, E> removedReference : removedValueList ) {
+
+                SortableEntityReference<K, E> newReference = new SortableEntityReference<>( this, change.getNewKey(), change.getEntity() );
+                _treeSorter.add( change.getNewKey(), newReference );
+                oldIndices.put( newReference, oldIndices.remove( removedReference ) );
+
+            }
+
+        }
+
+        if ( _owner == null ) {
+
+            maybeVerifyConsistency( "end of " + what );
+
+            return 0;
+
+        }
+
+        // Figure out where each view came from and which views can stay where they are.
+
+        int size = _treeSorter.size();
+        int[] sourceIndices = new int[size];
+        @SuppressWarnings("rawtypes") SortableEntityReference[] newOrder = new SortableEntityReference[size];
+        ix = 0;
+        for ( SortableEntityReference<K, E> entityReference : _treeSorter ) {
+
+            sourceIndices[ix] = oldIndices.get( entityReference );
+            newOrder[ix] = entityReference;
+            ix += 1;
+
+        }
+
+        boolean[] stays = longestIncreasingSubsequence( sourceIndices );
+
+        // Pull out the views that have to move.
+        // The views that remain are, by construction, already in their correct relative order.
+
+        int moved = 0;
+        for ( int newIx = 0; newIx < size; newIx += 1 ) {
+
+            if ( !stays[newIx] ) {
+
+                _owner.remove( oldViews[sourceIndices[newIx]] );
+                moved += 1;
+
+            }
+
+        }
+
+        // Put the moved views back in ascending order of their new positions.
+        // Every view before each insertion point is already in its final position when the insertion happens.
+
+        for ( int newIx = 0; newIx < size; newIx += 1 ) {
+
+            SortableEntityView<K, E> view = (SortableEntityView<K, E>)oldViews[sourceIndices[newIx]];
+            view.setActiveKey( (K)newOrder[newIx].getActiveKey() );
+            if ( !stays[newIx] ) {
+
+                _owner.add( (JComponent)view, newIx );
+
+            }
+
+        }
+
+        Trace.event( what + " moved " + moved + " of " + size + " views" );
+
+        _owner.revalidate();
+        _owner.repaint();
+
+        maybeVerifyConsistency( "end of " + what );
+
+        return moved;
+
+    }
+
+    /**
+     Find one of the longest strictly increasing subsequences of a sequence of values.
+     <p/>This is the classic patience sorting algorithm which runs in O(n log n) time.
+     Since the subsequence is strictly increasing, at most one of any run of equal values is part of it.
+
+     @param values the sequence of interest.
+     @return an array of the same length as <tt>values</tt> in which element <tt>i</tt> is <tt>true</tt>
+     if and only if <tt>values[i]</tt> is part of the selected longest increasing subsequence.
+     */
+
+    public static boolean[] longestIncreasingSubsequence( final int[] values ) {
+
+        int n = values.length;
+        int[] tailIndices = new int[n];
+        int[] predecessors = new int[n];
+        int length = 0;
+
+        for ( int i = 0; i < n; i += 1 ) {
+
+            // Binary search for the shortest subsequence whose tail is not less than values[i].
+
+            int lo = 0;
+            int hi = length;
+            while ( lo < hi ) {
+
+                int mid = ( lo + hi ) >>> 1;
+                if ( values[tailIndices[mid]] < values[i] ) {
+
+                    lo = mid + 1;
+
+                } else {
+
+                    hi = mid;
+
+                }
+
+            }
+
+            predecessors[i] = lo > 0 ? tailIndices[lo - 1] : -1;
+            tailIndices[lo] = i;
+            if ( lo == length ) {
+
+                length += 1;
+
+            }
+
+        }
+
+        boolean[] inSubsequence = new boolean[n];
+        int ix = length > 0 ? tailIndices[length - 1] : -1;
+        while ( ix >= 0 ) {
+
+            inSubsequence[ix] = true;
+            ix = predecessors[ix];
+
+        }
+
+        return inSubsequence;
+
+    }
+
+    /**
+     Control whether this model verifies its own consistency (and that of its owner) before and after each change.
+     <p/>Consistency checking is on by default (this model has always checked itself on every change).
+     Each check walks the entire model (and owner) so models which hold a lot of entities may want to turn it off.
+     Note that {@link #changeSortingKeys(Collection)} checks once before and once after the whole batch rather than once per change.
+
+     @param consistencyChecking <tt>true</tt> if consistency checks should be performed; <tt>false</tt> otherwise.
+     */
+
+    public void setConsistencyChecking( final boolean consistencyChecking ) {
+
+        _consistencyChecking = consistencyChecking;
+
+    }
+
+    public boolean isConsistencyChecking() {
+
+        return _consistencyChecking;
+
+    }
+
+    private void maybeVerifyConsistency( final String when ) {
+
+        if ( _consistencyChecking ) {
+
+            verifyConsistency( when );
+
+        }
+
+    }
+
     /**
      Get this model's owner.
 
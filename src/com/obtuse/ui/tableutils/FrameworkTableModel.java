@@ -14,6 +14,7 @@ import com.obtuse.util.things.ThingNameFactory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.swing.*;
 import javax.swing.table.TableCellEditor;
 import java.util.*;
 
@@ -185,6 +186,22 @@ public class FrameworkTableModel<D extends ThingInfo> extends CheckBoxStyleSelec
 
     private final Vector<CheckBoxRowWrapper<D>> _data = new Vector<>();
 
+    /**
+     Maps each row wrapper to the number of the first row that it appears in.
+     Row wrappers are compared by identity (they don't override {@link Object#equals}).
+     */
+
+    private final IdentityHashMap<CheckBoxRowWrapper<D>, Integer> _rowIndex = new IdentityHashMap<>();
+
+    /**
+     Row wrappers whose rows are waiting to be reported as updated by {@link #rowDataChangedLater(CheckBoxRowWrapper)}.
+     Guarded by itself.
+     */
+
+    private final Set<CheckBoxRowWrapper<D>> _pendingChangedRows = Collections.newSetFromMap( new IdentityHashMap<>() );
+
+    private boolean _pendingFlushScheduled = false;
+
     private final SortedMap<Integer, CManager<D>> _columnsByNumber = new TreeMap<>();
     private final SortedMap<TCName, Integer> _fieldNameIndex = new TreeMap<>();
     private final SortedMap<TCName, Boolean> _readOnlyByColumnNameOverride = new TreeMap<>();
@@ -368,18 +385,153 @@ public class FrameworkTableModel<D extends ThingInfo> extends CheckBoxStyleSelec
 
         }
 
-        int row = 0;
-        for ( CheckBoxRowWrapper wrapper : _data ) {
+        int row = getRowNumber( changedRowWrapper );
+        if ( row >= 0 ) {
+
+            fireTableRowsUpdated( row, row );
 
-            if ( wrapper.equals( changedRowWrapper ) ) {
+        }
 
-                fireTableRowsUpdated( row, row );
+    }
+
+    /**
+     Report that the data in a bunch of rows has changed.
+     <p/>The rows are sorted and coalesced into contiguous runs with one {@link #fireTableRowsUpdated(int, int)} call per run.
+     Row wrappers which are not in this table are ignored.
+
+     @param changedRowWrappers the wrappers of the rows that have changed.
+     */
+
+    public void rowsDataChanged( final @NotNull Collection<CheckBoxRowWrapper<D>> changedRowWrappers ) {
+
+        if ( changedRowWrappers.isEmpty() ) {
+
+            return;
+
+        }
+
+        int[] rows = new int[changedRowWrappers.size()];
+        int count = 0;
+        for ( CheckBoxRowWrapper<D> wrapper : changedRowWrappers ) {
+
+            int row = getRowNumber( wrapper );
+            if ( row >= 0 ) {
+
+                rows[count] = row;
+                count += 1;
+
+            }
+
+        }
+
+        Arrays.sort( rows, 0, count );
+
+        int ix = 0;
+        while ( ix < count ) {
+
+            int firstRow = rows[ix];
+            int lastRow = firstRow;
+            ix += 1;
+            while ( ix < count && rows[ix] <= lastRow + 1 ) {
+
+                lastRow = rows[ix];
+                ix += 1;
+
+            }
+
+            fireTableRowsUpdated( firstRow, lastRow );
+
+        }
+
+    }
+
+    /**
+     Report that the data in a row has changed at some point in the near future.
+     <p/>This method may be called from any thread.
+     Changes reported this way are accumulated and delivered via {@link #rowsDataChanged(Collection)}
+     once per trip through the Swing event dispatch thread.
+     A row which is reported many times before the next delivery is only reported once.
+
+     @param changedRowWrapper the wrapper for the row that changed.
+     */
+
+    public void rowDataChangedLater( final @NotNull CheckBoxRowWrapper<D> changedRowWrapper ) {
+
+        synchronized ( _pendingChangedRows ) {
+
+            _pendingChangedRows.add( changedRowWrapper );
+            if ( _pendingFlushScheduled ) {
 
                 return;
 
             }
 
-            row += 1;
+            _pendingFlushScheduled = true;
+
+        }
+
+        SwingUtilities.invokeLater( this::flushPendingRowChanges );
+
+    }
+
+    /**
+     Deliver any row changes that have been reported via {@link #rowDataChangedLater(CheckBoxRowWrapper)} but not yet delivered.
+     <p/>Must be called on the Swing event dispatch thread.
+     */
+
+    public void flushPendingRowChanges() {
+
+        List<CheckBoxRowWrapper<D>> changedRows;
+        synchronized ( _pendingChangedRows ) {
+
+            changedRows = new ArrayList<>( _pendingChangedRows );
+            _pendingChangedRows.clear();
+            _pendingFlushScheduled = false;
+
+        }
+
+        rowsDataChanged( changedRows );
+
+    }
+
+    /**
+     Get the row number of a particular row wrapper.
+     <p/>This is a constant time operation.
+
+     @param rowWrapper the row wrapper of interest.
+     @return the number of the first row containing the specified row wrapper or -1 if the row wrapper is not in this table.
+     */
+
+    public int getRowNumber( final @NotNull CheckBoxRowWrapper<D> rowWrapper ) {
+
+        Integer row = _rowIndex.get( rowWrapper );
+
+        return row == null ? -1 : row.intValue();
+
+    }
+
+    /**
+     Bring {@link #_rowIndex} back into line with {@link #_data} after rows at or beyond a particular row have changed.
+     <p/>This only looks at the rows from {@code firstRow} on.
+     It relies on each of those rows' wrappers either not being in the index,
+     being indexed at a row before {@code firstRow} (which is still correct),
+     or being indexed at a row after the one that it now first appears in (which is what happens to the rows after a removed row).
+     Appending rows and removing a single row both leave the index in that state.
+
+     @param firstRow the first row which might have changed.
+     */
+
+    private void reindexRowsFrom( final int firstRow ) {
+
+        for ( int row = firstRow; row < _data.size(); row += 1 ) {
+
+            CheckBoxRowWrapper<D> wrapper = _data.get( row );
+            Integer indexedRow = _rowIndex.get( wrapper );
+            if ( indexedRow == null || indexedRow.intValue() > row ) {
+
+                _rowIndex.put( wrapper, row );
+
+            }
 
         }
 
@@ -441,6 +593,7 @@ public class FrameworkTableModel<D extends ThingInfo> extends CheckBoxStyleSelec
     public void clear() {
 
         _data.clear();
+        _rowIndex.clear();
         fireTableDataChanged();
 
     }
@@ -648,6 +801,7 @@ public class FrameworkTableModel<D extends ThingInfo> extends CheckBoxStyleSelec
 
     public void addRowWrapper( final CheckBoxRowWrapper<D> rowData ) {
 
+        _rowIndex.putIfAbsent( rowData, _data.size() );
         _data.add( rowData );
 
         fireTableDataChanged();
@@ -662,7 +816,9 @@ public class FrameworkTableModel<D extends ThingInfo> extends CheckBoxStyleSelec
 
         }
 
+        int firstNewRow = _data.size();
         _data.addAll( rowsData );
+        reindexRowsFrom( firstNewRow );
 
         fireTableDataChanged();
 
@@ -766,7 +922,18 @@ public class FrameworkTableModel<D extends ThingInfo> extends CheckBoxStyleSelec
 
     private void actuallyRemoveRow( final int row ) {
 
-        _data.removeElementAt( row );
+        CheckBoxRowWrapper<D> victim = _data.remove( row );
+
+        // Forget the victim if this was the first row that it appeared in (it gets re-indexed below if it appears again further down).
+
+        Integer victimRow = _rowIndex.get( victim );
+        if ( victimRow != null && victimRow.intValue() == row ) {
+
+            _rowIndex.remove( victim );
+
+        }
+
+        reindexRowsFrom( row );
 
         fireTableDataChanged();
 
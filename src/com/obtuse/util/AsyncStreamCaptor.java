@@ -13,10 +13,14 @@ import java.util.function.Consumer;
  Asynchronously capture the contents of an {@link InputStream}.
  <p>Two instances of this class are one way to capture both the <tt>stdout</tt> and <tt>stderr</tt> of a
  {@link Process} instance.</p>
+ <p>Each instance runs its own thread.
+ Use a {@link StreamCaptureService} to capture many streams on a few threads.</p>
  */
 
 public class AsyncStreamCaptor extends Thread implements Closeable {
 
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
     @NotNull private final String _what;
     @NotNull private final InputStream _inputStream;
     @Nullable private final Consumer<AsyncStreamCaptor> _asynchronousNotifier;
@@ -78,7 +82,7 @@ public class AsyncStreamCaptor extends Thread implements Closeable {
         _discardAfterMaxCaptureLength = discardAfterMaxCaptureLength;
         _closeWhenDone = closeWhenDone;
 
-        _capturedStream = new ByteArrayOutputStream( 1024 * 1024 );
+        _capturedStream = new ByteArrayOutputStream( (int)Math.max( 0, Math.min( maxCaptureLength, READ_BUFFER_SIZE ) ) );
 
         _inputStreamStillOpen = true;
 
@@ -99,7 +103,7 @@ public class AsyncStreamCaptor extends Thread implements Closeable {
     }
 
     /**
-     Try to read the stream in 1MB chunks until the maximum capture length has been reached.
+     Try to read the stream in 64KB chunks until the maximum capture length has been reached.
      */
 
     private void readAggressively() {
@@ -109,7 +113,7 @@ public class AsyncStreamCaptor extends Thread implements Closeable {
 
         try {
 
-            byte[] buffer = new byte[1024 * 1024];
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
             while ( true ) {
 
                 // Figure out how many bytes we need to read before we reach the maximum capture length.
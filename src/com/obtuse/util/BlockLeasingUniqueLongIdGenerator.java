@@ -0,0 +1,281 @@
+package com.obtuse.util;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ A {@link UniqueLongIdGenerator} which scales to many concurrent threads.
+ <p/>
+ Each thread leases a block of consecutive ids from a shared {@link AtomicLong} and then hands out ids from its block
+ without any synchronization until the block is exhausted.
+ Consequently, threads only touch shared state once every {@link #getBlockSize()} calls.
+ <p/>
+ The values returned by {@link #getUniqueId} are positive and unique but, unlike those returned by a
+ {@link SimpleUniqueLongIdGenerator}, they are only increasing within any one thread.
+ Ids which are still in a thread's block when the thread dies are never returned
+ (i.e. there may be gaps in the sequence of ids handed out).
+ <p/>
+ A generator created with an {@link IdReservationFile} stays unique across restarts (and across processes sharing the file).
+ Blocks are then carved out of large reservations taken from the file rather than from an unbounded counter.
+ <p/>
+ Instances of this class are thread safe.
+ */
+
+public class BlockLeasingUniqueLongIdGenerator implements UniqueLongIdGenerator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static class Block {
+
+        private long _next = 1;
+
+        private long _limit = 1;
+
+    }
+
+    private final String _name;
+
+    private final int _blockSize;
+
+    /**
+     The last id that has been leased to any thread.
+     */
+
+    private final AtomicLong _lastLeasedId = new AtomicLong( SimpleUniqueLongIdGenerator.DEFAULT_INITIAL_LAST_ID );
+
+    private volatile boolean _started = false;
+
+    private final ThreadLocal<Block> _blocks = ThreadLocal.withInitial( Block::new );
+
+    /**
+     Where reservations come from ({@code null} if this generator isn't persistent).
+     */
+
+    @Nullable
+    private final IdReservationFile _reservationFile;
+
+    /**
+     The unleased part of the current reservation (guarded by {@code this} and only used by persistent generators).
+     */
+
+    private long _reservedNext = 1;
+
+    private long _reservedLimit = 1;
+
+    /**
+     Create a block leasing id generator.
+
+     @param name      the name of this generator (used in toString and possibly useful in your debug code).
+     @param blockSize how many ids each thread leases at a time (must be positive).
+     */
+
+    public BlockLeasingUniqueLongIdGenerator( final String name, final int blockSize ) {
+
+        this( name, blockSize, null );
+
+    }
+
+    /**
+     Create a block leasing id generator whose ids are unique across restarts.
+
+     @param name            the name of this generator (used in toString and possibly useful in your debug code).
+     @param blockSize       how many ids each thread leases at a time (must be positive and no larger than the file's reservation size).
+     @param reservationFile where to reserve ids from ({@code null} if ids only need to be unique within this JVM).
+     */
+
+    public BlockLeasingUniqueLongIdGenerator( final String name, final int blockSize, @Nullable final IdReservationFile reservationFile ) {
+
+        super();
+
+        if ( blockSize <= 0 ) {
+
+            throw new IllegalArgumentException( "BlockLeasingUniqueLongIdGenerator:  block size must be positive (" + blockSize + ")" );
+
+        }
+
+        if ( reservationFile != null && reservationFile.getReservationSize() < blockSize ) {
+
+            throw new IllegalArgumentException(
+                    "BlockLeasingUniqueLongIdGenerator:  reservation size (" + reservationFile.getReservationSize() +
+                    ") must be at least the block size (" + blockSize + ")"
+            );
+
+        }
+
+        _name = name;
+
+        _blockSize = blockSize;
+
+        _reservationFile = reservationFile;
+
+    }
+
+    /**
+     Create a block leasing id generator which leases {@link #DEFAULT_BLOCK_SIZE} ids at a time.
+
+     @param name the name of this generator (used in toString and possibly useful in your debug code).
+     */
+
+    public BlockLeasingUniqueLongIdGenerator( final String name ) {
+
+        this( name, DEFAULT_BLOCK_SIZE );
+
+    }
+
+    @Override
+    public BlockLeasingUniqueLongIdGenerator setLastId( final long lastId ) {
+
+        if ( _started || !_lastLeasedId.compareAndSet( SimpleUniqueLongIdGenerator.DEFAULT_INITIAL_LAST_ID, lastId ) ) {
+
+            throw new IllegalArgumentException( "BlockLeasingUniqueLongIdGenerator.setLastId:  cannot change last id after first actual id has been returned" );
+
+        }
+
+        return this;
+
+    }
+
+    /**
+     Instances of this class never return duplicates.
+
+     @return {@code false}.
+     */
+
+    @Override
+    public boolean allowDuplicates() {
+
+        return false;
+
+    }
+
+    @Override
+    public String getName() {
+
+        return _name;
+
+    }
+
+    public int getBlockSize() {
+
+        return _blockSize;
+
+    }
+
+    @Nullable
+    public IdReservationFile getReservationFile() {
+
+        return _reservationFile;
+
+    }
+
+    /**
+     Get a positive id which has never been returned by this instance before.
+
+     @return the id.
+     @throws IllegalArgumentException if all positive long ids have been leased.
+     */
+
+    @Override
+    public long getUniqueId() {
+
+        Block block = _blocks.get();
+        if ( block._next == block._limit ) {
+
+            leaseBlock( block );
+
+        }
+
+        long id = block._next;
+        block._next += 1;
+
+        return id;
+
+    }
+
+    private void leaseBlock( final Block block ) {
+
+        _started = true;
+
+        if ( _reservationFile != null ) {
+
+            leasePersistentBlock( block );
+
+            return;
+
+        }
+
+        long lastLeasedId;
+        long newLastLeasedId;
+        do {
+
+            lastLeasedId = _lastLeasedId.get();
+            if ( lastLeasedId == Long.MAX_VALUE ) {
+
+                throw new IllegalArgumentException( getName() + ":  all positive long ids have been generated" );
+
+            }
+
+            newLastLeasedId = lastLeasedId > Long.MAX_VALUE - _blockSize ? Long.MAX_VALUE : lastLeasedId + _blockSize;
+
+        } while ( !_lastLeasedId.compareAndSet( lastLeasedId, newLastLeasedId ) );
+
+        block._next = lastLeasedId + 1;
+
+        // The limit is exclusive. The very last block stops one short of Long.MAX_VALUE since Long.MAX_VALUE + 1 overflows.
+
+        block._limit = newLastLeasedId == Long.MAX_VALUE ? Long.MAX_VALUE : newLastLeasedId + 1;
+
+    }
+
+    /**
+     Lease a block from the current reservation, taking a new reservation from the file if the current one is used up.
+     <p/>This is synchronized but threads only get here once every {@link #getBlockSize()} ids.
+     */
+
+    private synchronized void leasePersistentBlock( final @NotNull Block block ) {
+
+        // Honour setLastId.
+
+        long floor = _lastLeasedId.get() + 1;
+        if ( _reservedNext < floor ) {
+
+            _reservedNext = Math.min( floor, _reservedLimit );
+
+        }
+
+        if ( _reservedNext == _reservedLimit ) {
+
+            try {
+
+                _reservedNext = _reservationFile.reserve( floor );
+                _reservedLimit = _reservedNext + _reservationFile.getReservationSize();
+
+            } catch ( IOException e ) {
+
+                throw new IllegalStateException( getName() + ":  unable to reserve ids from " + _reservationFile, e );
+
+            }
+
+        }
+
+        block._next = _reservedNext;
+        block._limit = Math.min( _reservedNext + _blockSize, _reservedLimit );
+        _reservedNext = block._limit;
+        _lastLeasedId.set( block._limit - 1 );
+
+    }
+
+    public String toString() {
+
+        return "BLULIG( name = \"" + getName() + ", block size = " + _blockSize + ", last leased id = " + _lastLeasedId.get() + " )";
+
+    }
+
+}
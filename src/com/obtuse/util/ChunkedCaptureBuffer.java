@@ -0,0 +1,220 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ A size-capped byte buffer that grows by adding chunks rather than by copying.
+ <p/>
+ The first chunk is small and each new chunk is twice the size of its predecessor, up to {@value #MAX_CHUNK_SIZE} bytes,
+ so capturing a few bytes costs a few kilobytes and capturing a lot never copies what has already been captured.
+ The buffer never holds more than its maximum size; whatever doesn't fit is refused and it is up to the caller to count it.
+ <p/>
+ Instances are thread-safe so one thread can fill a buffer while others look at what has been captured so far.
+ */
+
+public class ChunkedCaptureBuffer {
+
+    private static final int MIN_CHUNK_SIZE = 4 * 1024;
+
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private final long _maxSize;
+
+    private final List<byte[]> _chunks = new ArrayList<>();
+
+    private long _size = 0L;
+
+    /**
+     How many bytes of the last chunk are in use.
+     */
+
+    private int _lastChunkFill = 0;
+
+    /**
+     Create an empty buffer.
+
+     @param maxSize the most bytes that this buffer will hold.
+     @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+
+    public ChunkedCaptureBuffer( final long maxSize ) {
+
+        super();
+
+        if ( maxSize < 0 ) {
+
+            throw new IllegalArgumentException( "ChunkedCaptureBuffer:  max size may not be negative (" + maxSize + ")" );
+
+        }
+
+        _maxSize = maxSize;
+
+    }
+
+    public long getMaxSize() {
+
+        return _maxSize;
+
+    }
+
+    public synchronized long size() {
+
+        return _size;
+
+    }
+
+    /**
+     Get how many more bytes this buffer will accept.
+     */
+
+    public synchronized long remaining() {
+
+        return _maxSize - _size;
+
+    }
+
+    /**
+     Append as many bytes as will fit.
+
+     @param bytes  where the bytes are.
+     @param offset where the first byte is.
+     @param length how many bytes there are.
+     @return how many bytes were appended (less than {@code length} if the buffer filled up).
+     */
+
+    public synchronized int write( @NotNull final byte[] bytes, final int offset, final int length ) {
+
+        int toCopy = (int)Math.min( length, _maxSize - _size );
+        int copied = 0;
+        while ( copied < toCopy ) {
+
+            byte[] chunk = currentChunk();
+            int count = Math.min( toCopy - copied, chunk.length - _lastChunkFill );
+            System.arraycopy( bytes, offset + copied, chunk, _lastChunkFill, count );
+            _lastChunkFill += count;
+            copied += count;
+            _size += count;
+
+        }
+
+        return toCopy;
+
+    }
+
+    /**
+     Append as many of the bytes remaining in a {@link ByteBuffer} as will fit.
+     The byte buffer's position is advanced past the bytes that were appended.
+
+     @param src the bytes.
+     @return how many bytes were appended.
+     */
+
+    public synchronized int write( final @NotNull ByteBuffer src ) {
+
+        int toCopy = (int)Math.min( src.remaining(), _maxSize - _size );
+        int copied = 0;
+        while ( copied < toCopy ) {
+
+            byte[] chunk = currentChunk();
+            int count = Math.min( toCopy - copied, chunk.length - _lastChunkFill );
+            src.get( chunk, _lastChunkFill, count );
+            _lastChunkFill += count;
+            copied += count;
+            _size += count;
+
+        }
+
+        return toCopy;
+
+    }
+
+    /**
+     Get the chunk which the next byte goes into, adding one if the last chunk is full.
+     */
+
+    private byte[] currentChunk() {
+
+        if ( _chunks.isEmpty() || _lastChunkFill == _chunks.get( _chunks.size() - 1 ).length ) {
+
+            int size = _chunks.isEmpty() ? MIN_CHUNK_SIZE : Math.min( MAX_CHUNK_SIZE, _chunks.get( _chunks.size() - 1 ).length * 2 );
+            _chunks.add( new byte[size] );
+            _lastChunkFill = 0;
+
+        }
+
+        return _chunks.get( _chunks.size() - 1 );
+
+    }
+
+    /**
+     Write what has been captured so far to an {@link OutputStream}.
+     */
+
+    public synchronized void writeTo( final @NotNull OutputStream out )
+            throws IOException {
+
+        long left = _size;
+        for ( byte[] chunk : _chunks ) {
+
+            int count = (int)Math.min( left, chunk.length );
+            out.write( chunk, 0, count );
+            left -= count;
+
+        }
+
+    }
+
+    /**
+     Get a copy of what has been captured so far.
+
+     @throws IllegalStateException if more than {@link Integer#MAX_VALUE} - 8 bytes have been captured.
+     */
+
+    @NotNull
+    public synchronized byte[] toByteArray() {
+
+        if ( _size > Integer.MAX_VALUE - 8 ) {
+
+            throw new IllegalStateException( "ChunkedCaptureBuffer:  " + _size + " bytes won't fit in an array" );
+
+        }
+
+        byte[] rval = new byte[(int)_size];
+        int offset = 0;
+        for ( byte[] chunk : _chunks ) {
+
+            int count = Math.min( rval.length - offset, chunk.length );
+            System.arraycopy( chunk, 0, rval, offset, count );
+            offset += count;
+
+        }
+
+        return rval;
+
+    }
+
+    @NotNull
+    public String toString( final @NotNull Charset charset ) {
+
+        return new String( toByteArray(), charset );
+
+    }
+
+    public synchronized String toString() {
+
+        return "ChunkedCaptureBuffer( size=" + _size + ", maxSize=" + _maxSize + ", chunks=" + _chunks.size() + " )";
+
+    }
+
+}
@@ -28,38 +28,103 @@ public class DateUtils {
     public static final TimeZone ARIZONA_TIME = TimeZone.getTimeZone( "America/Arizona" );
     public static final TimeZone UTC = TimeZone.getTimeZone( "UTC" );
 
-    // IMPORTANT:  keep these date formats private as we fiddle with their embedded timezone in methods within this
-    // class.
+    // These patterns can be shared by any number of threads without locking (see DatePattern).
+    // The ones that we see in bulk also have hand-written fast paths in FixedWidthDateTimes.
 
     @SuppressWarnings("SuspiciousDateFormat")
-    private static final SimpleDateFormat HHMMSSS = new SimpleDateFormat( "hh:mm.SSS" );
-    private static final SimpleDateFormat MMDDYYYY = new SimpleDateFormat( "MM/dd/yyyy" );
-    private static final SimpleDateFormat MMDDYYYY_HHMM = new SimpleDateFormat( "MM/dd/yyyy hh:mmaa" );
-    private static final SimpleDateFormat MM_DD_YYYY = new SimpleDateFormat( "MM/dd/yyyy" );
+    private static final DatePattern HHMMSSS = new DatePattern( "hh:mm.SSS" );
+    private static final DatePattern MMDDYYYY = new DatePattern( "MM/dd/yyyy" );
+    private static final DatePattern MMDDYYYY_HHMM = new DatePattern( "MM/dd/yyyy hh:mmaa" );
+    private static final DatePattern MM_DD_YYYY = new DatePattern( "MM/dd/yyyy" );
     @SuppressWarnings("SuspiciousDateFormat")
-    private static final SimpleDateFormat MMMM_D_YYYY = new SimpleDateFormat( "MMMM d, YYYY" );
-    private static final SimpleDateFormat MM_DD_YYYY_HH_MM = new SimpleDateFormat( "MM/dd/yyyy hh:mmaa" );
-    private static final SimpleDateFormat YYYY_MM_DD_HH_MM = new SimpleDateFormat( "yyyy-MM-dd HH:mm" );
-    private static final SimpleDateFormat YYYY_MM_DD_HH_MM_SS = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss" );
-    private static final SimpleDateFormat YYYY_MM_DD_HH_MM_SS_COLONS = new SimpleDateFormat( "yyyy:MM:dd HH:mm:ss" );
-    private static final SimpleDateFormat YYYY_MM_DD_HH_MM_SS_SSS = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
-    private static final SimpleDateFormat YYYY_MM_DD_HH_MM_ZZZ = new SimpleDateFormat( "yyyy-MM-dd HH:mm zzz" );
-    private static final SimpleDateFormat HH_MM = new SimpleDateFormat( "hh:mmaa" );
-    private static final SimpleDateFormat HH_MM_SS_12 = new SimpleDateFormat( "hh:mm:ssaa" );
-    private static final SimpleDateFormat HH_MM_SS_24 = new SimpleDateFormat( "HH:mm:ss" );
-    private static final SimpleDateFormat WWW_MMM_DD_HHMMSS_YYYY = new SimpleDateFormat( "EEE MMM dd HH:mm:ss yyyy" );
-    private static final SimpleDateFormat MMM_DD_HHMMSS_YYYY = new SimpleDateFormat( "MMM dd HH:mm:ss yyyy" );
-    private static final SimpleDateFormat WWWW_MMMM_D_YYYY = new SimpleDateFormat( "EEEE, MMMM d, yyyy" );
-    private static final SimpleDateFormat YYYY_MM_DD = new SimpleDateFormat( "yyyy-MM-dd" );
-    private static final SimpleDateFormat YYYYMMDD = new SimpleDateFormat( "yyyyMMdd" );
-    private static final SimpleDateFormat YYMMDD = new SimpleDateFormat( "yyMMdd" );
-    private static final SimpleDateFormat HH_MM_SS_12_EEE_MMM_DD = new SimpleDateFormat( "hh:mm:ss EEE MMM dd" );
-    private static final SimpleDateFormat HH_MM_SS_24_EEE_MMM_DD = new SimpleDateFormat( "HH:mm:ss EEE MMM dd" );
-    private static final SimpleDateFormat STANDARD = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ssZ" );
-    private static final SimpleDateFormat STANDARD_MS = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSSZ" );
-    private static final SimpleDateFormat DD_MMM_YYYY = new SimpleDateFormat( "d MMM, yyyy" );
-    private static final SimpleDateFormat MARKER_FORMAT = new SimpleDateFormat( "yyyyMMdd_HHmmss_SSS'Z'" );
-    private static final SimpleDateFormat MARKER2_FORMAT = new SimpleDateFormat( "yyyy-MM-dd_HH-mm-ss.SSS'Z'" );
+    private static final DatePattern MMMM_D_YYYY = new DatePattern( "MMMM d, YYYY" );
+    private static final DatePattern MM_DD_YYYY_HH_MM = new DatePattern( "MM/dd/yyyy hh:mmaa" );
+    private static final DatePattern YYYY_MM_DD_HH_MM = new DatePattern( "yyyy-MM-dd HH:mm" );
+    private static final DatePattern YYYY_MM_DD_HH_MM_SS = new DatePattern( "yyyy-MM-dd HH:mm:ss" );
+    private static final DatePattern YYYY_MM_DD_HH_MM_SS_COLONS = new DatePattern( "yyyy:MM:dd HH:mm:ss" );
+    private static final DatePattern YYYY_MM_DD_HH_MM_SS_SSS = new DatePattern( "yyyy-MM-dd HH:mm:ss.SSS" );
+    private static final DatePattern YYYY_MM_DD_HH_MM_ZZZ = new DatePattern( "yyyy-MM-dd HH:mm zzz" );
+    private static final DatePattern HH_MM = new DatePattern( "hh:mmaa" );
+    private static final DatePattern HH_MM_SS_12 = new DatePattern( "hh:mm:ssaa" );
+    private static final DatePattern HH_MM_SS_24 = new DatePattern( "HH:mm:ss" );
+    private static final DatePattern WWW_MMM_DD_HHMMSS_YYYY = new DatePattern( "EEE MMM dd HH:mm:ss yyyy" );
+    private static final DatePattern MMM_DD_HHMMSS_YYYY = new DatePattern( "MMM dd HH:mm:ss yyyy" );
+    private static final DatePattern WWWW_MMMM_D_YYYY = new DatePattern( "EEEE, MMMM d, yyyy" );
+    private static final DatePattern YYYY_MM_DD = new DatePattern( "yyyy-MM-dd" );
+    private static final DatePattern YYYYMMDD = new DatePattern( "yyyyMMdd" );
+    private static final DatePattern YYMMDD = new DatePattern( "yyMMdd" );
+    private static final DatePattern HH_MM_SS_12_EEE_MMM_DD = new DatePattern( "hh:mm:ss EEE MMM dd" );
+    private static final DatePattern HH_MM_SS_24_EEE_MMM_DD = new DatePattern( "HH:mm:ss EEE MMM dd" );
+    private static final DatePattern STANDARD = new DatePattern( "yyyy-MM-dd'T'HH:mm:ssZ" );
+    private static final DatePattern STANDARD_MS = new DatePattern( "yyyy-MM-dd'T'HH:mm:ss.SSSZ" );
+    private static final DatePattern DD_MMM_YYYY = new DatePattern( "d MMM, yyyy" );
+    private static final DatePattern MARKER_FORMAT = new DatePattern( "yyyyMMdd_HHmmss_SSS'Z'" );
+    private static final DatePattern MARKER2_FORMAT = new DatePattern( "yyyy-MM-dd_HH-mm-ss.SSS'Z'" );
+
+    /**
+     A date and time pattern which can be used by any number of threads at once without locking.
+     <p/>
+     Each thread gets its own {@link SimpleDateFormat} for the pattern so formatting and parsing follow exactly the same rules
+     (leniency, leading whitespace, rolling over of out of range fields, the Julian calendar before the Gregorian cutover, etc)
+     as the shared (and therefore synchronized) formats that this class used to have.
+     */
+
+    private static final class DatePattern {
+
+        private final String _pattern;
+
+        private final ThreadLocal<SimpleDateFormat> _formats;
+
+        private DatePattern( @NotNull final String pattern ) {
+
+            super();
+
+            _pattern = pattern;
+
+            // Cloning a prototype is a lot cheaper than parsing the pattern again for every thread.
+
+            SimpleDateFormat prototype = new SimpleDateFormat( pattern );
+            _formats = ThreadLocal.withInitial( () -> (SimpleDateFormat)prototype.clone() );
+
+        }
+
+        @NotNull
+        private String format( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
+
+            SimpleDateFormat format = _formats.get();
+            format.setTimeZone( timeZone );
+
+            return format.format( dateTime );
+
+        }
+
+        @NotNull
+        private ImmutableDate parse( @NotNull final String token, @NotNull final TimeZone timeZone, final int lineNumber )
+                throws ParsingException {
+
+            return parse( token, timeZone, lineNumber, true );
+
+        }
+
+        @NotNull
+        private ImmutableDate parse( @NotNull final String token, @NotNull final TimeZone timeZone, final int lineNumber, final boolean lenient )
+                throws ParsingException {
+
+            SimpleDateFormat format = _formats.get();
+            format.setTimeZone( timeZone );
+            format.setLenient( lenient );
+
+            return DateUtils.dateParse( format, token, lineNumber );
+
+        }
+
+        public String toString() {
+
+            return "DatePattern( \"" + _pattern + "\" )";
+
+        }
+
+    }
 
     /**
      Make it impossible to instantiate this class.
@@ -85,13 +150,7 @@ public class DateUtils {
     public static ImmutableDate parseMMDDYYYY_HHMM( @NotNull final TimeZone timezone, @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.MMDDYYYY_HHMM ) {
-
-            DateUtils.MMDDYYYY_HHMM.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MMDDYYYY_HHMM, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.MMDDYYYY_HHMM.parse( token, timezone, lineNumber );
 
     }
 
@@ -108,13 +167,7 @@ public class DateUtils {
     public static ImmutableDate parseYYYY_MM_DD_HH_MM( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYY_MM_DD_HH_MM, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM.parse( token, TimeZone.getDefault(), lineNumber );
 
     }
 
@@ -131,14 +184,16 @@ public class DateUtils {
     public static ImmutableDate parseYYYY_MM_DD_HH_MM_SS( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_SS ) {
+        TimeZone timeZone = TimeZone.getDefault();
+        long millis = FixedWidthDateTimes.parseYYYY_MM_DD_HH_MM_SS( token, 0, token.length(), timeZone );
+        if ( millis != FixedWidthDateTimes.NOT_FIXED_WIDTH ) {
 
-            DateUtils.YYYY_MM_DD_HH_MM_SS.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYY_MM_DD_HH_MM_SS, token, lineNumber );
-            return date;
+            return new ImmutableDate( millis );
 
         }
 
+        return DateUtils.YYYY_MM_DD_HH_MM_SS.parse( token, timeZone, lineNumber );
+
     }
 
     /**
@@ -155,13 +210,7 @@ public class DateUtils {
     public static ImmutableDate parseYYYY_MM_DD_HH_MM_SS_COLONS( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS.parse( token, TimeZone.getDefault(), lineNumber );
 
     }
 
@@ -178,13 +227,7 @@ public class DateUtils {
     public static ImmutableDate parseMMDDYYYY( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.MMDDYYYY ) {
-
-            DateUtils.MMDDYYYY.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MMDDYYYY, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.MMDDYYYY.parse( token, TimeZone.getDefault(), lineNumber );
 
     }
 
@@ -198,13 +241,7 @@ public class DateUtils {
     @NotNull
     public static String formatMMDDYYYY_HHMM( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MMDDYYYY_HHMM ) {
-
-            DateUtils.MMDDYYYY_HHMM.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.MMDDYYYY_HHMM.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.MMDDYYYY_HHMM.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -218,13 +255,7 @@ public class DateUtils {
     @NotNull
     public static String formatMMDDYYYY( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MMDDYYYY ) {
-
-            DateUtils.MMDDYYYY.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.MMDDYYYY.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.MMDDYYYY.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -239,13 +270,7 @@ public class DateUtils {
     @NotNull
     public static String formatStandard( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.STANDARD ) {
-
-            DateUtils.STANDARD.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.STANDARD.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.STANDARD.format( dateTime, TimeZone.getDefault() );
     }
 
     /**
@@ -264,15 +289,7 @@ public class DateUtils {
     @NotNull
     public static String formatStandardMs( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.STANDARD_MS ) {
-
-            DateUtils.STANDARD_MS.setTimeZone( TimeZone.getDefault() );
-
-            String s = DateUtils.STANDARD_MS.format( dateTime );
-
-            return s;
-
-        }
+        return DateUtils.STANDARD_MS.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -294,16 +311,15 @@ public class DateUtils {
     @NotNull
     public static String formatMarkerUTC( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MARKER_FORMAT ) {
-
-            DateUtils.MARKER_FORMAT.setTimeZone( UTC );
+        long millis = dateTime.getTime();
+        if ( FixedWidthDateTimes.isFormattable( millis ) ) {
 
-            String s = DateUtils.MARKER_FORMAT.format( dateTime );
-
-            return s;
+            return FixedWidthDateTimes.formatMarkerUTC( millis );
 
         }
 
+        return DateUtils.MARKER_FORMAT.format( dateTime, UTC );
+
     }
 
     /**
@@ -316,14 +332,15 @@ public class DateUtils {
     @NotNull
     public static ImmutableDate parseMarkerUTC( @NotNull String token, int lineNumber ) throws ParsingException {
 
-        synchronized (  ( DateUtils.MARKER_FORMAT ) ) {
+        long millis = FixedWidthDateTimes.parseMarkerUTC( token, 0, token.length() );
+        if ( millis != FixedWidthDateTimes.NOT_FIXED_WIDTH ) {
 
-            DateUtils.MARKER_FORMAT.setTimeZone( UTC );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MARKER_FORMAT, token, lineNumber );
-            return date;
+            return new ImmutableDate( millis );
 
         }
 
+        return DateUtils.MARKER_FORMAT.parse( token, UTC, lineNumber );
+
     }
 
     /**
@@ -343,15 +360,7 @@ public class DateUtils {
     @NotNull
     public static String formatMarker2UTC( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MARKER2_FORMAT ) {
-
-            DateUtils.MARKER2_FORMAT.setTimeZone( UTC );
-
-            String s = DateUtils.MARKER2_FORMAT.format( dateTime );
-
-            return s;
-
-        }
+        return DateUtils.MARKER2_FORMAT.format( dateTime, UTC );
 
     }
 
@@ -365,13 +374,7 @@ public class DateUtils {
     @NotNull
     public static ImmutableDate parseMarker2UTC( @NotNull String token, int lineNumber ) throws ParsingException {
 
-        synchronized (  ( DateUtils.MARKER2_FORMAT ) ) {
-
-            DateUtils.MARKER2_FORMAT.setTimeZone( UTC );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MARKER2_FORMAT, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.MARKER2_FORMAT.parse( token, UTC, lineNumber );
 
     }
 
@@ -389,13 +392,7 @@ public class DateUtils {
     public static ImmutableDate parseLongDateTime( @NotNull final TimeZone timezone, @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.WWW_MMM_DD_HHMMSS_YYYY ) {
-
-            DateUtils.WWW_MMM_DD_HHMMSS_YYYY.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.WWW_MMM_DD_HHMMSS_YYYY, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.WWW_MMM_DD_HHMMSS_YYYY.parse( token, timezone, lineNumber );
 
     }
 
@@ -431,13 +428,7 @@ public class DateUtils {
     public static ImmutableDate parseHHMM( @NotNull final TimeZone timezone, @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.HH_MM ) {
-
-            DateUtils.HH_MM.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.HH_MM, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.HH_MM.parse( token, timezone, lineNumber );
 
     }
 
@@ -455,13 +446,7 @@ public class DateUtils {
     public static ImmutableDate parseHH_MM_SS( @NotNull final TimeZone timezone, @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.HH_MM_SS_12 ) {
-
-            DateUtils.HH_MM_SS_12.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.HH_MM, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.HH_MM_SS_12.parse( token, timezone, lineNumber );
 
     }
 
@@ -483,13 +468,7 @@ public class DateUtils {
     )
             throws ParsingException {
 
-        synchronized ( DateUtils.MMM_DD_HHMMSS_YYYY ) {
-
-            DateUtils.MMM_DD_HHMMSS_YYYY.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MMM_DD_HHMMSS_YYYY, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.MMM_DD_HHMMSS_YYYY.parse( token, timezone, lineNumber );
 
     }
 
@@ -511,13 +490,7 @@ public class DateUtils {
     )
             throws ParsingException {
 
-        synchronized ( DateUtils.MM_DD_YYYY_HH_MM ) {
-
-            DateUtils.MM_DD_YYYY_HH_MM.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MM_DD_YYYY_HH_MM, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.MM_DD_YYYY_HH_MM.parse( token, timezone, lineNumber );
 
     }
 
@@ -534,13 +507,7 @@ public class DateUtils {
     public static ImmutableDate parseMM_DD_YYYY( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.MM_DD_YYYY ) {
-
-            DateUtils.MM_DD_YYYY.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.MM_DD_YYYY, token, lineNumber );
-            return date;
-
-        }
+        return DateUtils.MM_DD_YYYY.parse( token, TimeZone.getDefault(), lineNumber );
 
     }
 
@@ -558,14 +525,7 @@ public class DateUtils {
     public static ImmutableDate parseYYYY_MM_DD( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYY_MM_DD ) {
-
-            DateUtils.YYYY_MM_DD.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYY_MM_DD, token, lineNumber );
-
-            return date;
-
-        }
+        return parseYYYY_MM_DD( token, TimeZone.getDefault(), lineNumber, true );
 
     }
 
@@ -588,26 +548,30 @@ public class DateUtils {
     )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYY_MM_DD ) {
-
-            ImmutableDate date;
-            boolean oldLenientParsing = DateUtils.YYYY_MM_DD.isLenient();
-            try {
+        return parseYYYY_MM_DD( token, DateUtils.UTC, lineNumber, lenientParsing );
 
-                DateUtils.YYYY_MM_DD.setLenient( lenientParsing );
-                DateUtils.YYYY_MM_DD.setTimeZone( DateUtils.UTC );
-                date = DateUtils.dateParse( DateUtils.YYYY_MM_DD, token, lineNumber );
+    }
 
-            } finally {
+    @NotNull
+    private static ImmutableDate parseYYYY_MM_DD(
+            @NotNull final String token,
+            @NotNull final TimeZone timeZone,
+            final int lineNumber,
+            final boolean lenientParsing
+    )
+            throws ParsingException {
 
-                DateUtils.YYYY_MM_DD.setLenient( oldLenientParsing );
+        // The fast path only accepts valid dates so it is fine for strict parsing too.
 
-            }
+        long millis = FixedWidthDateTimes.parseYYYY_MM_DD( token, 0, token.length(), timeZone );
+        if ( millis != FixedWidthDateTimes.NOT_FIXED_WIDTH ) {
 
-            return date;
+            return new ImmutableDate( millis );
 
         }
 
+        return DateUtils.YYYY_MM_DD.parse( token, timeZone, lineNumber, lenientParsing );
+
     }
 
     /**
@@ -644,13 +608,7 @@ public class DateUtils {
     public static ImmutableDate parseYYYYMMDD( @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYYMMDD ) {
-
-            DateUtils.YYYYMMDD.setTimeZone( TimeZone.getDefault() );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYYMMDD, token, lineNumber );
-            return date;
-
-        }
+        return parseYYYYMMDD( token, TimeZone.getDefault(), lineNumber );
 
     }
 
@@ -669,14 +627,15 @@ public class DateUtils {
     public static ImmutableDate parseYYYYMMDD( @NotNull final String token, @NotNull final TimeZone timeZone, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYYMMDD ) {
+        long millis = FixedWidthDateTimes.parseYYYYMMDD( token, 0, token.length(), timeZone );
+        if ( millis != FixedWidthDateTimes.NOT_FIXED_WIDTH ) {
 
-            DateUtils.YYYYMMDD.setTimeZone( timeZone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYYMMDD, token, lineNumber );
-            return date;
+            return new ImmutableDate( millis );
 
         }
 
+        return DateUtils.YYYYMMDD.parse( token, timeZone, lineNumber );
+
     }
 
     /**
@@ -689,13 +648,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.HH_MM ) {
-
-            DateUtils.HH_MM.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.HH_MM.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -709,13 +662,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM_SS_12( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.HH_MM_SS_12 ) {
-
-            DateUtils.HH_MM_SS_12.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.HH_MM_SS_12.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM_SS_12.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -729,13 +676,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM_SS_24( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.HH_MM_SS_24 ) {
-
-            DateUtils.HH_MM_SS_24.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.HH_MM_SS_24.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM_SS_24.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -749,13 +690,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM_SS_24_UTC( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.HH_MM_SS_24 ) {
-
-            DateUtils.HH_MM_SS_24.setTimeZone( DateUtils.UTC );
-            String s = DateUtils.HH_MM_SS_24.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM_SS_24.format( dateTime, DateUtils.UTC );
 
     }
 
@@ -769,13 +704,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM_SS_12_UTC( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.HH_MM_SS_12 ) {
-
-            DateUtils.HH_MM_SS_12.setTimeZone( DateUtils.UTC );
-            String s = DateUtils.HH_MM_SS_12.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM_SS_12.format( dateTime, DateUtils.UTC );
 
     }
 
@@ -789,13 +718,7 @@ public class DateUtils {
     @NotNull
     public static String formatMM_DD_YYYY_HH_MM( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MM_DD_YYYY_HH_MM ) {
-
-            DateUtils.MM_DD_YYYY_HH_MM.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.MM_DD_YYYY_HH_MM.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.MM_DD_YYYY_HH_MM.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -824,13 +747,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD_HH_MM( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM.setTimeZone( timeZone );
-            String s = DateUtils.YYYY_MM_DD_HH_MM.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM.format( dateTime, timeZone );
 
     }
 
@@ -859,14 +776,15 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD_HH_MM_SS( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_SS ) {
+        long millis = dateTime.getTime();
+        if ( FixedWidthDateTimes.isFormattable( millis ) ) {
 
-            DateUtils.YYYY_MM_DD_HH_MM_SS.setTimeZone( timeZone );
-            String s = DateUtils.YYYY_MM_DD_HH_MM_SS.format( dateTime );
-            return s;
+            return FixedWidthDateTimes.formatYYYY_MM_DD_HH_MM_SS( millis, timeZone );
 
         }
 
+        return DateUtils.YYYY_MM_DD_HH_MM_SS.format( dateTime, timeZone );
+
     }
 
     /**
@@ -895,13 +813,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD_HH_MM_SS_COLONS( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS.setTimeZone( timeZone );
-            String s = DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM_SS_COLONS.format( dateTime, timeZone );
 
     }
 
@@ -930,13 +842,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM_SS_12_EEE_MMM_DD( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.HH_MM_SS_12_EEE_MMM_DD ) {
-
-            DateUtils.HH_MM_SS_12_EEE_MMM_DD.setTimeZone( timeZone );
-            String s = DateUtils.HH_MM_SS_12_EEE_MMM_DD.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM_SS_12_EEE_MMM_DD.format( dateTime, timeZone );
 
     }
 
@@ -965,13 +871,7 @@ public class DateUtils {
     @NotNull
     public static String formatHH_MM_SS_24_EEE_MMM_DD( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.HH_MM_SS_24_EEE_MMM_DD ) {
-
-            DateUtils.HH_MM_SS_24_EEE_MMM_DD.setTimeZone( timeZone );
-            String s = DateUtils.HH_MM_SS_24_EEE_MMM_DD.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.HH_MM_SS_24_EEE_MMM_DD.format( dateTime, timeZone );
 
     }
 
@@ -1000,13 +900,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD_HH_MM_SS_SSS( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_SS_SSS ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM_SS_SSS.setTimeZone( timeZone );
-            String s = DateUtils.YYYY_MM_DD_HH_MM_SS_SSS.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM_SS_SSS.format( dateTime, timeZone );
 
     }
 
@@ -1024,14 +918,7 @@ public class DateUtils {
     public static ImmutableDate parseYYYY_MM_DD_HH_MM_SS_SSS( @NotNull final TimeZone timezone, @NotNull final String token, final int lineNumber )
             throws ParsingException {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_SS_SSS ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM_SS_SSS.setTimeZone( timezone );
-            ImmutableDate date = DateUtils.dateParse( DateUtils.YYYY_MM_DD_HH_MM_SS_SSS, token, lineNumber );
-
-            return date;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM_SS_SSS.parse( token, timezone, lineNumber );
 
     }
 
@@ -1046,14 +933,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD_HH_MM_ZZZ( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD_HH_MM_ZZZ ) {
-
-            DateUtils.YYYY_MM_DD_HH_MM_ZZZ.setTimeZone( timeZone );
-            String s = DateUtils.YYYY_MM_DD_HH_MM_ZZZ.format( dateTime );
-
-            return s;
-
-        }
+        return DateUtils.YYYY_MM_DD_HH_MM_ZZZ.format( dateTime, timeZone );
 
     }
 
@@ -1067,14 +947,7 @@ public class DateUtils {
     @NotNull
     public static String formatMM_DD_YYYY( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MM_DD_YYYY ) {
-
-            DateUtils.MM_DD_YYYY.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.MM_DD_YYYY.format( dateTime );
-
-            return s;
-
-        }
+        return DateUtils.MM_DD_YYYY.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -1088,13 +961,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD ) {
-
-            DateUtils.YYYY_MM_DD.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.YYYY_MM_DD.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.formatYYYY_MM_DD( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -1108,14 +975,15 @@ public class DateUtils {
     @NotNull
     public static String formatYYYY_MM_DD( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYY_MM_DD ) {
+        long millis = dateTime.getTime();
+        if ( FixedWidthDateTimes.isFormattable( millis ) ) {
 
-            DateUtils.YYYY_MM_DD.setTimeZone( timeZone );
-            String s = DateUtils.YYYY_MM_DD.format( dateTime );
-            return s;
+            return FixedWidthDateTimes.formatYYYY_MM_DD( millis, timeZone );
 
         }
 
+        return DateUtils.YYYY_MM_DD.format( dateTime, timeZone );
+
     }
 
     /**
@@ -1128,13 +996,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYYYMMDD( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.YYYYMMDD ) {
-
-            DateUtils.YYYYMMDD.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.YYYYMMDD.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.formatYYYYMMDD( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -1148,14 +1010,15 @@ public class DateUtils {
     @NotNull
     public static String formatYYYYMMDD( @NotNull final Date dateTime, @NotNull final TimeZone timeZone ) {
 
-        synchronized ( DateUtils.YYYYMMDD ) {
+        long millis = dateTime.getTime();
+        if ( FixedWidthDateTimes.isFormattable( millis ) ) {
 
-            DateUtils.YYYYMMDD.setTimeZone( timeZone );
-            String s = DateUtils.YYYYMMDD.format( dateTime );
-            return s;
+            return FixedWidthDateTimes.formatYYYYMMDD( millis, timeZone );
 
         }
 
+        return DateUtils.YYYYMMDD.format( dateTime, timeZone );
+
     }
 
     /**
@@ -1168,13 +1031,7 @@ public class DateUtils {
     @NotNull
     public static String formatWWWW_MMMM_D_YYYY( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.WWWW_MMMM_D_YYYY ) {
-
-            DateUtils.WWWW_MMMM_D_YYYY.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.WWWW_MMMM_D_YYYY.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.WWWW_MMMM_D_YYYY.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -1188,13 +1045,7 @@ public class DateUtils {
     @NotNull
     public static String formatMMMM_D_YYYY( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.MMMM_D_YYYY ) {
-
-            DateUtils.MMMM_D_YYYY.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.MMMM_D_YYYY.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.MMMM_D_YYYY.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -1208,13 +1059,7 @@ public class DateUtils {
     @NotNull
     public static String formatD_MMM_YYYY( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.DD_MMM_YYYY ) {
-
-            DateUtils.DD_MMM_YYYY.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.DD_MMM_YYYY.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.DD_MMM_YYYY.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -1228,13 +1073,7 @@ public class DateUtils {
     @NotNull
     public static String formatYYMMDD( @NotNull final Date dateTime ) {
 
-        synchronized ( DateUtils.YYMMDD ) {
-
-            DateUtils.YYMMDD.setTimeZone( TimeZone.getDefault() );
-            String s = DateUtils.YYMMDD.format( dateTime );
-            return s;
-
-        }
+        return DateUtils.YYMMDD.format( dateTime, TimeZone.getDefault() );
 
     }
 
@@ -0,0 +1,1007 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ A persistent set of content digests which answers "have I seen this content before?" in constant time.
+ <p/>
+ Each distinct digest is remembered along with the source name of the first {@link MessageDigestRecord} that had it.
+ An index lives in two files:
+ <ul>
+ <li>the log file, an append-only sequence of checksummed records which is the index's only authoritative state.
+ A crash can at worst leave a torn record at the end of the log; it is discarded when the index is next opened.</li>
+ <li>the table file (the log file's name with {@code .table} appended),
+ a memory-mapped open-addressing hash table from digest to log offset.
+ The table can always be rebuilt from the log, and is if it wasn't closed cleanly.</li>
+ </ul>
+ A Bloom filter in the Java heap (about {@value #BLOOM_BITS_PER_ENTRY} bits per entry) sits in front of the table
+ so that most lookups of digests which aren't in the index never touch the table.
+ A lookup of a digest which is in the index reads one record from the log to confirm the match.
+ <p/>
+ With ten million MD5 digests the heap holds a 20MB filter while the table (512MB) and the log are left to the operating system's page cache.
+ <p/>
+ Instances of this class are thread safe.
+ */
+
+public class DigestIndex implements Closeable {
+
+    /**
+     How many bits of Bloom filter there are for each entry the table has room for.
+     */
+
+    public static final int BLOOM_BITS_PER_ENTRY = 10;
+
+    private static final int BLOOM_HASHES = 7;
+
+    private static final byte[] LOG_MAGIC = "ObtuseDigestLog1".getBytes( StandardCharsets.US_ASCII );
+
+    private static final long TABLE_MAGIC = 0x4f62447754626c31L;
+
+    private static final int TABLE_HEADER_SIZE = 64;
+
+    private static final int SLOT_SIZE = 16;
+
+    private static final int SLOTS_PER_SEGMENT_SHIFT = 26;
+
+    private static final long SLOTS_PER_SEGMENT = 1L << SLOTS_PER_SEGMENT_SHIFT;
+
+    private static final long MINIMUM_SLOTS = 1L << 12;
+
+    private static final int MAXIMUM_RECORD_BODY = 1 << 20;
+
+    /**
+     {@link #addAll(Collection)} appends its records in batches of about this many bytes.
+     */
+
+    private static final int APPEND_BATCH_SIZE = 1 << 20;
+
+    private final File _logFile;
+
+    private final File _tableFile;
+
+    private final String _algorithm;
+
+    private final ObtuseFiles.FsyncPolicy _fsyncPolicy;
+
+    private final FileChannel _log;
+
+    /**
+     The log's length not counting {@link #_pending}.
+     */
+
+    private long _logLength;
+
+    /**
+     Records which have been added to the table but not yet written to the log.
+     */
+
+    private final PendingBytes _pending = new PendingBytes();
+
+    private FileChannel _table;
+
+    private MappedByteBuffer _tableHeader;
+
+    private MappedByteBuffer[] _tableSegments;
+
+    private long _slotCount;
+
+    private long _entryCount;
+
+    private long[] _bloom;
+
+    private long _bloomBits;
+
+    private boolean _closed = false;
+
+    private static class PendingBytes extends ByteArrayOutputStream {
+
+        private PendingBytes() {
+
+            super( APPEND_BATCH_SIZE + 1024 );
+
+        }
+
+        private byte[] getBuffer() {
+
+            return buf;
+
+        }
+
+    }
+
+    /**
+     Open a digest index, creating it if its log file doesn't exist.
+
+     @param logFile     the index's log file.
+     @param algorithm   the digest algorithm (as returned by {@link MessageDigestRecord#getAlgorithm()}) of every record in the index.
+     @param fsyncPolicy how durable each {@link #add(MessageDigestRecord)} or {@link #addAll(Collection)} must be before it returns.
+     @throws IOException if the files can't be read or created, or if the log file isn't a digest index log.
+     @throws IllegalArgumentException if the log file holds digests of a different algorithm.
+     */
+
+    public DigestIndex( final @NotNull File logFile, final @NotNull String algorithm, final @NotNull ObtuseFiles.FsyncPolicy fsyncPolicy )
+            throws IOException {
+
+        super();
+
+        _logFile = logFile;
+        _tableFile = new File( logFile.getPath() + ".table" );
+        _algorithm = algorithm;
+        _fsyncPolicy = fsyncPolicy;
+
+        _log = FileChannel.open( logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE );
+        try {
+
+            long firstRecord = openLog();
+            long replayFrom = openTable( firstRecord );
+            replayLog( replayFrom );
+
+        } catch ( IOException | RuntimeException e ) {
+
+            ObtuseUtil.closeQuietly( _log );
+            ObtuseUtil.closeQuietly( _table );
+
+            throw e;
+
+        }
+
+        rebuildBloomFilter();
+
+    }
+
+    /**
+     Check or write the log's header.
+
+     @return the offset of the first record.
+     */
+
+    private long openLog()
+            throws IOException {
+
+        byte[] algorithmBytes = _algorithm.getBytes( StandardCharsets.UTF_8 );
+        if ( algorithmBytes.length == 0 || algorithmBytes.length > 255 ) {
+
+            throw new IllegalArgumentException( "DigestIndex:  unreasonable algorithm name " + ObtuseUtil.enquoteToJavaString( _algorithm ) );
+
+        }
+
+        ByteBuffer header = ByteBuffer.allocate( LOG_MAGIC.length + 1 + algorithmBytes.length );
+        header.put( LOG_MAGIC ).put( (byte)algorithmBytes.length ).put( algorithmBytes ).flip();
+
+        if ( _log.size() == 0 ) {
+
+            while ( header.hasRemaining() ) {
+
+                _log.write( header );
+
+            }
+
+            ObtuseFiles.force( _log, _logFile, _fsyncPolicy );
+
+            return header.limit();
+
+        }
+
+        ByteBuffer existing = ByteBuffer.allocate( LOG_MAGIC.length + 1 + 255 );
+        readFully( existing, 0L );
+        existing.flip();
+        if ( existing.remaining() < LOG_MAGIC.length + 1 ) {
+
+            throw new IOException( "DigestIndex:  " + _logFile + " is not a digest index log (too short)" );
+
+        }
+
+        byte[] magic = new byte[LOG_MAGIC.length];
+        existing.get( magic );
+        if ( !Arrays.equals( magic, LOG_MAGIC ) ) {
+
+            throw new IOException( "DigestIndex:  " + _logFile + " is not a digest index log (bad magic number)" );
+
+        }
+
+        int algorithmLength = existing.get() & 0xff;
+        if ( existing.remaining() < algorithmLength ) {
+
+            throw new IOException( "DigestIndex:  " + _logFile + " is not a digest index log (truncated header)" );
+
+        }
+
+        byte[] existingAlgorithm = new byte[algorithmLength];
+        existing.get( existingAlgorithm );
+        if ( !Arrays.equals( existingAlgorithm, algorithmBytes ) ) {
+
+            throw new IllegalArgumentException(
+                    "DigestIndex:  " + _logFile + " holds " + new String( existingAlgorithm, StandardCharsets.UTF_8 ) + " digests, not " + _algorithm
+            );
+
+        }
+
+        return existing.position();
+
+    }
+
+    /**
+     Open the table if it was closed cleanly and agrees with the log, otherwise create an empty one.
+
+     @param firstRecord the offset of the log's first record.
+     @return the offset in the log of the first record which isn't in the table.
+     */
+
+    private long openTable( final long firstRecord )
+            throws IOException {
+
+        long replayFrom = firstRecord;
+        boolean reuse = false;
+        if ( _tableFile.length() >= TABLE_HEADER_SIZE ) {
+
+            _table = FileChannel.open( _tableFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE );
+            _tableHeader = _table.map( FileChannel.MapMode.READ_WRITE, 0L, TABLE_HEADER_SIZE );
+            long slotCount = _tableHeader.getLong( 8 );
+            long coveredLength = _tableHeader.getLong( 24 );
+            reuse = _tableHeader.getLong( 0 ) == TABLE_MAGIC &&
+                    _tableHeader.getInt( 32 ) == 1 &&
+                    slotCount >= MINIMUM_SLOTS && Long.bitCount( slotCount ) == 1 &&
+                    _table.size() == TABLE_HEADER_SIZE + slotCount * SLOT_SIZE &&
+                    coveredLength >= firstRecord && coveredLength <= _log.size();
+
+            if ( reuse ) {
+
+                _slotCount = slotCount;
+                _entryCount = _tableHeader.getLong( 16 );
+                _tableSegments = mapSegments( _table, slotCount );
+                replayFrom = coveredLength;
+
+            } else {
+
+                _table.close();
+                _table = null;
+                _tableHeader = null;
+
+            }
+
+        }
+
+        if ( !reuse ) {
+
+            createTable( _tableFile, MINIMUM_SLOTS );
+
+        }
+
+        // Until the table is closed cleanly, a crash means that it must be rebuilt from the log.
+
+        _tableHeader.putInt( 32, 0 );
+        _tableHeader.force();
+
+        return replayFrom;
+
+    }
+
+    /**
+     Create an empty table, replacing any existing one, and make it this index's table.
+     */
+
+    private void createTable( final @NotNull File tableFile, final long slotCount )
+            throws IOException {
+
+        File tmpFile = new File( tableFile.getPath() + ".tmp" );
+        FileChannel table = FileChannel.open(
+                tmpFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING
+        );
+
+        try {
+
+            // Extend the file so that its slots read as zeros (empty).
+
+            table.write( ByteBuffer.allocate( 1 ), TABLE_HEADER_SIZE + slotCount * SLOT_SIZE - 1 );
+            MappedByteBuffer header = table.map( FileChannel.MapMode.READ_WRITE, 0L, TABLE_HEADER_SIZE );
+            header.putLong( 0, TABLE_MAGIC );
+            header.putLong( 8, slotCount );
+            MappedByteBuffer[] segments = mapSegments( table, slotCount );
+
+            Files.move( tmpFile.toPath(), tableFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+
+            ObtuseUtil.closeQuietly( _table );
+            _table = table;
+            _tableHeader = header;
+            _tableSegments = segments;
+            _slotCount = slotCount;
+            _entryCount = 0L;
+
+        } catch ( IOException | RuntimeException e ) {
+
+            ObtuseUtil.closeQuietly( table );
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+
+            throw e;
+
+        }
+
+    }
+
+    @NotNull
+    private static MappedByteBuffer[] mapSegments( final @NotNull FileChannel table, final long slotCount )
+            throws IOException {
+
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int)( ( slotCount + SLOTS_PER_SEGMENT - 1 ) >>> SLOTS_PER_SEGMENT_SHIFT )];
+        for ( int ix = 0; ix < segments.length; ix += 1 ) {
+
+            long slots = Math.min( SLOTS_PER_SEGMENT, slotCount - ix * SLOTS_PER_SEGMENT );
+            segments[ix] = table.map( FileChannel.MapMode.READ_WRITE, TABLE_HEADER_SIZE + ix * SLOTS_PER_SEGMENT * SLOT_SIZE, slots * SLOT_SIZE );
+
+        }
+
+        return segments;
+
+    }
+
+    /**
+     Put every record at or after {@code replayFrom} into the table, discarding a torn or corrupt tail.
+     */
+
+    private void replayLog( final long replayFrom )
+            throws IOException {
+
+        long logSize = _log.size();
+        long offset = replayFrom;
+        _log.position( replayFrom );
+        DataInputStream in = new DataInputStream( new BufferedInputStream( Channels.newInputStream( _log ), 1 << 16 ) );
+        CRC32 crc = new CRC32();
+        while ( offset < logSize ) {
+
+            if ( logSize - offset < 8 ) {
+
+                break;
+
+            }
+
+            int bodyLength = in.readInt();
+            if ( bodyLength < 2 || bodyLength > MAXIMUM_RECORD_BODY || logSize - offset - 8 < bodyLength ) {
+
+                break;
+
+            }
+
+            byte[] body = new byte[bodyLength];
+            in.readFully( body );
+            crc.reset();
+            crc.update( body, 0, bodyLength );
+            if ( (int)crc.getValue() != in.readInt() ) {
+
+                break;
+
+            }
+
+            int digestLength = body[0] & 0xff;
+            if ( digestLength == 0 || digestLength + 1 > bodyLength ) {
+
+                break;
+
+            }
+
+            long hash = hash( body, 1, digestLength );
+            insertIntoTable( hash, offset );
+
+            offset += 8 + bodyLength;
+
+        }
+
+        _logLength = offset;
+        if ( offset < logSize ) {
+
+            _log.truncate( offset );
+            ObtuseFiles.force( _log, _logFile, _fsyncPolicy );
+
+        }
+
+    }
+
+    private void rebuildBloomFilter() {
+
+        _bloomBits = Math.max( 1024L, ( _slotCount / 2 ) * BLOOM_BITS_PER_ENTRY );
+        _bloom = new long[(int)( ( _bloomBits + 63 ) >>> 6 )];
+        for ( long slot = 0; slot < _slotCount; slot += 1 ) {
+
+            if ( getSlotOffset( slot ) != 0L ) {
+
+                addToBloomFilter( getSlotHash( slot ) );
+
+            }
+
+        }
+
+    }
+
+    private void addToBloomFilter( final long hash ) {
+
+        long h2 = Long.rotateLeft( hash, 32 ) | 1L;
+        for ( int ix = 0; ix < BLOOM_HASHES; ix += 1 ) {
+
+            long bit = Long.remainderUnsigned( hash + ix * h2, _bloomBits );
+            _bloom[(int)( bit >>> 6 )] |= 1L << bit;
+
+        }
+
+    }
+
+    private boolean mightContain( final long hash ) {
+
+        long h2 = Long.rotateLeft( hash, 32 ) | 1L;
+        for ( int ix = 0; ix < BLOOM_HASHES; ix += 1 ) {
+
+            long bit = Long.remainderUnsigned( hash + ix * h2, _bloomBits );
+            if ( ( _bloom[(int)( bit >>> 6 )] & ( 1L << bit ) ) == 0L ) {
+
+                return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     Hash a digest (FNV-1a followed by the MurmurHash3 finalizer, since a digest needn't be uniformly distributed in any particular bytes).
+     */
+
+    private static long hash( final @NotNull byte[] bytes, final int offset, final int length ) {
+
+        long h = 0xcbf29ce484222325L;
+        for ( int ix = offset; ix < offset + length; ix += 1 ) {
+
+            h = ( h ^ ( bytes[ix] & 0xff ) ) * 0x100000001b3L;
+
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+
+    }
+
+    private long getSlotHash( final long slot ) {
+
+        return _tableSegments[(int)( slot >>> SLOTS_PER_SEGMENT_SHIFT )].getLong( (int)( slot & ( SLOTS_PER_SEGMENT - 1 ) ) * SLOT_SIZE );
+
+    }
+
+    /**
+     Get the log offset of the record in a slot (0 if the slot is empty; no record can be at offset 0 since the log starts with a header).
+     */
+
+    private long getSlotOffset( final long slot ) {
+
+        return _tableSegments[(int)( slot >>> SLOTS_PER_SEGMENT_SHIFT )].getLong( (int)( slot & ( SLOTS_PER_SEGMENT - 1 ) ) * SLOT_SIZE + 8 );
+
+    }
+
+    private void insertIntoTable( final long hash, final long logOffset )
+            throws IOException {
+
+        if ( ( _entryCount + 1 ) * 2 > _slotCount ) {
+
+            growTable();
+
+        }
+
+        long mask = _slotCount - 1;
+        long slot = hash & mask;
+        while ( getSlotOffset( slot ) != 0L ) {
+
+            slot = ( slot + 1 ) & mask;
+
+        }
+
+        MappedByteBuffer segment = _tableSegments[(int)( slot >>> SLOTS_PER_SEGMENT_SHIFT )];
+        int position = (int)( slot & ( SLOTS_PER_SEGMENT - 1 ) ) * SLOT_SIZE;
+        segment.putLong( position, hash );
+        segment.putLong( position + 8, logOffset );
+        _entryCount += 1;
+
+    }
+
+    private void growTable()
+            throws IOException {
+
+        MappedByteBuffer[] old = _tableSegments;
+        long oldSlotCount = _slotCount;
+        long entryCount = _entryCount;
+
+        createTable( _tableFile, oldSlotCount * 2 );
+
+        long mask = _slotCount - 1;
+        for ( long oldSlot = 0; oldSlot < oldSlotCount; oldSlot += 1 ) {
+
+            MappedByteBuffer oldSegment = old[(int)( oldSlot >>> SLOTS_PER_SEGMENT_SHIFT )];
+            int oldPosition = (int)( oldSlot & ( SLOTS_PER_SEGMENT - 1 ) ) * SLOT_SIZE;
+            long logOffset = oldSegment.getLong( oldPosition + 8 );
+            if ( logOffset != 0L ) {
+
+                long hash = oldSegment.getLong( oldPosition );
+                long slot = hash & mask;
+                while ( getSlotOffset( slot ) != 0L ) {
+
+                    slot = ( slot + 1 ) & mask;
+
+                }
+
+                MappedByteBuffer segment = _tableSegments[(int)( slot >>> SLOTS_PER_SEGMENT_SHIFT )];
+                int position = (int)( slot & ( SLOTS_PER_SEGMENT - 1 ) ) * SLOT_SIZE;
+                segment.putLong( position, hash );
+                segment.putLong( position + 8, logOffset );
+
+            }
+
+        }
+
+        _entryCount = entryCount;
+
+        if ( _bloom != null ) {
+
+            rebuildBloomFilter();
+
+        }
+
+    }
+
+    /**
+     Find the log offset of a digest's record.
+
+     @return the offset or -1 if the digest isn't in the index.
+     */
+
+    private long find( final @NotNull byte[] digest )
+            throws IOException {
+
+        long hash = hash( digest, 0, digest.length );
+        if ( !mightContain( hash ) ) {
+
+            return -1L;
+
+        }
+
+        long mask = _slotCount - 1;
+        for ( long slot = hash & mask; ; slot = ( slot + 1 ) & mask ) {
+
+            long logOffset = getSlotOffset( slot );
+            if ( logOffset == 0L ) {
+
+                return -1L;
+
+            }
+
+            if ( getSlotHash( slot ) == hash && Arrays.equals( digest, readRecordDigest( readRecordBody( logOffset ) ) ) ) {
+
+                return logOffset;
+
+            }
+
+        }
+
+    }
+
+    @NotNull
+    private byte[] readRecordBody( final long logOffset )
+            throws IOException {
+
+        if ( logOffset >= _logLength ) {
+
+            // The record is still in the pending batch.
+
+            byte[] pending = _pending.getBuffer();
+            int position = (int)( logOffset - _logLength );
+            int bodyLength = ByteBuffer.wrap( pending, position, 4 ).getInt();
+
+            return Arrays.copyOfRange( pending, position + 4, position + 4 + bodyLength );
+
+        }
+
+        ByteBuffer lengthBuffer = ByteBuffer.allocate( 4 );
+        readFully( lengthBuffer, logOffset );
+        ByteBuffer body = ByteBuffer.allocate( lengthBuffer.getInt( 0 ) );
+        readFully( body, logOffset + 4 );
+
+        return body.array();
+
+    }
+
+    @NotNull
+    private static byte[] readRecordDigest( final @NotNull byte[] body ) {
+
+        return Arrays.copyOfRange( body, 1, 1 + ( body[0] & 0xff ) );
+
+    }
+
+    private void readFully( final @NotNull ByteBuffer buffer, final long position )
+            throws IOException {
+
+        long offset = position;
+        while ( buffer.hasRemaining() ) {
+
+            int count = _log.read( buffer, offset );
+            if ( count < 0 ) {
+
+                break;
+
+            }
+
+            offset += count;
+
+        }
+
+    }
+
+    private void checkOpen() {
+
+        if ( _closed ) {
+
+            throw new IllegalStateException( "DigestIndex:  " + _logFile + " is closed" );
+
+        }
+
+    }
+
+    @NotNull
+    private byte[] checkRecord( final @NotNull MessageDigestRecord record ) {
+
+        if ( !_algorithm.equals( record.getAlgorithm() ) ) {
+
+            throw new IllegalArgumentException(
+                    "DigestIndex:  " + record.getAlgorithm() + " digest of " + ObtuseUtil.enquoteToJavaString( record.getSourceName() ) +
+                    " does not belong in an index of " + _algorithm + " digests"
+            );
+
+        }
+
+        byte[] digest = record.getDigest();
+        if ( digest.length == 0 || digest.length > 255 ) {
+
+            throw new IllegalArgumentException( "DigestIndex:  digests must be between 1 and 255 bytes long (this one is " + digest.length + ")" );
+
+        }
+
+        if ( 1 + digest.length + record.getSourceName().getBytes( StandardCharsets.UTF_8 ).length > MAXIMUM_RECORD_BODY ) {
+
+            throw new IllegalArgumentException( "DigestIndex:  source name is too long (" + record.getSourceName().length() + " characters)" );
+
+        }
+
+        return digest;
+
+    }
+
+    /**
+     Determine if a digest is in this index.
+
+     @param digest the digest.
+     @return {@code true} if some record with this digest has been added.
+     @throws IOException if the log can't be read.
+     */
+
+    public synchronized boolean contains( final @NotNull byte[] digest )
+            throws IOException {
+
+        checkOpen();
+
+        return find( digest ) >= 0L;
+
+    }
+
+    /**
+     Get the source name of the first record which was added with a digest.
+
+     @param digest the digest.
+     @return the source name or {@code null} if the digest isn't in this index.
+     @throws IOException if the log can't be read.
+     */
+
+    @Nullable
+    public synchronized String getSourceName( final @NotNull byte[] digest )
+            throws IOException {
+
+        checkOpen();
+
+        long logOffset = find( digest );
+        if ( logOffset < 0L ) {
+
+            return null;
+
+        }
+
+        byte[] body = readRecordBody( logOffset );
+        int nameStart = 1 + ( body[0] & 0xff );
+
+        return new String( body, nameStart, body.length - nameStart, StandardCharsets.UTF_8 );
+
+    }
+
+    /**
+     Add a record's digest to this index if it isn't already there.
+
+     @param record the record.
+     @return {@code true} if the digest was added; {@code false} if it was already in this index (the record is a duplicate).
+     @throws IOException if the log or table can't be updated (the index is closed if this happens).
+     @throws IllegalArgumentException if the record's algorithm isn't this index's algorithm.
+     */
+
+    public boolean add( final @NotNull MessageDigestRecord record )
+            throws IOException {
+
+        return addAll( Collections.singletonList( record ) ).isEmpty();
+
+    }
+
+    /**
+     Add many records' digests to this index.
+     The log is written in large batches and forced (according to this index's {@link ObtuseFiles.FsyncPolicy}) once at the end.
+
+     @param records the records.
+     @return the records whose digests were already in this index (including ones which appear earlier in {@code records}).
+     @throws IOException if the log or table can't be updated (the index is closed if this happens;
+     records which made it to the log will be there when the index is reopened).
+     @throws IllegalArgumentException if any record's algorithm isn't this index's algorithm (no records are added).
+     */
+
+    @NotNull
+    public synchronized List<MessageDigestRecord> addAll( final @NotNull Collection<MessageDigestRecord> records )
+            throws IOException {
+
+        checkOpen();
+
+        List<byte[]> digests = new ArrayList<>( records.size() );
+        for ( MessageDigestRecord record : records ) {
+
+            digests.add( checkRecord( record ) );
+
+        }
+
+        List<MessageDigestRecord> duplicates = new ArrayList<>();
+        boolean appended = false;
+        try {
+
+            CRC32 crc = new CRC32();
+            Iterator<byte[]> digestIter = digests.iterator();
+            for ( MessageDigestRecord record : records ) {
+
+                byte[] digest = digestIter.next();
+                if ( find( digest ) >= 0L ) {
+
+                    duplicates.add( record );
+                    continue;
+
+                }
+
+                byte[] name = record.getSourceName().getBytes( StandardCharsets.UTF_8 );
+                int bodyLength = 1 + digest.length + name.length;
+                long logOffset = _logLength + _pending.size();
+                ByteBuffer body = ByteBuffer.allocate( 4 + bodyLength + 4 );
+                body.putInt( bodyLength ).put( (byte)digest.length ).put( digest ).put( name );
+                crc.reset();
+                crc.update( body.array(), 4, bodyLength );
+                body.putInt( (int)crc.getValue() );
+                _pending.write( body.array(), 0, body.capacity() );
+
+                long hash = hash( digest, 0, digest.length );
+                insertIntoTable( hash, logOffset );
+                addToBloomFilter( hash );
+                appended = true;
+
+                if ( _pending.size() >= APPEND_BATCH_SIZE ) {
+
+                    writePending();
+
+                }
+
+            }
+
+            writePending();
+            if ( appended ) {
+
+                ObtuseFiles.force( _log, _logFile, _fsyncPolicy );
+
+            }
+
+        } catch ( IOException | RuntimeException e ) {
+
+            // The table may now refer to records which never made it to the log.
+
+            _pending.reset();
+            ObtuseUtil.closeQuietly( _log );
+            ObtuseUtil.closeQuietly( _table );
+            _closed = true;
+
+            throw e;
+
+        }
+
+        return duplicates;
+
+    }
+
+    private void writePending()
+            throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.wrap( _pending.getBuffer(), 0, _pending.size() );
+        long position = _logLength;
+        while ( buffer.hasRemaining() ) {
+
+            position += _log.write( buffer, position );
+
+        }
+
+        _logLength = position;
+        _pending.reset();
+
+    }
+
+    /**
+     Get the number of distinct digests in this index.
+     */
+
+    public synchronized long size() {
+
+        return _entryCount;
+
+    }
+
+    /**
+     Get how much heap this index's Bloom filter occupies.
+     */
+
+    public synchronized long getBloomFilterBytes() {
+
+        return _bloom == null ? 0L : _bloom.length * 8L;
+
+    }
+
+    @NotNull
+    public String getAlgorithm() {
+
+        return _algorithm;
+
+    }
+
+    @NotNull
+    public File getLogFile() {
+
+        return _logFile;
+
+    }
+
+    /**
+     Close this index, marking its table as clean so that the next open doesn't have to rebuild it.
+     */
+
+    @Override
+    public synchronized void close()
+            throws IOException {
+
+        if ( _closed ) {
+
+            return;
+
+        }
+
+        _closed = true;
+        try {
+
+            _log.force( true );
+            for ( MappedByteBuffer segment : _tableSegments ) {
+
+                segment.force();
+
+            }
+
+            _tableHeader.putLong( 16, _entryCount );
+            _tableHeader.putLong( 24, _logLength );
+            _tableHeader.putInt( 32, 1 );
+            _tableHeader.force();
+
+        } finally {
+
+            ObtuseUtil.closeQuietly( _log );
+            ObtuseUtil.closeQuietly( _table );
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "DigestIndex( " + ObtuseUtil.enquoteToJavaString( _logFile.getPath() ) + ", " + _algorithm + ", size = " + _entryCount + " )";
+
+    }
+
+    /**
+     Add a few million random "digests" to a new index and time lookups of ones that are and aren't in it.
+     <p/>Usage: {@code DigestIndex logFile [count]} (the log file and its table must not exist).
+     */
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public static void main( final String[] args )
+            throws IOException {
+
+        if ( args.length < 1 ) {
+
+            System.err.println( "usage:  DigestIndex logFile [count]" );
+            System.exit( 1 );
+
+        }
+
+        int count = args.length > 1 ? Integer.parseInt( args[1] ) : 2000000;
+        Random random = new Random( 1L );
+        long start = System.nanoTime();
+        try ( DigestIndex index = new DigestIndex( new File( args[0] ), "MD5", ObtuseFiles.FsyncPolicy.FILE ) ) {
+
+            List<MessageDigestRecord> batch = new ArrayList<>();
+            for ( int ix = 0; ix < count; ix += 1 ) {
+
+                byte[] digest = new byte[16];
+                random.nextBytes( digest );
+                batch.add( new MessageDigestRecord( "file" + ix, digest, "MD5" ) );
+                if ( batch.size() == 100000 ) {
+
+                    index.addAll( batch );
+                    batch.clear();
+
+                }
+
+            }
+
+            index.addAll( batch );
+            System.out.println( "added " + index.size() + " digests in " + ( System.nanoTime() - start ) / 1000000L + "ms" );
+            System.out.println( "Bloom filter occupies " + index.getBloomFilterBytes() + " bytes" );
+
+            random = new Random( 1L );
+            start = System.nanoTime();
+            int found = 0;
+            for ( int ix = 0; ix < count; ix += 1 ) {
+
+                byte[] digest = new byte[16];
+                random.nextBytes( digest );
+                found += index.contains( digest ) ? 1 : 0;
+
+            }
+
+            System.out.println( "found " + found + " present digests in " + ( System.nanoTime() - start ) / 1000000L + "ms" );
+
+            start = System.nanoTime();
+            found = 0;
+            for ( int ix = 0; ix < count; ix += 1 ) {
+
+                byte[] digest = new byte[16];
+                random.nextBytes( digest );
+                found += index.contains( digest ) ? 1 : 0;
+
+            }
+
+            System.out.println( "found " + found + " absent digests in " + ( System.nanoTime() - start ) / 1000000L + "ms" );
+
+        }
+
+    }
+
+}
@@ -0,0 +1,676 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import com.obtuse.exceptions.HowDidWeGetHereError;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ Compute digests of files, many at a time, and remember them.
+ <p/>
+ Files are read through memory mappings (small files are just read) and digested on an {@link ExecutorService}.
+ Every digest is remembered along with the file's size and last-modified time;
+ a file whose size and last-modified time haven't changed since it was last digested is not read again.
+ If the service was created with a cache file then the remembered digests survive restarts (see {@link #save()}).
+ <p/>
+ A digest is not remembered if the file was modified within the last {@value #RACY_MILLIS} milliseconds
+ since another change within the same last-modified-time tick would go unnoticed.
+ <p/>
+ Instances of this class are thread safe.
+ */
+
+public class FileDigestService {
+
+    /**
+     The digests that this service knows how to compute.
+     */
+
+    public enum Algorithm {
+
+        MD5( "MD5" ),
+
+        SHA_256( "SHA-256" ),
+
+        /**
+         The 64 bit xxHash (seed 0).
+         It is not a cryptographic hash but it is many times faster than MD5 and SHA-256,
+         which makes it a good way to find candidate duplicates among many files
+         (confirm with {@link #SHA_256} if an adversary might be choosing the files' contents).
+         */
+
+        XXH64( "XXH64" );
+
+        private final String _name;
+
+        Algorithm( final @NotNull String name ) {
+
+            _name = name;
+
+        }
+
+        /**
+         Get this algorithm's name as it appears in {@link MessageDigestRecord#getAlgorithm()}.
+         */
+
+        @NotNull
+        public String getName() {
+
+            return _name;
+
+        }
+
+        @NotNull
+        private Hasher newHasher() {
+
+            if ( this == XXH64 ) {
+
+                return new Xxh64Hasher();
+
+            }
+
+            try {
+
+                MessageDigest messageDigest = MessageDigest.getInstance( _name );
+
+                return new Hasher() {
+
+                    @Override
+                    public void update( final @NotNull ByteBuffer bytes ) {
+
+                        messageDigest.update( bytes );
+
+                    }
+
+                    @Override
+                    @NotNull
+                    public byte[] digest() {
+
+                        return messageDigest.digest();
+
+                    }
+
+                };
+
+            } catch ( NoSuchAlgorithmException e ) {
+
+                throw new IllegalArgumentException( "This version of Java does not support " + _name + " digests", e );
+
+            }
+
+        }
+
+    }
+
+    /**
+     A file modified this recently is digested but its digest isn't remembered.
+     */
+
+    public static final long RACY_MILLIS = 2000L;
+
+    /**
+     Files smaller than this are read rather than mapped.
+     */
+
+    private static final int MAPPING_THRESHOLD = 256 * 1024;
+
+    private static final long MAPPING_SEGMENT_SIZE = 1L << 30;
+
+    private static FileDigestService s_defaultService = null;
+
+    @Nullable
+    private final File _cacheFile;
+
+    @NotNull
+    private final ExecutorService _executor;
+
+    private final ConcurrentHashMap<String, CacheEntry> _cache = new ConcurrentHashMap<>();
+
+    private volatile boolean _dirty = false;
+
+    private interface Hasher {
+
+        void update( @NotNull ByteBuffer bytes );
+
+        @NotNull
+        byte[] digest();
+
+    }
+
+    private static class CacheEntry {
+
+        private final long _size;
+
+        private final long _lastModifiedMillis;
+
+        private final byte[] _digest;
+
+        private CacheEntry( final long size, final long lastModifiedMillis, final @NotNull byte[] digest ) {
+
+            super();
+
+            _size = size;
+            _lastModifiedMillis = lastModifiedMillis;
+            _digest = digest;
+
+        }
+
+        public String toString() {
+
+            return "CacheEntry( size=" + _size + ", lastModified=" + _lastModifiedMillis + ", digest=" + ObtuseUtil.hexvalue( _digest ) + " )";
+
+        }
+
+    }
+
+    /**
+     Create a digest service.
+
+     @param cacheFile where to load remembered digests from and save them to ({@code null} if they should only be remembered in memory).
+     A missing cache file is treated as an empty one; malformed lines in it are ignored.
+     @param executor  where to compute the digests of batches of files.
+     @throws IOException if the cache file exists but can't be read.
+     */
+
+    public FileDigestService( final @Nullable File cacheFile, final @NotNull ExecutorService executor )
+            throws IOException {
+
+        super();
+
+        _cacheFile = cacheFile;
+        _executor = executor;
+
+        if ( cacheFile != null && cacheFile.exists() ) {
+
+            load( cacheFile );
+
+        }
+
+    }
+
+    /**
+     Get a shared service that only remembers digests in memory and computes batches on the common fork-join pool.
+     */
+
+    @NotNull
+    public static synchronized FileDigestService getDefaultService() {
+
+        if ( s_defaultService == null ) {
+
+            try {
+
+                s_defaultService = new FileDigestService( null, ForkJoinPool.commonPool() );
+
+            } catch ( IOException e ) {
+
+                throw new HowDidWeGetHereError( "FileDigestService:  no cache file yet we got an IOException", e );
+
+            }
+
+        }
+
+        return s_defaultService;
+
+    }
+
+    /**
+     Get a file's digest, reading the file only if it has changed since this service last digested it.
+
+     @param file      the file.
+     @param algorithm which digest.
+     @return the digest (the record's source name is the file's absolute path).
+     @throws IOException if the file can't be read.
+     */
+
+    @NotNull
+    public MessageDigestRecord digest( final @NotNull File file, final @NotNull Algorithm algorithm )
+            throws IOException {
+
+        String path = file.getAbsolutePath();
+        String key = algorithm.getName() + '\t' + path;
+
+        BasicFileAttributes before = Files.readAttributes( file.toPath(), BasicFileAttributes.class );
+        CacheEntry cached = _cache.get( key );
+        if (
+                cached != null &&
+                cached._size == before.size() &&
+                cached._lastModifiedMillis == before.lastModifiedTime().toMillis()
+        ) {
+
+            return new MessageDigestRecord( path, cached._digest.clone(), algorithm.getName() );
+
+        }
+
+        byte[] digest = computeDigest( file, algorithm );
+
+        // Only remember the digest if the file didn't change while we read it and isn't so new that it could change unnoticed.
+
+        BasicFileAttributes after = Files.readAttributes( file.toPath(), BasicFileAttributes.class );
+        long lastModifiedMillis = after.lastModifiedTime().toMillis();
+        if (
+                after.size() == before.size() &&
+                lastModifiedMillis == before.lastModifiedTime().toMillis() &&
+                System.currentTimeMillis() - lastModifiedMillis >= RACY_MILLIS
+        ) {
+
+            _cache.put( key, new CacheEntry( after.size(), lastModifiedMillis, digest.clone() ) );
+            _dirty = true;
+
+        }
+
+        return new MessageDigestRecord( path, digest, algorithm.getName() );
+
+    }
+
+    /**
+     Get the digests of many files at once.
+     The files which have changed since this service last digested them are read concurrently on this service's executor.
+
+     @param files     the files.
+     @param algorithm which digest.
+     @return a map from each file to its digest (in the same order as {@code files}).
+     @throws IOException if any of the files can't be read (the exception is the first one, in {@code files} order).
+     @throws InterruptedIOException if this thread is interrupted while waiting for the digests.
+     */
+
+    @NotNull
+    public LinkedHashMap<File, MessageDigestRecord> digestAll( final @NotNull Collection<File> files, final @NotNull Algorithm algorithm )
+            throws IOException {
+
+        List<Future<MessageDigestRecord>> futures = new ArrayList<>( files.size() );
+        for ( File file : files ) {
+
+            futures.add( _executor.submit( () -> digest( file, algorithm ) ) );
+
+        }
+
+        LinkedHashMap<File, MessageDigestRecord> rval = new LinkedHashMap<>();
+        Iterator<Future<MessageDigestRecord>> futureIter = futures.iterator();
+        try {
+
+            for ( File file : files ) {
+
+                rval.put( file, futureIter.next().get() );
+
+            }
+
+        } catch ( ExecutionException e ) {
+
+            for ( Future<MessageDigestRecord> future : futures ) {
+
+                future.cancel( false );
+
+            }
+
+            if ( e.getCause() instanceof IOException ) {
+
+                throw (IOException)e.getCause();
+
+            } else if ( e.getCause() instanceof RuntimeException ) {
+
+                throw (RuntimeException)e.getCause();
+
+            }
+
+            throw new HowDidWeGetHereError( "FileDigestService.digestAll:  unexpected exception", e.getCause() );
+
+        } catch ( InterruptedException e ) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "FileDigestService.digestAll:  interrupted" );
+
+        }
+
+        return rval;
+
+    }
+
+    /**
+     Compute a file's digest without looking at or updating any cache.
+
+     @param file      the file.
+     @param algorithm which digest.
+     @return the digest.
+     @throws IOException if the file can't be read.
+     */
+
+    @NotNull
+    public static byte[] computeDigest( final @NotNull File file, final @NotNull Algorithm algorithm )
+            throws IOException {
+
+        Hasher hasher = algorithm.newHasher();
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+
+            long size = channel.size();
+            if ( size < MAPPING_THRESHOLD ) {
+
+                ByteBuffer buffer = ByteBuffer.allocate( (int)size + 1 );
+                while ( channel.read( buffer ) >= 0 && buffer.hasRemaining() ) {
+
+                    ObtuseUtil.doNothing();
+
+                }
+
+                buffer.flip();
+                hasher.update( buffer );
+
+                // The file might have grown since we got its size.
+
+                if ( buffer.limit() > size ) {
+
+                    computeRest( channel, buffer.limit(), hasher );
+
+                }
+
+            } else {
+
+                for ( long position = 0; position < size; position += MAPPING_SEGMENT_SIZE ) {
+
+                    hasher.update( channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( MAPPING_SEGMENT_SIZE, size - position ) ) );
+
+                }
+
+            }
+
+        }
+
+        return hasher.digest();
+
+    }
+
+    private static void computeRest( final @NotNull FileChannel channel, final long position, final @NotNull Hasher hasher )
+            throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate( 64 * 1024 );
+        channel.position( position );
+        while ( channel.read( buffer ) >= 0 ) {
+
+            buffer.flip();
+            hasher.update( buffer );
+            buffer.clear();
+
+        }
+
+    }
+
+    /**
+     Save the remembered digests to this service's cache file (atomically, so a crash leaves either the old or the new cache).
+     Nothing happens if the service has no cache file or nothing has changed since the last save.
+
+     @throws IOException if the cache file can't be written.
+     */
+
+    public synchronized void save()
+            throws IOException {
+
+        if ( _cacheFile == null || !_dirty ) {
+
+            return;
+
+        }
+
+        _dirty = false;
+
+        StringBuilder sb = new StringBuilder();
+        for ( Map.Entry<String, CacheEntry> entry : new TreeMap<>( _cache ).entrySet() ) {
+
+            CacheEntry cacheEntry = entry.getValue();
+            int tab = entry.getKey().indexOf( '\t' );
+            sb.append( entry.getKey(), 0, tab )
+              .append( '\t' ).append( cacheEntry._size )
+              .append( '\t' ).append( cacheEntry._lastModifiedMillis )
+              .append( '\t' ).append( ObtuseUtil.hexvalue( cacheEntry._digest ) )
+              .append( entry.getKey(), tab, entry.getKey().length() )
+              .append( '\n' );
+
+        }
+
+        ObtuseFiles.writeAtomically( sb.toString().getBytes( StandardCharsets.UTF_8 ), _cacheFile, ObtuseFiles.FsyncPolicy.FILE );
+
+    }
+
+    /**
+     Load a cache file. Each line is {@code algorithm<tab>size<tab>lastModifiedMillis<tab>hexDigest<tab>absolutePath}.
+     */
+
+    private void load( final @NotNull File cacheFile )
+            throws IOException {
+
+        for ( String line : new String( ObtuseFiles.readFile( cacheFile ), StandardCharsets.UTF_8 ).split( "\n" ) ) {
+
+            String[] fields = line.split( "\t", 5 );
+            if ( fields.length != 5 ) {
+
+                continue;
+
+            }
+
+            try {
+
+                _cache.put(
+                        fields[0] + '\t' + fields[4],
+                        new CacheEntry( Long.parseLong( fields[1] ), Long.parseLong( fields[2] ), ObtuseUtil.decodeHexAsByteArray( fields[3] ) )
+                );
+
+            } catch ( NumberFormatException e ) {
+
+                ObtuseUtil.doNothing();
+
+            }
+
+        }
+
+    }
+
+    /**
+     How many digests this service remembers.
+     */
+
+    public int getCacheSize() {
+
+        return _cache.size();
+
+    }
+
+    /**
+     The 64 bit xxHash with a seed of 0, computed incrementally.
+     The digest is the 8 byte big-endian representation of the hash (so its hex form is the usual xxHash64 hex form).
+     */
+
+    private static class Xxh64Hasher implements Hasher {
+
+        private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+        private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long PRIME64_3 = 0x165667B19E3779F9L;
+        private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+        private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+        private long _v1 = PRIME64_1 + PRIME64_2;
+        private long _v2 = PRIME64_2;
+        private long _v3 = 0L;
+        private long _v4 = -PRIME64_1;
+
+        private long _totalLength = 0L;
+
+        /**
+         Bytes which haven't made up a full 32 byte stripe yet.
+         */
+
+        private final ByteBuffer _pending = ByteBuffer.allocate( 32 ).order( ByteOrder.LITTLE_ENDIAN );
+
+        private static long round( final long acc, final long input ) {
+
+            return Long.rotateLeft( acc + input * PRIME64_2, 31 ) * PRIME64_1;
+
+        }
+
+        private static long mergeRound( final long acc, final long value ) {
+
+            return ( acc ^ round( 0L, value ) ) * PRIME64_1 + PRIME64_4;
+
+        }
+
+        private void stripe( final @NotNull ByteBuffer littleEndian ) {
+
+            _v1 = round( _v1, littleEndian.getLong() );
+            _v2 = round( _v2, littleEndian.getLong() );
+            _v3 = round( _v3, littleEndian.getLong() );
+            _v4 = round( _v4, littleEndian.getLong() );
+
+        }
+
+        @Override
+        public void update( final @NotNull ByteBuffer bytes ) {
+
+            ByteBuffer input = bytes.duplicate().order( ByteOrder.LITTLE_ENDIAN );
+            _totalLength += input.remaining();
+            bytes.position( bytes.limit() );
+
+            if ( _pending.position() > 0 ) {
+
+                while ( _pending.hasRemaining() && input.hasRemaining() ) {
+
+                    _pending.put( input.get() );
+
+                }
+
+                if ( _pending.hasRemaining() ) {
+
+                    return;
+
+                }
+
+                _pending.flip();
+                stripe( _pending );
+                _pending.clear();
+
+            }
+
+            while ( input.remaining() >= 32 ) {
+
+                stripe( input );
+
+            }
+
+            _pending.put( input );
+
+        }
+
+        @Override
+        @NotNull
+        public byte[] digest() {
+
+            long h;
+            if ( _totalLength >= 32 ) {
+
+                h = Long.rotateLeft( _v1, 1 ) + Long.rotateLeft( _v2, 7 ) + Long.rotateLeft( _v3, 12 ) + Long.rotateLeft( _v4, 18 );
+                h = mergeRound( h, _v1 );
+                h = mergeRound( h, _v2 );
+                h = mergeRound( h, _v3 );
+                h = mergeRound( h, _v4 );
+
+            } else {
+
+                h = PRIME64_5;
+
+            }
+
+            h += _totalLength;
+
+            _pending.flip();
+            while ( _pending.remaining() >= 8 ) {
+
+                h ^= round( 0L, _pending.getLong() );
+                h = Long.rotateLeft( h, 27 ) * PRIME64_1 + PRIME64_4;
+
+            }
+
+            if ( _pending.remaining() >= 4 ) {
+
+                h ^= ( _pending.getInt() & 0xFFFFFFFFL ) * PRIME64_1;
+                h = Long.rotateLeft( h, 23 ) * PRIME64_2 + PRIME64_3;
+
+            }
+
+            while ( _pending.hasRemaining() ) {
+
+                h ^= ( _pending.get() & 0xFFL ) * PRIME64_5;
+                h = Long.rotateLeft( h, 11 ) * PRIME64_1;
+
+            }
+
+            h ^= h >>> 33;
+            h *= PRIME64_2;
+            h ^= h >>> 29;
+            h *= PRIME64_3;
+            h ^= h >>> 32;
+
+            return ByteBuffer.allocate( 8 ).putLong( h ).array();
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "FileDigestService( cacheFile=" + _cacheFile + ", cached=" + _cache.size() + " )";
+
+    }
+
+    /**
+     Digest every file in a directory tree twice (the second time should come entirely from the cache)
+     and compare the time taken with {@link ObtuseUtil#computeMD5(File)} on one thread.
+     <p/>Usage: {@code FileDigestService directory [MD5|SHA_256|XXH64]}.
+     */
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public static void main( final String[] args )
+            throws IOException {
+
+        if ( args.length < 1 ) {
+
+            System.err.println( "usage:  FileDigestService directory [MD5|SHA_256|XXH64]" );
+            System.exit( 1 );
+
+        }
+
+        Algorithm algorithm = args.length > 1 ? Algorithm.valueOf( args[1] ) : Algorithm.MD5;
+        List<File> files = new ArrayList<>();
+        Files.walk( new File( args[0] ).toPath() ).filter( Files::isRegularFile ).forEach( path -> files.add( path.toFile() ) );
+
+        long start = System.nanoTime();
+        for ( File file : files ) {
+
+            ObtuseUtil.computeMD5( file );
+
+        }
+
+        System.out.println( files.size() + " files, ObtuseUtil.computeMD5 on one thread:  " + ( System.nanoTime() - start ) / 1000000L + "ms" );
+
+        FileDigestService service = new FileDigestService( null, ForkJoinPool.commonPool() );
+        for ( String pass : new String[]{ "cold", "cached" } ) {
+
+            start = System.nanoTime();
+            service.digestAll( files, algorithm );
+            System.out.println( files.size() + " files, " + algorithm + " digestAll (" + pass + "):  " + ( System.nanoTime() - start ) / 1000000L + "ms" );
+
+        }
+
+    }
+
+}
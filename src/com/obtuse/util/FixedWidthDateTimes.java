@@ -0,0 +1,503 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.TimeZone;
+
+/**
+ Hand-written parsers and formatters for the fixed-width date formats that we see in bulk (logs, CSV files, marker strings and such).
+ <p/>
+ The parsers work directly on a range of a {@link CharSequence} and return milliseconds since the epoch without allocating anything.
+ They only accept input which is exactly in the expected format with every field in range and a year after the Gregorian cutover.
+ Anything else gets {@link #NOT_FIXED_WIDTH}, which tells the caller to fall back to a general purpose (and slower) parser
+ (see the {@code parse} methods in {@link DateUtils}, which do exactly that).
+ <p/>
+ The formatters append to a {@link StringBuilder} or return a {@link String}.
+ They only handle dates and times for which {@link #isFormattable(long)} is {@code true}.
+ <p/>
+ Local times are converted to and from UTC using {@link TimeZone#getOffset(long)}.
+ The parsers give up (with {@link #NOT_FIXED_WIDTH}) on a local time within a day of a change in the timezone's offset
+ because {@link java.util.GregorianCalendar} has its own rules for times in the gap or overlap around a change.
+ That way, a result from a parser always agrees with what a {@link java.text.SimpleDateFormat} would produce.
+ <p/>
+ All methods in this class are thread safe.
+ */
+
+public class FixedWidthDateTimes {
+
+    /**
+     Returned by the parsers when their input is not exactly in the expected format.
+     */
+
+    public static final long NOT_FIXED_WIDTH = Long.MIN_VALUE;
+
+    /**
+     The length of a {@code yyyy-MM-dd HH:mm:ss} string.
+     */
+
+    public static final int YYYY_MM_DD_HH_MM_SS_LENGTH = 19;
+
+    /**
+     The length of a {@code yyyy-MM-dd} string.
+     */
+
+    public static final int YYYY_MM_DD_LENGTH = 10;
+
+    /**
+     The length of a {@code yyyyMMdd} string.
+     */
+
+    public static final int YYYYMMDD_LENGTH = 8;
+
+    /**
+     The length of a {@code yyyyMMdd_HHmmss_SSS'Z'} (marker) string.
+     */
+
+    public static final int MARKER_LENGTH = 20;
+
+    private static final long MS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    /*
+     * SimpleDateFormat uses the Julian calendar before the Gregorian cutover in October 1582 and we only do the Gregorian calendar.
+     */
+
+    private static final int MIN_YEAR = 1583;
+
+    /*
+     * The formatters only produce four digit years.
+     * Stay a day away from the ends of years 1583 and 9999 so that no timezone offset can push us outside of them.
+     */
+
+    private static final long MIN_FORMATTABLE = daysFromCivil( MIN_YEAR, 1, 2 ) * MS_PER_DAY;
+
+    private static final long MAX_FORMATTABLE = daysFromCivil( 9999, 12, 31 ) * MS_PER_DAY;
+
+    private FixedWidthDateTimes() {
+
+        super();
+
+    }
+
+    /*
+     * Parsing.
+     */
+
+    /**
+     Parse a {@code yyyy-MM-dd HH:mm:ss} date and time.
+
+     @param cs       where the date and time is.
+     @param start    where the date and time starts.
+     @param end      where the date and time ends (exclusive).
+     @param timeZone the timezone that the date and time is in.
+     @return the date and time in milliseconds since the epoch or {@link #NOT_FIXED_WIDTH} if the input isn't exactly in the expected format.
+     */
+
+    public static long parseYYYY_MM_DD_HH_MM_SS( final @NotNull CharSequence cs, final int start, final int end, final @NotNull TimeZone timeZone ) {
+
+        if ( end - start != YYYY_MM_DD_HH_MM_SS_LENGTH ||
+             cs.charAt( start + 4 ) != '-' || cs.charAt( start + 7 ) != '-' || cs.charAt( start + 10 ) != ' ' ||
+             cs.charAt( start + 13 ) != ':' || cs.charAt( start + 16 ) != ':' ) {
+
+            return NOT_FIXED_WIDTH;
+
+        }
+
+        return toMillis(
+                digits( cs, start, 4 ),
+                digits( cs, start + 5, 2 ),
+                digits( cs, start + 8, 2 ),
+                digits( cs, start + 11, 2 ),
+                digits( cs, start + 14, 2 ),
+                digits( cs, start + 17, 2 ),
+                0,
+                timeZone
+        );
+
+    }
+
+    /**
+     Parse a {@code yyyy-MM-dd} date as midnight at the start of the date.
+
+     @param cs       where the date is.
+     @param start    where the date starts.
+     @param end      where the date ends (exclusive).
+     @param timeZone the timezone that the date is in.
+     @return the start of the date in milliseconds since the epoch or {@link #NOT_FIXED_WIDTH} if the input isn't exactly in the expected format.
+     */
+
+    public static long parseYYYY_MM_DD( final @NotNull CharSequence cs, final int start, final int end, final @NotNull TimeZone timeZone ) {
+
+        if ( end - start != YYYY_MM_DD_LENGTH || cs.charAt( start + 4 ) != '-' || cs.charAt( start + 7 ) != '-' ) {
+
+            return NOT_FIXED_WIDTH;
+
+        }
+
+        return toMillis( digits( cs, start, 4 ), digits( cs, start + 5, 2 ), digits( cs, start + 8, 2 ), 0, 0, 0, 0, timeZone );
+
+    }
+
+    /**
+     Parse a {@code yyyyMMdd} date as midnight at the start of the date.
+
+     @param cs       where the date is.
+     @param start    where the date starts.
+     @param end      where the date ends (exclusive).
+     @param timeZone the timezone that the date is in.
+     @return the start of the date in milliseconds since the epoch or {@link #NOT_FIXED_WIDTH} if the input isn't exactly in the expected format.
+     */
+
+    public static long parseYYYYMMDD( final @NotNull CharSequence cs, final int start, final int end, final @NotNull TimeZone timeZone ) {
+
+        if ( end - start != YYYYMMDD_LENGTH ) {
+
+            return NOT_FIXED_WIDTH;
+
+        }
+
+        return toMillis( digits( cs, start, 4 ), digits( cs, start + 4, 2 ), digits( cs, start + 6, 2 ), 0, 0, 0, 0, timeZone );
+
+    }
+
+    /**
+     Parse a {@code yyyyMMdd_HHmmss_SSS'Z'} (marker) date and time in UTC.
+
+     @param cs    where the date and time is.
+     @param start where the date and time starts.
+     @param end   where the date and time ends (exclusive).
+     @return the date and time in milliseconds since the epoch or {@link #NOT_FIXED_WIDTH} if the input isn't exactly in the expected format.
+     */
+
+    public static long parseMarkerUTC( final @NotNull CharSequence cs, final int start, final int end ) {
+
+        if ( end - start != MARKER_LENGTH ||
+             cs.charAt( start + 8 ) != '_' || cs.charAt( start + 15 ) != '_' || cs.charAt( start + 19 ) != 'Z' ) {
+
+            return NOT_FIXED_WIDTH;
+
+        }
+
+        return toMillis(
+                digits( cs, start, 4 ),
+                digits( cs, start + 4, 2 ),
+                digits( cs, start + 6, 2 ),
+                digits( cs, start + 9, 2 ),
+                digits( cs, start + 11, 2 ),
+                digits( cs, start + 13, 2 ),
+                digits( cs, start + 16, 3 ),
+                DateUtils.UTC
+        );
+
+    }
+
+    /**
+     Get the value of a run of decimal digits.
+
+     @return the value or -1 if any of the characters are not decimal digits.
+     */
+
+    private static int digits( final @NotNull CharSequence cs, final int start, final int count ) {
+
+        int value = 0;
+        for ( int i = start; i < start + count; i += 1 ) {
+
+            int digit = cs.charAt( i ) - '0';
+            if ( digit < 0 || digit > 9 ) {
+
+                return -1;
+
+            }
+
+            value = value * 10 + digit;
+
+        }
+
+        return value;
+
+    }
+
+    private static long toMillis(
+            final int year,
+            final int month,
+            final int day,
+            final int hour,
+            final int minute,
+            final int second,
+            final int millis,
+            final @NotNull TimeZone timeZone
+    ) {
+
+        // Negative values are from digits() and mean that a field wasn't all digits.
+        // We leave the rolling over of out of range fields to the general purpose parsers.
+
+        if ( year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth( year, month ) ||
+             hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0 ) {
+
+            return NOT_FIXED_WIDTH;
+
+        }
+
+        long local = daysFromCivil( year, month, day ) * MS_PER_DAY +
+                     ( ( hour * 60L + minute ) * 60L + second ) * 1000L +
+                     millis;
+
+        return localToUtc( local, timeZone );
+
+    }
+
+    /**
+     Convert a local time to UTC if the timezone's offset from UTC is the same for a day either side of it.
+     <p/>
+     Local times near a change in the offset can be in a gap (which doesn't exist) or an overlap (which exists twice).
+     {@link java.util.GregorianCalendar} has its own rules for those (and for the odd historical offsets that some timezones have)
+     so we leave them to the general purpose parsers rather than risk disagreeing with them.
+
+     @param localMillis the local time expressed as if it were milliseconds since the epoch in UTC.
+     @param timeZone    the timezone that the local time is in.
+     @return the corresponding milliseconds since the epoch or {@link #NOT_FIXED_WIDTH} if the offset changes near the local time.
+     */
+
+    private static long localToUtc( final long localMillis, final @NotNull TimeZone timeZone ) {
+
+        long guess = localMillis - timeZone.getRawOffset();
+        int offset = timeZone.getOffset( guess );
+        if ( timeZone.getOffset( guess - MS_PER_DAY ) != offset || timeZone.getOffset( guess + MS_PER_DAY ) != offset ||
+             timeZone.getOffset( localMillis - offset ) != offset ) {
+
+            return NOT_FIXED_WIDTH;
+
+        }
+
+        return localMillis - offset;
+
+    }
+
+    private static boolean isLeapYear( final int year ) {
+
+        return ( year & 3 ) == 0 && ( year % 100 != 0 || year % 400 == 0 );
+
+    }
+
+    private static int daysInMonth( final int year, final int month ) {
+
+        switch ( month ) {
+
+            case 2:
+                return isLeapYear( year ) ? 29 : 28;
+
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+
+            default:
+                return 31;
+
+        }
+
+    }
+
+    /**
+     Count the days from 1970-01-01 to a date in the proleptic Gregorian calendar.
+     <p/>This is Howard Hinnant's {@code days_from_civil} algorithm.
+     */
+
+    private static long daysFromCivil( final int year, final int month, final int day ) {
+
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv( y, 400 );
+        long yearOfEra = y - era * 400;
+        long dayOfYear = ( 153 * ( month + ( month > 2 ? -3 : 9 ) ) + 2 ) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+
+    }
+
+    /*
+     * Formatting.
+     */
+
+    /**
+     Determine if the formatters in this class can handle a date and time.
+
+     @param millis the date and time in milliseconds since the epoch.
+     @return {@code true} if the date and time is comfortably within the years 1583 through 9999; {@code false} otherwise.
+     */
+
+    public static boolean isFormattable( final long millis ) {
+
+        return millis >= MIN_FORMATTABLE && millis < MAX_FORMATTABLE;
+
+    }
+
+    /**
+     Append a {@code yyyy-MM-dd HH:mm:ss} date and time.
+
+     @param sb       where to append it.
+     @param millis   the date and time in milliseconds since the epoch.
+     @param timeZone the timezone that the date and time should be expressed in.
+     @return {@code sb}.
+     */
+
+    @NotNull
+    public static StringBuilder appendYYYY_MM_DD_HH_MM_SS( final @NotNull StringBuilder sb, final long millis, final @NotNull TimeZone timeZone ) {
+
+        long local = millis + timeZone.getOffset( millis );
+        long msOfDay = Math.floorMod( local, MS_PER_DAY );
+
+        appendYYYY_MM_DD( sb, Math.floorDiv( local, MS_PER_DAY ), '-' );
+        sb.append( ' ' );
+        appendTwoDigits( sb, (int)( msOfDay / 3600000L ) ).append( ':' );
+        appendTwoDigits( sb, (int)( msOfDay / 60000L % 60L ) ).append( ':' );
+        appendTwoDigits( sb, (int)( msOfDay / 1000L % 60L ) );
+
+        return sb;
+
+    }
+
+    @NotNull
+    public static String formatYYYY_MM_DD_HH_MM_SS( final long millis, final @NotNull TimeZone timeZone ) {
+
+        return appendYYYY_MM_DD_HH_MM_SS( new StringBuilder( YYYY_MM_DD_HH_MM_SS_LENGTH ), millis, timeZone ).toString();
+
+    }
+
+    /**
+     Append a {@code yyyy-MM-dd} date.
+
+     @param sb       where to append it.
+     @param millis   a time on the date in milliseconds since the epoch.
+     @param timeZone the timezone that the date should be expressed in.
+     @return {@code sb}.
+     */
+
+    @NotNull
+    public static StringBuilder appendYYYY_MM_DD( final @NotNull StringBuilder sb, final long millis, final @NotNull TimeZone timeZone ) {
+
+        return appendYYYY_MM_DD( sb, Math.floorDiv( millis + timeZone.getOffset( millis ), MS_PER_DAY ), '-' );
+
+    }
+
+    @NotNull
+    public static String formatYYYY_MM_DD( final long millis, final @NotNull TimeZone timeZone ) {
+
+        return appendYYYY_MM_DD( new StringBuilder( YYYY_MM_DD_LENGTH ), millis, timeZone ).toString();
+
+    }
+
+    /**
+     Append a {@code yyyyMMdd} date.
+
+     @param sb       where to append it.
+     @param millis   a time on the date in milliseconds since the epoch.
+     @param timeZone the timezone that the date should be expressed in.
+     @return {@code sb}.
+     */
+
+    @NotNull
+    public static StringBuilder appendYYYYMMDD( final @NotNull StringBuilder sb, final long millis, final @NotNull TimeZone timeZone ) {
+
+        return appendYYYY_MM_DD( sb, Math.floorDiv( millis + timeZone.getOffset( millis ), MS_PER_DAY ), (char)0 );
+
+    }
+
+    @NotNull
+    public static String formatYYYYMMDD( final long millis, final @NotNull TimeZone timeZone ) {
+
+        return appendYYYYMMDD( new StringBuilder( YYYYMMDD_LENGTH ), millis, timeZone ).toString();
+
+    }
+
+    /**
+     Append a {@code yyyyMMdd_HHmmss_SSS'Z'} (marker) date and time in UTC.
+
+     @param sb     where to append it.
+     @param millis the date and time in milliseconds since the epoch.
+     @return {@code sb}.
+     */
+
+    @NotNull
+    public static StringBuilder appendMarkerUTC( final @NotNull StringBuilder sb, final long millis ) {
+
+        long msOfDay = Math.floorMod( millis, MS_PER_DAY );
+
+        appendYYYY_MM_DD( sb, Math.floorDiv( millis, MS_PER_DAY ), (char)0 );
+        sb.append( '_' );
+        appendTwoDigits( sb, (int)( msOfDay / 3600000L ) );
+        appendTwoDigits( sb, (int)( msOfDay / 60000L % 60L ) );
+        appendTwoDigits( sb, (int)( msOfDay / 1000L % 60L ) );
+        sb.append( '_' );
+        int ms = (int)( msOfDay % 1000L );
+        sb.append( (char)( '0' + ms / 100 ) );
+        appendTwoDigits( sb, ms % 100 );
+        sb.append( 'Z' );
+
+        return sb;
+
+    }
+
+    @NotNull
+    public static String formatMarkerUTC( final long millis ) {
+
+        return appendMarkerUTC( new StringBuilder( MARKER_LENGTH ), millis ).toString();
+
+    }
+
+    /**
+     Append a date given as days since 1970-01-01.
+     This is Howard Hinnant's {@code civil_from_days} algorithm.
+
+     @param separator the character to put between the year, month and day ({@code (char)0} for no separator).
+     */
+
+    @NotNull
+    private static StringBuilder appendYYYY_MM_DD( final @NotNull StringBuilder sb, final long epochDay, final char separator ) {
+
+        long z = epochDay + 719468;
+        long era = Math.floorDiv( z, 146097 );
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = ( dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096 ) / 365;
+        long dayOfYear = dayOfEra - ( 365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100 );
+        long mp = ( 5 * dayOfYear + 2 ) / 153;
+        int day = (int)( dayOfYear - ( 153 * mp + 2 ) / 5 + 1 );
+        int month = (int)( mp < 10 ? mp + 3 : mp - 9 );
+        long year = yearOfEra + era * 400 + ( month <= 2 ? 1 : 0 );
+
+        if ( year < 1000 ) {
+
+            sb.append( year < 10 ? "000" : year < 100 ? "00" : "0" );
+
+        }
+
+        sb.append( year );
+        if ( separator != 0 ) {
+
+            sb.append( separator );
+
+        }
+
+        appendTwoDigits( sb, month );
+        if ( separator != 0 ) {
+
+            sb.append( separator );
+
+        }
+
+        return appendTwoDigits( sb, day );
+
+    }
+
+    @NotNull
+    private static StringBuilder appendTwoDigits( final @NotNull StringBuilder sb, final int value ) {
+
+        return sb.append( (char)( '0' + value / 10 ) ).append( (char)( '0' + value % 10 ) );
+
+    }
+
+}
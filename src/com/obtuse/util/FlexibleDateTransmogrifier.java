@@ -8,7 +8,10 @@ package com.obtuse.util;
 import com.obtuse.exceptions.HowDidWeGetHereError;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -38,6 +41,12 @@ import java.util.regex.Pattern;
  Each input string is parsed in turn using each the formats shown above in the order listed.
  The first parse that completes without encountering an error is assumed to be correct and the value understood by that pattern is returned in the appropriate canonical format.
  <p/>
+ Trying a long list of regular expressions one after another gets expensive when importing lots of dates so
+ {@link #transmogrify(String)} actually makes a single pass over the input to classify its shape (runs of digits, runs of letters and punctuation)
+ and then goes straight to the formats which could possibly match that shape.
+ The results are identical to trying the formats one at a time which is still available via {@link #transmogrifyUsingPatterns(String)}
+ (and which is what {@link #transmogrify(String)} does when tracing is enabled since it explains itself much better).
+ <p/>
  <b>Note to anyone modifying this class' implementation:
  while the order in which the above formats are tried doesn't matter in the current implementation of this class, it could matter in the future so be careful.</b>
  <p/>
@@ -361,6 +370,34 @@ public class FlexibleDateTransmogrifier {
     @NotNull
     public static Optional<String> transmogrify( final String dateString ) {
 
+        if ( s_traceOneCall | s_traceAllCalls ) {
+
+            return transmogrifyUsingPatterns( dateString );
+
+        }
+
+        String trimmedDateString = dateString.trim();
+        if ( ObtuseApproximateCalendarDate.FORMATTED_UNKNOWN_APPROXIMATE_DATE.equalsIgnoreCase( trimmedDateString ) ) {
+
+            return Optional.of( ObtuseApproximateCalendarDate.FORMATTED_UNKNOWN_APPROXIMATE_DATE );
+
+        }
+
+        return new ShapeScanner( trimmedDateString ).transmogrify();
+
+    }
+
+    /**
+     Transmogrify a date string by trying each of the supported formats in turn.
+     <p/>This yields exactly the same results as {@link #transmogrify(String)} but is quite a bit slower.
+
+     @param dateString the input date string. See {@link FlexibleDateTransmogrifier} JavaDocs for much more information.
+     @return an {@code Optional<String>} instance containing the transmogrified string if the attempt worked or an empty {@code Optional<String>} instance if the attempt failed.
+     */
+
+    @NotNull
+    public static Optional<String> transmogrifyUsingPatterns( final String dateString ) {
+
         if ( ObtuseApproximateCalendarDate.FORMATTED_UNKNOWN_APPROXIMATE_DATE.equalsIgnoreCase( dateString.trim() ) ) {
 
             return Optional.of( ObtuseApproximateCalendarDate.FORMATTED_UNKNOWN_APPROXIMATE_DATE );
@@ -399,6 +436,451 @@ public class FlexibleDateTransmogrifier {
 
     }
 
+    /**
+     Takes a (trimmed) date string apart in a single pass and then interprets it the same way that the first of the formats which matches and
+     yields a valid date would.
+     <p/>The input is broken into up to five tokens, each of which is a run of digits, a run of letters or one of {@code -./,}.
+     We also note which tokens are preceded by at least one space since some formats require a space where others merely allow one.
+     Any other character means that none of the formats can match.
+     */
+
+    private static class ShapeScanner {
+
+        private static final int MAX_TOKENS = 5;
+
+        private static final char DIGITS = 'd';
+
+        private static final char LETTERS = 'a';
+
+        private final String _s;
+
+        private final char[] _kinds = new char[MAX_TOKENS];
+
+        private final int[] _starts = new int[MAX_TOKENS];
+
+        private final int[] _ends = new int[MAX_TOKENS];
+
+        private final boolean[] _spaceBefore = new boolean[MAX_TOKENS];
+
+        private int _count = 0;
+
+        private ShapeScanner( final @NotNull String s ) {
+
+            super();
+
+            _s = s;
+
+        }
+
+        /**
+         Break the string into tokens.
+
+         @return {@code true} if it worked; {@code false} if the string contains a character which can't appear in any of the formats or has too many tokens.
+         */
+
+        private boolean scan() {
+
+            boolean sawSpace = false;
+            int ix = 0;
+            while ( ix < _s.length() ) {
+
+                char ch = _s.charAt( ix );
+                if ( ch == ' ' ) {
+
+                    sawSpace = true;
+                    ix += 1;
+                    continue;
+
+                }
+
+                char kind;
+                int end = ix + 1;
+                if ( isDigit( ch ) ) {
+
+                    kind = DIGITS;
+                    while ( end < _s.length() && isDigit( _s.charAt( end ) ) ) {
+
+                        end += 1;
+
+                    }
+
+                } else if ( isLetter( ch ) ) {
+
+                    kind = LETTERS;
+                    while ( end < _s.length() && isLetter( _s.charAt( end ) ) ) {
+
+                        end += 1;
+
+                    }
+
+                } else if ( ch == '-' || ch == '.' || ch == '/' || ch == ',' ) {
+
+                    kind = ch;
+
+                } else {
+
+                    return false;
+
+                }
+
+                if ( _count == MAX_TOKENS ) {
+
+                    return false;
+
+                }
+
+                _kinds[_count] = kind;
+                _starts[_count] = ix;
+                _ends[_count] = end;
+                _spaceBefore[_count] = sawSpace;
+                _count += 1;
+
+                sawSpace = false;
+                ix = end;
+
+            }
+
+            return true;
+
+        }
+
+        private static boolean isDigit( final char ch ) {
+
+            return ch >= '0' && ch <= '9';
+
+        }
+
+        private static boolean isLetter( final char ch ) {
+
+            return ( ch >= 'a' && ch <= 'z' ) || ( ch >= 'A' && ch <= 'Z' );
+
+        }
+
+        private int length( final int tokenIx ) {
+
+            return _ends[tokenIx] - _starts[tokenIx];
+
+        }
+
+        /**
+         Is a token a four digit year ({@code \d{4}})?
+         */
+
+        private boolean isYear( final int tokenIx ) {
+
+            return _kinds[tokenIx] == DIGITS && length( tokenIx ) == 4;
+
+        }
+
+        /**
+         Is a token a one or two digit number ({@code \d\d?})?
+         */
+
+        private boolean isShortNumber( final int tokenIx ) {
+
+            return _kinds[tokenIx] == DIGITS && length( tokenIx ) <= 2;
+
+        }
+
+        /**
+         Is a token a zero day or month ({@code 00?})?
+         */
+
+        private boolean isZero( final int tokenIx ) {
+
+            return isShortNumber( tokenIx ) && value( tokenIx ) == 0;
+
+        }
+
+        /**
+         Is a token a possible month name ({@code [A-Za-z]{3,}})?
+         */
+
+        private boolean isWord( final int tokenIx ) {
+
+            return _kinds[tokenIx] == LETTERS && length( tokenIx ) >= 3;
+
+        }
+
+        private boolean isYmdSeparator( final int tokenIx ) {
+
+            char kind = _kinds[tokenIx];
+
+            return kind == '-' || kind == '.' || kind == '/';
+
+        }
+
+        private int value( final int tokenIx ) {
+
+            int value = 0;
+            for ( int ix = _starts[tokenIx]; ix < _ends[tokenIx]; ix += 1 ) {
+
+                value = value * 10 + ( _s.charAt( ix ) - '0' );
+
+            }
+
+            return value;
+
+        }
+
+        private String text( final int tokenIx ) {
+
+            return _s.substring( _starts[tokenIx], _ends[tokenIx] );
+
+        }
+
+        private int numericMonth( final int tokenIx ) {
+
+            int month = value( tokenIx );
+
+            return month >= 1 && month <= 12 ? month : -1;
+
+        }
+
+        /**
+         The allocation-free equivalent of {@link #parseCharacterMonth(String)}.
+         */
+
+        private int characterMonth( final int tokenIx ) {
+
+            int length = length( tokenIx );
+            for ( int month = 0; month < 12; month += 1 ) {
+
+                String name = s_monthNames[month];
+                if ( ( length == 3 || length == name.length() ) && name.regionMatches( true, 0, _s, _starts[tokenIx], length ) ) {
+
+                    return month + 1;
+
+                }
+
+            }
+
+            return -1;
+
+        }
+
+        private int day( final int tokenIx ) {
+
+            int day = value( tokenIx );
+
+            return day >= 1 && day <= 31 ? day : -1;
+
+        }
+
+        @NotNull
+        private Optional<String> transmogrify() {
+
+            if ( !scan() ) {
+
+                return Optional.empty();
+
+            }
+
+            switch ( _count ) {
+
+                case 1:
+
+                    // yyyy
+
+                    return isYear( 0 ) ? Optional.of( text( 0 ) ) : Optional.empty();
+
+                case 2:
+
+                    // MMM~ yyyy
+
+                    if ( isWord( 0 ) && isYear( 1 ) && _spaceBefore[1] ) {
+
+                        return yearMonth( 1, characterMonth( 0 ) );
+
+                    }
+
+                    return Optional.empty();
+
+                case 3:
+
+                    return transmogrifyThreeTokens();
+
+                case 4:
+
+                    // MMM~ d[d], yyyy and MMM~ d[d]/yyyy
+
+                    if ( isWord( 0 ) && isShortNumber( 1 ) && _spaceBefore[1] && ( _kinds[2] == ',' || _kinds[2] == '/' ) && isYear( 3 ) ) {
+
+                        return yearMonthDay( 3, characterMonth( 0 ), 1 );
+
+                    }
+
+                    return Optional.empty();
+
+                case 5:
+
+                    return transmogrifyFiveTokens();
+
+                default:
+
+                    return Optional.empty();
+
+            }
+
+        }
+
+        @NotNull
+        private Optional<String> transmogrifyThreeTokens() {
+
+            if ( isYear( 0 ) && isYmdSeparator( 1 ) && isShortNumber( 2 ) ) {
+
+                // yyyy-m[m] and friends
+
+                return yearMonth( 0, numericMonth( 2 ) );
+
+            }
+
+            // The remaining three token formats all require spaces between their tokens.
+
+            if ( !_spaceBefore[1] || !_spaceBefore[2] ) {
+
+                return Optional.empty();
+
+            }
+
+            if ( isShortNumber( 0 ) && isYear( 2 ) ) {
+
+                // d[d] MMM~ yyyy and d[d] m[m] yyyy
+
+                if ( isWord( 1 ) ) {
+
+                    return yearMonthDay( 2, characterMonth( 1 ), 0 );
+
+                } else if ( isShortNumber( 1 ) ) {
+
+                    return yearMonthDay( 2, numericMonth( 1 ), 0 );
+
+                }
+
+            } else if ( isYear( 0 ) && isShortNumber( 2 ) ) {
+
+                // yyyy MMM~ d[d] and yyyy m[m] d[d]
+
+                if ( isWord( 1 ) ) {
+
+                    return yearMonthDay( 0, characterMonth( 1 ), 2 );
+
+                } else if ( isShortNumber( 1 ) ) {
+
+                    return yearMonthDay( 0, numericMonth( 1 ), 2 );
+
+                }
+
+            } else if ( isWord( 0 ) && isShortNumber( 1 ) && isYear( 2 ) ) {
+
+                // MMM~ d[d] yyyy
+
+                return yearMonthDay( 2, characterMonth( 0 ), 1 );
+
+            }
+
+            return Optional.empty();
+
+        }
+
+        @NotNull
+        private Optional<String> transmogrifyFiveTokens() {
+
+            // yyyy-m[m]-d[d] and friends (the two separators must be the same).
+
+            if ( !isYear( 0 ) || !isYmdSeparator( 1 ) || !isShortNumber( 2 ) || _kinds[3] != _kinds[1] || !isShortNumber( 4 ) ) {
+
+                return Optional.empty();
+
+            }
+
+            // The formats are tried in this order:  yyyy-mm-dd, yyyy-mm-00 and then yyyy-00-00.
+
+            int month = numericMonth( 2 );
+            if ( month > 0 && day( 4 ) > 0 ) {
+
+                return yearMonthDay( 0, month, 4 );
+
+            }
+
+            if ( isZero( 4 ) ) {
+
+                if ( month > 0 ) {
+
+                    return yearMonth( 0, month );
+
+                }
+
+                if ( isZero( 2 ) ) {
+
+                    return Optional.of( text( 0 ) );
+
+                }
+
+            }
+
+            return Optional.empty();
+
+        }
+
+        @NotNull
+        private Optional<String> yearMonth( final int yearIx, final int month ) {
+
+            if ( month <= 0 ) {
+
+                return Optional.empty();
+
+            }
+
+            return Optional.of( text( yearIx ) + "-" + ObtuseUtil.lpad( month, 2, '0' ) );
+
+        }
+
+        @NotNull
+        private Optional<String> yearMonthDay( final int yearIx, final int month, final int dayIx ) {
+
+            int day = day( dayIx );
+            if ( month <= 0 || day <= 0 ) {
+
+                return Optional.empty();
+
+            }
+
+            // Just like the pattern path, the year is formatted as a number here (a year of "0932" yields "932-...").
+
+            return Optional.of( "" + value( yearIx ) + "-" + ObtuseUtil.lpad( month, 2, '0' ) + "-" + ObtuseUtil.lpad( day, 2, '0' ) );
+
+        }
+
+        public String toString() {
+
+            return "ShapeScanner( \"" + _s + "\", " + _count + " tokens )";
+
+        }
+
+    }
+
+    /**
+     Get every input string in the built-in test data.
+     <p/>Intended for checking that {@link #transmogrify(String)} and {@link #transmogrifyUsingPatterns(String)} agree.
+
+     @return an unmodifiable list of the input strings.
+     */
+
+    @NotNull
+    public static List<String> getTestDataInputs() {
+
+        List<String> rval = new ArrayList<>();
+        for ( TestData td : s_testData ) {
+
+            rval.addAll( Arrays.asList( td.input ) );
+
+        }
+
+        return Collections.unmodifiableList( rval );
+
+    }
+
     public static void traceOneCall() {
 
         s_traceOneCall = true;
@@ -738,6 +1220,74 @@ public class FlexibleDateTransmogrifier {
 
         }
 
+        compareImplementations( maxTrials );
+
+    }
+
+    /**
+     Make sure that the single-pass scanner and the patterns agree on every input in the test data and then see how long each of them takes.
+
+     @param trials how many times to run through the test data with each implementation.
+     */
+
+    private static void compareImplementations( final int trials ) {
+
+        List<String> inputs = getTestDataInputs();
+        for ( String input : inputs ) {
+
+            Optional<String> viaScanner = transmogrify( input );
+            Optional<String> viaPatterns = transmogrifyUsingPatterns( input );
+            if ( !viaScanner.equals( viaPatterns ) ) {
+
+                Logger.logMsg( "FlexibleDateTransmogrifier:  MISMATCH input \"" + input + "\" yielded " + viaScanner + " from the scanner but " + viaPatterns + " from the patterns" );
+
+                return;
+
+            }
+
+        }
+
+        Logger.logMsg( "FlexibleDateTransmogrifier:  the scanner and the patterns agree on all " + inputs.size() + " inputs" );
+
+        for ( boolean usePatterns : new boolean[]{ true, false } ) {
+
+            // Warm up first.
+
+            for ( int round = 0; round < 2; round += 1 ) {
+
+                int count = round == 0 ? Math.max( 1, trials / 10 ) : trials;
+                long startNanos = System.nanoTime();
+                int presentCount = 0;
+                for ( int trial = 0; trial < count; trial += 1 ) {
+
+                    for ( String input : inputs ) {
+
+                        if ( ( usePatterns ? transmogrifyUsingPatterns( input ) : transmogrify( input ) ).isPresent() ) {
+
+                            presentCount += 1;
+
+                        }
+
+                    }
+
+                }
+
+                long elapsedNanos = System.nanoTime() - startNanos;
+                if ( round == 1 ) {
+
+                    long calls = (long)count * inputs.size();
+                    Logger.logMsg(
+                            "FlexibleDateTransmogrifier:  " + ( usePatterns ? "patterns" : "scanner " ) + " " +
+                            ObtuseUtil.readable( calls ) + " calls (" + ObtuseUtil.readable( presentCount ) + " worked) took " +
+                            DateUtils.formatDuration( elapsedNanos / 1000000L ) + ", or " + ( elapsedNanos / (double)calls ) + " ns per call"
+                    );
+
+                }
+
+            }
+
+        }
+
     }
 
 }
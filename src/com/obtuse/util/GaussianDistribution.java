@@ -5,8 +5,10 @@
 package com.obtuse.util;
 
 import ec.util.MersenneTwister;
+import ec.util.MersenneTwisterFast;
 
 import java.util.Random;
+import java.util.function.DoubleSupplier;
 
 /**
  * Describe and implement a gaussian distribution.
@@ -58,12 +60,36 @@ public class GaussianDistribution {
 
     }
 
+    /**
+     * Generate a value using {@code rng}'s own {@link Random#nextGaussian()} (so a given seed yields the same values it always has).
+     */
+
     public double generateValue( final Random rng ) {
 
         return _center + rng.nextGaussian() * _standardDeviation;
 
     }
 
+    /**
+     * Generate a value using the (much faster) {@link ZigguratGaussian} sampler.
+     */
+
+    public double generateValue( final MersenneTwisterFast rng ) {
+
+        return _center + ZigguratGaussian.nextGaussian( rng ) * _standardDeviation;
+
+    }
+
+    /**
+     * Generate a value using {@link RandomCentral#nextGaussian()} (contention-free unless {@link RandomCentral} is in secure mode).
+     */
+
+    public double generateValue() {
+
+        return _center + RandomCentral.nextGaussian() * _standardDeviation;
+
+    }
+
     public void emitAsXml( final NestedXMLPrinter ps ) {
 
         ps.emitTag(
@@ -86,11 +112,33 @@ public class GaussianDistribution {
     private static void doit( final Random rng, final double center, final double standardDeviation, final int nTrials ) {
 
         GaussianDistribution dp = new GaussianDistribution( center, standardDeviation );
+        doit( "Random", () -> dp.generateValue( rng ), center, standardDeviation, nTrials );
+
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static void doit( final MersenneTwisterFast rng, final double center, final double standardDeviation, final int nTrials ) {
+
+        GaussianDistribution dp = new GaussianDistribution( center, standardDeviation );
+        doit( "ziggurat", () -> dp.generateValue( rng ), center, standardDeviation, nTrials );
+
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static void doit(
+            final String how,
+            final DoubleSupplier generator,
+            final double center,
+            final double standardDeviation,
+            final int nTrials
+    ) {
+
         Stats stats = new Stats();
         int[] buckets = new int[3];
+        long start = System.nanoTime();
         for ( int i = 0; i < nTrials; i += 1 ) {
 
-            double datum = dp.generateValue( rng );
+            double datum = generator.getAsDouble();
             stats.datum( datum );
             double absDatum = Math.abs( datum - center );
             if ( absDatum < standardDeviation ) {
@@ -111,8 +159,11 @@ public class GaussianDistribution {
 
         }
 
+        long elapsedMillis = ( System.nanoTime() - start ) / 1000000L;
+
         //noinspection UseOfSystemOutOrSystemErr
         System.out.println(
+                how + " (" + elapsedMillis + "ms):  " +
                 "center = " + ObtuseUtil.lpad( center, 0, 4 ) +
                 ", expected standard deviation = " + ObtuseUtil.lpad( standardDeviation, 0, 4 ) +
                 ", mean = " + ObtuseUtil.lpad( stats.mean(), 0, 4 ) +
@@ -137,6 +188,12 @@ public class GaussianDistribution {
         GaussianDistribution.doit( rng, 10.0, 3.0, GaussianDistribution.NTRIALS );
         GaussianDistribution.doit( rng, 0.0, 0.1, GaussianDistribution.NTRIALS );
 
+        MersenneTwisterFast fastRng = new MersenneTwisterFast();
+        GaussianDistribution.doit( fastRng, 0.0, 1.0, GaussianDistribution.NTRIALS );
+        GaussianDistribution.doit( fastRng, 0.0, 2.0, GaussianDistribution.NTRIALS );
+        GaussianDistribution.doit( fastRng, 10.0, 3.0, GaussianDistribution.NTRIALS );
+        GaussianDistribution.doit( fastRng, 0.0, 0.1, GaussianDistribution.NTRIALS );
+
     }
 
 }
@@ -7,22 +7,67 @@ package com.obtuse.util;
 import com.obtuse.exceptions.HowDidWeGetHereError;
 import com.obtuse.util.exceptions.SyntaxErrorException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ Parse a comma-separated-value file whose first line contains the column titles.
+ <p/>
+ Quoted fields use C-style backslash escapes (see {@link CSVParser#getString(int)}) and cannot span lines.
+ <p/>
+ An instance created by one of the constructors reads the file sequentially when {@link #parse()} is called and keeps every field of every line.
+ An instance created by {@link #parseInParallel(String, File, Charset, Collection, ForkJoinPool)} memory-maps the file,
+ splits it into chunks at line boundaries and parses the chunks on a fork-join pool.
+ It only keeps the offset of each line and re-parses a line when one of its fields is asked for
+ (the most recently parsed line is cached so getting several fields from the same line is cheap).
+ Either way, {@link #getString(int, String)}, {@link #getLineCount()}, {@link #iterator()} and {@link #spliterator()} work the same.
+ */
 
 @SuppressWarnings("UnusedDeclaration")
 public class GenericCsvParser extends CSVParser implements Iterable<SortedMap<String, String>> {
 
+    /**
+     How many bytes each chunk handed to the fork-join pool in parallel mode covers.
+     */
+
+    private static final long PARALLEL_CHUNK_SIZE = 4L * 1024L * 1024L;
+
+    /**
+     How much of the file each {@link MappedByteBuffer} maps in parallel mode (a single mapping is limited to 2GB).
+     */
+
+    private static final int SEGMENT_SHIFT = 30;
+
     private final String _description;
     private final TwoDimensionalSortedMap<Integer, String, String> _parsedData = new TwoDimensionalTreeMap<>();
     private final List<String> _titles;
     private int _nextLnum = 0;
 
+    /**
+     Where each line is (only in parallel mode).
+     */
+
+    private final LineIndex _lineIndex;
+
+    /**
+     Which field goes with which title (only in parallel mode).
+     If a title appears more than once then the last one wins, just like it does in sequential mode.
+     */
+
+    private final Map<String, Integer> _titleIndices = new HashMap<>();
+
+    private volatile ParsedLine _lastParsedLine = null;
+
     public GenericCsvParser( final String fileName )
             throws FileNotFoundException, SyntaxErrorException {
 
@@ -44,6 +89,7 @@ public class GenericCsvParser extends CSVParser implements Iterable<SortedMap<St
         super( input );
 
         _description = description;
+        _lineIndex = null;
 
         _titles = parseRawLine( -1 );
 
@@ -60,12 +106,122 @@ public class GenericCsvParser extends CSVParser implements Iterable<SortedMap<St
         super( input );
 
         _description = description;
+        _lineIndex = null;
 
         _titles = new ArrayList<>();
         _titles.addAll( titles );
 
     }
 
+    private GenericCsvParser( final String description, final @NotNull List<String> titles, final @NotNull LineIndex lineIndex ) {
+
+        super( new BufferedReader( new StringReader( "" ) ) );
+
+        _description = description;
+        _titles = titles;
+        _lineIndex = lineIndex;
+        _nextLnum = lineIndex.getLineCount() + 1;
+
+        for ( int ix = 0; ix < titles.size(); ix += 1 ) {
+
+            _titleIndices.put( titles.get( ix ), ix );
+
+        }
+
+    }
+
+    /**
+     Parse a file in parallel.
+     <p/>
+     The file is memory-mapped and split into chunks of about {@value #PARALLEL_CHUNK_SIZE} bytes.
+     Every chunk is moved forward to the start of the first line which begins in it.
+     Quoted fields can't contain line breaks so that's always a real record boundary and no quote tracking is needed to find it.
+     Each line is parsed in full on the fork-join pool to make sure that it is valid but only the line's offset is kept.
+     The result is ready to use; calling {@link #parse()} on it is an error.
+
+     @param description what to call the file in error messages.
+     @param file        the file.
+     @param charset     the file's character set (it must be ASCII compatible, which UTF-8 and the ISO-8859 family are).
+     @param titles      the column titles or {@code null} if the first line of the file contains them.
+     @param pool        the fork-join pool to parse on.
+     @return the parsed file.
+     @throws IOException          if the file can't be mapped.
+     @throws SyntaxErrorException if a line is malformed (the earliest malformed line is reported).
+     */
+
+    @NotNull
+    public static GenericCsvParser parseInParallel(
+            final String description,
+            final @NotNull File file,
+            final @NotNull Charset charset,
+            final @Nullable Collection<String> titles,
+            final @NotNull ForkJoinPool pool
+    )
+            throws IOException, SyntaxErrorException {
+
+        MappedByteBuffer[] segments;
+        long size;
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ); FileChannel channel = raf.getChannel() ) {
+
+            size = channel.size();
+            segments = new MappedByteBuffer[(int)( ( size + ( 1L << SEGMENT_SHIFT ) - 1 ) >>> SEGMENT_SHIFT )];
+            for ( int ix = 0; ix < segments.length; ix += 1 ) {
+
+                long start = (long)ix << SEGMENT_SHIFT;
+                segments[ix] = channel.map( FileChannel.MapMode.READ_ONLY, start, Math.min( 1L << SEGMENT_SHIFT, size - start ) );
+
+            }
+
+        }
+
+        MappedLines lines = new MappedLines( segments, size, charset );
+        LineChunk chunk = pool.invoke( new LineChunkTask( lines, 0, size ) );
+
+        if ( chunk.getErrorMessage() != null ) {
+
+            int lnum = titles == null ? chunk.getErrorLineIx() : chunk.getErrorLineIx() + 1;
+            if ( lnum == 0 ) {
+
+                throw new SyntaxErrorException( description + " " + chunk.getErrorMessage() );
+
+            }
+
+            throw new SyntaxErrorException( description + " line " + lnum + " has " + chunk.getErrorMessage() );
+
+        }
+
+        List<String> actualTitles;
+        int firstDataLineIx;
+        if ( titles == null ) {
+
+            actualTitles = chunk.getCount() == 0 ? new ArrayList<>() : parseFields( lines.getLine( chunk.getStarts()[0], lineEnd( chunk, 0, size ) ) );
+            firstDataLineIx = 1;
+
+        } else {
+
+            actualTitles = new ArrayList<>( titles );
+            firstDataLineIx = 0;
+
+        }
+
+        return new GenericCsvParser( description, actualTitles, new LineIndex( lines, chunk, firstDataLineIx ) );
+
+    }
+
+    @NotNull
+    public static GenericCsvParser parseInParallel( final @NotNull File file )
+            throws IOException, SyntaxErrorException {
+
+        return parseInParallel( file.getName(), file, Charset.defaultCharset(), null, ForkJoinPool.commonPool() );
+
+    }
+
+    private static long lineEnd( final @NotNull LineChunk chunk, final int lineIx, final long size ) {
+
+        return lineIx + 1 < chunk.getCount() ? chunk.getStarts()[lineIx + 1] : size;
+
+    }
+
     public static GenericCsvParser parseQuietly( final String fileName ) {
 
         try {
@@ -210,7 +366,20 @@ public class GenericCsvParser extends CSVParser implements Iterable<SortedMap<St
             fields.add( field );
 
             iCh = nextCh();
-            if ( iCh == '\n' || iCh == '\r' || iCh == -1 ) {
+            if ( iCh == '\r' ) {
+
+                // Treat \r\n as one line ending rather than as a line ending followed by an empty line.
+
+                iCh = nextCh();
+                if ( iCh != '\n' ) {
+
+                    pushback( iCh );
+
+                }
+
+                return fields;
+
+            } else if ( iCh == '\n' || iCh == -1 ) {
 
                 return fields;
 
@@ -241,7 +410,91 @@ public class GenericCsvParser extends CSVParser implements Iterable<SortedMap<St
 
     public String getString( final int lnum, final String title ) {
 
-        return _parsedData.get( lnum, title );
+        if ( _lineIndex == null ) {
+
+            return _parsedData.get( lnum, title );
+
+        }
+
+        Integer ix = _titleIndices.get( title );
+        if ( ix == null || !hasLine( lnum ) ) {
+
+            return null;
+
+        }
+
+        List<String> fields = getFields( lnum );
+
+        return ix < fields.size() ? fields.get( ix ) : null;
+
+    }
+
+    /**
+     Get a line's fields in parallel mode.
+     */
+
+    @NotNull
+    private List<String> getFields( final int lnum ) {
+
+        ParsedLine last = _lastParsedLine;
+        if ( last != null && last._lnum == lnum ) {
+
+            return last._fields;
+
+        }
+
+        try {
+
+            List<String> fields = parseFields( _lineIndex.getLine( lnum ) );
+            _lastParsedLine = new ParsedLine( lnum, fields );
+
+            return fields;
+
+        } catch ( SyntaxErrorException e ) {
+
+            throw new HowDidWeGetHereError( "GenericCsvParser:  line " + lnum + " was valid when we first parsed it", e );
+
+        }
+
+    }
+
+    /**
+     Get a line as a map from titles to fields.
+
+     @return the map or {@code null} if the line has no fields (sequential mode doesn't keep anything for such lines).
+     */
+
+    @Nullable
+    private SortedMap<String, String> getRow( final int lnum ) {
+
+        if ( _lineIndex == null ) {
+
+            return _parsedData.getInnerMap( lnum, false );
+
+        }
+
+        List<String> fields = getFields( lnum );
+        if ( fields.isEmpty() ) {
+
+            return null;
+
+        }
+
+        SortedMap<String, String> rval = new TreeMap<>();
+        Iterator<String> fieldIter = fields.iterator();
+        for ( String title : _titles ) {
+
+            if ( !fieldIter.hasNext() ) {
+
+                break;
+
+            }
+
+            rval.put( title, fieldIter.next() );
+
+        }
+
+        return rval;
 
     }
 
@@ -263,26 +516,681 @@ public class GenericCsvParser extends CSVParser implements Iterable<SortedMap<St
 
     }
 
+    /**
+     Get an iterator over the lines which have at least one field, in line number order.
+     <p/>In parallel mode, each map is built as the iterator gets to it.
+     */
+
     @Override
     @NotNull
     public Iterator<SortedMap<String, String>> iterator() {
 
-        return _parsedData.innerMaps().iterator();
+        if ( _lineIndex == null ) {
+
+            return _parsedData.innerMaps().iterator();
+
+        }
+
+        return Spliterators.iterator( spliterator() );
 
     }
 
+    /**
+     Get an ordered spliterator over the same lines as {@link #iterator()}.
+     It splits by line number ranges so parallel streams actually run in parallel.
+     */
+
     @Override
-    public void forEach( final Consumer<? super SortedMap<String, String>> action ) {
+    public Spliterator<SortedMap<String, String>> spliterator() {
+
+        return spliterator( true );
 
-        ObtuseUtil.doNothing();
+    }
+
+    /**
+     Get a spliterator over the same lines as {@link #iterator()}.
 
+     @param ordered {@code true} if the lines must be delivered in line number order;
+     {@code false} if the order doesn't matter (which lets a parallel stream skip the work needed to keep the lines in order).
+     @return the spliterator.
+     */
+
+    @NotNull
+    public Spliterator<SortedMap<String, String>> spliterator( final boolean ordered ) {
+
+        return new RowSpliterator( 1, _nextLnum, ordered );
 
     }
 
-    @Override
-    public Spliterator<SortedMap<String, String>> spliterator() {
+    /**
+     Get a stream of the same lines as {@link #iterator()}.
+
+     @param parallel should the stream be parallel?
+     @param ordered  must the lines be delivered in line number order?
+     @return the stream.
+     */
+
+    @NotNull
+    public Stream<SortedMap<String, String>> stream( final boolean parallel, final boolean ordered ) {
+
+        return StreamSupport.stream( spliterator( ordered ), parallel );
+
+    }
+
+    private class RowSpliterator implements Spliterator<SortedMap<String, String>> {
+
+        private int _next;
+
+        private final int _end;
+
+        private final boolean _ordered;
+
+        private RowSpliterator( final int next, final int end, final boolean ordered ) {
+
+            super();
+
+            _next = next;
+            _end = end;
+            _ordered = ordered;
+
+        }
+
+        @Override
+        public boolean tryAdvance( final Consumer<? super SortedMap<String, String>> action ) {
+
+            while ( _next < _end ) {
+
+                SortedMap<String, String> row = getRow( _next );
+                _next += 1;
+                if ( row != null ) {
+
+                    action.accept( row );
+
+                    return true;
+
+                }
+
+            }
+
+            return false;
+
+        }
+
+        @Override
+        @Nullable
+        public Spliterator<SortedMap<String, String>> trySplit() {
+
+            int mid = ( _next + _end ) >>> 1;
+            if ( mid - _next < 64 ) {
+
+                return null;
+
+            }
+
+            RowSpliterator prefix = new RowSpliterator( _next, mid, _ordered );
+            _next = mid;
+
+            return prefix;
+
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return _end - _next;
+
+        }
+
+        @Override
+        public int characteristics() {
+
+            // Not SIZED since lines without any fields are skipped.
+
+            return ( _ordered ? ORDERED : 0 ) | NONNULL | IMMUTABLE;
+
+        }
+
+        public String toString() {
+
+            return "RowSpliterator( [" + _next + "," + _end + ") )";
+
+        }
+
+    }
+
+    /**
+     Parse one line (without its line ending) the same way that sequential mode does.
+
+     @param line the line.
+     @return the line's fields.
+     @throws SyntaxErrorException if the line is malformed (the message does not say which line).
+     */
+
+    @NotNull
+    private static List<String> parseFields( final @NotNull String line )
+            throws SyntaxErrorException {
+
+        List<String> fields = new ArrayList<>();
+        int ix = 0;
+        int length = line.length();
+        while ( ix < length ) {
+
+            StringBuilder field = new StringBuilder();
+            if ( line.charAt( ix ) == '"' ) {
+
+                ix += 1;
+                while ( true ) {
+
+                    if ( ix == length ) {
+
+                        throw new SyntaxErrorException( "missing closing string delimiter" );
+
+                    }
+
+                    char ch = line.charAt( ix );
+                    ix += 1;
+                    if ( ch == '"' ) {
+
+                        break;
+
+                    }
+
+                    if ( ch == '\\' ) {
+
+                        char escaped = ix < length ? line.charAt( ix ) : '\n';
+                        ix += 1;
+                        switch ( escaped ) {
+
+                            case 'n':
+                                ch = '\n';
+                                break;
+
+                            case 'r':
+                                ch = '\r';
+                                break;
+
+                            case 't':
+                                ch = '\t';
+                                break;
+
+                            case 'b':
+                                ch = '\b';
+                                break;
+
+                            case '\\':
+                            case '"':
+                                ch = escaped;
+                                break;
+
+                            default:
+                                throw new SyntaxErrorException( "illegal char after backslash" );
+
+                        }
+
+                    }
+
+                    field.append( ch );
+
+                }
+
+            } else {
+
+                while ( ix < length && line.charAt( ix ) != ',' ) {
+
+                    if ( line.charAt( ix ) != '\r' ) {
+
+                        field.append( line.charAt( ix ) );
+
+                    }
+
+                    ix += 1;
+
+                }
+
+            }
+
+            fields.add( field.toString() );
+
+            if ( ix == length ) {
 
-        return null;
+                break;
+
+            }
+
+            char ch = line.charAt( ix );
+            ix += 1;
+            if ( ch == '\r' ) {
+
+                break;
+
+            } else if ( ch != ',' ) {
+
+                throw new SyntaxErrorException( "a field which is not terminated by a comma" );
+
+            }
+
+        }
+
+        return fields;
+
+    }
+
+    private static class ParsedLine {
+
+        private final int _lnum;
+
+        private final List<String> _fields;
+
+        private ParsedLine( final int lnum, final @NotNull List<String> fields ) {
+
+            super();
+
+            _lnum = lnum;
+            _fields = Collections.unmodifiableList( fields );
+
+        }
+
+        public String toString() {
+
+            return "ParsedLine( " + _lnum + ", " + _fields + " )";
+
+        }
+
+    }
+
+    /**
+     A memory-mapped file that is divided into lines.
+     */
+
+    private static class MappedLines {
+
+        private final MappedByteBuffer[] _segments;
+
+        private final long _size;
+
+        private final Charset _charset;
+
+        private MappedLines( final @NotNull MappedByteBuffer[] segments, final long size, final @NotNull Charset charset ) {
+
+            super();
+
+            _segments = segments;
+            _size = size;
+            _charset = charset;
+
+        }
+
+        private byte byteAt( final long position ) {
+
+            return _segments[(int)( position >>> SEGMENT_SHIFT )].get( (int)( position & ( ( 1L << SEGMENT_SHIFT ) - 1 ) ) );
+
+        }
+
+        /**
+         Get the line which starts at {@code start} and whose successor starts at {@code end} (or which ends at the end of the file),
+         without its line ending.
+         */
+
+        @NotNull
+        private String getLine( final long start, final long end ) {
+
+            long stop = end;
+            if ( stop > start && byteAt( stop - 1 ) == '\n' ) {
+
+                stop -= 1;
+
+            }
+
+            byte[] bytes = new byte[(int)( stop - start )];
+            for ( int ix = 0; ix < bytes.length; ix += 1 ) {
+
+                bytes[ix] = byteAt( start + ix );
+
+            }
+
+            return new String( bytes, _charset );
+
+        }
+
+        /**
+         Find where the record which starts at {@code start} ends within the line whose successor starts at {@code end}.
+         <p/>
+         Sequential mode ends a record at a carriage return which follows a quoted field and treats whatever comes after it as the next record.
+         This returns the position just after such a carriage return if anything other than a newline follows it and {@code end} otherwise.
+         The bytes which matter here are all ASCII so scanning bytes works for any ASCII compatible character set.
+         Malformed records are left for {@link GenericCsvParser#parseFields(String)} to complain about.
+         */
+
+        private long recordEnd( final long start, final long end ) {
+
+            long stop = end;
+            if ( stop > start && byteAt( stop - 1 ) == '\n' ) {
+
+                stop -= 1;
+
+            }
+
+            long position = start;
+            while ( position < stop ) {
+
+                if ( byteAt( position ) == '"' ) {
+
+                    position += 1;
+                    while ( true ) {
+
+                        if ( position >= stop ) {
+
+                            return end;
+
+                        }
+
+                        byte b = byteAt( position );
+                        position += b == '\\' ? 2 : 1;
+                        if ( b == '"' ) {
+
+                            break;
+
+                        }
+
+                    }
+
+                    if ( position < stop && byteAt( position ) == '\r' ) {
+
+                        return position + 1 < stop ? position + 1 : end;
+
+                    }
+
+                } else {
+
+                    while ( position < stop && byteAt( position ) != ',' ) {
+
+                        position += 1;
+
+                    }
+
+                }
+
+                if ( position >= stop || byteAt( position ) != ',' ) {
+
+                    return end;
+
+                }
+
+                position += 1;
+
+            }
+
+            return end;
+
+        }
+
+        public String toString() {
+
+            return "MappedLines( " + _size + " bytes in " + _segments.length + " segments )";
+
+        }
+
+    }
+
+    /**
+     The lines which start within a range of a file along with the first malformed line, if any.
+     */
+
+    private static class LineChunk {
+
+        private long[] _starts;
+
+        private int _count;
+
+        private int _errorLineIx = -1;
+
+        private String _errorMessage = null;
+
+        private LineChunk( final int capacity ) {
+
+            super();
+
+            _starts = new long[Math.max( 16, capacity )];
+
+        }
+
+        private void add( final long start ) {
+
+            if ( _count == _starts.length ) {
+
+                _starts = Arrays.copyOf( _starts, _count * 2 );
+
+            }
+
+            _starts[_count] = start;
+            _count += 1;
+
+        }
+
+        /**
+         Append a chunk which follows this one.
+         */
+
+        @NotNull
+        private LineChunk append( final @NotNull LineChunk next ) {
+
+            if ( _errorMessage == null && next._errorMessage != null ) {
+
+                _errorLineIx = _count + next._errorLineIx;
+                _errorMessage = next._errorMessage;
+
+            }
+
+            if ( _count + next._count > _starts.length ) {
+
+                _starts = Arrays.copyOf( _starts, _count + next._count );
+
+            }
+
+            System.arraycopy( next._starts, 0, _starts, _count, next._count );
+            _count += next._count;
+
+            return this;
+
+        }
+
+        private long[] getStarts() {
+
+            return _starts;
+
+        }
+
+        private int getCount() {
+
+            return _count;
+
+        }
+
+        private int getErrorLineIx() {
+
+            return _errorLineIx;
+
+        }
+
+        private String getErrorMessage() {
+
+            return _errorMessage;
+
+        }
+
+        public String toString() {
+
+            return "LineChunk( " + _count + " lines" + ( _errorMessage == null ? "" : ", line " + _errorLineIx + " has " + _errorMessage ) + " )";
+
+        }
+
+    }
+
+    /**
+     Find and parse the lines which start within a range of a file.
+     */
+
+    private static class LineChunkTask extends RecursiveTask<LineChunk> {
+
+        private static final long serialVersionUID = -2604487736917513218L;
+
+        private final MappedLines _lines;
+
+        private final long _from;
+
+        private final long _to;
+
+        private LineChunkTask( final @NotNull MappedLines lines, final long from, final long to ) {
+
+            super();
+
+            _lines = lines;
+            _from = from;
+            _to = to;
+
+        }
+
+        @Override
+        protected LineChunk compute() {
+
+            if ( _to - _from > PARALLEL_CHUNK_SIZE ) {
+
+                long mid = ( _from + _to ) >>> 1;
+                LineChunkTask left = new LineChunkTask( _lines, _from, mid );
+                LineChunkTask right = new LineChunkTask( _lines, mid, _to );
+                left.fork();
+                LineChunk rightChunk = right.compute();
+
+                return left.join().append( rightChunk );
+
+            }
+
+            LineChunk chunk = new LineChunk( (int)( ( _to - _from ) / 64 ) );
+
+            // A line starts in this chunk if it starts at the beginning of the file or just after a newline.
+
+            long position = _from;
+            if ( position > 0 ) {
+
+                while ( position < _to && _lines.byteAt( position - 1 ) != '\n' ) {
+
+                    position += 1;
+
+                }
+
+            }
+
+            while ( position < _to ) {
+
+                long start = position;
+                while ( position < _lines._size && _lines.byteAt( position ) != '\n' ) {
+
+                    position += 1;
+
+                }
+
+                if ( position < _lines._size ) {
+
+                    // Include the newline.
+
+                    position += 1;
+
+                }
+
+                // A lone carriage return after a quoted field splits the line into several records (just like in sequential mode).
+
+                while ( true ) {
+
+                    long end = _lines.recordEnd( start, position );
+                    chunk.add( start );
+                    if ( chunk._errorMessage == null ) {
+
+                        try {
+
+                            parseFields( _lines.getLine( start, end ) );
+
+                        } catch ( SyntaxErrorException e ) {
+
+                            chunk._errorLineIx = chunk._count - 1;
+                            chunk._errorMessage = e.getMessage();
+
+                        }
+
+                    }
+
+                    if ( end == position ) {
+
+                        break;
+
+                    }
+
+                    start = end;
+
+                }
+
+            }
+
+            return chunk;
+
+        }
+
+        public String toString() {
+
+            return "LineChunkTask( [" + _from + "," + _to + ") )";
+
+        }
+
+    }
+
+    /**
+     Where each line of a memory-mapped file is.
+     */
+
+    private static class LineIndex {
+
+        private final MappedLines _lines;
+
+        private final long[] _starts;
+
+        private final int _lineCount;
+
+        private final int _firstDataLineIx;
+
+        private LineIndex( final @NotNull MappedLines lines, final @NotNull LineChunk chunk, final int firstDataLineIx ) {
+
+            super();
+
+            _lines = lines;
+            _starts = Arrays.copyOf( chunk.getStarts(), chunk.getCount() );
+            _firstDataLineIx = firstDataLineIx;
+            _lineCount = Math.max( 0, chunk.getCount() - firstDataLineIx );
+
+        }
+
+        private int getLineCount() {
+
+            return _lineCount;
+
+        }
+
+        /**
+         Get a data line (the first one is line 1).
+         */
+
+        @NotNull
+        private String getLine( final int lnum ) {
+
+            int lineIx = lnum - 1 + _firstDataLineIx;
+
+            return _lines.getLine( _starts[lineIx], lineIx + 1 < _starts.length ? _starts[lineIx + 1] : _lines._size );
+
+        }
+
+        public String toString() {
+
+            return "LineIndex( " + _lineCount + " lines in " + _lines + " )";
+
+        }
 
     }
 
@@ -0,0 +1,173 @@
+package com.obtuse.util;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ A persistent high-water mark for a space of long ids.
+ <p/>
+ The file holds the smallest id which has never been reserved, as a decimal number on a line by itself.
+ Each call to {@link #reserve(long)} advances the mark by a fixed number of ids and forces the file to disk before returning,
+ so the reserved ids are never reserved again by this JVM, by a later run of it or by any other process using the same file
+ (the file is locked while it is being updated).
+ <p/>
+ Reservations are meant to be large (thousands or millions of ids) so that the file is rarely touched.
+ Ids that were reserved but never used when a JVM exits are simply lost.
+ <p/>
+ The mark is updated in place so a crash part way through an update never leaves the file without a mark.
+ A file which exists but is empty or doesn't hold a mark is treated as an error rather than as a fresh start
+ since starting over would hand out ids that have already been handed out.
+ <p/>
+ Instances of this class are thread safe.
+ <p/>
+ File locks are held on behalf of the whole JVM, so they only keep <em>other</em> processes out.
+ Within a JVM, it is {@link #reserve(long)} being {@code synchronized} that keeps threads from reserving the same ids.
+ Use a single instance of this class for any one file within a JVM;
+ two instances reserving ids from the same file at the same time get a {@link java.nio.channels.OverlappingFileLockException}.
+ */
+
+public class IdReservationFile {
+
+    private final File _file;
+
+    private final long _reservationSize;
+
+    /**
+     Create an id reservation file (the file itself is created by the first reservation if it doesn't exist yet).
+
+     @param file            the file.
+     @param reservationSize how many ids each reservation gets (must be positive).
+     */
+
+    public IdReservationFile( final @NotNull File file, final long reservationSize ) {
+
+        super();
+
+        if ( reservationSize <= 0 ) {
+
+            throw new IllegalArgumentException( "IdReservationFile:  reservation size must be positive (" + reservationSize + ")" );
+
+        }
+
+        _file = file;
+        _reservationSize = reservationSize;
+
+    }
+
+    @NotNull
+    public File getFile() {
+
+        return _file;
+
+    }
+
+    public long getReservationSize() {
+
+        return _reservationSize;
+
+    }
+
+    /**
+     Reserve the next {@link #getReservationSize()} ids.
+
+     @param minimumFirstId the smallest acceptable first id (the reservation starts here if the file's mark is below it).
+     @return the first reserved id (the reservation runs through {@code first + getReservationSize() - 1}).
+     @throws IOException if the file can't be read, parsed or updated.
+     @throws IllegalArgumentException if there aren't enough positive long ids left for another reservation.
+     @throws java.nio.channels.OverlappingFileLockException if another instance of this class in this JVM is reserving ids from the same file
+     at the same time (see the class's description).
+     */
+
+    @SuppressWarnings("try")
+    public synchronized long reserve( final long minimumFirstId )
+            throws IOException {
+
+        // An empty file is only acceptable if we are the ones creating it (see below).
+
+        boolean isNew = !_file.exists();
+
+        try (
+                FileChannel channel = FileChannel.open(
+                        _file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE
+                );
+                @SuppressWarnings("unused") FileLock lock = channel.lock()
+        ) {
+
+            ByteBuffer contents = ByteBuffer.allocate( (int)Math.min( channel.size(), 64 ) );
+            while ( contents.hasRemaining() && channel.read( contents ) >= 0 ) {
+
+                ObtuseUtil.doNothing();
+
+            }
+
+            // A file that used to hold a mark but doesn't any more has been damaged somehow.
+            // Starting over at 1 would hand out ids that have already been handed out so we refuse to go on.
+
+            String mark = new String( contents.array(), 0, contents.position(), StandardCharsets.US_ASCII ).trim();
+            if ( mark.isEmpty() && !isNew ) {
+
+                throw new IOException( "IdReservationFile:  " + _file + " exists but is empty (it should contain a high-water mark)" );
+
+            }
+
+            long first;
+            try {
+
+                first = Math.max( minimumFirstId, mark.isEmpty() ? 1L : Long.parseLong( mark ) );
+
+            } catch ( NumberFormatException e ) {
+
+                throw new IOException( "IdReservationFile:  " + _file + " does not contain a high-water mark (\"" + mark + "\")", e );
+
+            }
+
+            if ( first > Long.MAX_VALUE - _reservationSize ) {
+
+                throw new IllegalArgumentException( "IdReservationFile:  " + _file + " has run out of positive long ids" );
+
+            }
+
+            // Overwrite the old mark in place and make sure that the new one is on disk before getting rid of anything after it.
+            // The mark fits well within one disk sector (so it is written in one piece) and it is never shorter than an old mark
+            // that we wrote, so a crash at any point leaves either the old mark or the new one in the file.
+
+            ByteBuffer newMark = ByteBuffer.wrap( ( ( first + _reservationSize ) + "\n" ).getBytes( StandardCharsets.US_ASCII ) );
+            long position = 0L;
+            while ( newMark.hasRemaining() ) {
+
+                position += channel.write( newMark, position );
+
+            }
+
+            channel.force( true );
+            if ( channel.size() > position ) {
+
+                channel.truncate( position );
+                channel.force( true );
+
+            }
+
+            return first;
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "IdReservationFile( " + ObtuseUtil.enquoteToJavaString( _file.getPath() ) + ", reservation size = " + _reservationSize + " )";
+
+    }
+
+}
@@ -0,0 +1,271 @@
+package com.obtuse.util;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+import java.util.Arrays;
+
+/**
+ Assign dense slot numbers to {@code (int, long)} keys.
+ <p/>
+ The first key added is assigned slot 0, the second is assigned slot 1, and so on.
+ Callers keep whatever they want to associate with a key in their own arrays indexed by slot number.
+ This avoids the boxing, comparator calls and per-entry objects that a {@code Map} keyed on a composite key would need.
+ <p/>
+ Keys are found via an open-addressing hash table with linear probing which is never more than half full.
+ Keys cannot be removed (other than by {@link #clear()}ing the entire index).
+ <p/>
+ Instances of this class are not thread safe.
+ */
+
+public class IntLongSlotIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     The most keys that we can handle (the hash table has up to four buckets per key and its size must fit in an {@code int}).
+     */
+
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private int[] _intKeys;
+
+    private long[] _longKeys;
+
+    /**
+     The hash table. Each bucket contains one plus the slot number of the key which lives there (zero means empty).
+     */
+
+    private int[] _buckets;
+
+    private int _size = 0;
+
+    /**
+     Create an index which is big enough to hold a specified number of keys without having to grow.
+
+     @param expectedSize how many keys are expected (must not be negative or absurdly large).
+     */
+
+    public IntLongSlotIndex( final int expectedSize ) {
+
+        super();
+
+        if ( expectedSize < 0 || expectedSize > MAX_CAPACITY ) {
+
+            throw new IllegalArgumentException( "IntLongSlotIndex:  expected size out of range (" + expectedSize + ")" );
+
+        }
+
+        int capacity = Math.max( MIN_CAPACITY, expectedSize );
+        _intKeys = new int[capacity];
+        _longKeys = new long[capacity];
+        _buckets = new int[tableSizeFor( capacity )];
+
+    }
+
+    public IntLongSlotIndex() {
+
+        this( MIN_CAPACITY );
+
+    }
+
+    private static int tableSizeFor( final int capacity ) {
+
+        return Integer.highestOneBit( Math.max( MIN_CAPACITY, capacity ) - 1 ) << 2;
+
+    }
+
+    private static int hash( final int intKey, final long longKey ) {
+
+        // The murmur3 64 bit finalizer spreads sequential keys across the whole table.
+
+        long h = longKey * 0x9E3779B97F4A7C15L + intKey;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+
+        return (int)h;
+
+    }
+
+    /**
+     Find the slot assigned to a key.
+
+     @param intKey  the {@code int} part of the key.
+     @param longKey the {@code long} part of the key.
+     @return the key's slot number or -1 if the key has not been added to this index.
+     */
+
+    public int find( final int intKey, final long longKey ) {
+
+        int mask = _buckets.length - 1;
+        for ( int bucket = hash( intKey, longKey ) & mask; true; bucket = ( bucket + 1 ) & mask ) {
+
+            int slot = _buckets[bucket] - 1;
+            if ( slot < 0 ) {
+
+                return -1;
+
+            }
+
+            if ( _longKeys[slot] == longKey && _intKeys[slot] == intKey ) {
+
+                return slot;
+
+            }
+
+        }
+
+    }
+
+    /**
+     Find the slot assigned to a key, assigning the next available slot if the key is new.
+     <p/>A key is new if and only if the returned slot number is equal to the value {@link #size()} returned before this call.
+
+     @param intKey  the {@code int} part of the key.
+     @param longKey the {@code long} part of the key.
+     @return the key's slot number.
+     */
+
+    public int findOrAdd( final int intKey, final long longKey ) {
+
+        int mask = _buckets.length - 1;
+        int bucket;
+        for ( bucket = hash( intKey, longKey ) & mask; _buckets[bucket] != 0; bucket = ( bucket + 1 ) & mask ) {
+
+            int slot = _buckets[bucket] - 1;
+            if ( _longKeys[slot] == longKey && _intKeys[slot] == intKey ) {
+
+                return slot;
+
+            }
+
+        }
+
+        int slot = _size;
+        if ( slot == _intKeys.length ) {
+
+            grow();
+            return findOrAdd( intKey, longKey );
+
+        }
+
+        _intKeys[slot] = intKey;
+        _longKeys[slot] = longKey;
+        _buckets[bucket] = slot + 1;
+        _size += 1;
+
+        return slot;
+
+    }
+
+    private void grow() {
+
+        if ( _intKeys.length > MAX_CAPACITY / 2 ) {
+
+            throw new IllegalArgumentException( "IntLongSlotIndex:  too many keys (" + _size + ")" );
+
+        }
+
+        int capacity = _intKeys.length * 2;
+        _intKeys = Arrays.copyOf( _intKeys, capacity );
+        _longKeys = Arrays.copyOf( _longKeys, capacity );
+        _buckets = new int[tableSizeFor( capacity )];
+
+        int mask = _buckets.length - 1;
+        for ( int slot = 0; slot < _size; slot += 1 ) {
+
+            int bucket = hash( _intKeys[slot], _longKeys[slot] ) & mask;
+            while ( _buckets[bucket] != 0 ) {
+
+                bucket = ( bucket + 1 ) & mask;
+
+            }
+
+            _buckets[bucket] = slot + 1;
+
+        }
+
+    }
+
+    /**
+     Get the {@code int} part of the key assigned to a slot.
+
+     @param slot the slot number.
+     @return the {@code int} part of the key.
+     @throws IndexOutOfBoundsException if the slot has not been assigned.
+     */
+
+    public int getIntKey( final int slot ) {
+
+        checkSlot( slot );
+
+        return _intKeys[slot];
+
+    }
+
+    /**
+     Get the {@code long} part of the key assigned to a slot.
+
+     @param slot the slot number.
+     @return the {@code long} part of the key.
+     @throws IndexOutOfBoundsException if the slot has not been assigned.
+     */
+
+    public long getLongKey( final int slot ) {
+
+        checkSlot( slot );
+
+        return _longKeys[slot];
+
+    }
+
+    private void checkSlot( final int slot ) {
+
+        if ( slot < 0 || slot >= _size ) {
+
+            throw new IndexOutOfBoundsException( "IntLongSlotIndex:  slot " + slot + " is not in use (size is " + _size + ")" );
+
+        }
+
+    }
+
+    /**
+     Get the number of keys in this index.
+
+     @return the number of keys (which is also the next slot number to be assigned).
+     */
+
+    public int size() {
+
+        return _size;
+
+    }
+
+    public boolean isEmpty() {
+
+        return _size == 0;
+
+    }
+
+    /**
+     Remove all keys from this index. Slot numbers start again at 0.
+     */
+
+    public void clear() {
+
+        Arrays.fill( _buckets, 0 );
+        _size = 0;
+
+    }
+
+    public String toString() {
+
+        return "IntLongSlotIndex( size = " + _size + ", buckets = " + _buckets.length + " )";
+
+    }
+
+}
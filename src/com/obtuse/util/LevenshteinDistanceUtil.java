@@ -4,7 +4,6 @@ package com.obtuse.util;
  * Copyright © 2015 Obtuse Systems Corporation
  */
 
-import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
@@ -13,6 +12,7 @@ import javax.swing.event.DocumentListener;
 import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.util.Collection;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -52,10 +52,17 @@ public class LevenshteinDistanceUtil {
         private final int _threshold;
         private final @NotNull SortedSet<String> _possibleWordsSet;
         private final int _maxChoices;
-        private final LevenshteinDistance _ld;
+        private final LevenshteinWordIndex _index;
         private final T _textComponent;
         private final boolean _trim;
 
+        /**
+         The query that is currently running in the background (if any).
+         Only touched on the Swing event dispatch thread.
+         */
+
+        private SwingWorker<List<LevenshteinWordIndex.Match>, Void> _activeQuery = null;
+
         public LeventsteinDistanceUtilListener( final @NotNull T textComponent, final @NotNull Collection<String> possibleWords, final int maxChoices, final int threshold, boolean trim ) {
             super();
 
@@ -69,7 +76,11 @@ public class LevenshteinDistanceUtil {
 
             _trim = trim;
 
-            _ld = new LevenshteinDistance( threshold );
+            if ( threshold < 0 ) {
+
+                throw new IllegalArgumentException( "LevenshteinDistanceUtil.LeventsteinDistanceUtilListener:  threshold must not be negative" );
+
+            }
 
             for ( String word : possibleWords ) {
 
@@ -85,7 +96,16 @@ public class LevenshteinDistanceUtil {
 
             }
 
-            ObtuseUtil.doNothing();
+            // Build the index once up front so that each keystroke only has to search it.
+
+            Collection<String> indexedWords = new TreeSet<>();
+            for ( String word : _possibleWordsSet ) {
+
+                indexedWords.add( _trim ? word.trim() : word );
+
+            }
+
+            _index = new LevenshteinWordIndex( indexedWords );
 
         }
 
@@ -106,27 +126,68 @@ public class LevenshteinDistanceUtil {
 
             }
 
-            String word = _textComponent.getText();
-            if ( _trim ) {
+            String text = _textComponent.getText();
+            final String word = _trim ? text.trim() : text;
+
+            // The user is still typing so whatever we were looking for last time is no longer interesting.
+
+            if ( _activeQuery != null ) {
 
-                word = word.trim();
+                _activeQuery.cancel( true );
 
             }
-            TreeSorter<Integer,String> wordsByDistance = new TreeSorter<>();
-            for ( String candidateWord : _possibleWordsSet ) {
 
-                String actualCandidateWord = _trim ? candidateWord.trim() : candidateWord;
-                Integer distance = _ld.apply( word, actualCandidateWord );
+            _activeQuery = new SwingWorker<List<LevenshteinWordIndex.Match>, Void>() {
 
-                // Only remember possible words that match at least as well as
-                // the threshold specified when we were created.
+                @Override
+                protected List<LevenshteinWordIndex.Match> doInBackground() {
 
-                if ( distance >= 0 ) {
+                    // Only find possible words that match at least as well as the threshold specified when we were created.
 
-                    wordsByDistance.add( distance, actualCandidateWord );
+                    return _index.findClosest( word, _threshold, Math.max( 1, _maxChoices ), this::isCancelled );
 
                 }
 
+                @Override
+                protected void done() {
+
+                    if ( isCancelled() ) {
+
+                        return;
+
+                    }
+
+                    if ( _activeQuery == this ) {
+
+                        _activeQuery = null;
+
+                    }
+
+                    try {
+
+                        reportAlternatives( word, get() );
+
+                    } catch ( Exception e ) {
+
+                        Logger.logErr( "LevenshteinDistanceUtil:  unable to find alternatives for " + ObtuseUtil.enquoteToJavaString( word ), e );
+
+                    }
+
+                }
+
+            };
+
+            _activeQuery.execute();
+
+        }
+
+        private void reportAlternatives( final @NotNull String word, final @NotNull List<LevenshteinWordIndex.Match> matches ) {
+
+            TreeSorter<Integer,String> wordsByDistance = new TreeSorter<>();
+            for ( LevenshteinWordIndex.Match match : matches ) {
+
+                wordsByDistance.add( match.getDistance(), match.getWord() );
+
             }
 
             Logger.logMsg( "~~~ results for " + ObtuseUtil.enquoteToJavaString( word ) );
@@ -0,0 +1,335 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util;
+
+import org.apache.commons.text.similarity.BitParallelLevenshteinDistance;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ A prebuilt index of words which supports fast 'which words are within edit distance <i>t</i> of this word' queries.
+ <p/>The index is a BK-tree (Burkhard-Keller tree) using the Levenshtein distance as its metric.
+ Each node holds a word and each of a node's children is labelled with the distance between the child's word and the node's word.
+ Thanks to the triangle inequality, a query for words within distance <i>t</i> of a target word only needs to visit
+ the children of a node at distance <i>d</i> from the target whose labels are in the range <i>d-t</i> through <i>d+t</i>.
+ In practice, a query with a small threshold touches a small fraction of the words in the index.
+ <p/>Instances are immutable once constructed and may be queried concurrently from any number of threads.
+ */
+
+public class LevenshteinWordIndex {
+
+    private static final BitParallelLevenshteinDistance s_ld = new BitParallelLevenshteinDistance();
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final int[] NO_DISTANCES = new int[0];
+
+    private static class Node {
+
+        private final String _word;
+
+        private int[] _childDistances = NO_DISTANCES;
+
+        private Node[] _children = NO_CHILDREN;
+
+        private Node( final @NotNull String word ) {
+
+            super();
+
+            _word = word;
+
+        }
+
+        private Node getChild( final int distance ) {
+
+            for ( int i = 0; i < _childDistances.length; i += 1 ) {
+
+                if ( _childDistances[i] == distance ) {
+
+                    return _children[i];
+
+                }
+
+            }
+
+            return null;
+
+        }
+
+        private void addChild( final int distance, final @NotNull Node child ) {
+
+            int n = _children.length;
+            _childDistances = Arrays.copyOf( _childDistances, n + 1 );
+            _children = Arrays.copyOf( _children, n + 1 );
+            _childDistances[n] = distance;
+            _children[n] = child;
+
+        }
+
+    }
+
+    /**
+     A word found by a query along with its distance from the query's target word.
+     */
+
+    public static class Match implements Comparable<Match> {
+
+        private final String _word;
+
+        private final int _distance;
+
+        private Match( final @NotNull String word, final int distance ) {
+
+            super();
+
+            _word = word;
+
+            _distance = distance;
+
+        }
+
+        @NotNull
+        public String getWord() {
+
+            return _word;
+
+        }
+
+        public int getDistance() {
+
+            return _distance;
+
+        }
+
+        /**
+         Order matches by increasing distance and then alphabetically by word.
+         */
+
+        public int compareTo( final @NotNull Match rhs ) {
+
+            int rval = Integer.compare( _distance, rhs._distance );
+
+            return rval == 0 ? _word.compareTo( rhs._word ) : rval;
+
+        }
+
+        public String toString() {
+
+            return "Match( \"" + _word + "\", " + _distance + " )";
+
+        }
+
+    }
+
+    private final Node _root;
+
+    private final int _size;
+
+    /**
+     Build an index containing a collection of words.
+     <p/>Duplicate words are only indexed once.
+
+     @param words the words to be indexed.
+     @throws NullPointerException if any of the words are <tt>null</tt>.
+     */
+
+    public LevenshteinWordIndex( final @NotNull Collection<String> words ) {
+
+        super();
+
+        Node root = null;
+        int size = 0;
+        for ( String word : words ) {
+
+            if ( word == null ) {
+
+                throw new NullPointerException( "LevenshteinWordIndex:  null word in words" );
+
+            }
+
+            if ( root == null ) {
+
+                root = new Node( word );
+                size = 1;
+
+            } else if ( insert( root, word ) ) {
+
+                size += 1;
+
+            }
+
+        }
+
+        _root = root;
+        _size = size;
+
+    }
+
+    private static boolean insert( final @NotNull Node root, final @NotNull String word ) {
+
+        BitParallelLevenshteinDistance.Pattern pattern = s_ld.compile( word );
+        Node node = root;
+        while ( true ) {
+
+            int distance = pattern.distance( node._word );
+            if ( distance == 0 ) {
+
+                return false;
+
+            }
+
+            Node child = node.getChild( distance );
+            if ( child == null ) {
+
+                node.addChild( distance, new Node( word ) );
+
+                return true;
+
+            }
+
+            node = child;
+
+        }
+
+    }
+
+    /**
+     Get the number of distinct words in this index.
+
+     @return the number of distinct words in this index.
+     */
+
+    public int size() {
+
+        return _size;
+
+    }
+
+    public boolean isEmpty() {
+
+        return _size == 0;
+
+    }
+
+    /**
+     Find the words in this index which are closest to a target word.
+
+     @param target     the target word.
+     @param threshold  the maximum distance of interest (must not be negative).
+     @param maxResults the maximum number of matches to return (must be positive).
+     @return the closest <tt>maxResults</tt> (or fewer) words which are within <tt>threshold</tt> of the target word
+     in the order defined by {@link Match#compareTo(Match)}.
+     */
+
+    @NotNull
+    public List<Match> findClosest( final @NotNull String target, final int threshold, final int maxResults ) {
+
+        return findClosest( target, threshold, maxResults, () -> false );
+
+    }
+
+    /**
+     Find the words in this index which are closest to a target word with support for early cancellation.
+     <p/>The search is iterative (it does not recurse) and periodically asks the provided
+     {@link BooleanSupplier} if it should give up. If it is told to give up then it returns whatever it has found so far.
+     <p/>Once <tt>maxResults</tt> matches have been found, the search threshold is tightened to the distance of the
+     worst match found so far which prunes an increasing portion of the tree as the search proceeds.
+
+     @param target     the target word.
+     @param threshold  the maximum distance of interest (must not be negative).
+     @param maxResults the maximum number of matches to return (must be positive).
+     @param cancelled  returns <tt>true</tt> if the search should be abandoned.
+     @return the closest <tt>maxResults</tt> (or fewer) words which are within <tt>threshold</tt> of the target word
+     in the order defined by {@link Match#compareTo(Match)}.
+     @throws IllegalArgumentException if <tt>threshold</tt> is negative or <tt>maxResults</tt> is not positive.
+     */
+
+    @NotNull
+    public List<Match> findClosest(
+            final @NotNull String target,
+            final int threshold,
+            final int maxResults,
+            final @NotNull BooleanSupplier cancelled
+    ) {
+
+        if ( threshold < 0 ) {
+
+            throw new IllegalArgumentException( "LevenshteinWordIndex.findClosest:  threshold must not be negative (" + threshold + ")" );
+
+        }
+
+        if ( maxResults <= 0 ) {
+
+            throw new IllegalArgumentException( "LevenshteinWordIndex.findClosest:  maxResults must be positive (" + maxResults + ")" );
+
+        }
+
+        if ( _root == null ) {
+
+            return new ArrayList<>();
+
+        }
+
+        // A max-heap of the best matches found so far (the worst of the best is at the head).
+
+        BitParallelLevenshteinDistance.Pattern pattern = s_ld.compile( target );
+        PriorityQueue<Match> best = new PriorityQueue<>( Comparator.reverseOrder() );
+        int limit = threshold;
+
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push( _root );
+        while ( !pending.isEmpty() && !cancelled.getAsBoolean() ) {
+
+            Node node = pending.pop();
+            int distance = pattern.distance( node._word );
+            if ( distance <= limit ) {
+
+                best.add( new Match( node._word, distance ) );
+                if ( best.size() > maxResults ) {
+
+                    best.poll();
+
+                }
+
+                if ( best.size() == maxResults ) {
+
+                    limit = best.peek().getDistance();
+
+                }
+
+            }
+
+            int low = distance - limit;
+            int high = distance + limit;
+            for ( int i = 0; i < node._children.length; i += 1 ) {
+
+                int childDistance = node._childDistances[i];
+                if ( childDistance >= low && childDistance <= high ) {
+
+                    pending.push( node._children[i] );
+
+                }
+
+            }
+
+        }
+
+        List<Match> rval = new ArrayList<>( best );
+        Collections.sort( rval );
+
+        return rval;
+
+    }
+
+    public String toString() {
+
+        return "LevenshteinWordIndex( " + _size + " words )";
+
+    }
+
+}
@@ -0,0 +1,555 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ NIO-based file I/O.
+ <p/>
+ Unlike the {@code ObtuseUtil} file helpers (which are now built on this class), these methods throw {@link IOException}s
+ rather than returning {@code null} or {@code false}.
+ <ul>
+ <li>Copies use {@link FileChannel#transferTo} so the kernel moves the bytes without them passing through the Java heap.</li>
+ <li>Reads allocate the result once, at its final size, and loop until it is full.
+ Large files are memory-mapped and copied straight out of the mapping.</li>
+ <li>{@link #writeAtomically} writes to a temporary file in the same directory and renames it over the target,
+ so readers see either the old contents or the new contents but never a partially written file.</li>
+ <li>Every write takes a {@link FsyncPolicy} which says how durable the result must be before the method returns.</li>
+ </ul>
+ */
+
+public class ObtuseFiles {
+
+    /**
+     Files at least this big are memory-mapped by {@link #readFile(File, int)}.
+     */
+
+    public static final int MAPPED_READ_THRESHOLD = 16 * 1024 * 1024;
+
+    /**
+     How much {@link FileChannel#transferTo} is asked to move at once (some platforms quietly move less than asked for if asked for more).
+     */
+
+    private static final long TRANSFER_CHUNK_SIZE = 64L * 1024L * 1024L;
+
+    /**
+     How far a write must have gotten before the method doing it returns.
+     */
+
+    public enum FsyncPolicy {
+
+        /**
+         Leave it to the operating system (fastest; the data may be lost if the machine crashes).
+         */
+
+        NONE,
+
+        /**
+         Force the file's contents to the storage device.
+         */
+
+        FILE,
+
+        /**
+         Force the file's contents and its directory entry to the storage device
+         (needed for a newly created or renamed file to survive a crash).
+         */
+
+        FILE_AND_DIRECTORY
+
+    }
+
+    private ObtuseFiles() {
+
+        super();
+
+    }
+
+    /**
+     Copy a file to a new file.
+
+     @param inputFile  the file to copy.
+     @param outputFile the new file (it must not exist).
+     @param fsyncPolicy how durable the copy must be before this method returns.
+     @return how many bytes were copied.
+     @throws FileAlreadyExistsException if {@code outputFile} exists.
+     @throws IOException if something else goes wrong (a partially written output file is deleted).
+     */
+
+    public static long copyFile( final @NotNull File inputFile, final @NotNull File outputFile, final @NotNull FsyncPolicy fsyncPolicy )
+            throws IOException {
+
+        try (
+                FileChannel in = FileChannel.open( inputFile.toPath(), StandardOpenOption.READ );
+                FileChannel out = FileChannel.open( outputFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW )
+        ) {
+
+            try {
+
+                long size = in.size();
+                long position = 0;
+                while ( position < size ) {
+
+                    long transferred = in.transferTo( position, Math.min( TRANSFER_CHUNK_SIZE, size - position ), out );
+                    if ( transferred <= 0 ) {
+
+                        // The file shrank while we were copying it.
+
+                        break;
+
+                    }
+
+                    position += transferred;
+
+                }
+
+                force( out, outputFile, fsyncPolicy );
+
+                return position;
+
+            } catch ( IOException | RuntimeException e ) {
+
+                //noinspection ResultOfMethodCallIgnored
+                outputFile.delete();
+
+                throw e;
+
+            }
+
+        }
+
+    }
+
+    /**
+     Read a file.
+
+     @param file      the file.
+     @param maxLength the most bytes to read (any more are ignored).
+     @return the first {@code min( file size, maxLength )} bytes of the file.
+     @throws IOException if the file can't be read.
+     */
+
+    @NotNull
+    public static byte[] readFile( final @NotNull File file, final int maxLength )
+            throws IOException {
+
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+
+            int length = (int)Math.min( channel.size(), Math.max( 0, maxLength ) );
+            byte[] contents = new byte[length];
+
+            if ( length >= MAPPED_READ_THRESHOLD ) {
+
+                MappedByteBuffer mapping = channel.map( FileChannel.MapMode.READ_ONLY, 0, length );
+                mapping.get( contents );
+
+                return contents;
+
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap( contents );
+            while ( buffer.hasRemaining() ) {
+
+                if ( channel.read( buffer ) < 0 ) {
+
+                    // The file shrank while we were reading it.
+
+                    return Arrays.copyOf( contents, buffer.position() );
+
+                }
+
+            }
+
+            return contents;
+
+        }
+
+    }
+
+    /**
+     Read a file which is no longer than {@link Integer#MAX_VALUE} - 8 bytes.
+
+     @param file the file.
+     @return its contents.
+     @throws IOException if the file can't be read or is too long.
+     */
+
+    @NotNull
+    public static byte[] readFile( final @NotNull File file )
+            throws IOException {
+
+        long size = file.length();
+        if ( size > Integer.MAX_VALUE - 8 ) {
+
+            throw new IOException( "ObtuseFiles.readFile:  " + file + " is too big to read into an array (" + size + " bytes)" );
+
+        }
+
+        return readFile( file, Integer.MAX_VALUE - 8 );
+
+    }
+
+    /**
+     Map a file for reading.
+     The mapping stays valid after the file is closed (which this method does).
+
+     @param file the file (no longer than {@link Integer#MAX_VALUE} bytes).
+     @return a read-only mapping of the entire file.
+     @throws IOException if the file can't be mapped.
+     */
+
+    @NotNull
+    public static MappedByteBuffer mapFile( final @NotNull File file )
+            throws IOException {
+
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+
+            return channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+
+        }
+
+    }
+
+    /**
+     Read from a stream until it ends or {@code maxLength} bytes have been read.
+     <p/>Unlike a single {@link InputStream#read(byte[])}, this doesn't stop early because the stream has nothing available right now
+     and it doesn't allocate {@code maxLength} bytes up front.
+
+     @param is        the stream.
+     @param maxLength the most bytes to read (the rest are left in the stream).
+     @return what was read.
+     @throws IOException if the stream can't be read.
+     */
+
+    @NotNull
+    public static byte[] readStream( final @NotNull InputStream is, final int maxLength )
+            throws IOException {
+
+        byte[] contents = new byte[Math.min( Math.max( 0, maxLength ), 8192 )];
+        int length = 0;
+        while ( length < maxLength ) {
+
+            if ( length == contents.length ) {
+
+                contents = Arrays.copyOf( contents, (int)Math.min( maxLength, contents.length * 2L ) );
+
+            }
+
+            int readLength = is.read( contents, length, contents.length - length );
+            if ( readLength < 0 ) {
+
+                break;
+
+            }
+
+            length += readLength;
+
+        }
+
+        return length == contents.length ? contents : Arrays.copyOf( contents, length );
+
+    }
+
+    /**
+     Write a file (replacing whatever it contained).
+
+     @param bytes       what to write.
+     @param file        the file.
+     @param fsyncPolicy how durable the write must be before this method returns.
+     @throws IOException if the file can't be written.
+     */
+
+    public static void writeFile( final @NotNull byte[] bytes, final @NotNull File file, final @NotNull FsyncPolicy fsyncPolicy )
+            throws IOException {
+
+        try (
+                FileChannel channel = FileChannel.open(
+                        file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING
+                )
+        ) {
+
+            writeFully( channel, bytes );
+            force( channel, file, fsyncPolicy );
+
+        }
+
+    }
+
+    /**
+     Append to a file (creating it if it doesn't exist).
+
+     @param bytes       what to append.
+     @param file        the file.
+     @param fsyncPolicy how durable the write must be before this method returns.
+     @throws IOException if the file can't be written.
+     */
+
+    public static void appendToFile( final @NotNull byte[] bytes, final @NotNull File file, final @NotNull FsyncPolicy fsyncPolicy )
+            throws IOException {
+
+        try (
+                FileChannel channel = FileChannel.open(
+                        file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+                )
+        ) {
+
+            writeFully( channel, bytes );
+            force( channel, file, fsyncPolicy );
+
+        }
+
+    }
+
+    /**
+     Replace a file's contents atomically.
+     <p/>The bytes are written to a temporary file in the same directory which is then renamed to {@code file}.
+     If anything goes wrong, {@code file} is left untouched and the temporary file is deleted.
+
+     @param bytes       the new contents.
+     @param file        the file.
+     @param fsyncPolicy how durable the new contents must be before this method returns
+     ({@link FsyncPolicy#NONE} still gets an atomic replacement but it might not survive a crash).
+     @throws IOException if the file can't be written.
+     */
+
+    public static void writeAtomically( final @NotNull byte[] bytes, final @NotNull File file, final @NotNull FsyncPolicy fsyncPolicy )
+            throws IOException {
+
+        Path target = file.getAbsoluteFile().toPath();
+        Path tmp = Files.createTempFile( target.getParent(), "." + target.getFileName(), ".tmp" );
+        try {
+
+            try ( FileChannel channel = FileChannel.open( tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) ) {
+
+                writeFully( channel, bytes );
+                if ( fsyncPolicy != FsyncPolicy.NONE ) {
+
+                    // The contents must be durable before the rename or a crash could leave an empty file behind the new name.
+
+                    channel.force( true );
+
+                }
+
+            }
+
+            try {
+
+                Files.move( tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+
+            } catch ( AtomicMoveNotSupportedException e ) {
+
+                Files.move( tmp, target, StandardCopyOption.REPLACE_EXISTING );
+
+            }
+
+            if ( fsyncPolicy == FsyncPolicy.FILE_AND_DIRECTORY ) {
+
+                forceDirectory( target.getParent() );
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists( tmp );
+
+        }
+
+    }
+
+    private static void writeFully( final @NotNull FileChannel channel, final @NotNull byte[] bytes )
+            throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        while ( buffer.hasRemaining() ) {
+
+            channel.write( buffer );
+
+        }
+
+    }
+
+    /**
+     Force what has been written to a channel as far as an {@link FsyncPolicy} requires.
+
+     @param channel     the channel.
+     @param file        the file that the channel is open on (its directory is forced if the policy is {@link FsyncPolicy#FILE_AND_DIRECTORY}).
+     @param fsyncPolicy how far to force the writes.
+     @throws IOException if the channel can't be forced.
+     */
+
+    public static void force( final @NotNull FileChannel channel, final @NotNull File file, final @NotNull FsyncPolicy fsyncPolicy )
+            throws IOException {
+
+        if ( fsyncPolicy != FsyncPolicy.NONE ) {
+
+            channel.force( true );
+
+        }
+
+        if ( fsyncPolicy == FsyncPolicy.FILE_AND_DIRECTORY ) {
+
+            forceDirectory( file.getAbsoluteFile().toPath().getParent() );
+
+        }
+
+    }
+
+    /**
+     Force a directory's entries to the storage device.
+     Some platforms (Windows, for one) can't open a directory so this is a best effort.
+     */
+
+    private static void forceDirectory( final Path directory ) {
+
+        if ( directory == null ) {
+
+            return;
+
+        }
+
+        try ( FileChannel channel = FileChannel.open( directory, StandardOpenOption.READ ) ) {
+
+            channel.force( true );
+
+        } catch ( IOException e ) {
+
+            ObtuseUtil.doNothing();
+
+        }
+
+    }
+
+    /**
+     Copy a file the way {@code ObtuseUtil.copyFile} used to (through a 64KB heap buffer).
+     */
+
+    private static long copyFileUsingStreams( final @NotNull File inputFile, final @NotNull File outputFile )
+            throws IOException {
+
+        try ( InputStream is = new FileInputStream( inputFile ); OutputStream os = new FileOutputStream( outputFile ) ) {
+
+            long totalCopied = 0;
+            byte[] buffer = new byte[64 * 1024];
+            int inLength;
+            while ( ( inLength = is.read( buffer ) ) > 0 ) {
+
+                os.write( buffer, 0, inLength );
+                totalCopied += inLength;
+
+            }
+
+            return totalCopied;
+
+        }
+
+    }
+
+    private static double megabytesPerSecond( final long bytes, final long nanos ) {
+
+        return ( bytes / ( 1024.0 * 1024.0 ) ) / ( Math.max( 1L, nanos ) / 1e9 );
+
+    }
+
+    /**
+     Compare the throughput of the old stream-based copy with {@link #copyFile} and of a stream read with {@link #readFile}.
+     <p/>Usage: {@code ObtuseFiles [directory [size_in_MB ...]]}. The default sizes are 1, 16, 256 and 1024MB.
+     Sizes up to 4096MB can be used for the copies (reads into an array stop at 2GB).
+     */
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public static void main( final String[] args )
+            throws IOException {
+
+        File directory = new File( args.length > 0 ? args[0] : System.getProperty( "java.io.tmpdir" ) );
+        long[] sizesMB = args.length > 1 ? Arrays.stream( args, 1, args.length ).mapToLong( Long::parseLong ).toArray() : new long[]{ 1, 16, 256, 1024 };
+
+        byte[] block = new byte[1024 * 1024];
+        new Random( 41L ).nextBytes( block );
+
+        for ( long sizeMB : sizesMB ) {
+
+            File source = File.createTempFile( "ObtuseFiles-source-", ".bin", directory );
+            File copy1 = new File( source.getPath() + ".copy1" );
+            File copy2 = new File( source.getPath() + ".copy2" );
+            try {
+
+                try ( OutputStream os = new BufferedOutputStream( new FileOutputStream( source ), block.length ) ) {
+
+                    for ( long ix = 0; ix < sizeMB; ix += 1 ) {
+
+                        os.write( block );
+
+                    }
+
+                }
+
+                long bytes = sizeMB * block.length;
+
+                long start = System.nanoTime();
+                copyFileUsingStreams( source, copy1 );
+                long streamCopyNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                copyFile( source, copy2, FsyncPolicy.NONE );
+                long channelCopyNanos = System.nanoTime() - start;
+
+                System.out.println(
+                        sizeMB + "MB copy:  streams " + ObtuseUtil.lpadReadable( (long)megabytesPerSecond( bytes, streamCopyNanos ), 6 ) + " MB/s" +
+                        ", transferTo " + ObtuseUtil.lpadReadable( (long)megabytesPerSecond( bytes, channelCopyNanos ), 6 ) + " MB/s"
+                );
+
+                if ( bytes <= Integer.MAX_VALUE - 8 ) {
+
+                    // This is what ObtuseUtil.readEntireStream used to do.
+
+                    start = System.nanoTime();
+                    byte[] legacyContents;
+                    try ( InputStream is = new FileInputStream( source ) ) {
+
+                        byte[] tmp = new byte[(int)bytes];
+                        int length = is.read( tmp );
+                        legacyContents = Arrays.copyOf( tmp, Math.max( 0, length ) );
+
+                    }
+                    long streamReadNanos = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    byte[] contents = readFile( source );
+                    long channelReadNanos = System.nanoTime() - start;
+
+                    System.out.println(
+                            sizeMB + "MB read:  single stream read " + ObtuseUtil.lpadReadable( (long)megabytesPerSecond( bytes, streamReadNanos ), 6 ) + " MB/s" +
+                            ( legacyContents.length == bytes ? "" : " (short read!)" ) +
+                            ", readFile " + ObtuseUtil.lpadReadable( (long)megabytesPerSecond( bytes, channelReadNanos ), 6 ) + " MB/s" +
+                            ( contents.length == bytes ? "" : " (short read!)" )
+                    );
+
+                }
+
+            } finally {
+
+                //noinspection ResultOfMethodCallIgnored
+                source.delete();
+                //noinspection ResultOfMethodCallIgnored
+                copy1.delete();
+                //noinspection ResultOfMethodCallIgnored
+                copy2.delete();
+
+            }
+
+        }
+
+    }
+
+}
@@ -1116,14 +1116,9 @@ public class ObtuseUtil {
 
         }
 
-        FileInputStream fs = null;
         try {
 
-            fs = new FileInputStream( file );
-
-            byte[] contents = ObtuseUtil.readEntireStream( fs, maxLength, printStackTraceOnError );
-
-            return contents;
+            return ObtuseFiles.readFile( file, maxLength );
 
         } catch ( IOException e ) {
 
@@ -1144,10 +1139,6 @@ public class ObtuseUtil {
             return null;    // keep the compiler happy.
 */
 
-        } finally {
-
-            ObtuseUtil.closeQuietly( fs );
-
         }
 
     }
@@ -1159,6 +1150,7 @@ public class ObtuseUtil {
      @param is                     the {@link java.io.InputStream} to read the data from.
      @param maxLength              the maximum number of bytes to read (if the stream's contents are longer than this
      then the excess data is left in the stream).
+     The stream is read until it ends or this many bytes have been read (see {@link ObtuseFiles#readStream(InputStream, int)}).
      @param printStackTraceOnError specifies whether or not a stack trace is to be printed if an i/o error occurs.
      @return a byte array containing the data read from the file or null if the file could not be read for any reason.
      A zero-length byte array is returned if the stream contains no data.
@@ -1176,18 +1168,7 @@ public class ObtuseUtil {
 
         try {
 
-            byte[] tmp = new byte[maxLength];
-            int actualLen = is.read( tmp );
-            if ( actualLen <= 0 ) {
-
-                return new byte[0];
-
-            }
-
-            byte[] contents = new byte[actualLen];
-            System.arraycopy( tmp, 0, contents, 0, actualLen );
-
-            return contents;
+            return ObtuseFiles.readStream( is, maxLength );
 
         } catch ( IOException e ) {
 
@@ -1232,11 +1213,11 @@ public class ObtuseUtil {
     @SuppressWarnings({ "BooleanMethodNameMustStartWithQuestion" })
     public static boolean writeBytesToFile( final byte@NotNull[] bytes, final File file, final boolean printStackTraceOnError ) {
 
-        try ( FileOutputStream fs = new FileOutputStream( file ) ) {
+        try {
 
-            boolean rval = ObtuseUtil.writeBytesToStream( bytes, fs, printStackTraceOnError );
+            ObtuseFiles.writeFile( bytes, file, ObtuseFiles.FsyncPolicy.NONE );
 
-            return rval;
+            return true;
 
         } catch ( IOException e ) {
 
@@ -1265,11 +1246,11 @@ public class ObtuseUtil {
     @SuppressWarnings({ "BooleanMethodNameMustStartWithQuestion" })
     public static boolean appendBytesToFile( final byte@NotNull[] bytes, final @NotNull File file, final boolean printStackTraceOnError ) {
 
-        try ( FileOutputStream fs = new FileOutputStream( file, true ) ) {
+        try {
 
-            boolean rval = ObtuseUtil.writeBytesToStream( bytes, fs, printStackTraceOnError );
+            ObtuseFiles.appendToFile( bytes, file, ObtuseFiles.FsyncPolicy.NONE );
 
-            return rval;
+            return true;
 
         } catch ( IOException e ) {
 
@@ -1334,36 +1315,13 @@ public class ObtuseUtil {
 
     public static boolean copyFile( final @NotNull File inputFile, final @NotNull File outputFile, final boolean tracebackOnError ) {
 
-        InputStream is = null;
-        OutputStream os = null;
-        boolean rval;
-        boolean removeOutputFile = false;
         try {
 
-            if ( outputFile.exists() ) {
-
-                throw new IOException( "" + outputFile + " (File already exists)" );
-
-            }
-
-            removeOutputFile = true;
-
-            is = new FileInputStream( inputFile );
-            os = new FileOutputStream( outputFile );
-
-            long totalCopied = 0;
-            byte[] buffer = new byte[64 * 1024];
-            int inLength;
-            while ( ( inLength = is.read( buffer ) ) > 0 ) {
-
-                os.write( buffer, 0, inLength );
-                totalCopied += inLength;
-
-            }
+            long totalCopied = ObtuseFiles.copyFile( inputFile, outputFile, ObtuseFiles.FsyncPolicy.NONE );
 
             Logger.logMsg( "wrote a total of " + totalCopied + " bytes" );
 
-            rval = true;
+            return true;
 
         } catch ( IOException e ) {
 
@@ -1373,24 +1331,10 @@ public class ObtuseUtil {
 
             }
 
-            if ( removeOutputFile ) {
-
-                //noinspection ResultOfMethodCallIgnored
-                outputFile.delete();
-
-            }
-
-            rval = false;
-
-        } finally {
-
-            closeQuietly( is );
-            closeQuietly( os );
+            return false;
 
         }
 
-        return rval;
-
     }
 
     /**
@@ -2992,14 +2936,21 @@ public class ObtuseUtil {
 
     }
 
-    public static @NotNull String computeMD5( final File file )
-            throws IOException {
+    /**
+     Compute a file's MD5 digest.
+     <p/>
+     The file is read through a memory mapping if it is large (see {@link FileDigestService#computeDigest(File, FileDigestService.Algorithm)}).
+     Use {@link FileDigestService} to digest many files concurrently or to avoid re-reading files which haven't changed.
 
-        try ( FileInputStream fis = new FileInputStream( file ) ) {
+     @param file the file.
+     @return the digest in hex.
+     @throws IOException if the file can't be read.
+     */
 
-            return ObtuseUtil.computeMD5( fis );
+    public static @NotNull String computeMD5( final File file )
+            throws IOException {
 
-        }
+        return ObtuseUtil.hexvalue( FileDigestService.computeDigest( file, FileDigestService.Algorithm.MD5 ) );
 
     }
 
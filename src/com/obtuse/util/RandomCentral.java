@@ -4,13 +4,24 @@
 
 package com.obtuse.util;
 
+import ec.util.MersenneTwisterFast;
 import org.jetbrains.annotations.NotNull;
 
 import java.security.SecureRandom;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A thread-safe centralized random number generator.
+ * <p/>
+ * In secure mode (the default) every value comes from a single {@link SecureRandom} instance.
+ * <p/>
+ * In non-secure mode each thread gets its own {@link MersenneTwisterFast} generator derived from a central seed,
+ * so the static methods never contend with each other.
+ * Which thread gets which generator depends on the order in which threads first ask for a value;
+ * programs which need the same results regardless of how many threads they run on should divide their work into numbered tasks
+ * and give each task the generator returned by {@link #newGenerator(long)} for its task number.
+ * The central seed can be fixed with {@link #setSeed(long)} to make such runs reproducible.
  */
 
 @SuppressWarnings({ "AccessingNonPublicFieldOfAnotherObject", "UnusedDeclaration" })
@@ -18,9 +29,25 @@ public class RandomCentral {
 
     private static boolean s_beSecure = true;
 
+    private static Long s_seed = null;
+
     private final Random _generator;
 
-    private static RandomCentral _ourInstance;
+    private final boolean _secure;
+
+    private final long _seed;
+
+    private static volatile RandomCentral _ourInstance;
+
+    /**
+     Hands out the stream numbers of the per-thread generators (which are kept apart from {@link #newGenerator(long)}'s streams).
+     */
+
+    private static final AtomicLong s_nextThreadStream = new AtomicLong( 0L );
+
+    private static final ThreadLocal<MersenneTwisterFast> s_threadGenerators = ThreadLocal.withInitial(
+            () -> RandomCentral.getInstance().deriveGenerator( 1, s_nextThreadStream.getAndIncrement() )
+    );
 
     private RandomCentral() {
         super();
@@ -29,7 +56,9 @@ public class RandomCentral {
         // other instance of this class (including other instances in this JVM and other instances in other JVMs).
 
         long nanoTime = System.nanoTime();
-        _generator = s_beSecure ? new SecureRandom() : new Random( nanoTime );
+        _seed = s_seed == null ? nanoTime : s_seed;
+        _generator = s_beSecure ? new SecureRandom() : new Random( _seed );
+        _secure = _generator instanceof SecureRandom;
 
     }
 
@@ -57,6 +86,28 @@ public class RandomCentral {
 
     }
 
+    /**
+     Specify the central seed from which non-secure mode's generators are derived.
+     <p>Without a call to this method the seed is taken from {@link System#nanoTime()}.
+     The seed has no effect in secure mode.</p>
+     @param seed the seed.
+     @throws IllegalArgumentException if this class has already created its random number generator instance.
+     */
+
+    public static synchronized void setSeed( final long seed ) {
+
+        if ( _ourInstance == null ) {
+
+            s_seed = seed;
+
+        } else {
+
+            throw new IllegalArgumentException( "RandomCentral:  static instance already set - too late to call RandomCentral.setSeed" );
+
+        }
+
+    }
+
     /**
      Terminate this JVM IMMEDIATELY if this class has a non-secure random number generator
      (not an instance of {@link SecureRandom}).
@@ -102,60 +153,271 @@ public class RandomCentral {
 
     }
 
-    public static synchronized boolean areWeSecure() {
+    public static boolean areWeSecure() {
 
-        return getInstance()._generator instanceof SecureRandom;
+        return getInstance()._secure;
 
     }
 
     @NotNull
-    public static synchronized RandomCentral getInstance() {
+    public static RandomCentral getInstance() {
 
-        if ( _ourInstance == null ) {
+        RandomCentral instance = _ourInstance;
+        if ( instance == null ) {
+
+            synchronized ( RandomCentral.class ) {
+
+                if ( _ourInstance == null ) {
+
+                    _ourInstance = new RandomCentral();
 
-            _ourInstance = new RandomCentral();
+                }
+
+                instance = _ourInstance;
+
+            }
 
         }
 
-        return RandomCentral._ourInstance;
+        return instance;
+
+    }
+
+    /**
+     Get the central seed from which non-secure mode's generators are derived.
+     @throws IllegalStateException if we are in secure mode.
+     */
+
+    public static long getSeed() {
+
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            throw new IllegalStateException( "RandomCentral:  there is no seed in secure mode" );
+
+        }
+
+        return instance._seed;
+
+    }
+
+    /**
+     Create a generator for one numbered stream of random values.
+     <p>The generator is derived from the central seed and the stream number alone
+     so a given seed and stream number always yield the same sequence (whichever thread uses it).
+     Streams with different numbers are statistically independent.
+     The generator is not thread safe; give each stream to one thread at a time.</p>
+     @param streamId the stream number.
+     @return a new generator.
+     @throws IllegalStateException if we are in secure mode (the generator would not be secure).
+     */
+
+    @NotNull
+    public static MersenneTwisterFast newGenerator( final long streamId ) {
+
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            throw new IllegalStateException( "RandomCentral:  derived generators are not available in secure mode" );
+
+        }
+
+        return instance.deriveGenerator( 0, streamId );
+
+    }
+
+    @NotNull
+    private MersenneTwisterFast deriveGenerator( final int kind, final long streamId ) {
+
+        return new MersenneTwisterFast(
+                new int[]{ kind, (int)( _seed >>> 32 ), (int)_seed, (int)( streamId >>> 32 ), (int)streamId }
+        );
+
+    }
+
+    /**
+     Get the calling thread's generator (non-secure mode only).
+     */
+
+    @NotNull
+    private static MersenneTwisterFast threadGenerator() {
+
+        return s_threadGenerators.get();
 
     }
 
     public static long nextLong() {
 
-        synchronized ( RandomCentral.getInstance() ) {
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
+
+                return instance._generator.nextLong();
 
-            return RandomCentral.getInstance()._generator.nextLong();
+            }
 
         }
 
+        return threadGenerator().nextLong();
+
     }
 
     public static int nextInt() {
 
-        synchronized ( RandomCentral.getInstance() ) {
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
 
-            return RandomCentral.getInstance()._generator.nextInt();
+                return instance._generator.nextInt();
+
+            }
 
         }
 
+        return threadGenerator().nextInt();
+
     }
 
     public static boolean coinflip() {
 
-        synchronized ( RandomCentral.getInstance() ) {
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
 
-            return RandomCentral.getInstance()._generator.nextBoolean();
+            synchronized ( instance ) {
+
+                return instance._generator.nextBoolean();
+
+            }
 
         }
 
+        return threadGenerator().nextBoolean();
+
     }
 
     public static int nextInt( final int n ) {
 
-        synchronized ( RandomCentral.getInstance() ) {
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
+
+                return instance._generator.nextInt( n );
+
+            }
+
+        }
+
+        return threadGenerator().nextInt( n );
+
+    }
+
+    /**
+     Get a uniformly distributed value in [0,1).
+     */
+
+    public static double nextDouble() {
+
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
+
+                return instance._generator.nextDouble();
+
+            }
+
+        }
+
+        return threadGenerator().nextDouble();
+
+    }
+
+    /**
+     Get a standard normal value (mean 0, standard deviation 1).
+     <p>Non-secure mode uses {@link ZigguratGaussian}; secure mode uses {@link SecureRandom#nextGaussian()}.</p>
+     */
+
+    public static double nextGaussian() {
+
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
+
+                return instance._generator.nextGaussian();
+
+            }
+
+        }
+
+        return ZigguratGaussian.nextGaussian( threadGenerator() );
+
+    }
+
+    /**
+     Fill an array with random longs (at the cost of one lock or thread-local lookup for the whole array).
+     @param values the array to fill.
+     */
+
+    public static void fill( final @NotNull long[] values ) {
+
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
+
+                for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+                    values[ix] = instance._generator.nextLong();
+
+                }
+
+            }
+
+            return;
+
+        }
+
+        MersenneTwisterFast generator = threadGenerator();
+        for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+            values[ix] = generator.nextLong();
+
+        }
+
+    }
+
+    /**
+     Fill an array with uniformly distributed values in [0,1) (at the cost of one lock or thread-local lookup for the whole array).
+     @param values the array to fill.
+     */
+
+    public static void fill( final @NotNull double[] values ) {
+
+        RandomCentral instance = getInstance();
+        if ( instance._secure ) {
+
+            synchronized ( instance ) {
+
+                for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+                    values[ix] = instance._generator.nextDouble();
+
+                }
+
+            }
+
+            return;
+
+        }
+
+        MersenneTwisterFast generator = threadGenerator();
+        for ( int ix = 0; ix < values.length; ix += 1 ) {
 
-            return RandomCentral.getInstance()._generator.nextInt( n );
+            values[ix] = generator.nextDouble();
 
         }
 
@@ -14,6 +14,10 @@ import java.util.*;
  Keep track of ranges of values.
  <p/>
  Maintains a series of sorted ranges.  Ranges are combined when gaps between them are filled in.
+ <p/>
+ Since the ranges never overlap or touch, the map sorted by start value is all the interval tree that overlap queries need
+ (the largest end value in any part of the map is the end value of its last range).
+ Overlap queries and adds find their first candidate with one O(log n) probe and then only visit the k ranges that matter.
  */
 
 @SuppressWarnings("UnusedDeclaration")
@@ -79,109 +83,211 @@ public class Ranges<T extends Comparable<T>> implements Iterable<Range<T>>, Seri
 
     }
 
+    /**
+     Get the ranges which overlap a specified range.
+
+     @param range        the specified range.
+     @param rangeFactory the factory for the returned set of ranges.
+     @return the overlapping ranges.
+     @throws RejectRangeException if {@link Range#overlaps(Range)} rejects the specified range.
+     */
+
     public Ranges<T> getOverlappingDateRanges( final Range<T> range, final RangeFactory<T> rangeFactory )
             throws RejectRangeException {
 
         Ranges<T> rval = new Ranges<>( rangeFactory );
-        for ( T key : _ranges.keySet() ) {
+        for ( Range<T> r : getOverlappingRanges( range ) ) {
+
+            // These ranges are already sorted and neither overlap nor touch so there is nothing to merge.
+
+            rval._ranges.put( r.getStartValue(), r );
+
+        }
+
+        return rval;
+
+    }
+
+    /**
+     Get the ranges which overlap a specified range in O(log n + k) time.
+
+     @param range the specified range.
+     @return the overlapping ranges in ascending order.
+     @throws RejectRangeException if {@link Range#overlaps(Range)} rejects the specified range.
+     */
+
+    @NotNull
+    public List<Range<T>> getOverlappingRanges( final Range<T> range )
+            throws RejectRangeException {
+
+        List<Range<T>> rval = new ArrayList<>();
+
+        // Only the last range which starts before the specified range can reach into it.
 
-            Range<T> r = _ranges.get( key );
+        SortedMap<T, Range<T>> headMap = _ranges.headMap( range.getStartValue() );
+        if ( !headMap.isEmpty() ) {
 
+            Range<T> r = headMap.get( headMap.lastKey() );
             if ( r.overlaps( range ) ) {
 
                 rval.add( r );
 
-            } else if ( r.getLongEndValue() < range.getLongStartValue() ) {
+            }
+
+        }
+
+        for ( Range<T> r : _ranges.tailMap( range.getStartValue() ).values() ) {
+
+            // If the current range is after the range we are looking for then there is no chance of an overlap of ranges.
+
+            if ( range.getLongEndValue() < r.getLongStartValue() ) {
 
                 break;
 
             }
 
+            if ( r.overlaps( range ) ) {
+
+                rval.add( r );
+
+            }
+
         }
 
         return rval;
 
     }
 
+    /**
+     Determine if any range overlaps a specified range in O(log n) time.
+
+     @param range the specified range.
+     @return {@code true} if some range overlaps it.
+     @throws RejectRangeException if {@link Range#overlaps(Range)} rejects the specified range.
+     */
+
     public boolean hasOverlappedRanges( final Range<T> range )
             throws RejectRangeException {
 
-        Measure m = new Measure( "head map" );
-        try {
+        SortedMap<T, Range<T>> headMap = _ranges.headMap( range.getStartValue() );
+        if ( !headMap.isEmpty() && headMap.get( headMap.lastKey() ).overlaps( range ) ) {
 
-            SortedMap<T, Range<T>> headMap = _ranges.headMap( range.getStartValue() );
-            if ( !headMap.isEmpty() ) {
+            return true;
 
-                T key = headMap.lastKey();
-                Range<T> r = _ranges.get( key );
+        }
 
-                if ( r.overlaps( range ) ) {
+        // The first range which starts at or after the specified range's start is the only other candidate.
 
-                    return true;
+        SortedMap<T, Range<T>> tailMap = _ranges.tailMap( range.getStartValue() );
 
-                }
+        return !tailMap.isEmpty() && tailMap.get( tailMap.firstKey() ).overlaps( range );
 
-            }
+    }
 
-        } finally {
+    /**
+     Add a new range to this set of ranges, merging ranges as appropriate.
 
-            m.done();
+     @param newRange the to-be-added range.
+     @return this set of ranges (to allow chained adds).
+     @throws com.obtuse.util.exceptions.RejectRangeException thrown if this instance's DateRangeFactory throws this exception.
+     */
 
-        }
+    public Ranges<T> add( final Range<T> newRange )
+            throws RejectRangeException {
 
-        m = new Measure( "tail map" );
-        try {
+        myAdd( newRange );
+
+        //noinspection ReturnOfThis
+        return this;
 
-            // IntelliJ complains that the values returned by keySet() are not necessarily T instances.
-            // It is wrong. The _ranges map uses T instances as keys which means that a tail map of a
-            // _ranges map uses T instances as keys which means that this call to keySet can only return T instances.
+    }
+
+    /**
+     Add many ranges at once.
+     <p/>
+     The new ranges are sorted and coalesced among themselves in one pass
+     (one call to this instance's {@link RangeFactory} per group of overlapping or touching new ranges)
+     before each group is merged into this set of ranges.
+     Adding ranges which are already sorted by start value to an empty set of ranges therefore takes O(n log n) time with small constants,
+     compared with one merge per range through {@link #add(Range)}.
+
+     @param newRanges the to-be-added ranges.
+     @return this set of ranges (to allow chained adds).
+     @throws RejectRangeException thrown if this instance's RangeFactory throws this exception.
+     */
 
-            for ( T key : _ranges.tailMap( range.getStartValue() )
-                                 .keySet() ) {
+    public Ranges<T> addAll( final @NotNull Collection<Range<T>> newRanges )
+            throws RejectRangeException {
 
-                Range<T> r = _ranges.get( key );
+        List<Range<T>> sorted = new ArrayList<>( newRanges );
+        sorted.sort( Comparator.comparingLong( Range::getLongStartValue ) );
 
-                if ( r.overlaps( range ) ) {
+        int ix = 0;
+        while ( ix < sorted.size() ) {
 
-                    return true;
+            // Find the new ranges which overlap or touch this one (and each other).
 
-                }
+            int groupStart = ix;
+            long groupEnd = sorted.get( ix ).getLongEndValue();
+            ix += 1;
+            while ( ix < sorted.size() && sorted.get( ix ).getLongStartValue() <= groupEnd + 1L ) {
 
-                // If the current range is after the range we are looking for then there is no chance of an overlap of ranges.
+                groupEnd = Math.max( groupEnd, sorted.get( ix ).getLongEndValue() );
+                ix += 1;
 
-                if ( range.getLongEndValue() < r.getLongStartValue() ) {
+            }
 
-                    break;
+            Range<T> group;
+            if ( ix - groupStart == 1 ) {
+
+                group = sorted.get( groupStart );
+
+            } else {
+
+                SortedMap<T, Range<T>> sortedByStartValue = new TreeMap<>();
+                SortedMap<T, Range<T>> sortedByEndValue = new TreeMap<>();
+                for ( Range<T> r : sorted.subList( groupStart, ix ) ) {
+
+                    sortedByStartValue.put( r.getStartValue(), r );
+                    sortedByEndValue.put( r.getEndValue(), r );
 
                 }
 
+                group = _rangeFactory.createMergedRange( sortedByStartValue, sortedByEndValue );
+
             }
 
-        } finally {
+            if ( _ranges.isEmpty() || _ranges.get( _ranges.lastKey() ).getLongEndValue() + 1L < group.getLongStartValue() ) {
 
-            m.done();
+                // Beyond (and not touching) everything we have so nothing to merge with.
+
+                _ranges.put( group.getStartValue(), group );
+
+            } else {
+
+                myAdd( group );
+
+            }
 
         }
 
-        return false;
+        //noinspection ReturnOfThis
+        return this;
 
     }
 
     /**
-     Add a new range to this set of ranges, merging ranges as appropriate.
+     Add all of another set's ranges to this set of ranges, merging ranges as appropriate.
 
-     @param newRange the to-be-added range.
+     @param other the other set of ranges.
      @return this set of ranges (to allow chained adds).
-     @throws com.obtuse.util.exceptions.RejectRangeException thrown if this instance's DateRangeFactory throws this exception.
+     @throws RejectRangeException thrown if this instance's RangeFactory throws this exception.
      */
 
-    public Ranges<T> add( final Range<T> newRange )
+    public Ranges<T> union( final @NotNull Ranges<T> other )
             throws RejectRangeException {
 
-        myAdd( newRange );
-
-        //noinspection ReturnOfThis
-        return this;
+        return addAll( new ArrayList<>( other._ranges.values() ) );
 
     }
 
@@ -227,24 +333,22 @@ public class Ranges<T extends Comparable<T>> implements Iterable<Range<T>>, Seri
         sortedByEndValue.put( newRange.getEndValue(), newRange );
         SortedMap<T, Range<T>> existingRecordsToReplace = new TreeMap<>();
 
-        for ( T startValue : _ranges.keySet() ) {
-            Range<T> r = _ranges.get( startValue );
+        // Only the last range which starts before the new range can overlap or touch it from the left
+        // (the existing ranges neither overlap nor touch each other).
 
-            if ( r.overlaps( newRange ) ) {
+        List<Range<T>> candidates = new ArrayList<>();
+        SortedMap<T, Range<T>> headMap = _ranges.headMap( newRange.getStartValue() );
+        if ( !headMap.isEmpty() ) {
 
-                existingRecordsToReplace.put( r.getStartValue(), r );
-                sortedByStartValue.put( r.getStartValue(), r );
-                sortedByEndValue.put( r.getEndValue(), r );
+            candidates.add( headMap.get( headMap.lastKey() ) );
 
-            }
+        }
 
-            // Does the current range touch the new range?
+        for ( Range<T> r : _ranges.tailMap( newRange.getStartValue() ).values() ) {
 
-            if ( r.touches( newRange ) ) {
+            if ( r.overlaps( newRange ) || r.touches( newRange ) ) {
 
-                existingRecordsToReplace.put( r.getStartValue(), r );
-                sortedByStartValue.put( r.getStartValue(), r );
-                sortedByEndValue.put( r.getEndValue(), r );
+                candidates.add( r );
 
             } else if ( r.getStartValue()
                          .compareTo( newRange.getEndValue() ) > 0 ) {
@@ -258,6 +362,18 @@ public class Ranges<T extends Comparable<T>> implements Iterable<Range<T>>, Seri
 
         }
 
+        for ( Range<T> r : candidates ) {
+
+            if ( r.overlaps( newRange ) || r.touches( newRange ) ) {
+
+                existingRecordsToReplace.put( r.getStartValue(), r );
+                sortedByStartValue.put( r.getStartValue(), r );
+                sortedByEndValue.put( r.getEndValue(), r );
+
+            }
+
+        }
+
         Range<T> tmpRange = _rangeFactory.createMergedRange( sortedByStartValue, sortedByEndValue );
 
         for ( T victimKey : existingRecordsToReplace.keySet() ) {
@@ -322,6 +438,14 @@ public class Ranges<T extends Comparable<T>> implements Iterable<Range<T>>, Seri
 
         };
 
+        if ( args.length > 0 && "benchmark".equals( args[0] ) ) {
+
+            benchmark( rangeFactory, args.length > 1 ? Integer.parseInt( args[1] ) : 100000 );
+
+            return;
+
+        }
+
         Ranges<Integer> ranges = new Ranges<>( rangeFactory );
 
         Ranges.doit( ranges, 0, 0 );
@@ -352,6 +476,84 @@ public class Ranges<T extends Comparable<T>> implements Iterable<Range<T>>, Seri
 
     }
 
+    /**
+     Compare overlap queries against {@code count} ranges with a scan from the first range (how this class used to answer them).
+     */
+
+    @SuppressWarnings({ "MagicNumber", "UseOfSystemOutOrSystemErr" })
+    private static void benchmark( final RangeFactory<Integer> rangeFactory, final int count ) {
+
+        try {
+
+            List<Range<Integer>> input = new ArrayList<>();
+            for ( int ix = 0; ix < count; ix += 1 ) {
+
+                input.add( new Range<>( ix * 10, ix * 10 + 4, ix * 10, ix * 10 + 4 ) );
+
+            }
+
+            long start = System.nanoTime();
+            Ranges<Integer> ranges = new Ranges<>( rangeFactory ).addAll( input );
+            System.out.println( "bulk loaded " + ranges.size() + " ranges in " + ( System.nanoTime() - start ) / 1000000L + "ms" );
+
+            Random random = new Random( 1L );
+            int queries = 20000;
+            List<Range<Integer>> probes = new ArrayList<>();
+            for ( int ix = 0; ix < queries; ix += 1 ) {
+
+                int probeStart = random.nextInt( count * 10 );
+                probes.add( new Range<>( probeStart, probeStart + 25, probeStart, probeStart + 25 ) );
+
+            }
+
+            long found = 0;
+            start = System.nanoTime();
+            for ( Range<Integer> probe : probes ) {
+
+                found += ranges.getOverlappingRanges( probe ).size();
+
+            }
+
+            long elapsed = System.nanoTime() - start;
+            System.out.println( queries + " indexed queries found " + found + " ranges in " + elapsed / 1000000L + "ms" );
+            System.out.println( "    " + elapsed / queries / 1000L + "us per query" );
+
+            // The scan is much too slow to run all of the queries.
+
+            int scanningQueries = Math.max( 1, queries / 100 );
+            found = 0;
+            start = System.nanoTime();
+            for ( Range<Integer> probe : probes.subList( 0, scanningQueries ) ) {
+
+                for ( Integer key : ranges._ranges.keySet() ) {
+
+                    Range<Integer> r = ranges._ranges.get( key );
+                    if ( r.overlaps( probe ) ) {
+
+                        found += 1;
+
+                    } else if ( r.getLongStartValue() > probe.getLongEndValue() ) {
+
+                        break;
+
+                    }
+
+                }
+
+            }
+
+            elapsed = System.nanoTime() - start;
+            System.out.println( scanningQueries + " scanning queries found " + found + " ranges in " + elapsed / 1000000L + "ms" );
+            System.out.println( "    " + elapsed / scanningQueries / 1000L + "us per query" );
+
+        } catch ( RejectRangeException e ) {
+
+            throw new IllegalArgumentException( "Ranges.benchmark:  our own ranges were rejected", e );
+
+        }
+
+    }
+
     private static void doit( final Ranges<Integer> ranges, final int start, final int end ) {
 
         Ranges.doit( ranges, new Range<>( start, end, start, end ) );
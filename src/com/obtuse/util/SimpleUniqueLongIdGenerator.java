@@ -4,6 +4,8 @@ package com.obtuse.util;
  * Copyright © 2015 Obtuse Systems Corporation
  */
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  A utility class which implements a very simple {@link UniqueLongIdGenerator}.
  <p/>
@@ -11,13 +13,16 @@ package com.obtuse.util;
  which are the next value in the sequence 1L, 2L, 3L ...
  <p/>
  Instances of this class are thread safe.
+ They use a lock-free {@link AtomicLong} so concurrent callers never block each other,
+ although they still contend for the one counter.
+ Use a {@link BlockLeasingUniqueLongIdGenerator} if many threads generate ids at a high rate and strict ordering doesn't matter.
  */
 
 public class SimpleUniqueLongIdGenerator implements UniqueLongIdGenerator {
 
     public static final long DEFAULT_INITIAL_LAST_ID = 0L;
 
-    private long _lastId = 0;
+    private final AtomicLong _lastId = new AtomicLong( DEFAULT_INITIAL_LAST_ID );
 
     private final String _name;
 
@@ -63,14 +68,12 @@ public class SimpleUniqueLongIdGenerator implements UniqueLongIdGenerator {
     @Override
     public SimpleUniqueLongIdGenerator setLastId( final long lastId ) {
 
-        if ( _lastId != DEFAULT_INITIAL_LAST_ID ) {
+        if ( !_lastId.compareAndSet( DEFAULT_INITIAL_LAST_ID, lastId ) ) {
 
             throw new IllegalArgumentException( "SimpleUniqueLongIdGenerator.setLastId:  cannot change last id after first actual id has been returned" );
 
         }
 
-        _lastId = lastId;
-
         return this;
 
     }
@@ -139,25 +142,37 @@ public class SimpleUniqueLongIdGenerator implements UniqueLongIdGenerator {
      {@link #allowDuplicates()} returns <code>false</code> for this instance.
      */
 
-    public synchronized long getUniqueId() {
+    public long getUniqueId() {
+
+        while ( true ) {
+
+            long lastId = _lastId.get();
+            long id;
+            if ( lastId == Long.MAX_VALUE ) {
+
+                if ( allowDuplicates() ) {
 
-        if ( _lastId == Long.MAX_VALUE ) {
+                    id = 1L;
 
-            if ( allowDuplicates() ) {
+                } else {
 
-                _lastId = 0;
+                    throw new IllegalArgumentException( getName() + ":  all positive long ids have been generated" );
+
+                }
 
             } else {
 
-                throw new IllegalArgumentException( getName() + ":  all positive long ids have been generated" );
+                id = lastId + 1;
 
             }
 
-        }
+            if ( _lastId.compareAndSet( lastId, id ) ) {
 
-        _lastId += 1;
+                return id;
 
-        return _lastId;
+            }
+
+        }
 
     }
 
@@ -225,7 +240,7 @@ public class SimpleUniqueLongIdGenerator implements UniqueLongIdGenerator {
 
     public String toString() {
 
-        return "SULIG( name = \"" + getName() + ", last id = " + _lastId + " )";
+        return "SULIG( name = \"" + getName() + ", last id = " + _lastId.get() + " )";
 
     }
 
@@ -0,0 +1,934 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ Capture many streams on a few threads.
+ <p/>
+ Each {@link AsyncStreamCaptor} costs a thread and a megabyte or two of buffers which adds up when hundreds of child processes are being supervised.
+ A capture service runs a small, fixed number of capture loops.
+ Each capture assigned to a loop is read when it has data, into a buffer owned by the loop (a direct buffer for channels),
+ and what is captured is kept in a {@link ChunkedCaptureBuffer} which never holds more than the capture's maximum capture length.
+ <p/>
+ There are two kinds of sources:
+ <ul>
+ <li>{@link SelectableChannel}s (pipes and sockets) are registered with the loop's {@link Selector} and are read when the selector says that they are ready.</li>
+ <li>{@link InputStream}s (like {@link Process#getInputStream()}) can't be selected so the loop polls {@link InputStream#available()}
+ every {@code pollIntervalMillis} milliseconds and only reads what is available.
+ Since {@code available()} can't tell an empty stream from one which is at its end, each stream comes with a {@link BooleanSupplier}
+ that says when its writer is finished (for a process, {@code () -> !process.isAlive()}).
+ Once the writer is finished, whatever is left in the stream is read to its end on a separate drain thread so that the loop never blocks.</li>
+ </ul>
+ The maximum capture length, discard-after-maximum-capture-length and asynchronous notifier semantics are the same as {@link AsyncStreamCaptor}'s.
+ <b>Asynchronous notifiers are called on one of the service's threads and must not block.</b>
+ */
+
+public class StreamCaptureService implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     How many reads a capture gets each time it is polled before the loop moves on to the next capture.
+     */
+
+    private static final int READS_PER_POLL = 4;
+
+    /**
+     How long {@link #close()} waits for drain threads to give up once it has closed their sources.
+     */
+
+    private static final long DRAIN_SHUTDOWN_MILLIS = 1000L;
+
+    private static StreamCaptureService s_defaultService = null;
+
+    private final String _name;
+
+    private final long _pollIntervalMillis;
+
+    private final CaptureLoop[] _loops;
+
+    private final ExecutorService _drainer;
+
+    /**
+     The captures which have been handed to drain threads and are not done yet.
+     */
+
+    private final Set<Capture> _draining = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean _closed = false;
+
+    /**
+     Create a capture service.
+
+     @param name               the prefix for the names of the service's threads.
+     @param loopCount          how many capture loops (threads) to run.
+     @param pollIntervalMillis how often to poll {@link InputStream} sources that have nothing available.
+     @throws IOException if a {@link Selector} can't be opened.
+     @throws IllegalArgumentException if {@code loopCount} or {@code pollIntervalMillis} is not positive.
+     */
+
+    public StreamCaptureService( final @NotNull String name, final int loopCount, final long pollIntervalMillis )
+            throws IOException {
+
+        super();
+
+        if ( loopCount <= 0 || pollIntervalMillis <= 0 ) {
+
+            throw new IllegalArgumentException(
+                    "StreamCaptureService:  loop count (" + loopCount + ") and poll interval (" + pollIntervalMillis + ") must be positive"
+            );
+
+        }
+
+        _name = name;
+        _pollIntervalMillis = pollIntervalMillis;
+
+        AtomicInteger drainerCount = new AtomicInteger();
+        _drainer = Executors.newCachedThreadPool(
+                runnable -> {
+
+                    Thread thread = new Thread( runnable, _name + " drainer " + drainerCount.incrementAndGet() );
+                    thread.setDaemon( true );
+
+                    return thread;
+
+                }
+        );
+
+        _loops = new CaptureLoop[loopCount];
+        for ( int ix = 0; ix < loopCount; ix += 1 ) {
+
+            _loops[ix] = new CaptureLoop( _name + " loop " + ( ix + 1 ) );
+            _loops[ix].start();
+
+        }
+
+    }
+
+    /**
+     Get a shared capture service with up to four loops that polls streams every 10 milliseconds.
+     */
+
+    @NotNull
+    public static synchronized StreamCaptureService getDefaultService() {
+
+        if ( s_defaultService == null ) {
+
+            try {
+
+                s_defaultService = new StreamCaptureService(
+                        "StreamCaptureService",
+                        Math.max( 1, Math.min( 4, Runtime.getRuntime().availableProcessors() ) ),
+                        10L
+                );
+
+            } catch ( IOException e ) {
+
+                throw new IllegalStateException( "StreamCaptureService:  unable to open a selector", e );
+
+            }
+
+        }
+
+        return s_defaultService;
+
+    }
+
+    /**
+     Capture an {@link InputStream}.
+
+     @param what                         a descriptive string used in {@link Logger} calls and certain exceptions.
+     @param inputStream                  the stream.
+     @param writerFinished               says when nothing more will be written to the stream (for a process, {@code () -> !process.isAlive()}).
+     @param asynchronousNotifier         what to tell when the capture is done (ignored if {@code null}).
+     It is called on one of this service's threads.
+     @param idString                     an id string that the caller might wish to use to identify the capture.
+     @param maxCaptureLength             the most bytes to keep.
+     @param discardAfterMaxCaptureLength {@code true} if everything after the first {@code maxCaptureLength} bytes should be read and discarded;
+     {@code false} if the stream should be left positioned at the first uncaptured byte.
+     @param closeWhenDone                should {@link Capture#waitUntilDone()} close the stream?
+     @return the capture (which has already started).
+     */
+
+    @NotNull
+    public Capture capture(
+            final @NotNull String what,
+            final @NotNull InputStream inputStream,
+            final @NotNull BooleanSupplier writerFinished,
+            final @Nullable Consumer<Capture> asynchronousNotifier,
+            final @NotNull String idString,
+            final long maxCaptureLength,
+            final boolean discardAfterMaxCaptureLength,
+            final boolean closeWhenDone
+    ) {
+
+        Capture capture = new Capture(
+                what, inputStream, writerFinished, null, asynchronousNotifier, idString, maxCaptureLength, discardAfterMaxCaptureLength, closeWhenDone
+        );
+        assign( capture );
+
+        return capture;
+
+    }
+
+    /**
+     Capture a selectable channel (a {@link Pipe.SourceChannel} or a {@link SocketChannel}, for example).
+     The channel is switched to non-blocking mode.
+     <p/>
+     The parameters have the same meanings as they do for
+     {@link #capture(String, InputStream, BooleanSupplier, Consumer, String, long, boolean, boolean)}.
+     */
+
+    @NotNull
+    public <C extends SelectableChannel & ReadableByteChannel> Capture capture(
+            final @NotNull String what,
+            final @NotNull C channel,
+            final @Nullable Consumer<Capture> asynchronousNotifier,
+            final @NotNull String idString,
+            final long maxCaptureLength,
+            final boolean discardAfterMaxCaptureLength,
+            final boolean closeWhenDone
+    )
+            throws IOException {
+
+        channel.configureBlocking( false );
+
+        Capture capture = new Capture(
+                what, null, null, channel, asynchronousNotifier, idString, maxCaptureLength, discardAfterMaxCaptureLength, closeWhenDone
+        );
+        assign( capture );
+
+        return capture;
+
+    }
+
+    /**
+     Give a capture to the loop which has the fewest captures.
+     */
+
+    private void assign( final @NotNull Capture capture ) {
+
+        if ( _closed ) {
+
+            throw new IllegalStateException( "StreamCaptureService(" + _name + "):  service has been closed" );
+
+        }
+
+        CaptureLoop best = _loops[0];
+        for ( CaptureLoop loop : _loops ) {
+
+            if ( loop._captureCount.get() < best._captureCount.get() ) {
+
+                best = loop;
+
+            }
+
+        }
+
+        best.add( capture );
+
+    }
+
+    /**
+     Stop the service's threads.
+     <p/>
+     A drain thread can block forever reading a stream whose writer never closes it so the sources of captures which are being drained are closed
+     and this method waits up to a second for the drain threads to finish (those captures finish without reaching EOF).
+     Other captures which are still in progress are abandoned without being marked as done.
+     Closing a service which has already been closed does nothing.
+     */
+
+    @Override
+    public void close() {
+
+        synchronized ( this ) {
+
+            if ( _closed ) {
+
+                return;
+
+            }
+
+            _closed = true;
+
+        }
+
+        for ( CaptureLoop loop : _loops ) {
+
+            loop._selector.wakeup();
+
+        }
+
+        _drainer.shutdownNow();
+        for ( Capture capture : _draining ) {
+
+            try {
+
+                if ( capture._sourceStillOpen ) {
+
+                    capture.close();
+
+                }
+
+            } catch ( IOException | IllegalStateException e ) {
+
+                // Someone else closed it first or it can't be closed. Either way, there's nothing more that we can do.
+
+                ObtuseUtil.doNothing();
+
+            }
+
+        }
+
+        try {
+
+            if ( !_drainer.awaitTermination( DRAIN_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS ) ) {
+
+                Logger.logErr( "StreamCaptureService(" + _name + "):  drain threads are still running after the service was closed" );
+
+            }
+
+        } catch ( InterruptedException e ) {
+
+            Logger.logErr( "java.lang.InterruptedException caught", e );
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "StreamCaptureService( " + ObtuseUtil.enquoteToJavaString( _name ) + ", loops=" + _loops.length + " )";
+
+    }
+
+    /**
+     One thread which reads many captures.
+     */
+
+    private class CaptureLoop extends Thread {
+
+        private final Selector _selector;
+
+        private final ConcurrentLinkedQueue<Capture> _newCaptures = new ConcurrentLinkedQueue<>();
+
+        private final List<Capture> _polledCaptures = new ArrayList<>();
+
+        private final List<Capture> _channelCaptures = new ArrayList<>();
+
+        private final AtomicInteger _captureCount = new AtomicInteger();
+
+        private final ByteBuffer _directBuffer = ByteBuffer.allocateDirect( READ_BUFFER_SIZE );
+
+        private final byte[] _heapBuffer = new byte[READ_BUFFER_SIZE];
+
+        private CaptureLoop( final @NotNull String threadName )
+                throws IOException {
+
+            super( threadName );
+
+            setDaemon( true );
+
+            _selector = Selector.open();
+
+        }
+
+        private void add( final @NotNull Capture capture ) {
+
+            _captureCount.incrementAndGet();
+            _newCaptures.add( capture );
+            _selector.wakeup();
+
+        }
+
+        public void run() {
+
+            try {
+
+                while ( !_closed ) {
+
+                    Capture capture;
+                    while ( ( capture = _newCaptures.poll() ) != null ) {
+
+                        if ( capture._channel == null ) {
+
+                            _polledCaptures.add( capture );
+
+                        } else {
+
+                            try {
+
+                                _channelCaptures.add( capture );
+                                ( (SelectableChannel)capture._channel ).register( _selector, SelectionKey.OP_READ, capture );
+
+                            } catch ( ClosedChannelException e ) {
+
+                                finish( capture, false );
+
+                            }
+
+                        }
+
+                    }
+
+                    // Channels wake us up when they have something but polled streams have to be checked every so often.
+                    // Closed channels are also noticed on the next poll so never wait forever if there are any captures.
+
+                    if ( _captureCount.get() == 0 ) {
+
+                        _selector.select();
+
+                    } else {
+
+                        _selector.select( _pollIntervalMillis );
+
+                    }
+
+                    Iterator<SelectionKey> selectedKeys = _selector.selectedKeys().iterator();
+                    while ( selectedKeys.hasNext() ) {
+
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        if ( key.isValid() && readChannel( (Capture)key.attachment() ) ) {
+
+                            key.cancel();
+
+                        }
+
+                    }
+
+                    // Closing a channel silently cancels its key so look for closed channels ourselves.
+
+                    _channelCaptures.removeIf( this::isChannelDone );
+                    _polledCaptures.removeIf( this::pollStream );
+
+                }
+
+            } catch ( IOException e ) {
+
+                Logger.logErr( "StreamCaptureService(" + _name + "):  capture loop " + getName() + " failed", e );
+
+            } catch ( ClosedSelectorException e ) {
+
+                ObtuseUtil.doNothing();
+
+            } catch ( IllegalStateException e ) {
+
+                // The service was closed while this loop was handing a capture to a drain thread (the capture is abandoned).
+
+                if ( !_closed ) {
+
+                    throw e;
+
+                }
+
+            } finally {
+
+                try {
+
+                    _selector.close();
+
+                } catch ( IOException e ) {
+
+                    ObtuseUtil.doNothing();
+
+                }
+
+            }
+
+        }
+
+        private boolean isChannelDone( final @NotNull Capture capture ) {
+
+            if ( capture._done ) {
+
+                return true;
+
+            }
+
+            if ( !capture._channel.isOpen() ) {
+
+                finish( capture, false );
+
+                return true;
+
+            }
+
+            return false;
+
+        }
+
+        /**
+         Read whatever a selected channel has.
+
+         @return {@code true} if the capture is done.
+         */
+
+        private boolean readChannel( final @NotNull Capture capture ) {
+
+            try {
+
+                for ( int reads = 0; reads < READS_PER_POLL; reads += 1 ) {
+
+                    long remaining = capture._captured.remaining();
+                    if ( remaining <= 0 && !capture._discardAfterMaxCaptureLength ) {
+
+                        finish( capture, false );
+
+                        return true;
+
+                    }
+
+                    _directBuffer.clear();
+                    if ( remaining > 0 && remaining < READ_BUFFER_SIZE ) {
+
+                        _directBuffer.limit( (int)remaining );
+
+                    }
+
+                    int readLength = capture._channel.read( _directBuffer );
+                    if ( readLength < 0 ) {
+
+                        finish( capture, true );
+
+                        return true;
+
+                    } else if ( readLength == 0 ) {
+
+                        return false;
+
+                    }
+
+                    _directBuffer.flip();
+                    capture.accept( _directBuffer );
+
+                }
+
+                return false;
+
+            } catch ( IOException e ) {
+
+                Logger.logErr( "StreamCaptureService(" + capture._what + "):  java.io.IOException caught", e );
+                finish( capture, false );
+
+                return true;
+
+            }
+
+        }
+
+        /**
+         Read whatever is available from a polled stream.
+
+         @return {@code true} if the loop is done with the capture (it is either done or has been handed to a drain thread).
+         */
+
+        private boolean pollStream( final @NotNull Capture capture ) {
+
+            try {
+
+                for ( int reads = 0; reads < READS_PER_POLL; reads += 1 ) {
+
+                    long remaining = capture._captured.remaining();
+                    if ( remaining <= 0 && !capture._discardAfterMaxCaptureLength ) {
+
+                        finish( capture, false );
+
+                        return true;
+
+                    }
+
+                    int available = capture._inputStream.available();
+                    if ( available <= 0 ) {
+
+                        if ( capture._writerFinished.getAsBoolean() ) {
+
+                            startDrain( capture );
+
+                            return true;
+
+                        }
+
+                        return false;
+
+                    }
+
+                    int rqSize = Math.min( available, _heapBuffer.length );
+                    if ( remaining > 0 ) {
+
+                        rqSize = (int)Math.min( rqSize, remaining );
+
+                    }
+
+                    int readLength = capture._inputStream.read( _heapBuffer, 0, rqSize );
+                    if ( readLength < 0 ) {
+
+                        finish( capture, true );
+
+                        return true;
+
+                    }
+
+                    capture.accept( _heapBuffer, readLength );
+
+                }
+
+                return false;
+
+            } catch ( IOException e ) {
+
+                Logger.logErr( "StreamCaptureService(" + capture._what + "):  java.io.IOException caught", e );
+                finish( capture, false );
+
+                return true;
+
+            }
+
+        }
+
+        /**
+         Hand a stream whose writer has finished to a drain thread.
+
+         @throws IllegalStateException if the service has been closed.
+         */
+
+        private void startDrain( final @NotNull Capture capture ) {
+
+            synchronized ( StreamCaptureService.this ) {
+
+                if ( _closed ) {
+
+                    throw new IllegalStateException( "StreamCaptureService(" + _name + "):  service has been closed" );
+
+                }
+
+                _draining.add( capture );
+                _drainer.execute( () -> drain( capture ) );
+
+            }
+
+        }
+
+        /**
+         Read the rest of a stream whose writer has finished (on a drain thread since the read might still block for a while).
+         */
+
+        private void drain( final @NotNull Capture capture ) {
+
+            boolean reachedEOF = false;
+            try {
+
+                byte[] buffer = new byte[READ_BUFFER_SIZE];
+                while ( true ) {
+
+                    long remaining = capture._captured.remaining();
+                    if ( remaining <= 0 && !capture._discardAfterMaxCaptureLength ) {
+
+                        break;
+
+                    }
+
+                    int rqSize = remaining > 0 ? (int)Math.min( remaining, buffer.length ) : buffer.length;
+                    int readLength = capture._inputStream.read( buffer, 0, rqSize );
+                    if ( readLength < 0 ) {
+
+                        reachedEOF = true;
+
+                        break;
+
+                    }
+
+                    capture.accept( buffer, readLength );
+
+                }
+
+            } catch ( IOException e ) {
+
+                // Closing the service closes the stream out from under us.
+
+                if ( !_closed ) {
+
+                    Logger.logErr( "StreamCaptureService(" + capture._what + "):  java.io.IOException caught", e );
+
+                }
+
+            }
+
+            _draining.remove( capture );
+            finish( capture, reachedEOF );
+
+        }
+
+        private void finish( final @NotNull Capture capture, final boolean reachedEOF ) {
+
+            _captureCount.decrementAndGet();
+            capture.finish( reachedEOF );
+
+        }
+
+        public String toString() {
+
+            return "CaptureLoop( " + ObtuseUtil.enquoteToJavaString( getName() ) + ", captures=" + _captureCount.get() + " )";
+
+        }
+
+    }
+
+    /**
+     One stream being captured by a {@link StreamCaptureService}.
+     */
+
+    public static class Capture implements Closeable {
+
+        @NotNull private final String _what;
+        @Nullable private final InputStream _inputStream;
+        @Nullable private final BooleanSupplier _writerFinished;
+        @Nullable private final ReadableByteChannel _channel;
+        @Nullable private final Consumer<Capture> _asynchronousNotifier;
+        @NotNull private final String _idString;
+        @NotNull private final ChunkedCaptureBuffer _captured;
+        private final boolean _discardAfterMaxCaptureLength;
+        private final boolean _closeWhenDone;
+        private volatile boolean _sourceStillOpen = true;
+        private volatile long _discardedByteCount = 0L;
+        private volatile boolean _dataReadUntilEOF = false;
+        private volatile boolean _done = false;
+
+        private Capture(
+                final @NotNull String what,
+                final @Nullable InputStream inputStream,
+                final @Nullable BooleanSupplier writerFinished,
+                final @Nullable ReadableByteChannel channel,
+                final @Nullable Consumer<Capture> asynchronousNotifier,
+                final @NotNull String idString,
+                final long maxCaptureLength,
+                final boolean discardAfterMaxCaptureLength,
+                final boolean closeWhenDone
+        ) {
+
+            super();
+
+            _what = what;
+            _inputStream = inputStream;
+            _writerFinished = writerFinished;
+            _channel = channel;
+            _asynchronousNotifier = asynchronousNotifier;
+            _idString = idString;
+            _captured = new ChunkedCaptureBuffer( maxCaptureLength );
+            _discardAfterMaxCaptureLength = discardAfterMaxCaptureLength;
+            _closeWhenDone = closeWhenDone;
+
+        }
+
+        private void accept( final @NotNull byte[] buffer, final int length ) {
+
+            _discardedByteCount += length - _captured.write( buffer, 0, length );
+
+        }
+
+        private void accept( final @NotNull ByteBuffer buffer ) {
+
+            int length = buffer.remaining();
+            _discardedByteCount += length - _captured.write( buffer );
+
+        }
+
+        private void finish( final boolean reachedEOF ) {
+
+            _dataReadUntilEOF = reachedEOF;
+
+            synchronized ( this ) {
+
+                _done = true;
+                notifyAll();
+
+            }
+
+            if ( _asynchronousNotifier != null ) {
+
+                try {
+
+                    _asynchronousNotifier.accept( this );
+
+                } catch ( RuntimeException e ) {
+
+                    Logger.logErr( "StreamCaptureService(" + _what + "):  asynchronous notifier threw an exception", e );
+
+                }
+
+            }
+
+        }
+
+        @NotNull
+        public String getWhat() {
+
+            return _what;
+
+        }
+
+        @NotNull
+        public String getIdString() {
+
+            return _idString;
+
+        }
+
+        /**
+         Get what has been captured so far.
+         */
+
+        @NotNull
+        public ChunkedCaptureBuffer getCapturedBytes() {
+
+            return _captured;
+
+        }
+
+        public long getMaxCaptureLength() {
+
+            return _captured.getMaxSize();
+
+        }
+
+        public boolean discardAfterMaxCaptureLength() {
+
+            return _discardAfterMaxCaptureLength;
+
+        }
+
+        public long getDiscardedByteCount() {
+
+            return _discardedByteCount;
+
+        }
+
+        public long getBytesCapturedToDate() {
+
+            return _captured.size();
+
+        }
+
+        public long getBytesRead() {
+
+            return _captured.size() + _discardedByteCount;
+
+        }
+
+        public boolean wasDataReadUntilEOF() {
+
+            return _dataReadUntilEOF;
+
+        }
+
+        public boolean wasAllDataCaptured() {
+
+            return _dataReadUntilEOF && _discardedByteCount == 0;
+
+        }
+
+        public boolean isDone() {
+
+            return _done;
+
+        }
+
+        /**
+         Wait until this capture is done and then close its source if it was created with {@code closeWhenDone} set.
+         */
+
+        public synchronized void waitUntilDone() {
+
+            while ( !_done ) {
+
+                try {
+
+                    wait();
+
+                } catch ( InterruptedException e ) {
+
+                    Logger.logErr( "java.lang.InterruptedException caught", e );
+
+                }
+
+            }
+
+            if ( _closeWhenDone && _sourceStillOpen ) {
+
+                try {
+
+                    close();
+
+                } catch ( IOException e ) {
+
+                    Logger.logErr( "StreamCaptureService.Capture.waitUntilDone(" + _what + "):  IOException closing source", e );
+
+                }
+
+            }
+
+        }
+
+        /**
+         Close the source.
+         A capture whose source is closed while it is still in progress finishes without reaching EOF.
+
+         @throws IllegalStateException if the source has already been closed.
+         */
+
+        @Override
+        public void close()
+                throws IOException {
+
+            if ( !_sourceStillOpen ) {
+
+                throw new IllegalStateException( "StreamCaptureService.Capture.close(" + _what + "):  source has already been closed" );
+
+            }
+
+            _sourceStillOpen = false;
+            if ( _channel != null ) {
+
+                _channel.close();
+
+            } else if ( _inputStream != null ) {
+
+                _inputStream.close();
+
+            }
+
+        }
+
+        public String toString() {
+
+            return "StreamCaptureService.Capture( " + ObtuseUtil.enquoteToJavaString( _idString ) +
+                   ", bytesCapturedToDate=" + _captured.size() + ", done=" + _done + " )";
+
+        }
+
+    }
+
+}
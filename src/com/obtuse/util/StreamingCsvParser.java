@@ -0,0 +1,1244 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import com.obtuse.util.exceptions.SyntaxErrorException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ A streaming comma-separated-value parser for very large inputs.
+ <p/>
+ Unlike {@link GenericCsvParser}, which turns every row into a {@link SortedMap}, this parser hands out one reusable {@link Row} cursor
+ whose fields are {@link CharSequence} views into the parser's own buffer.
+ Nothing is allocated per row or per field unless the caller asks for a {@link String}.
+ The typed accessors ({@link Row#getLong(int)}, {@link Row#getDouble(int)} and {@link Row#getDate(int)})
+ parse straight out of the buffer.
+ <p/>
+ The input follows <a href="https://tools.ietf.org/html/rfc4180">RFC 4180</a>:
+ <ul>
+ <li>records end with {@code \r\n}, {@code \n} or a lone {@code \r} (the last record doesn't need to end with anything).</li>
+ <li>fields are separated by commas.</li>
+ <li>a field which starts with a double quote extends to the matching double quote and may contain commas, line breaks and doubled double quotes
+ (which stand for one double quote).</li>
+ <li>a double quote in the middle of an unquoted field is just a character.</li>
+ </ul>
+ <p/>
+ The input can be a {@link Reader}, a {@link CharSequence} or a {@link ByteBuffer} (e.g. a memory-mapped file) in a specified character set.
+ A {@link Row} and the views that it hands out are only valid until the next call to {@link #nextRow()}.
+ Instances of this class are not thread safe.
+ */
+
+public class StreamingCsvParser implements Closeable {
+
+    /**
+     How many characters we buffer at a time when reading from a {@link Reader}.
+     The buffer grows if a single record doesn't fit in it.
+     */
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader _source;
+
+    private char[] _buf;
+
+    private int _limit;
+
+    private int _pos;
+
+    private boolean _eof;
+
+    /*
+     * Where the record that we are working on starts and, while we are in the middle of a field, where the field starts and
+     * where the next unescaped character of a quoted field goes. Refilling the buffer moves all of these.
+     */
+
+    private int _rowStart;
+
+    private int _fieldStart;
+
+    private int _write;
+
+    private int[] _fieldStarts = new int[16];
+
+    private int[] _fieldEnds = new int[16];
+
+    private int _fieldCount;
+
+    private int _nextLineNumber = 1;
+
+    private int _lineNumber;
+
+    private long _rowNumber;
+
+    private List<String> _titles = null;
+
+    private Map<String, Integer> _columnIndices = Collections.emptyMap();
+
+    private final Row _row = new Row();
+
+    /**
+     Create a parser which reads from a {@link Reader}.
+
+     @param source     where to read from.
+     @param bufferSize how many characters to read at a time.
+     */
+
+    public StreamingCsvParser( final @NotNull Reader source, final int bufferSize ) {
+
+        super();
+
+        if ( bufferSize <= 0 ) {
+
+            throw new IllegalArgumentException( "StreamingCsvParser:  buffer size must be positive (" + bufferSize + ")" );
+
+        }
+
+        _source = source;
+        _buf = new char[bufferSize];
+
+    }
+
+    public StreamingCsvParser( final @NotNull Reader source ) {
+
+        this( source, DEFAULT_BUFFER_SIZE );
+
+    }
+
+    /**
+     Create a parser which parses an in-memory {@link CharSequence}.
+     <p/>The characters are copied into the parser once (quoted fields are unescaped in place) and then never again.
+
+     @param input what to parse.
+     */
+
+    public StreamingCsvParser( final @NotNull CharSequence input ) {
+
+        super();
+
+        _source = null;
+        _buf = new char[Math.max( 1, input.length() )];
+        if ( input instanceof String ) {
+
+            ( (String)input ).getChars( 0, input.length(), _buf, 0 );
+
+        } else {
+
+            for ( int i = 0; i < input.length(); i += 1 ) {
+
+                _buf[i] = input.charAt( i );
+
+            }
+
+        }
+
+        _limit = input.length();
+        _eof = true;
+
+    }
+
+    /**
+     Create a parser which decodes a {@link ByteBuffer} (for example, all or part of a memory-mapped file).
+     <p/>Malformed input is replaced by the character set's replacement character.
+
+     @param input   what to parse (from its position to its limit; the buffer's position is not changed).
+     @param charset the input's character set.
+     */
+
+    public StreamingCsvParser( final @NotNull ByteBuffer input, final @NotNull Charset charset ) {
+
+        this( new ByteBufferReader( input.slice(), charset ), DEFAULT_BUFFER_SIZE );
+
+    }
+
+    /**
+     Create a parser which reads a UTF-8 file.
+
+     @param file the file.
+     @throws FileNotFoundException if the file cannot be opened.
+     */
+
+    public StreamingCsvParser( final @NotNull File file )
+            throws FileNotFoundException {
+
+        this( new InputStreamReader( new FileInputStream( file ), StandardCharsets.UTF_8 ), DEFAULT_BUFFER_SIZE );
+
+    }
+
+    /**
+     Treat the next record as a header containing the column titles.
+     <p/>This enables the by-title accessors in {@link Row}.
+
+     @return the titles (empty if there are no more records).
+     @throws SyntaxErrorException if the record is malformed.
+     @throws IOException if reading fails.
+     */
+
+    @NotNull
+    public List<String> readHeader()
+            throws SyntaxErrorException, IOException {
+
+        Row header = nextRow();
+        if ( header == null ) {
+
+            _titles = Collections.emptyList();
+
+        } else {
+
+            _titles = Collections.unmodifiableList( header.toList() );
+
+        }
+
+        Map<String, Integer> columnIndices = new HashMap<>();
+        for ( int ix = _titles.size() - 1; ix >= 0; ix -= 1 ) {
+
+            // Going backwards means that the first of any duplicated titles wins.
+
+            columnIndices.put( _titles.get( ix ), ix );
+
+        }
+
+        _columnIndices = columnIndices;
+        _rowNumber = 0;
+
+        return _titles;
+
+    }
+
+    /**
+     Get the column titles.
+
+     @return the column titles or {@code null} if {@link #readHeader()} hasn't been called.
+     */
+
+    @Nullable
+    public List<String> getTitles() {
+
+        return _titles;
+
+    }
+
+    /**
+     Find a column by its title.
+
+     @param title the column's title.
+     @return the column's index or -1 if there is no such column (or if {@link #readHeader()} hasn't been called).
+     */
+
+    public int getColumnIndex( final @NotNull String title ) {
+
+        Integer ix = _columnIndices.get( title );
+
+        return ix == null ? -1 : ix;
+
+    }
+
+    /**
+     Advance to the next record.
+
+     @return the row cursor (always the same instance) or {@code null} if there are no more records.
+     @throws SyntaxErrorException if the record is malformed.
+     @throws IOException if reading fails.
+     */
+
+    @Nullable
+    public Row nextRow()
+            throws SyntaxErrorException, IOException {
+
+        _rowStart = _pos;
+        _fieldCount = 0;
+        if ( _pos == _limit && !refill() ) {
+
+            return null;
+
+        }
+
+        _lineNumber = _nextLineNumber;
+
+        while ( true ) {
+
+            int terminator;
+            if ( _buf[_pos] == '"' ) {
+
+                terminator = scanQuotedField();
+
+            } else {
+
+                terminator = scanUnquotedField();
+
+            }
+
+            if ( terminator == ',' ) {
+
+                _pos += 1;
+                if ( _pos == _limit && !refill() ) {
+
+                    // A trailing comma at the very end of the input means that there's one more (empty) field.
+
+                    addField( _pos, _pos );
+
+                    break;
+
+                }
+
+                continue;
+
+            }
+
+            if ( terminator == '\r' ) {
+
+                _pos += 1;
+                if ( ( _pos < _limit || refill() ) && _buf[_pos] == '\n' ) {
+
+                    _pos += 1;
+
+                }
+
+                _nextLineNumber += 1;
+
+            } else if ( terminator == '\n' ) {
+
+                _pos += 1;
+                _nextLineNumber += 1;
+
+            }
+
+            break;
+
+        }
+
+        _rowNumber += 1;
+
+        return _row;
+
+    }
+
+    /**
+     Scan an unquoted field starting at {@code _pos}.
+
+     @return the character which ended the field or -1 if the input ended.
+     */
+
+    private int scanUnquotedField()
+            throws IOException {
+
+        _fieldStart = _pos;
+        while ( true ) {
+
+            if ( _pos == _limit && !refill() ) {
+
+                addField( _fieldStart, _pos );
+
+                return -1;
+
+            }
+
+            char ch = _buf[_pos];
+            if ( ch == ',' || ch == '\n' || ch == '\r' ) {
+
+                addField( _fieldStart, _pos );
+
+                return ch;
+
+            }
+
+            _pos += 1;
+
+        }
+
+    }
+
+    /**
+     Scan a quoted field whose opening quote is at {@code _pos}, unescaping it in place.
+
+     @return the character which ended the field or -1 if the input ended.
+     */
+
+    private int scanQuotedField()
+            throws IOException, SyntaxErrorException {
+
+        int startingLineNumber = _nextLineNumber;
+
+        _pos += 1;
+        _fieldStart = _pos;
+        _write = _pos;
+        while ( true ) {
+
+            if ( _pos == _limit && !refill() ) {
+
+                throw new SyntaxErrorException( "line " + startingLineNumber + " has a quoted field with no closing quote" );
+
+            }
+
+            char ch = _buf[_pos];
+            _pos += 1;
+            if ( ch == '"' ) {
+
+                if ( ( _pos < _limit || refill() ) && _buf[_pos] == '"' ) {
+
+                    _buf[_write] = '"';
+                    _write += 1;
+                    _pos += 1;
+
+                    continue;
+
+                }
+
+                break;
+
+            }
+
+            // Count quoted line breaks so that line numbers stay right (a \r\n pair is counted when we get to the \n).
+
+            if ( ch == '\n' || ( ch == '\r' && !( ( _pos < _limit || refill() ) && _buf[_pos] == '\n' ) ) ) {
+
+                _nextLineNumber += 1;
+
+            }
+
+            _buf[_write] = ch;
+            _write += 1;
+
+        }
+
+        addField( _fieldStart, _write );
+
+        if ( _pos == _limit && !refill() ) {
+
+            return -1;
+
+        }
+
+        char ch = _buf[_pos];
+        if ( ch == ',' || ch == '\n' || ch == '\r' ) {
+
+            return ch;
+
+        }
+
+        throw new SyntaxErrorException( "line " + _nextLineNumber + " has " + ObtuseUtil.enquoteToJavaString( "" + ch ) + " after the closing quote of a field" );
+
+    }
+
+    private void addField( final int start, final int end ) {
+
+        if ( _fieldCount == _fieldStarts.length ) {
+
+            _fieldStarts = Arrays.copyOf( _fieldStarts, _fieldCount * 2 );
+            _fieldEnds = Arrays.copyOf( _fieldEnds, _fieldCount * 2 );
+
+        }
+
+        _fieldStarts[_fieldCount] = start;
+        _fieldEnds[_fieldCount] = end;
+        _fieldCount += 1;
+
+    }
+
+    /**
+     Get more input.
+     <p/>The record that we're working on is moved to the start of the buffer first (the buffer grows if the record fills it).
+
+     @return {@code true} if at least one more character is available at {@code _pos}; {@code false} if the input is exhausted.
+     */
+
+    private boolean refill()
+            throws IOException {
+
+        if ( _eof ) {
+
+            return false;
+
+        }
+
+        int shift = _rowStart;
+        if ( shift > 0 ) {
+
+            System.arraycopy( _buf, shift, _buf, 0, _limit - shift );
+            _limit -= shift;
+            _pos -= shift;
+            _rowStart = 0;
+            _fieldStart -= shift;
+            _write -= shift;
+            for ( int ix = 0; ix < _fieldCount; ix += 1 ) {
+
+                _fieldStarts[ix] -= shift;
+                _fieldEnds[ix] -= shift;
+
+            }
+
+        }
+
+        if ( _limit == _buf.length ) {
+
+            _buf = Arrays.copyOf( _buf, _buf.length * 2 );
+
+        }
+
+        while ( true ) {
+
+            int count = _source.read( _buf, _limit, _buf.length - _limit );
+            if ( count < 0 ) {
+
+                _eof = true;
+
+                return false;
+
+            }
+
+            if ( count > 0 ) {
+
+                _limit += count;
+
+                return true;
+
+            }
+
+        }
+
+    }
+
+    /**
+     Get the number of data rows returned so far (the header, if any, doesn't count).
+
+     @return the number of rows.
+     */
+
+    public long getRowNumber() {
+
+        return _rowNumber;
+
+    }
+
+    public void close()
+            throws IOException {
+
+        if ( _source != null ) {
+
+            _source.close();
+
+        }
+
+    }
+
+    /**
+     The cursor through which the current record is accessed.
+     */
+
+    public class Row {
+
+        private Field[] _views = new Field[0];
+
+        private Row() {
+
+            super();
+
+        }
+
+        public int getFieldCount() {
+
+            return _fieldCount;
+
+        }
+
+        /**
+         Get the line number that this record starts on (the first line is line 1).
+         A record can span several lines if it contains quoted line breaks.
+         */
+
+        public int getLineNumber() {
+
+            return _lineNumber;
+
+        }
+
+        /**
+         Get this record's number (the first record after the header, if any, is record 1).
+         */
+
+        public long getRowNumber() {
+
+            return _rowNumber;
+
+        }
+
+        private void checkIndex( final int ix ) {
+
+            if ( ix < 0 || ix >= _fieldCount ) {
+
+                throw new IndexOutOfBoundsException( "line " + _lineNumber + " has no field " + ix + " (it has " + _fieldCount + " fields)" );
+
+            }
+
+        }
+
+        private int columnIndex( final @NotNull String title ) {
+
+            int ix = getColumnIndex( title );
+            if ( ix < 0 ) {
+
+                throw new IllegalArgumentException( "StreamingCsvParser:  no column titled " + ObtuseUtil.enquoteToJavaString( title ) );
+
+            }
+
+            return ix;
+
+        }
+
+        /**
+         Get a view of a field.
+         <p/>The view is only valid until the next call to {@link #nextRow()}. Use {@link #getString(int)} to get something more permanent.
+
+         @param ix which field (the first one is 0).
+         @return the view.
+         @throws IndexOutOfBoundsException if this record has no such field.
+         */
+
+        @NotNull
+        public CharSequence getField( final int ix ) {
+
+            checkIndex( ix );
+
+            if ( ix >= _views.length ) {
+
+                Field[] views = Arrays.copyOf( _views, Math.max( ix + 1, _fieldCount ) );
+                for ( int i = _views.length; i < views.length; i += 1 ) {
+
+                    views[i] = new Field( i );
+
+                }
+
+                _views = views;
+
+            }
+
+            return _views[ix];
+
+        }
+
+        @NotNull
+        public CharSequence getField( final @NotNull String title ) {
+
+            return getField( columnIndex( title ) );
+
+        }
+
+        @NotNull
+        public String getString( final int ix ) {
+
+            checkIndex( ix );
+
+            return new String( _buf, _fieldStarts[ix], _fieldEnds[ix] - _fieldStarts[ix] );
+
+        }
+
+        @NotNull
+        public String getString( final @NotNull String title ) {
+
+            return getString( columnIndex( title ) );
+
+        }
+
+        /**
+         Determine if a field is empty.
+
+         @return {@code true} if the field is empty or if this record doesn't have the field.
+         */
+
+        public boolean isEmpty( final int ix ) {
+
+            return ix >= _fieldCount || _fieldStarts[ix] == _fieldEnds[ix];
+
+        }
+
+        /**
+         Parse a field as a {@code long}.
+         Spaces and tabs before and after the value are ignored.
+
+         @throws SyntaxErrorException if the field isn't an optionally signed sequence of decimal digits that fits in a {@code long}.
+         */
+
+        public long getLong( final int ix )
+                throws SyntaxErrorException {
+
+            checkIndex( ix );
+
+            int start = skipBlanks( _fieldStarts[ix], _fieldEnds[ix] );
+            int end = trimBlanks( start, _fieldEnds[ix] );
+
+            boolean negative = false;
+            int i = start;
+            if ( i < end && ( _buf[i] == '-' || _buf[i] == '+' ) ) {
+
+                negative = _buf[i] == '-';
+                i += 1;
+
+            }
+
+            if ( i == end ) {
+
+                throw conversionError( ix, "long" );
+
+            }
+
+            // Accumulate negatively so that Long.MIN_VALUE works.
+
+            long value = 0;
+            for ( ; i < end; i += 1 ) {
+
+                int digit = _buf[i] - '0';
+                if ( digit < 0 || digit > 9 || value < ( Long.MIN_VALUE + digit ) / 10 ) {
+
+                    throw conversionError( ix, "long" );
+
+                }
+
+                value = value * 10 - digit;
+
+            }
+
+            if ( !negative ) {
+
+                if ( value == Long.MIN_VALUE ) {
+
+                    throw conversionError( ix, "long" );
+
+                }
+
+                return -value;
+
+            }
+
+            return value;
+
+        }
+
+        public long getLong( final @NotNull String title )
+                throws SyntaxErrorException {
+
+            return getLong( columnIndex( title ) );
+
+        }
+
+        public int getInt( final int ix )
+                throws SyntaxErrorException {
+
+            long value = getLong( ix );
+            if ( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ) {
+
+                throw conversionError( ix, "int" );
+
+            }
+
+            return (int)value;
+
+        }
+
+        public int getInt( final @NotNull String title )
+                throws SyntaxErrorException {
+
+            return getInt( columnIndex( title ) );
+
+        }
+
+        /**
+         Parse a field as a {@code double}.
+         Spaces and tabs before and after the value are ignored.
+         <p/>
+         Plain decimal values with at most 15 significant digits and an exponent small enough that the power of ten is exactly representable
+         are converted directly out of the buffer (the result is exact in that case, see Clinger's "How to read floating point numbers accurately").
+         Anything else is handed to {@link Double#parseDouble(String)}.
+
+         @throws SyntaxErrorException if the field isn't something that {@link Double#parseDouble(String)} accepts.
+         */
+
+        public double getDouble( final int ix )
+                throws SyntaxErrorException {
+
+            checkIndex( ix );
+
+            int start = skipBlanks( _fieldStarts[ix], _fieldEnds[ix] );
+            int end = trimBlanks( start, _fieldEnds[ix] );
+
+            double value = fastParseDouble( start, end );
+            if ( !Double.isNaN( value ) ) {
+
+                return value;
+
+            }
+
+            try {
+
+                return Double.parseDouble( new String( _buf, start, end - start ) );
+
+            } catch ( NumberFormatException e ) {
+
+                throw conversionError( ix, "double" );
+
+            }
+
+        }
+
+        public double getDouble( final @NotNull String title )
+                throws SyntaxErrorException {
+
+            return getDouble( columnIndex( title ) );
+
+        }
+
+        /**
+         Parse a field as a {@code "yyyy-MM-dd HH:mm:ss"} date in the default timezone just like {@link CSVParser#parseDate(String)} does.
+
+         @throws SyntaxErrorException if the field isn't a valid date.
+         */
+
+        @NotNull
+        public ImmutableDate getDate( final int ix )
+                throws SyntaxErrorException {
+
+            long millis = FixedWidthDateTimes.parseYYYY_MM_DD_HH_MM_SS( getField( ix ), 0, _fieldEnds[ix] - _fieldStarts[ix], TimeZone.getDefault() );
+            if ( millis != FixedWidthDateTimes.NOT_FIXED_WIDTH ) {
+
+                return new ImmutableDate( millis );
+
+            }
+
+            try {
+
+                return CSVParser.parseDate( getString( ix ) );
+
+            } catch ( SyntaxErrorException e ) {
+
+                throw new SyntaxErrorException( "line " + _lineNumber + " field " + ix + ":  " + e.getMessage(), e );
+
+            }
+
+        }
+
+        @NotNull
+        public ImmutableDate getDate( final @NotNull String title )
+                throws SyntaxErrorException {
+
+            return getDate( columnIndex( title ) );
+
+        }
+
+        /**
+         Copy this record's fields into a list of {@link String}s.
+         */
+
+        @NotNull
+        public List<String> toList() {
+
+            List<String> rval = new ArrayList<>( _fieldCount );
+            for ( int ix = 0; ix < _fieldCount; ix += 1 ) {
+
+                rval.add( getString( ix ) );
+
+            }
+
+            return rval;
+
+        }
+
+        @NotNull
+        private SyntaxErrorException conversionError( final int ix, final String what ) {
+
+            return new SyntaxErrorException(
+                    "unable to convert " + ObtuseUtil.enquoteToJavaString( getString( ix ) ) + " to a " + what + " on line " + _lineNumber
+            );
+
+        }
+
+        public String toString() {
+
+            return "StreamingCsvParser.Row( line " + _lineNumber + ", " + toList() + " )";
+
+        }
+
+    }
+
+    private int skipBlanks( final int start, final int end ) {
+
+        int i = start;
+        while ( i < end && ( _buf[i] == ' ' || _buf[i] == '\t' ) ) {
+
+            i += 1;
+
+        }
+
+        return i;
+
+    }
+
+    private int trimBlanks( final int start, final int end ) {
+
+        int i = end;
+        while ( i > start && ( _buf[i - 1] == ' ' || _buf[i - 1] == '\t' ) ) {
+
+            i -= 1;
+
+        }
+
+        return i;
+
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     Convert {@code [-+]?digits[.digits]([eE][-+]?digits)?} with at most 15 significant digits exactly.
+
+     @return the value or {@code NaN} if the text isn't in that form (the caller then falls back to {@link Double#parseDouble(String)}).
+     */
+
+    private double fastParseDouble( final int start, final int end ) {
+
+        int i = start;
+        boolean negative = false;
+        if ( i < end && ( _buf[i] == '-' || _buf[i] == '+' ) ) {
+
+            negative = _buf[i] == '-';
+            i += 1;
+
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean sawDigit = false;
+        boolean sawPoint = false;
+        for ( ; i < end; i += 1 ) {
+
+            char ch = _buf[i];
+            if ( ch >= '0' && ch <= '9' ) {
+
+                sawDigit = true;
+                if ( mantissa != 0 || ch != '0' ) {
+
+                    digits += 1;
+
+                }
+
+                mantissa = mantissa * 10 + ( ch - '0' );
+                if ( sawPoint ) {
+
+                    scale -= 1;
+
+                }
+
+                if ( digits > 15 ) {
+
+                    return Double.NaN;
+
+                }
+
+            } else if ( ch == '.' && !sawPoint ) {
+
+                sawPoint = true;
+
+            } else {
+
+                break;
+
+            }
+
+        }
+
+        if ( !sawDigit ) {
+
+            return Double.NaN;
+
+        }
+
+        if ( i < end ) {
+
+            if ( _buf[i] != 'e' && _buf[i] != 'E' ) {
+
+                return Double.NaN;
+
+            }
+
+            i += 1;
+            boolean negativeExponent = false;
+            if ( i < end && ( _buf[i] == '-' || _buf[i] == '+' ) ) {
+
+                negativeExponent = _buf[i] == '-';
+                i += 1;
+
+            }
+
+            if ( i == end || end - i > 3 ) {
+
+                return Double.NaN;
+
+            }
+
+            int exponent = 0;
+            for ( ; i < end; i += 1 ) {
+
+                int digit = _buf[i] - '0';
+                if ( digit < 0 || digit > 9 ) {
+
+                    return Double.NaN;
+
+                }
+
+                exponent = exponent * 10 + digit;
+
+            }
+
+            scale += negativeExponent ? -exponent : exponent;
+
+        }
+
+        double value;
+        if ( scale == 0 ) {
+
+            value = mantissa;
+
+        } else if ( scale < 0 && scale >= -22 ) {
+
+            value = mantissa / POWERS_OF_TEN[-scale];
+
+        } else if ( scale > 0 && scale <= 22 ) {
+
+            value = mantissa * POWERS_OF_TEN[scale];
+
+        } else {
+
+            return Double.NaN;
+
+        }
+
+        // The sign is applied last so that "-0" yields -0.0 just like Double.parseDouble does.
+
+        return negative ? -value : value;
+
+    }
+
+    /**
+     A view of one field of the current record.
+     */
+
+    private class Field implements CharSequence {
+
+        private final int _ix;
+
+        private Field( final int ix ) {
+
+            super();
+
+            _ix = ix;
+
+        }
+
+        @Override
+        public int length() {
+
+            return _fieldEnds[_ix] - _fieldStarts[_ix];
+
+        }
+
+        @Override
+        public char charAt( final int index ) {
+
+            if ( index < 0 || index >= length() ) {
+
+                throw new IndexOutOfBoundsException( "index " + index + " is outside of a field of length " + length() );
+
+            }
+
+            return _buf[_fieldStarts[_ix] + index];
+
+        }
+
+        @Override
+        @NotNull
+        public CharSequence subSequence( final int start, final int end ) {
+
+            if ( start < 0 || end > length() || start > end ) {
+
+                throw new IndexOutOfBoundsException( "[" + start + "," + end + ") is outside of a field of length " + length() );
+
+            }
+
+            return new String( _buf, _fieldStarts[_ix] + start, end - start );
+
+        }
+
+        @Override
+        @NotNull
+        public String toString() {
+
+            return new String( _buf, _fieldStarts[_ix], length() );
+
+        }
+
+    }
+
+    /**
+     A {@link Reader} which decodes a {@link ByteBuffer}.
+     */
+
+    private static class ByteBufferReader extends Reader {
+
+        private final ByteBuffer _input;
+
+        private final CharsetDecoder _decoder;
+
+        private boolean _flushed = false;
+
+        private ByteBufferReader( final @NotNull ByteBuffer input, final @NotNull Charset charset ) {
+
+            super();
+
+            _input = input;
+            _decoder = charset.newDecoder()
+                              .onMalformedInput( CodingErrorAction.REPLACE )
+                              .onUnmappableCharacter( CodingErrorAction.REPLACE );
+
+        }
+
+        @Override
+        public int read( final @NotNull char[] cbuf, final int off, final int len ) {
+
+            if ( _flushed ) {
+
+                return -1;
+
+            }
+
+            CharBuffer out = CharBuffer.wrap( cbuf, off, len );
+            CoderResult result = _decoder.decode( _input, out, true );
+            if ( result.isUnderflow() ) {
+
+                // All of the input has been consumed.
+
+                if ( _decoder.flush( out ).isUnderflow() ) {
+
+                    _flushed = true;
+
+                }
+
+            }
+
+            int count = out.position() - off;
+
+            return count == 0 && _flushed ? -1 : count;
+
+        }
+
+        @Override
+        public void close() {
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "StreamingCsvParser( rows = " + _rowNumber + ", titles = " + _titles + " )";
+
+    }
+
+    /**
+     Compare this parser with {@link GenericCsvParser} on a generated input.
+
+     @param args {@code [rowCount]} (defaults to one million).
+     */
+
+    public static void main( final String[] args ) {
+
+        BasicProgramConfigInfo.init( "Obtuse", "Utils", "StreamingCsvParser" );
+
+        int rowCount = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+
+        StringBuilder sb = new StringBuilder( "id,name,amount,when\n" );
+        Random random = new Random( 1L );
+        for ( int i = 0; i < rowCount; i += 1 ) {
+
+            sb.append( i )
+              .append( ",\"name " )
+              .append( random.nextInt( 1000 ) )
+              .append( ", the " )
+              .append( i % 7 )
+              .append( "th\"," )
+              .append( random.nextInt( 1000000 ) / 100.0 )
+              .append( ",2018-0" )
+              .append( 1 + i % 9 )
+              .append( "-1" )
+              .append( i % 10 )
+              .append( " 12:34:56\n" );
+
+        }
+
+        String input = sb.toString();
+
+        for ( int round = 0; round < 3; round += 1 ) {
+
+            try {
+
+                long startNanos = System.nanoTime();
+                GenericCsvParser gcp = new GenericCsvParser( "generated", new BufferedReader( new StringReader( input ) ) );
+                gcp.parse();
+                double total = 0;
+                for ( int lnum = 1; gcp.hasLine( lnum ); lnum += 1 ) {
+
+                    total += Double.parseDouble( gcp.getString( lnum, "amount" ) );
+
+                }
+
+                long genericNanos = System.nanoTime() - startNanos;
+
+                startNanos = System.nanoTime();
+                StreamingCsvParser scp = new StreamingCsvParser( new StringReader( input ) );
+                scp.readHeader();
+                int amountIx = scp.getColumnIndex( "amount" );
+                int whenIx = scp.getColumnIndex( "when" );
+                double streamingTotal = 0;
+                long latest = 0;
+                Row row;
+                while ( ( row = scp.nextRow() ) != null ) {
+
+                    streamingTotal += row.getDouble( amountIx );
+                    latest = Math.max( latest, row.getDate( whenIx ).getTime() );
+
+                }
+
+                long streamingNanos = System.nanoTime() - startNanos;
+
+                Logger.logMsg(
+                        "StreamingCsvParser:  " + ObtuseUtil.readable( rowCount ) + " rows, GenericCsvParser took " +
+                        DateUtils.formatDuration( genericNanos / 1000000L ) + " (total " + total + "), StreamingCsvParser took " +
+                        DateUtils.formatDuration( streamingNanos / 1000000L ) + " (total " + streamingTotal + ", latest " + new ImmutableDate( latest ) + ")"
+                );
+
+            } catch ( SyntaxErrorException | IOException e ) {
+
+                Logger.logErr( "StreamingCsvParser:  benchmark failed", e );
+
+                System.exit( 1 );
+
+            }
+
+        }
+
+    }
+
+}
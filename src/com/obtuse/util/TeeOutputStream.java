@@ -10,12 +10,21 @@ import org.jetbrains.annotations.Nullable;
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
  A pass-through stream that sends a copy of what passes through to a specified {@link OutputStream}.
  <p>This is intended to be used to debug a complex chain of streams.</p>
+ <p>By default, the copy is written to the log file as part of each write to this stream so a slow log file slows down the downstream stream.
+ A tee created with {@link #TeeOutputStream(String, OutputStream, int, OverflowPolicy)} is asynchronous instead:
+ each write copies the data into a bounded ring buffer and a background thread writes whatever has accumulated to the log file
+ in large batches through a {@link FileChannel}.
+ What happens when the ring buffer is full is up to the {@link OverflowPolicy}.
+ Use {@link #flushTee(boolean)} to wait until everything written so far has reached the log file.</p>
  */
 
 @SuppressWarnings("unused")
@@ -35,6 +44,34 @@ public class TeeOutputStream extends OutputStream {
 
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat( "yyyy-MM-dd_HH.mm.ss.SSS" );
 
+    /**
+     What an asynchronous tee does with a write that doesn't fit in its ring buffer.
+     */
+
+    public enum OverflowPolicy {
+
+        /**
+         Wait until the background writer has made room (the downstream stream waits too).
+         */
+
+        BLOCK,
+
+        /**
+         Leave the write out of the log file and count it (see {@link #getDroppedTeeByteCount()}).
+         A write is either copied to the log file in its entirety or not at all.
+         */
+
+        DROP
+
+    }
+
+    /**
+     The ring buffer if this is an asynchronous tee ({@code null} otherwise).
+     */
+
+    @Nullable
+    private final AsyncTee _asyncTee;
+
     /**
      Create a generic tee that makes no assumptions about where the data being captured is also going.
      @param sessionName the name which is to be used to construct the log file's name.
@@ -78,6 +115,61 @@ public class TeeOutputStream extends OutputStream {
         }
 
         _teeOutputStream = teeOutputStream;
+        _asyncTee = null;
+
+    }
+
+    /**
+     Create an asynchronous tee.
+     @param sessionName the name which is to be used to construct the log file's name.
+     @param outputStream the intended recipient output stream.
+     @param ringBufferSize how many bytes can be waiting to be written to the log file.
+     @param overflowPolicy what to do with a write when the ring buffer doesn't have room for it.
+     @throws IOException when bad things happen to good streams.
+     Exceptions thrown while working with the log file are wrapped in
+     a new {@link IOException} instance as follows:
+     <blockquote><code>new IOException( "Tee-" + e.getMessage(), e )</code></blockquote>
+     @throws IllegalArgumentException if {@code ringBufferSize} is not positive.
+     */
+
+    public TeeOutputStream(
+            final @NotNull String sessionName,
+            final @NotNull OutputStream outputStream,
+            final int ringBufferSize,
+            final @NotNull OverflowPolicy overflowPolicy
+    )
+            throws IOException {
+
+        super();
+
+        if ( ringBufferSize <= 0 ) {
+
+            throw new IllegalArgumentException( "TeeOutputStream:  ring buffer size must be positive (" + ringBufferSize + ")" );
+
+        }
+
+        _outputStream = outputStream;
+
+        _sessionName = sessionName;
+        _buffered = true;
+
+        try {
+
+            _teeFile = constructLogFile( sessionName );
+            _asyncTee = new AsyncTee(
+                    FileChannel.open( _teeFile.toPath(), StandardOpenOption.WRITE ),
+                    ringBufferSize,
+                    overflowPolicy,
+                    "TeeOutputStream(" + sessionName + ") writer"
+            );
+
+        } catch ( IOException e ) {
+
+            throw new IOException( "Tee-" + e.getMessage(), e );
+
+        }
+
+        _teeOutputStream = _asyncTee;
 
     }
 
@@ -226,6 +318,62 @@ public class TeeOutputStream extends OutputStream {
 
     }
 
+    /**
+     Determine if this is an asynchronous tee.
+     @return {@code true} if this tee was created with {@link #TeeOutputStream(String, OutputStream, int, OverflowPolicy)}.
+     */
+
+    public boolean isAsynchronous() {
+
+        return _asyncTee != null;
+
+    }
+
+    /**
+     Get how many bytes an asynchronous tee has left out of its log file because its ring buffer was full.
+     @return the number of bytes dropped (always 0 for a synchronous tee or one whose overflow policy is {@link OverflowPolicy#BLOCK}).
+     */
+
+    public long getDroppedTeeByteCount() {
+
+        return _asyncTee == null ? 0L : _asyncTee.getDroppedByteCount();
+
+    }
+
+    /**
+     Wait until everything written to this stream so far has been written to the log file.
+     @param force {@code true} if the log file should also be forced to the storage device.
+     @throws IOException if writing to the log file failed. The exception is wrapped as follows:
+     <blockquote><code>new IOException( "Tee-" + e.getMessage(), e )</code></blockquote>
+     */
+
+    public void flushTee( final boolean force ) throws IOException {
+
+        try {
+
+            if ( _asyncTee == null ) {
+
+                _teeOutputStream.flush();
+                if ( force && _teeOutputStream instanceof FileOutputStream ) {
+
+                    ( (FileOutputStream)_teeOutputStream ).getFD().sync();
+
+                }
+
+            } else {
+
+                _asyncTee.flushBarrier( force );
+
+            }
+
+        } catch ( IOException e ) {
+
+            throw new IOException( "Tee-" + e.getMessage(), e );
+
+        }
+
+    }
+
     /**
      Write a byte to both the tee output stream and the downstream output stream.
      @param b the byte to be written.
@@ -304,8 +452,34 @@ public class TeeOutputStream extends OutputStream {
         }
     }
 
+    /**
+     Flush the downstream output stream and the tee output stream.
+     <p>An asynchronous tee is not waited for; use {@link #flushTee(boolean)} for that.</p>
+     @throws IOException if something goes wrong.
+     Exceptions thrown while working with the tee's output stream are wrapped in
+     a new {@link IOException} instance as follows:
+     <blockquote><code>new IOException( "Tee-" + e.getMessage(), e )</code></blockquote>
+     @see        java.io.OutputStream#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+
+        _outputStream.flush();
+        try {
+
+            _teeOutputStream.flush();
+
+        } catch ( IOException e ) {
+
+            throw new IOException( "Tee-" + e.getMessage(), e );
+
+        }
+
+    }
+
     /**
      Close the output stream.
+     <p>An asynchronous tee writes whatever is still in its ring buffer to the log file before the log file is closed.</p>
      @throws IOException if something goes wrong.
      Exceptions thrown while working with the tee's output stream are wrapped in
      a new {@link IOException} instance as follows:
@@ -328,6 +502,320 @@ public class TeeOutputStream extends OutputStream {
 
     }
 
+    /**
+     A ring buffer which a background thread drains to a {@link FileChannel}.
+     */
+
+    private static class AsyncTee extends OutputStream {
+
+        private final FileChannel _channel;
+
+        private final byte[] _ring;
+
+        private final OverflowPolicy _overflowPolicy;
+
+        private final Thread _writerThread;
+
+        /**
+         How many bytes have been put into the ring buffer.
+         */
+
+        private long _head = 0L;
+
+        /**
+         How many bytes have been written to the channel.
+         */
+
+        private long _tail = 0L;
+
+        private long _droppedByteCount = 0L;
+
+        private boolean _closing = false;
+
+        private IOException _failure = null;
+
+        private AsyncTee(
+                final @NotNull FileChannel channel,
+                final int ringBufferSize,
+                final @NotNull OverflowPolicy overflowPolicy,
+                final @NotNull String threadName
+        ) {
+
+            super();
+
+            _channel = channel;
+            _ring = new byte[ringBufferSize];
+            _overflowPolicy = overflowPolicy;
+
+            _writerThread = new Thread( this::drain, threadName );
+            _writerThread.setDaemon( true );
+            _writerThread.start();
+
+        }
+
+        @Override
+        public synchronized void write( final int b ) throws IOException {
+
+            checkUsable();
+
+            while ( _head - _tail == _ring.length ) {
+
+                if ( _overflowPolicy == OverflowPolicy.DROP ) {
+
+                    _droppedByteCount += 1;
+
+                    return;
+
+                }
+
+                waitForWriter();
+                checkUsable();
+
+            }
+
+            boolean wasEmpty = _head == _tail;
+            _ring[(int)( _head % _ring.length )] = (byte)b;
+            _head += 1;
+            wakeWriter( wasEmpty );
+
+        }
+
+        @Override
+        public synchronized void write( final @NotNull byte@NotNull[] b, final int off, final int len ) throws IOException {
+
+            checkUsable();
+
+            if ( _overflowPolicy == OverflowPolicy.DROP && len > _ring.length - ( _head - _tail ) ) {
+
+                _droppedByteCount += len;
+
+                return;
+
+            }
+
+            int copied = 0;
+            while ( copied < len ) {
+
+                int room = (int)( _ring.length - ( _head - _tail ) );
+                if ( room == 0 ) {
+
+                    waitForWriter();
+                    checkUsable();
+
+                    continue;
+
+                }
+
+                boolean wasEmpty = _head == _tail;
+                int start = (int)( _head % _ring.length );
+                int count = Math.min( Math.min( len - copied, room ), _ring.length - start );
+                System.arraycopy( b, off + copied, _ring, start, count );
+                copied += count;
+                _head += count;
+                wakeWriter( wasEmpty );
+
+            }
+
+        }
+
+        /**
+         Wake up the background writer if it might be waiting for something to write.
+         <p/>
+         The writer only waits when the ring buffer is empty so there is no point in waking it (and whoever else is waiting)
+         unless the ring buffer was empty before the bytes that were just added to it.
+         @param wasEmpty {@code true} if the ring buffer was empty before the bytes that were just added to it.
+         */
+
+        private void wakeWriter( final boolean wasEmpty ) {
+
+            if ( wasEmpty ) {
+
+                notifyAll();
+
+            }
+
+        }
+
+        private void checkUsable() throws IOException {
+
+            if ( _failure != null ) {
+
+                throw _failure;
+
+            }
+
+            if ( _closing ) {
+
+                throw new IOException( "stream closed" );
+
+            }
+
+        }
+
+        private void waitForWriter() throws IOException {
+
+            try {
+
+                wait();
+
+            } catch ( InterruptedException e ) {
+
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "interrupted waiting for the tee's writer" );
+
+            }
+
+        }
+
+        private synchronized void flushBarrier( final boolean force ) throws IOException {
+
+            long target = _head;
+            while ( _tail < target && _failure == null ) {
+
+                waitForWriter();
+
+            }
+
+            if ( _failure != null ) {
+
+                throw _failure;
+
+            }
+
+            if ( force ) {
+
+                _channel.force( false );
+
+            }
+
+        }
+
+        private synchronized long getDroppedByteCount() {
+
+            return _droppedByteCount;
+
+        }
+
+        /**
+         The background writer's loop.
+         */
+
+        private void drain() {
+
+            while ( true ) {
+
+                int start;
+                int count;
+                synchronized ( this ) {
+
+                    while ( _head == _tail && !_closing ) {
+
+                        try {
+
+                            wait();
+
+                        } catch ( InterruptedException e ) {
+
+                            ObtuseUtil.doNothing();
+
+                        }
+
+                    }
+
+                    if ( _head == _tail ) {
+
+                        return;
+
+                    }
+
+                    // Write everything up to the end of the ring buffer (the rest, if any, goes next time around).
+
+                    start = (int)( _tail % _ring.length );
+                    count = (int)Math.min( _head - _tail, _ring.length - start );
+
+                }
+
+                try {
+
+                    ByteBuffer batch = ByteBuffer.wrap( _ring, start, count );
+                    while ( batch.hasRemaining() ) {
+
+                        _channel.write( batch );
+
+                    }
+
+                } catch ( IOException e ) {
+
+                    synchronized ( this ) {
+
+                        _failure = e;
+                        notifyAll();
+
+                    }
+
+                    return;
+
+                }
+
+                synchronized ( this ) {
+
+                    _tail += count;
+                    notifyAll();
+
+                }
+
+            }
+
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            synchronized ( this ) {
+
+                if ( _closing ) {
+
+                    return;
+
+                }
+
+                _closing = true;
+                notifyAll();
+
+            }
+
+            try {
+
+                _writerThread.join();
+
+            } catch ( InterruptedException e ) {
+
+                Thread.currentThread().interrupt();
+
+            }
+
+            _channel.close();
+
+            synchronized ( this ) {
+
+                if ( _failure != null ) {
+
+                    throw _failure;
+
+                }
+
+            }
+
+        }
+
+        public String toString() {
+
+            return "AsyncTee( buffered=" + ( _head - _tail ) + ", dropped=" + _droppedByteCount + " )";
+
+        }
+
+    }
+
     @Override
     public String toString() {
 
@@ -28,6 +28,20 @@ public class Trace {
     private static final DateFormat _logFileNameFormatter =
             new SimpleDateFormat( "'trace_'yyyy-MM-dd_HH.mm.ss.SSS'.txt'" );
 
+    private static final DateFormat _flightRecordingFileNameFormatter =
+            new SimpleDateFormat( "'trace_'yyyy-MM-dd_HH.mm.ss.SSS'.otfr'" );
+
+    /**
+     * What a client of the trace port listener sends to request a binary flight recording instead of a text trace.
+     * <p/>
+     * The listener waits up to {@link #TRACE_PORT_REQUEST_TIMEOUT_MS} milliseconds for this line
+     * (see {@link #startTracePortListener(int)}).
+     */
+
+    public static final String TRACE_PORT_BINARY_REQUEST = "binary";
+
+    private static final int TRACE_PORT_REQUEST_TIMEOUT_MS = 1000;
+
     public static final DateFormat OUR_DATE_FORMAT = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
 
     private static String s_supportContact;
@@ -45,8 +59,6 @@ public class Trace {
 
     private static File s_traceFileDirectory = new File( BasicProgramConfigInfo.getWorkingDirectory(), "traces" );
 
-    public static final Map<Long, Thread> s_exceptionsInProgress = new TreeMap<>();
-
     public static final int MAX_FORMATTED_TRACE_DEPTH = 100;
 
     private static boolean _printEvents = false;
@@ -57,96 +69,6 @@ public class Trace {
 
     }
 
-    private static class TraceEvent {
-
-        private final String _event;
-
-        private final long _timestamp;
-
-        private final long _tid;
-
-        private Throwable _exception = null;
-
-        private TraceEvent( final String event ) {
-            super();
-
-            _event = event;
-            _timestamp = System.currentTimeMillis();
-            _tid = Thread.currentThread().getId();
-
-        }
-
-        private TraceEvent( final String why, final Throwable e ) {
-            this( why + ( e == null ? "" : " (associated exception:  " + e + ")" ) );
-
-            _exception = e;
-
-        }
-
-        @SuppressWarnings( { "UnusedDeclaration" } )
-        private String getEvent() {
-
-            return _event;
-
-        }
-
-        @SuppressWarnings( { "UnusedDeclaration" } )
-        private long getTimeStamp() {
-
-            return _timestamp;
-
-        }
-
-        @SuppressWarnings("UnusedDeclaration")
-        private Throwable getException() {
-
-            return _exception;
-
-        }
-
-        private void emit( final List<String> results ) {
-
-            String pfx = Trace.OUR_DATE_FORMAT.format( _timestamp ) + " {" + _tid + "}:  ";
-
-            results.add( pfx + _event );
-
-            if ( _exception != null ) {
-
-                Trace.captureStackTrace( false, pfx, _exception, results );
-
-            }
-
-        }
-
-        public String toString() {
-
-            StringBuilder msg = new StringBuilder();
-            msg.append( Trace.OUR_DATE_FORMAT.format( _timestamp ) )
-               .append( " {" )
-               .append( _tid )
-               .append( "}:  " )
-               .append( _event );
-
-            if ( _exception != null ) {
-
-                List<String> results = new LinkedList<>();
-                Trace.captureStackTrace( false, "", _exception, results );
-                for ( String s : results ) {
-
-                    msg.append( "\n" ).append( s );
-
-                }
-
-            }
-
-            return msg.toString();
-
-        }
-
-    }
-
-    private static Queue<TraceEvent> s_traceEvents = new LinkedList<>();
-
     private static final List<TraceFileManager> s_traceFileManagers = new LinkedList<>();
 
     private static final int MAX_TRACE_EVENTS = 50000;
@@ -242,6 +164,16 @@ public class Trace {
 
     }
 
+    /**
+     * Record a trace event.
+     * <p/>
+     * Events are recorded in the calling thread's {@link TraceFlightRecorder} ring buffer.
+     * Recording an event does not acquire any locks so it is safe (and cheap) to do in hot code.
+     *
+     * @param event the event.
+     * @param e     an optional exception associated with the event.
+     */
+
     public static void event( final String event, @Nullable final Throwable e ) {
 
         if ( _printEvents ) {
@@ -250,71 +182,32 @@ public class Trace {
 
         }
 
-        Long threadId = Thread.currentThread().getId();
+        if ( Trace.s_liveTrace ) {
 
-        synchronized ( Trace.s_exceptionsInProgress ) {
+            //noinspection UseOfSystemOutOrSystemErr
+            System.out.println( "<><> " + event );
+            if ( e != null ) {
 
-            // Avoid recursion
-
-            if ( Trace.s_exceptionsInProgress.containsKey( threadId ) ) {
-
-                return;
+                //noinspection CallToPrintStackTrace
+                e.printStackTrace();
 
             }
 
         }
 
-        try {
-
-            if ( Trace.s_liveTrace ) {
-
-                //noinspection UseOfSystemOutOrSystemErr
-                System.out.println( "<><> " + event );
-                if ( e != null ) {
-
-                    //noinspection CallToPrintStackTrace
-                    e.printStackTrace();
-
-                }
-
-            }
-
-            synchronized ( Trace.TRACE_HOOKS_LOCK ) {
-
-                Trace.s_traceEvents.add( new TraceEvent( event, e ) );
-
-                if ( Trace.s_traceEvents.size() > Trace.MAX_TRACE_EVENTS ) {
-
-                    Trace.s_traceEvents.remove();
-
-                }
-
-            }
-
-        } finally {
-
-            synchronized ( Trace.s_exceptionsInProgress ) {
-
-                Trace.s_exceptionsInProgress.remove( threadId );
-
-            }
-
-        }
+        TraceFlightRecorder.record( event, e );
 
     }
 
     public static List<String> getTrace( final String why, final String where ) {
 
-        // Sitting on the trace hooks lock while collecting trace data risks a deadlock
-        // (e.g. if some other thread tries to record a trace event) so we hold the
-        // lock only long enough to collect copies of the raw trace data and hooks.
+        // Recording trace events doesn't involve the trace hooks lock but running a hook might
+        // so we hold the lock only long enough to collect a copy of the hooks.
 
-        List<TraceEvent> events;
+        List<TraceFlightRecorder.Event> events = TraceFlightRecorder.snapshot( Trace.MAX_TRACE_EVENTS );
         Map<Integer, TraceHook> hooks;
         synchronized ( Trace.TRACE_HOOKS_LOCK ) {
 
-            events = new LinkedList<>( Trace.s_traceEvents );
-
             hooks = new TreeMap<>();
             for ( int hookId : Trace.s_traceHooks.keySet() ) {
                 hooks.put( hookId, Trace.s_traceHooks.get( hookId ) );
@@ -386,9 +279,17 @@ public class Trace {
             results.add( "" );
             results.add( "trace events:" );
 
-            for ( TraceEvent event : events ) {
+            for ( TraceFlightRecorder.Event event : events ) {
+
+                String pfx = Trace.OUR_DATE_FORMAT.format( event.getTimeStamp() ) + " {" + event.getThreadId() + "}:  ";
+
+                results.add( pfx + event.getDescription() );
 
-                event.emit( results );
+                if ( event.getException() != null ) {
+
+                    Trace.captureStackTrace( false, pfx, event.getException(), results );
+
+                }
 
             }
 
@@ -475,6 +376,86 @@ public class Trace {
 
     }
 
+    /**
+     * Write the most recent trace events to a compact binary file.
+     * <p/>
+     * Unlike {@link #emitTrace(String)}, this does not run the trace hooks or capture thread stacks.
+     * It is intended for when something has gone badly wrong and we want a record of what led up to it as quickly and safely as possible.
+     * Use {@link TraceFlightRecorder#readSnapshot(InputStream)} to read the file.
+     *
+     * @param why why the trace is being written.
+     *
+     * @return the name of the file that was written.
+     */
+
+    public static String emitFlightRecording( final String why ) {
+
+        final long timeStamp = System.currentTimeMillis();
+
+        //noinspection ResultOfMethodCallIgnored
+        Trace.s_traceFileDirectory.mkdirs();
+
+        // Several threads can die at once (see installCrashRecorder) and SimpleDateFormat isn't thread safe.
+
+        String fileName;
+        synchronized ( Trace._flightRecordingFileNameFormatter ) {
+
+            fileName = Trace._flightRecordingFileNameFormatter.format( timeStamp );
+
+        }
+
+        File traceFile = new File( Trace.s_traceFileDirectory, fileName );
+        try ( OutputStream os = new FileOutputStream( traceFile ) ) {
+
+            int count = TraceFlightRecorder.writeSnapshot( os, Trace.MAX_TRACE_EVENTS );
+
+            Logger.logMsg( "A flight recording of " + count + " trace events has been captured (" + why + ")", null );
+
+        } catch ( IOException e ) {
+
+            Logger.logErr( "I/O error writing flight recording \"" + traceFile + "\"", e );
+
+        }
+
+        Trace.tellTraceFileManagers( traceFile.getPath(), timeStamp );
+
+        return traceFile.getPath();
+
+    }
+
+    /**
+     * Arrange for a flight recording to be written (via {@link #emitFlightRecording(String)}) whenever a thread dies because of an uncaught exception.
+     * <p/>
+     * The exception is then passed along to whatever default uncaught exception handler was in place when this method was called
+     * or, if there wasn't one, its stack trace is printed (which is what the JVM would have done anyways).
+     */
+
+    public static void installCrashRecorder() {
+
+        final Thread.UncaughtExceptionHandler previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(
+                ( thread, e ) -> {
+
+                    Trace.event( "thread " + thread.getName() + " died", e );
+                    Trace.emitFlightRecording( "uncaught exception in thread " + thread.getName() );
+
+                    if ( previousHandler == null ) {
+
+                        System.err.print( "Exception in thread \"" + thread.getName() + "\" " );
+                        //noinspection CallToPrintStackTrace
+                        e.printStackTrace();
+
+                    } else {
+
+                        previousHandler.uncaughtException( thread, e );
+
+                    }
+
+                }
+        );
+
+    }
+
     private static void captureStackTrace( final boolean bothStyles, final String pfx, final Throwable e, final List<String> results ) {
 
         if ( bothStyles ) {
@@ -589,6 +570,18 @@ public class Trace {
 
     }
 
+    /**
+     * Start a thread which emits a trace each time that something connects to a port on the loopback interface.
+     * <p/>
+     * A client which sends a {@link #TRACE_PORT_BINARY_REQUEST} line gets a binary flight recording (see {@link #emitFlightRecording(String)}).
+     * Any other client gets a text trace as it always has.
+     * Note that deciding which kind of client has connected means waiting for a request line.
+     * A client which connects without sending anything (or without ending its line) now gets its text trace up to one second later than it used to
+     * (one which closes its end of the connection straight away isn't kept waiting).
+     *
+     * @param port the port to listen on.
+     */
+
     @SuppressWarnings("UnusedDeclaration")
     public static void startTracePortListener( final int port ) {
 
@@ -614,8 +607,18 @@ public class Trace {
                         try {
 
                             Socket sock = listenSocket.accept();
-                            Logger.logErr( "trace requested" );
-                            Trace.emitTrace( "externally requested" );
+                            if ( isBinaryTraceRequest( sock ) ) {
+
+                                Logger.logErr( "flight recording requested" );
+                                Trace.emitFlightRecording( "externally requested" );
+
+                            } else {
+
+                                Logger.logErr( "trace requested" );
+                                Trace.emitTrace( "externally requested" );
+
+                            }
+
                             Logger.logErr( "trace done" );
                             ObtuseUtil.closeQuietly( sock );
 
@@ -648,6 +651,31 @@ public class Trace {
 
     }
 
+    /**
+     * Determine if a client of the trace port listener wants a binary flight recording.
+     * <p/>
+     * Clients which just connect and then disconnect (or which don't say anything for a second) get a text trace as they always have.
+     * Clients which send {@link #TRACE_PORT_BINARY_REQUEST} get a flight recording.
+     */
+
+    private static boolean isBinaryTraceRequest( final Socket sock ) {
+
+        try {
+
+            sock.setSoTimeout( Trace.TRACE_PORT_REQUEST_TIMEOUT_MS );
+            BufferedReader reader = new BufferedReader( new InputStreamReader( sock.getInputStream(), "UTF-8" ) );
+            String request = reader.readLine();
+
+            return request != null && Trace.TRACE_PORT_BINARY_REQUEST.equals( request.trim() );
+
+        } catch ( IOException e ) {
+
+            return false;
+
+        }
+
+    }
+
     public String toString() {
 
         return "Trace for " + Trace.s_programName;
@@ -0,0 +1,615 @@
+/*
+ Copyright © 2018 Daniel Boulet
+ */
+
+package com.obtuse.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ A flight recorder for {@link Trace} events.
+ <p/>
+ Each thread records its events into its own fixed-size ring buffer.
+ Recording an event involves no locks, no shared writes and no allocation beyond whatever the caller did to build the event's string.
+ When a ring buffer is full, each new event overwrites the oldest event in that buffer.
+ <p/>
+ The work of combining the ring buffers happens in {@link #snapshot(int)} (which {@link Trace#getTrace} calls).
+ A snapshot copies each ring buffer, discards anything that was overwritten while it was being copied,
+ and merges the survivors by timestamp.
+ Snapshots can also be written to (and read back from) a compact binary format
+ via {@link #writeSnapshot(OutputStream, int)} and {@link #readSnapshot(InputStream)}.
+ <p/>
+ Ring buffers belonging to threads which have died are kept (their events are often the interesting ones)
+ until there are more than {@link #MAX_RETAINED_DEAD_RINGS} of them.
+ <p/>
+ Note that this changes how much history is available.
+ {@link Trace} used to keep the most recent 50,000 events no matter which threads recorded them.
+ Now each thread keeps its own most recent {@link #EVENTS_PER_THREAD} events (and {@link Trace} still reports at most 50,000 events in all).
+ A program with many tracing threads generally keeps more history than before,
+ but a program which does nearly all of its tracing on one thread keeps far less.
+ <p/>
+ A snapshot reads a ring while its owning thread may still be writing to it (a sequence lock without the lock).
+ The owning thread fills in a slot and then advances the ring's volatile count of events written.
+ The snapshot reads the count, copies the slots, issues an acquire fence and reads the count again.
+ Any slot which the owning thread could have started to overwrite in the meantime is then discarded.
+ */
+
+public class TraceFlightRecorder {
+
+    /**
+     The number of events that each thread's ring buffer can hold.
+     */
+
+    public static final int EVENTS_PER_THREAD = 4096;
+
+    /**
+     The actual size of each ring buffer.
+     There is one extra slot since a snapshot cannot trust the slot that the owning thread might be in the middle of filling in.
+     */
+
+    private static final int RING_LENGTH = EVENTS_PER_THREAD + 1;
+
+    public static final int MAX_RETAINED_DEAD_RINGS = 64;
+
+    private static final int BINARY_MAGIC = 0x4f544652;  // "OTFR"
+
+    private static final int BINARY_VERSION = 1;
+
+    /**
+     Used to turn {@link System#nanoTime()} values into wall clock times.
+     Events are timestamped with {@code System.nanoTime()} since it is monotonic and fine-grained enough to order events on different threads sensibly.
+     */
+
+    private static final long s_baseMillis = System.currentTimeMillis();
+
+    private static final long s_baseNanos = System.nanoTime();
+
+    private static final AtomicLong s_ringSequence = new AtomicLong( 0L );
+
+    /**
+     Events recorded before this time are ignored by snapshots (see {@link #clear()}).
+     */
+
+    private static volatile long s_clearedAtNanos = s_baseNanos;
+
+    private static final ConcurrentLinkedQueue<Ring> s_rings = new ConcurrentLinkedQueue<>();
+
+    private static final ThreadLocal<Ring> s_ourRing = ThreadLocal.withInitial( TraceFlightRecorder::createRing );
+
+    /**
+     One recorded event.
+     */
+
+    public static class Event {
+
+        private final long _timeStamp;
+
+        /**
+         The {@link System#nanoTime()} when the event was recorded (used to order the events in a snapshot).
+         */
+
+        private final long _nanos;
+
+        private final long _threadId;
+
+        private final String _threadName;
+
+        private final String _event;
+
+        private final Throwable _exception;
+
+        private final String _exceptionDescription;
+
+        private Event(
+                final long timeStamp,
+                final long nanos,
+                final long threadId,
+                final String threadName,
+                final String event,
+                @Nullable final Throwable exception,
+                @Nullable final String exceptionDescription
+        ) {
+
+            super();
+
+            _timeStamp = timeStamp;
+            _nanos = nanos;
+            _threadId = threadId;
+            _threadName = threadName;
+            _event = event;
+            _exception = exception;
+            _exceptionDescription = exceptionDescription;
+
+        }
+
+        /**
+         Get when this event was recorded.
+
+         @return the time in milliseconds since the epoch.
+         */
+
+        public long getTimeStamp() {
+
+            return _timeStamp;
+
+        }
+
+        public long getThreadId() {
+
+            return _threadId;
+
+        }
+
+        public String getThreadName() {
+
+            return _threadName;
+
+        }
+
+        public String getEvent() {
+
+            return _event;
+
+        }
+
+        /**
+         Get the exception associated with this event.
+
+         @return the exception or {@code null} if there wasn't one or if this event was read back from a binary snapshot.
+         */
+
+        @Nullable
+        public Throwable getException() {
+
+            return _exception;
+
+        }
+
+        /**
+         Get a description of the exception associated with this event.
+
+         @return the {@code toString()} of the exception or {@code null} if there wasn't one.
+         */
+
+        @Nullable
+        public String getExceptionDescription() {
+
+            return _exceptionDescription;
+
+        }
+
+        /**
+         Describe this event the way that {@link Trace} always has.
+
+         @return this event's text including its associated exception, if any.
+         */
+
+        public String getDescription() {
+
+            return _exceptionDescription == null ? _event : _event + " (associated exception:  " + _exceptionDescription + ")";
+
+        }
+
+        public String toString() {
+
+            return Trace.OUR_DATE_FORMAT.format( _timeStamp ) + " {" + _threadId + "}:  " + getDescription();
+
+        }
+
+    }
+
+    /**
+     A single thread's ring buffer.
+     <p/>Only the owning thread writes to a ring.
+     {@link #_written} is the number of events that have ever been written to the ring.
+     It is only advanced after the event's slot has been filled in so a reader which sees a particular value of {@code _written}
+     is guaranteed to see the events that it covers (unless they have since been overwritten, which the reader checks for afterwards).
+     */
+
+    private static class Ring {
+
+        private final long _sequence = s_ringSequence.getAndIncrement();
+
+        private final WeakReference<Thread> _thread;
+
+        private final long _threadId;
+
+        private final String _threadName;
+
+        private final long[] _nanos = new long[RING_LENGTH];
+
+        private final String[] _events = new String[RING_LENGTH];
+
+        private final Throwable[] _exceptions = new Throwable[RING_LENGTH];
+
+        /**
+         Where the next event goes (always {@code _written % RING_LENGTH} but cheaper to maintain than to compute).
+         */
+
+        private int _nextIx = 0;
+
+        private volatile long _written = 0L;
+
+        private Ring( final @NotNull Thread thread ) {
+
+            super();
+
+            _thread = new WeakReference<>( thread );
+            _threadId = thread.getId();
+            _threadName = thread.getName();
+
+        }
+
+        private void record( final String event, @Nullable final Throwable e ) {
+
+            int ix = _nextIx;
+            _nanos[ix] = System.nanoTime();
+            _events[ix] = event;
+            _exceptions[ix] = e;
+            _nextIx = ix + 1 == RING_LENGTH ? 0 : ix + 1;
+
+            // Publish the event.
+
+            _written += 1;
+
+        }
+
+        private boolean isAlive() {
+
+            Thread thread = _thread.get();
+
+            return thread != null && thread.isAlive();
+
+        }
+
+        private void copyTo( final @NotNull List<Event> events, final long clearedAtNanos ) {
+
+            long written = _written;
+            long first = Math.max( 0L, written - EVENTS_PER_THREAD );
+
+            long[] nanos = new long[(int)( written - first )];
+            String[] strings = new String[nanos.length];
+            Throwable[] exceptions = new Throwable[nanos.length];
+            for ( long seq = first; seq < written; seq += 1 ) {
+
+                int ix = (int)( seq % RING_LENGTH );
+                int to = (int)( seq - first );
+                nanos[to] = _nanos[ix];
+                strings[to] = _events[ix];
+                exceptions[to] = _exceptions[ix];
+
+            }
+
+            // Anything which the owning thread may have overwritten while we were copying is unreliable.
+            // The fence keeps the slot reads above from being reordered after the second read of _written
+            // (a volatile read only stops later reads from moving before it, not earlier ones from moving after it).
+
+            VarHandle.acquireFence();
+            long firstReliable = Math.max( first, _written - RING_LENGTH + 1 );
+            for ( long seq = firstReliable; seq < written; seq += 1 ) {
+
+                int from = (int)( seq - first );
+                if ( nanos[from] - clearedAtNanos < 0L ) {
+
+                    continue;
+
+                }
+
+                Throwable exception = exceptions[from];
+                events.add(
+                        new Event(
+                                toMillis( nanos[from] ),
+                                nanos[from],
+                                _threadId,
+                                _threadName,
+                                strings[from],
+                                exception,
+                                exception == null ? null : exception.toString()
+                        )
+                );
+
+            }
+
+        }
+
+        public String toString() {
+
+            return "TraceFlightRecorder.Ring( thread {" + _threadId + "}:" + _threadName + ", written = " + _written + " )";
+
+        }
+
+    }
+
+    private TraceFlightRecorder() {
+
+        super();
+
+    }
+
+    private static long toMillis( final long nanos ) {
+
+        return s_baseMillis + ( nanos - s_baseNanos ) / 1000000L;
+
+    }
+
+    @NotNull
+    private static Ring createRing() {
+
+        Ring ring = new Ring( Thread.currentThread() );
+        s_rings.add( ring );
+
+        pruneDeadRings();
+
+        return ring;
+
+    }
+
+    /**
+     Forget the oldest rings belonging to dead threads if there are too many of them.
+     */
+
+    private static void pruneDeadRings() {
+
+        List<Ring> deadRings = new ArrayList<>();
+        for ( Ring ring : s_rings ) {
+
+            if ( !ring.isAlive() ) {
+
+                deadRings.add( ring );
+
+            }
+
+        }
+
+        if ( deadRings.size() > MAX_RETAINED_DEAD_RINGS ) {
+
+            deadRings.sort( Comparator.comparingLong( ring -> ring._sequence ) );
+            s_rings.removeAll( deadRings.subList( 0, deadRings.size() - MAX_RETAINED_DEAD_RINGS ) );
+
+        }
+
+    }
+
+    /**
+     Record an event in the current thread's ring buffer.
+
+     @param event the event.
+     @param e     an optional exception associated with the event.
+     */
+
+    public static void record( final String event, @Nullable final Throwable e ) {
+
+        s_ourRing.get().record( event, e );
+
+    }
+
+    /**
+     Collect the recorded events from every thread.
+
+     @param maxEvents the maximum number of events to return (the most recent events are returned if there are more than this).
+     @return the events in timestamp order (events recorded by any one thread remain in the order that they were recorded).
+     */
+
+    @NotNull
+    public static List<Event> snapshot( final int maxEvents ) {
+
+        List<Event> events = new ArrayList<>();
+        long clearedAtNanos = s_clearedAtNanos;
+        for ( Ring ring : s_rings ) {
+
+            ring.copyTo( events, clearedAtNanos );
+
+        }
+
+        // The sort is stable so ties stay in per-thread order.
+
+        events.sort( ( lhs, rhs ) -> Long.signum( lhs._nanos - rhs._nanos ) );
+
+        return events.size() > maxEvents ? new ArrayList<>( events.subList( events.size() - maxEvents, events.size() ) ) : events;
+
+    }
+
+    /**
+     Write a snapshot in our compact binary format.
+     <p/>Strings are written once and then referred to by number, which makes the typical trace (lots of repeats of a few messages) quite small.
+     Exceptions are recorded via their {@code toString()} values.
+
+     @param outputStream where to write the snapshot (it is flushed but not closed).
+     @param maxEvents    the maximum number of events to write.
+     @return the number of events written.
+     @throws IOException if something goes wrong writing the snapshot.
+     */
+
+    public static int writeSnapshot( final @NotNull OutputStream outputStream, final int maxEvents )
+            throws IOException {
+
+        List<Event> events = snapshot( maxEvents );
+
+        DataOutputStream dos = new DataOutputStream( new BufferedOutputStream( outputStream ) );
+        dos.writeInt( BINARY_MAGIC );
+        dos.writeInt( BINARY_VERSION );
+        dos.writeInt( events.size() );
+
+        Map<String, Integer> stringIds = new HashMap<>();
+        long lastTimeStamp = 0L;
+        for ( Event event : events ) {
+
+            writeVarLong( dos, event.getTimeStamp() - lastTimeStamp );
+            lastTimeStamp = event.getTimeStamp();
+            writeVarLong( dos, event.getThreadId() );
+            writeString( dos, stringIds, event.getThreadName() );
+            writeString( dos, stringIds, event.getEvent() );
+            writeString( dos, stringIds, event.getExceptionDescription() );
+
+        }
+
+        dos.flush();
+
+        return events.size();
+
+    }
+
+    /**
+     Read a snapshot written by {@link #writeSnapshot(OutputStream, int)}.
+
+     @param inputStream where to read the snapshot from (it is not closed).
+     @return the events in the snapshot.
+     @throws IOException if something goes wrong reading the snapshot or if it isn't in our binary format.
+     */
+
+    @NotNull
+    public static List<Event> readSnapshot( final @NotNull InputStream inputStream )
+            throws IOException {
+
+        DataInputStream dis = new DataInputStream( new BufferedInputStream( inputStream ) );
+        if ( dis.readInt() != BINARY_MAGIC ) {
+
+            throw new IOException( "TraceFlightRecorder.readSnapshot:  not a flight recorder snapshot" );
+
+        }
+
+        int version = dis.readInt();
+        if ( version != BINARY_VERSION ) {
+
+            throw new IOException( "TraceFlightRecorder.readSnapshot:  unsupported version " + version );
+
+        }
+
+        int count = dis.readInt();
+        List<Event> events = new ArrayList<>( count );
+        List<String> strings = new ArrayList<>();
+        long timeStamp = 0L;
+        for ( int i = 0; i < count; i += 1 ) {
+
+            timeStamp += readVarLong( dis );
+            long threadId = readVarLong( dis );
+            String threadName = readString( dis, strings );
+            String event = readString( dis, strings );
+            String exceptionDescription = readString( dis, strings );
+            events.add( new Event( timeStamp, 0L, threadId, threadName, event, null, exceptionDescription ) );
+
+        }
+
+        return events;
+
+    }
+
+    /**
+     Write a string. A string which has been written before is written as its number.
+     <p/>Encoding: 0 means {@code null}, {@code 2n + 1} means string number {@code n}, {@code 2} means a new string follows.
+     */
+
+    private static void writeString( final @NotNull DataOutputStream dos, final @NotNull Map<String, Integer> stringIds, @Nullable final String s )
+            throws IOException {
+
+        if ( s == null ) {
+
+            writeVarLong( dos, 0L );
+
+            return;
+
+        }
+
+        Integer id = stringIds.get( s );
+        if ( id == null ) {
+
+            writeVarLong( dos, 2L );
+            byte[] bytes = s.getBytes( "UTF-8" );
+            writeVarLong( dos, bytes.length );
+            dos.write( bytes );
+            stringIds.put( s, stringIds.size() );
+
+        } else {
+
+            writeVarLong( dos, 2L * id + 1L );
+
+        }
+
+    }
+
+    @Nullable
+    private static String readString( final @NotNull DataInputStream dis, final @NotNull List<String> strings )
+            throws IOException {
+
+        long code = readVarLong( dis );
+        if ( code == 0L ) {
+
+            return null;
+
+        } else if ( code == 2L ) {
+
+            byte[] bytes = new byte[(int)readVarLong( dis )];
+            dis.readFully( bytes );
+            String s = new String( bytes, "UTF-8" );
+            strings.add( s );
+
+            return s;
+
+        } else if ( ( code & 1L ) == 1L && code / 2 < strings.size() ) {
+
+            return strings.get( (int)( code / 2 ) );
+
+        } else {
+
+            throw new IOException( "TraceFlightRecorder.readSnapshot:  bad string reference " + code );
+
+        }
+
+    }
+
+    private static void writeVarLong( final @NotNull DataOutputStream dos, final long value )
+            throws IOException {
+
+        long v = value;
+        while ( ( v & ~0x7fL ) != 0L ) {
+
+            dos.writeByte( (int)( ( v & 0x7f ) | 0x80 ) );
+            v >>>= 7;
+
+        }
+
+        dos.writeByte( (int)v );
+
+    }
+
+    private static long readVarLong( final @NotNull DataInputStream dis )
+            throws IOException {
+
+        long value = 0L;
+        for ( int shift = 0; shift < 64; shift += 7 ) {
+
+            int b = dis.readUnsignedByte();
+            value |= (long)( b & 0x7f ) << shift;
+            if ( ( b & 0x80 ) == 0 ) {
+
+                return value;
+
+            }
+
+        }
+
+        throw new IOException( "TraceFlightRecorder.readSnapshot:  malformed variable length integer" );
+
+    }
+
+    /**
+     Forget every event recorded so far.
+     <p/>The ring buffers belong to their threads so they aren't actually emptied.
+     Snapshots just ignore events recorded before the most recent call to this method.
+     */
+
+    public static void clear() {
+
+        s_clearedAtNanos = System.nanoTime();
+
+    }
+
+}
@@ -6,6 +6,8 @@ import com.obtuse.util.gowing.p2a.exceptions.GowingUnpackingException;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  A reasonably robust {@link GowingPackable} unique id facility.
@@ -68,7 +70,15 @@ public class UniqueId implements GowingPackable, GowingBackReferenceable, Compar
 
     };
 
-    private static long s_nextJvmLocalUniqueId = MINIMUM_JVM_UNIQUE_ID + 1;
+    private static final AtomicLong s_nextJvmLocalUniqueId = new AtomicLong( MINIMUM_JVM_UNIQUE_ID + 1 );
+
+    /**
+     {@link #get(long)} returns the same instance every time for ids in the range 0 through {@code SMALL_ID_CACHE_SIZE - 1}.
+     */
+
+    public static final int SMALL_ID_CACHE_SIZE = 1024;
+
+    private static final AtomicReferenceArray<UniqueId> s_smallIdCache = new AtomicReferenceArray<>( SMALL_ID_CACHE_SIZE );
 
     private final transient GowingInstanceId _instanceId = new GowingInstanceId( getClass() );
 
@@ -91,13 +101,31 @@ public class UniqueId implements GowingPackable, GowingBackReferenceable, Compar
     }
 
     /**
-     A static method that creates a {@code UniqueId} instance.
-     @param id the {@code long} id value that is to be encapsulated within the newly created {@code UniqueId} instance.
-     @return the newly created {@code UniqueId} instance.
+     A static method that gets a {@code UniqueId} instance.
+     <p/>Small ids (0 through {@link #SMALL_ID_CACHE_SIZE}{@code - 1}) are interned, much like {@link Long#valueOf(long)} does,
+     so asking for one of them repeatedly doesn't allocate anything after the first time.
+     Since instances are immutable, sharing them is harmless.
+     That includes packing them; a shared instance is packed once and comes back as one instance shared by everything that referred to it.
+     @param id the {@code long} id value that is to be encapsulated within the {@code UniqueId} instance.
+     @return a {@code UniqueId} instance encapsulating {@code id}.
      */
 
     public static UniqueId get( final long id ) {
 
+        if ( id >= 0 && id < SMALL_ID_CACHE_SIZE ) {
+
+            UniqueId cached = s_smallIdCache.get( (int)id );
+            if ( cached == null ) {
+
+                s_smallIdCache.compareAndSet( (int)id, null, new UniqueId( id ) );
+                cached = s_smallIdCache.get( (int)id );
+
+            }
+
+            return cached;
+
+        }
+
         return new UniqueId( id );
 
     }
@@ -122,11 +150,12 @@ public class UniqueId implements GowingPackable, GowingBackReferenceable, Compar
      <p/>Note that if you have two or more JVM instances that use this method then calls to this method from within one
      the various different JVM instances can and very very likely will return {@code UniqueId} instances that are
      equal to the {@code UniqueId} instances returned by this method in the other other JVM instances.
+     <p/>This method is thread safe (and lock-free).
      */
 
     public static UniqueId getJvmLocalUniqueId() {
 
-        return new UniqueId( s_nextJvmLocalUniqueId++ );
+        return new UniqueId( s_nextJvmLocalUniqueId.getAndIncrement() );
 
     }
 
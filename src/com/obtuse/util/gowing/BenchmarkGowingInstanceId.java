@@ -0,0 +1,104 @@
+package com.obtuse.util.gowing;
+
+import com.obtuse.exceptions.HowDidWeGetHereError;
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.ObtuseUtil;
+import org.jetbrains.annotations.NotNull;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+/**
+ Measure how well {@link GowingInstanceId} creation scales as the number of threads creating them goes up.
+ <p/>
+ Each thread creates five million packable entities (each of which gets a new instance id).
+ <p/>
+ Usage: {@code BenchmarkGowingInstanceId}
+ */
+
+public class BenchmarkGowingInstanceId {
+
+    private static class BenchmarkEntity extends GowingAbstractPackableEntity {
+
+        private BenchmarkEntity() {
+
+            super( new GowingNameMarkerThing() );
+
+        }
+
+        @Override
+        public @NotNull GowingPackedEntityBundle bundleThyself( final boolean isPackingSuper, final @NotNull GowingPacker packer ) {
+
+            throw new HowDidWeGetHereError( "BenchmarkGowingInstanceId.BenchmarkEntity:  not packable" );
+
+        }
+
+        @Override
+        public boolean finishUnpacking( final @NotNull GowingUnPacker unPacker ) {
+
+            return true;
+
+        }
+
+        public String toString() {
+
+            return "BenchmarkEntity( " + getInstanceId().shortForm() + " )";
+
+        }
+
+    }
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public static void main( final String[] args ) throws InterruptedException {
+
+        BasicProgramConfigInfo.init( "Obtuse", "Pipestone", "BenchmarkGowingInstanceId" );
+
+        final int idsPerThread = 5 * 1000 * 1000;
+        int maxThreads = Math.max( 8, Runtime.getRuntime().availableProcessors() );
+        for ( int round = 1; round <= 2; round += 1 ) {
+
+            for ( int threadCount = 1; threadCount <= maxThreads; threadCount *= 2 ) {
+
+                Thread[] threads = new Thread[threadCount];
+                for ( int t = 0; t < threadCount; t += 1 ) {
+
+                    threads[t] = new Thread(
+                            () -> {
+                                for ( int i = 0; i < idsPerThread; i += 1 ) {
+
+                                    new BenchmarkEntity();
+
+                                }
+                            }
+                    );
+
+                }
+
+                long startTime = System.nanoTime();
+                for ( Thread thread : threads ) {
+
+                    thread.start();
+
+                }
+
+                for ( Thread thread : threads ) {
+
+                    thread.join();
+
+                }
+
+                long elapsedNanos = System.nanoTime() - startTime;
+                long total = (long)idsPerThread * threadCount;
+                System.out.println(
+                        "round " + round + ", " + ObtuseUtil.lpad( threadCount, 3 ) + " threads:  " +
+                        ObtuseUtil.lpadReadable( (long)( total / ( elapsedNanos / 1e9 ) ), 15 ) + " entities per second"
+                );
+
+            }
+
+        }
+
+    }
+
+}
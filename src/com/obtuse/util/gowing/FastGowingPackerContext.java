@@ -0,0 +1,180 @@
+package com.obtuse.util.gowing;
+
+import com.obtuse.util.IntLongSlotIndex;
+import com.obtuse.util.gowing.p2a.GowingUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+/**
+ A packing context which is intended for packing very large numbers of entities.
+ <p/>
+ A {@link StdGowingPackerContext} keeps track of the entities that it has seen in a {@link TreeMap} keyed by {@link GowingInstanceId}
+ and remaps entity ids via a {@link com.obtuse.util.TwoDimensionalTreeMap}.
+ This context uses {@link IntLongSlotIndex}es keyed on {@code (type id, entity id)} pairs for both jobs.
+ <p/>
+ Remapped entity ids are handed out in exactly the same order as they are by a {@link StdGowingPackerContext}
+ so the two contexts produce identical output.
+ Type bookkeeping is inherited from {@link StdGowingPackerContext} since the number of types is generally tiny.
+ <p/>
+ Use it by passing an instance to the {@link com.obtuse.util.gowing.p2a.StdGowingPacker} constructor which accepts a {@link GowingPackerContext}.
+ */
+
+public class FastGowingPackerContext extends StdGowingPackerContext {
+
+    private final IntLongSlotIndex _seenSlots;
+
+    private GowingInstanceId[] _seenInstanceIds;
+
+    private EntityNames[] _seenEntityNames;
+
+    /**
+     The remapped id of the entity in slot {@code s} of this index is {@code s + 1}
+     (the same sequence that {@link StdGowingPackerContext} gets from its {@link com.obtuse.util.SimpleUniqueLongIdGenerator}).
+     */
+
+    private final IntLongSlotIndex _remappedEntityIds;
+
+    /**
+     Create a packing context which is big enough to hold a specified number of entities without having to grow.
+
+     @param expectedEntityCount how many entities are expected.
+     */
+
+    public FastGowingPackerContext( final int expectedEntityCount ) {
+
+        super();
+
+        _seenSlots = new IntLongSlotIndex( expectedEntityCount );
+        _seenInstanceIds = new GowingInstanceId[Math.max( 16, expectedEntityCount )];
+        _seenEntityNames = new EntityNames[_seenInstanceIds.length];
+        _remappedEntityIds = new IntLongSlotIndex( expectedEntityCount );
+
+    }
+
+    public FastGowingPackerContext() {
+
+        this( 1024 );
+
+    }
+
+    @Override
+    public void rememberPackableEntity( @Nullable final EntityName entityName, final @NotNull GowingPackable entity ) {
+
+        GowingUtil.verifyActuallyPackable( "FastGowingPackerContext.rememberPackableEntity", entityName, entity );
+
+        GowingInstanceId instanceId = entity.getInstanceId();
+        GowingInstanceId.allocateTypeId( instanceId.getTypeName() );
+
+        int slot = _seenSlots.findOrAdd( instanceId.getTypeId(), instanceId.getEntityId() );
+        if ( slot == _seenInstanceIds.length ) {
+
+            _seenInstanceIds = Arrays.copyOf( _seenInstanceIds, slot * 2 );
+            _seenEntityNames = Arrays.copyOf( _seenEntityNames, slot * 2 );
+
+        }
+
+        if ( _seenInstanceIds[slot] == null ) {
+
+            _seenInstanceIds[slot] = instanceId;
+            _seenEntityNames[slot] = new EntityNames( new LinkedList<>(), entity );
+
+        }
+
+        if ( entityName != null ) {
+
+            _seenEntityNames[slot].add( entityName );
+
+        }
+
+    }
+
+    @Override
+    @NotNull
+    public EntityNames getEntityNames( final GowingInstanceId instanceId ) {
+
+        int slot = _seenSlots.find( instanceId.getTypeId(), instanceId.getEntityId() );
+
+        //noinspection ConstantConditions
+        return slot < 0 ? null : _seenEntityNames[slot];
+
+    }
+
+    /**
+     Get the instance ids of the entities that have been seen so far.
+
+     @return an unmodifiable set of the instance ids.
+     Its iterator returns them in the order that they were first seen
+     (which, unlike {@link StdGowingPackerContext#getSeenInstanceIds()}, is not necessarily sorted).
+     */
+
+    @Override
+    @NotNull
+    public Set<GowingInstanceId> getSeenInstanceIds() {
+
+        return new AbstractSet<GowingInstanceId>() {
+
+            @Override
+            @NotNull
+            public Iterator<GowingInstanceId> iterator() {
+
+                return Collections.unmodifiableList( Arrays.asList( _seenInstanceIds ).subList( 0, _seenSlots.size() ) ).iterator();
+
+            }
+
+            @Override
+            public int size() {
+
+                return _seenSlots.size();
+
+            }
+
+            @Override
+            public boolean contains( final Object o ) {
+
+                if ( o instanceof GowingInstanceId ) {
+
+                    GowingInstanceId instanceId = (GowingInstanceId)o;
+
+                    return _seenSlots.find( instanceId.getTypeId(), instanceId.getEntityId() ) >= 0;
+
+                }
+
+                return false;
+
+            }
+
+        };
+
+    }
+
+    @Override
+    public long remapEntityId( final int typeId, final long entityId ) {
+
+        // Don't mess with entity ids equal to 0 since they mark super-bundle entities.
+
+        if ( entityId == 0L ) {
+
+            return entityId;
+
+        }
+
+        return _remappedEntityIds.findOrAdd( typeId, entityId ) + 1L;
+
+    }
+
+    public String toString() {
+
+        return "FastGowingPackerContext( seen instances count=" + _seenSlots.size() +
+               ", remapped entity ids count=" + _remappedEntityIds.size() +
+               ", requestor context=" + getRequestorContext() +
+               " )";
+
+    }
+
+}
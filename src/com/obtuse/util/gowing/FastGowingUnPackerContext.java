@@ -0,0 +1,429 @@
+package com.obtuse.util.gowing;
+
+import com.obtuse.exceptions.HowDidWeGetHereError;
+import com.obtuse.util.IntLongSlotIndex;
+import com.obtuse.util.gowing.p2a.GowingEntityReference;
+import com.obtuse.util.gowing.p2a.GowingToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+/**
+ An unpacking context which is intended for unpacking very large numbers of entities.
+ <p/>
+ A {@link StdGowingUnPackerContext} keeps track of the entities that it has seen in a {@link TreeMap} and of the entities
+ which are not yet finished in a {@link TreeSet}.
+ Every lookup therefore costs {@code O(log n)} {@link GowingEntityReference#compareTo} calls.
+ This context assigns each entity a slot via an {@link IntLongSlotIndex} keyed on its {@code (type id, entity id)} pair,
+ keeps the entities and their references in arrays indexed by slot and keeps track of which entities are unfinished with a {@link BitSet}.
+ Lookups are expected to be {@code O(1)}.
+ <p/>
+ Type bookkeeping is inherited from {@link StdGowingUnPackerContext} since the number of types is generally tiny.
+ <p/>
+ Use it by passing an instance to
+ {@link com.obtuse.util.gowing.p2a.StdGowingUnPacker#StdGowingUnPacker(java.io.File, java.io.LineNumberReader, GowingUnPackerContext)}.
+ */
+
+public class FastGowingUnPackerContext extends StdGowingUnPackerContext {
+
+    private final IntLongSlotIndex _slots;
+
+    private GowingEntityReference[] _references;
+
+    /**
+     The entities indexed by slot.
+     An entity reference can be marked as unfinished before its entity is remembered
+     so a slot with a {@code null} entity is for an entity which isn't known yet.
+     */
+
+    private GowingPackable[] _entities;
+
+    private int _knownEntityCount = 0;
+
+    private final BitSet _unFinished = new BitSet();
+
+    private int _unFinishedCount = 0;
+
+    /**
+     Create an unpacking context which is big enough to hold a specified number of entities without having to grow.
+
+     @param typeIndex          the type index for this unpacking operation.
+     @param expectedEntityCount how many entities are expected.
+     */
+
+    public FastGowingUnPackerContext( final @NotNull GowingTypeIndex typeIndex, final int expectedEntityCount ) {
+
+        super( typeIndex );
+
+        _slots = new IntLongSlotIndex( expectedEntityCount );
+        _references = new GowingEntityReference[Math.max( 16, expectedEntityCount )];
+        _entities = new GowingPackable[_references.length];
+
+    }
+
+    public FastGowingUnPackerContext( final @NotNull GowingTypeIndex typeIndex ) {
+
+        this( typeIndex, 1024 );
+
+    }
+
+    private int findSlot( final @NotNull GowingEntityReference er ) {
+
+        return _slots.find( er.getTypeId(), er.getEntityId() );
+
+    }
+
+    private int findOrAddSlot( final @NotNull GowingEntityReference er ) {
+
+        int slot = _slots.findOrAdd( er.getTypeId(), er.getEntityId() );
+        if ( slot == _references.length ) {
+
+            _references = Arrays.copyOf( _references, slot * 2 );
+            _entities = Arrays.copyOf( _entities, slot * 2 );
+
+        }
+
+        if ( _references[slot] == null ) {
+
+            _references[slot] = er;
+
+        }
+
+        return slot;
+
+    }
+
+    @Override
+    public boolean isEntityKnown( final @NotNull GowingEntityReference er ) {
+
+        int slot = findSlot( er );
+
+        return slot >= 0 && _entities[slot] != null;
+
+    }
+
+    @Override
+    @NotNull
+    public Optional<GowingPackable> recallPackableEntity( final @NotNull GowingEntityReference er ) {
+
+        int slot = findSlot( er );
+
+        return slot < 0 ? Optional.empty() : Optional.ofNullable( _entities[slot] );
+
+    }
+
+    @Override
+    public void rememberPackableEntity( @NotNull final GowingToken token, @NotNull final GowingEntityReference er, @NotNull final GowingPackable entity ) {
+
+        int slot = findOrAddSlot( er );
+        if ( _entities[slot] != null ) {
+
+            throw new IllegalArgumentException( "Entity with er " + er + " already exists within this unpacking session" );
+
+        }
+
+        _entities[slot] = entity;
+        _knownEntityCount += 1;
+
+    }
+
+    @Override
+    public SortedSet<GowingEntityReference> getSeenEntityReferences() {
+
+        GowingEntityReference[] rval = new GowingEntityReference[_knownEntityCount];
+        int count = 0;
+        for ( int slot = 0; slot < _slots.size(); slot += 1 ) {
+
+            if ( _entities[slot] != null ) {
+
+                rval[count] = _references[slot];
+                count += 1;
+
+            }
+
+        }
+
+        return sortedSetOf( rval );
+
+    }
+
+    @Override
+    public SortedMap<GowingEntityReference, GowingPackable> getSeenEntitiesMap() {
+
+        SortedMap<GowingEntityReference, GowingPackable> rval = new TreeMap<>();
+        for ( int slot = 0; slot < _slots.size(); slot += 1 ) {
+
+            if ( _entities[slot] != null ) {
+
+                rval.put( _references[slot], _entities[slot] );
+
+            }
+
+        }
+
+        return rval;
+
+    }
+
+    @Override
+    public void clearUnFinishedEntities() {
+
+        _unFinished.clear();
+        _unFinishedCount = 0;
+
+    }
+
+    @Override
+    public SortedSet<GowingEntityReference> getUnfinishedEntityReferences() {
+
+        GowingEntityReference[] rval = new GowingEntityReference[_unFinishedCount];
+        int count = 0;
+        for ( int slot = _unFinished.nextSetBit( 0 ); slot >= 0; slot = _unFinished.nextSetBit( slot + 1 ) ) {
+
+            rval[count] = _references[slot];
+            count += 1;
+
+        }
+
+        return sortedSetOf( rval );
+
+    }
+
+    @NotNull
+    private static SortedSet<GowingEntityReference> sortedSetOf( final @NotNull GowingEntityReference[] references ) {
+
+        // The slots are roughly in the order that the entities appeared in the input so this sort is usually cheap.
+
+        Arrays.sort( references );
+
+        return new SortedArraySet<>( references, 0, references.length );
+
+    }
+
+    @Override
+    public void markEntitiesUnfinished( final Collection<? extends GowingEntityReference> unFinishedEntityReferences ) {
+
+        for ( GowingEntityReference er : unFinishedEntityReferences ) {
+
+            markEntityUnfinished( er );
+
+        }
+
+    }
+
+    @Override
+    public void markEntityUnfinished( final GowingEntityReference unFinishedEntityReference ) {
+
+        int slot = findOrAddSlot( unFinishedEntityReference );
+        if ( !_unFinished.get( slot ) ) {
+
+            _unFinished.set( slot );
+            _unFinishedCount += 1;
+
+        }
+
+    }
+
+    @Override
+    public boolean isEntityFinished( @Nullable final GowingEntityReference er ) {
+
+        if ( er == null ) {
+
+            return true;
+
+        }
+
+        int slot = findSlot( er );
+
+        return slot < 0 || !_unFinished.get( slot );
+
+    }
+
+    @Override
+    public void markEntityFinished( final GowingEntityReference er ) {
+
+        int slot = er == null ? -1 : findSlot( er );
+        if ( slot < 0 || !_unFinished.get( slot ) ) {
+
+            throw new HowDidWeGetHereError( "a previously finished entity " + er + " being marked as finished again" );
+
+        }
+
+        _unFinished.clear( slot );
+        _unFinishedCount -= 1;
+
+    }
+
+    /**
+     An unmodifiable sorted set backed by a range of an already sorted array.
+     <p/>This lets us hand out a {@link SortedSet} without paying for the construction of a {@link TreeSet}.
+     */
+
+    private static class SortedArraySet<E extends Comparable<? super E>> extends AbstractSet<E> implements SortedSet<E> {
+
+        private final E[] _elements;
+
+        private final int _from;
+
+        private final int _to;
+
+        private SortedArraySet( final E[] elements, final int from, final int to ) {
+
+            super();
+
+            _elements = elements;
+            _from = from;
+            _to = to;
+
+        }
+
+        /**
+         Find where an element is or would be within our range.
+
+         @param element the element of interest.
+         @return the index of the first element in our range which is greater than or equal to {@code element}.
+         */
+
+        private int lowerBound( final E element ) {
+
+            int lo = _from;
+            int hi = _to;
+            while ( lo < hi ) {
+
+                int mid = ( lo + hi ) >>> 1;
+                if ( _elements[mid].compareTo( element ) < 0 ) {
+
+                    lo = mid + 1;
+
+                } else {
+
+                    hi = mid;
+
+                }
+
+            }
+
+            return lo;
+
+        }
+
+        @Override
+        @NotNull
+        public Iterator<E> iterator() {
+
+            return Collections.unmodifiableList( Arrays.asList( _elements ).subList( _from, _to ) ).iterator();
+
+        }
+
+        @Override
+        public int size() {
+
+            return _to - _from;
+
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains( final Object o ) {
+
+            if ( !( o instanceof Comparable ) || isEmpty() ) {
+
+                return false;
+
+            }
+
+            try {
+
+                int ix = lowerBound( (E)o );
+
+                return ix < _to && _elements[ix].compareTo( (E)o ) == 0;
+
+            } catch ( ClassCastException e ) {
+
+                return false;
+
+            }
+
+        }
+
+        @Override
+        @Nullable
+        public Comparator<? super E> comparator() {
+
+            return null;
+
+        }
+
+        @Override
+        @NotNull
+        public SortedSet<E> subSet( final E fromElement, final E toElement ) {
+
+            if ( fromElement.compareTo( toElement ) > 0 ) {
+
+                throw new IllegalArgumentException( "SortedArraySet.subSet:  fromElement > toElement" );
+
+            }
+
+            return new SortedArraySet<>( _elements, lowerBound( fromElement ), lowerBound( toElement ) );
+
+        }
+
+        @Override
+        @NotNull
+        public SortedSet<E> headSet( final E toElement ) {
+
+            return new SortedArraySet<>( _elements, _from, lowerBound( toElement ) );
+
+        }
+
+        @Override
+        @NotNull
+        public SortedSet<E> tailSet( final E fromElement ) {
+
+            return new SortedArraySet<>( _elements, lowerBound( fromElement ), _to );
+
+        }
+
+        @Override
+        public E first() {
+
+            if ( isEmpty() ) {
+
+                throw new NoSuchElementException();
+
+            }
+
+            return _elements[_from];
+
+        }
+
+        @Override
+        public E last() {
+
+            if ( isEmpty() ) {
+
+                throw new NoSuchElementException();
+
+            }
+
+            return _elements[_to - 1];
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "FastGowingUnPackerContext( input file = " + ( getInputFile() == null ? "<<unspecified>>" : getInputFile() ) +
+               ", known entities = " + _knownEntityCount +
+               ", unfinished entities = " + _unFinishedCount +
+               " )";
+
+    }
+
+}
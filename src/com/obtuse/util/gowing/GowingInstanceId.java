@@ -1,13 +1,12 @@
 package com.obtuse.util.gowing;
 
 import com.obtuse.exceptions.HowDidWeGetHereError;
+import com.obtuse.util.BlockLeasingUniqueLongIdGenerator;
 import com.obtuse.util.SimpleUniqueIntegerIdGenerator;
-import com.obtuse.util.SimpleUniqueLongIdGenerator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * Copyright © 2015 Obtuse Systems Corporation
@@ -22,17 +21,72 @@ import java.util.TreeMap;
  <li>The instance id of a packable entity must be created by invoking one of this class's constructors.</li>
  <li>Packable entities <b>MUST NOT</b> assume that their instance id will remain the same if they are packed and then later unpacked.</li>
  </ol>
+ <p/>
+ Creating instance ids is cheap and scales across threads:
+ <ul>
+ <li>the type id and canonical name of a class are computed once per class and cached via a {@link ClassValue}.</li>
+ <li>type name to type id lookups are lock-free (a lock is only taken the first time that a type name is seen).</li>
+ <li>entity ids come from a {@link BlockLeasingUniqueLongIdGenerator} so each thread only touches shared state once per block of ids.</li>
+ </ul>
+ Entity ids are never 0 and are unique within the JVM although they are only increasing within any one thread.
+ Type ids are allocated densely starting at 1.
  */
 
 public final class GowingInstanceId implements Comparable<GowingInstanceId> {
 
-    private static final SimpleUniqueLongIdGenerator s_idGenerator =
-            new SimpleUniqueLongIdGenerator( GowingInstanceId.class.getCanonicalName() + " - entity id generator" );
+    private static final BlockLeasingUniqueLongIdGenerator s_idGenerator =
+            new BlockLeasingUniqueLongIdGenerator( GowingInstanceId.class.getCanonicalName() + " - entity id generator" );
     private static final SimpleUniqueIntegerIdGenerator s_typeIdGenerator =
             new SimpleUniqueIntegerIdGenerator( GowingInstanceId.class.getCanonicalName() + " - type id generator" );
 
-    private static final SortedMap<String, Integer> s_typeNamesToTypeIds = new TreeMap<>();
-    private static final SortedMap<Integer, String> s_typeIdsToTypeNames = new TreeMap<>();
+    private static final ConcurrentHashMap<String, Integer> s_typeNamesToTypeIds = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, String> s_typeIdsToTypeNames = new ConcurrentHashMap<>();
+
+    /**
+     Only held while allocating a new type id.
+     */
+
+    private static final Object s_typeIdAllocationLock = new Object();
+
+    /**
+     The type name and type id of a class.
+     */
+
+    private static class TypeInfo {
+
+        private final String _typeName;
+
+        private final int _typeId;
+
+        private TypeInfo( final @NotNull String typeName ) {
+
+            super();
+
+            _typeName = typeName;
+
+            _typeId = allocateTypeId( typeName );
+
+        }
+
+    }
+
+    private static final ClassValue<TypeInfo> s_typeInfoByClass = new ClassValue<TypeInfo>() {
+
+        @Override
+        protected TypeInfo computeValue( final @NotNull Class<?> classObject ) {
+
+            String typeName = classObject.getCanonicalName();
+            if ( typeName == null ) {
+
+                throw new IllegalArgumentException( "GowingInstanceId:  " + classObject + " has no canonical name" );
+
+            }
+
+            return new TypeInfo( typeName );
+
+        }
+
+    };
 
     private final long _entityId;
 
@@ -54,35 +108,57 @@ public final class GowingInstanceId implements Comparable<GowingInstanceId> {
             throw new IllegalArgumentException( "GowingInstanceId:  no typeName specified" );
 
         }
-        _typeId = allocateTypeId( typeName );
 
+        _typeId = allocateTypeId( typeName );
         _typeName = typeName;
-        _entityId = s_idGenerator.getUniqueId();
+        _entityId = allocateEntityId();
 
-        if ( _entityId == 0 ) {
+    }
 
-            throw new HowDidWeGetHereError( "GowingInstanceId:  entity id of 0 generated - violates assumption that 0 marks a super-bundle entity" );
+    public GowingInstanceId( final @NotNull Class<? extends GowingPackable> classObject ) {
 
-        }
+        super();
+
+        TypeInfo typeInfo = s_typeInfoByClass.get( classObject );
+        _typeId = typeInfo._typeId;
+        _typeName = typeInfo._typeName;
+        _entityId = allocateEntityId();
 
     }
 
-    public GowingInstanceId( final @NotNull Class<? extends GowingPackable> classObject ) {
+    private static long allocateEntityId() {
+
+        long entityId = s_idGenerator.getUniqueId();
+
+        if ( entityId == 0 ) {
 
-        this( classObject.getCanonicalName() );
+            throw new HowDidWeGetHereError( "GowingInstanceId:  entity id of 0 generated - violates assumption that 0 marks a super-bundle entity" );
+
+        }
+
+        return entityId;
 
     }
 
     public static int allocateTypeId( final @NotNull String typeName ) {
 
-        synchronized ( s_typeNamesToTypeIds ) {
+        Integer typeId = lookupTypeId( typeName );
+        if ( typeId != null ) {
+
+            return typeId.intValue();
+
+        }
+
+        synchronized ( s_typeIdAllocationLock ) {
 
-            Integer typeId = lookupTypeId( typeName );
+            typeId = lookupTypeId( typeName );
             if ( typeId == null ) {
 
+                // Publish the id to name mapping first so that anyone who finds the type id can also find its name.
+
                 typeId = s_typeIdGenerator.getUniqueId();
-                s_typeNamesToTypeIds.put( typeName, typeId );
                 s_typeIdsToTypeNames.put( typeId, typeName );
+                s_typeNamesToTypeIds.put( typeName, typeId );
 
             }
 
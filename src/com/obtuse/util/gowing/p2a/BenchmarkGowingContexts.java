@@ -0,0 +1,142 @@
+package com.obtuse.util.gowing.p2a;
+
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.Logger;
+import com.obtuse.util.ObtuseUtil;
+import com.obtuse.util.gowing.*;
+import com.obtuse.util.gowing.p2a.exceptions.GowingUnpackingException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Copyright © 2018 Obtuse Systems Corporation
+ */
+
+/**
+ Compare the speed of the standard and the fast Gowing packing and unpacking contexts on a large file.
+ <p/>
+ The file contains a configurable number of entities (five million by default).
+ Half of them are {@link StdGowingPackerContext.TestPackableClass} instances which each refer to one of the other half
+ (which are {@link StdGowingPackerContext.SimplePackableClass} instances) so the finishing phase has real work to do.
+ <p/>
+ Usage: {@code BenchmarkGowingContexts [entityCount [fileName]]}
+ */
+
+public class BenchmarkGowingContexts {
+
+    private static final int DEFAULT_ENTITY_COUNT = 5 * 1000 * 1000;
+
+    private interface UnPackerContextFactory {
+
+        GowingUnPackerContext createContext( GowingTypeIndex typeIndex );
+
+    }
+
+    private static void pack( final String what, final @NotNull File file, final int entityCount, final @NotNull GowingPackerContext packerContext )
+            throws FileNotFoundException {
+
+        long startTime = System.nanoTime();
+
+        try (
+                StdGowingPacker packer = new StdGowingPacker(
+                        new EntityName( "benchmark" ),
+                        file,
+                        new PrintWriter( new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 ), 1024 * 1024 ) ),
+                        packerContext,
+                        false
+                )
+        ) {
+
+            for ( int i = 0; i < entityCount / 2; i += 1 ) {
+
+                packer.queuePackableEntity(
+                        new StdGowingPackerContext.TestPackableClass(
+                                "entity " + i,
+                                null,
+                                new StdGowingPackerContext.SimplePackableClass( "simple " + i )
+                        )
+                );
+
+            }
+
+            packer.finish();
+
+        }
+
+        report( what, entityCount, System.nanoTime() - startTime );
+
+    }
+
+    private static void unPack( final String what, final @NotNull File file, final int entityCount, final @NotNull UnPackerContextFactory factory )
+            throws IOException, GowingUnpackingException {
+
+        long startTime = System.nanoTime();
+
+        GowingTypeIndex typeIndex = new GowingTypeIndex( "benchmark" );
+        try (
+                StdGowingUnPacker unPacker = new StdGowingUnPacker(
+                        file,
+                        new LineNumberReader( new BufferedReader( new InputStreamReader( new FileInputStream( file ), StandardCharsets.UTF_8 ), 1024 * 1024 ) ),
+                        factory.createContext( typeIndex )
+                )
+        ) {
+
+            unPacker.getUnPackerContext().registerFactory( StdGowingPackerContext.TestPackableClass.FACTORY );
+            unPacker.getUnPackerContext().registerFactory( StdGowingPackerContext.SimplePackableClass.FACTORY );
+
+            GowingUnPackedEntityGroup group = unPacker.unPack();
+            Logger.logMsg( what + ":  unpacked " + ObtuseUtil.readable( group.getAllEntities().size() ) + " top-level entities" );
+
+        }
+
+        report( what, entityCount, System.nanoTime() - startTime );
+
+    }
+
+    private static void report( final String what, final int entityCount, final long elapsedNanos ) {
+
+        Logger.logMsg(
+                ObtuseUtil.rpad( what, 40 ) + ":  " +
+                ObtuseUtil.readable( elapsedNanos / 1000000L ) + "ms (" +
+                ObtuseUtil.readable( (long)( entityCount / ( elapsedNanos / 1e9 ) ) ) + " entities per second)"
+        );
+
+    }
+
+    public static void main( final String[] args ) {
+
+        BasicProgramConfigInfo.init( "Obtuse", "Gowing", "benchmark" );
+
+        int entityCount = args.length > 0 ? Integer.parseInt( args[0] ) : DEFAULT_ENTITY_COUNT;
+        File file = new File( args.length > 1 ? args[1] : "benchmark.p2a" );
+
+        try {
+
+            pack( "pack (std context)", file, entityCount, new StdGowingPackerContext() );
+            pack( "pack (fast context)", file, entityCount, new FastGowingPackerContext( entityCount ) );
+            Logger.logMsg( "packed " + ObtuseUtil.readable( entityCount ) + " entities into " + ObtuseUtil.readable( file.length() ) + " bytes" );
+
+            // Alternate between the two so that neither gets all the benefit of a warmed up JIT compiler.
+
+            for ( int round = 1; round <= 2; round += 1 ) {
+
+                unPack( "unpack (std context) round " + round, file, entityCount, StdGowingUnPackerContext::new );
+                unPack( "unpack (fast context) round " + round, file, entityCount, typeIndex -> new FastGowingUnPackerContext( typeIndex, entityCount ) );
+
+            }
+
+        } catch ( IOException e ) {
+
+            Logger.logErr( "java.io.IOException caught", e );
+
+        } catch ( GowingUnpackingException e ) {
+
+            Logger.logErr( "GowingUnpackingException caught", e );
+
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@
 package com.obtuse.util.graph;
 
 import com.obtuse.exceptions.HowDidWeGetHereError;
+import com.obtuse.graphs.CompactDirectedGraph;
 
 import java.util.*;
 
@@ -29,73 +30,42 @@ public class DirectedGraph {
 
     public List<DirectedGraphVertex> topologicalSort( final Collection<DirectedGraphVertex> vertices ) {
 
-        SortedSet<DirectedGraphVertex> temporarilyMarkedNodes = new TreeSet<>();
-        SortedSet<DirectedGraphVertex> permanentlyMarkedNodes = new TreeSet<>();
+        // Vertices define their identity via compareTo so that's what we use to assign their ids.
 
-        List<DirectedGraphVertex> sortedNodes = new LinkedList<>();
-        List<DirectedGraphVertex> unvisitedNodes = new LinkedList<>( vertices );
-        while ( !unvisitedNodes.isEmpty() ) {
+        CompactDirectedGraph.Builder<DirectedGraphVertex> builder = new CompactDirectedGraph.Builder<>( new TreeMap<>() );
+        for ( DirectedGraphVertex vertex : vertices ) {
 
-            DirectedGraphVertex node = unvisitedNodes.remove( 0 );
+            builder.addVertex( vertex );
 
-            if ( !permanentlyMarkedNodes.contains( node ) ) {
+        }
 
-                if ( !topologicalSortVisitNode( node, temporarilyMarkedNodes, permanentlyMarkedNodes, sortedNodes ) ) {
+        for ( DirectedGraphVertex vertex : vertices ) {
 
-                    return null;
+            for ( DirectedGraphEdge dependency : vertex.getOutBoundEdges() ) {
 
-                }
+                builder.addArc( vertex, dependency.getDestinationNode() );
 
             }
 
         }
 
-        if ( sortedNodes.size() != vertices.size() ) {
+        CompactDirectedGraph<DirectedGraphVertex> graph = builder.build();
+        Optional<int[]> optOrder = graph.dependencyOrder();
+        if ( optOrder.isEmpty() ) {
 
-            throw new HowDidWeGetHereError( "topological sort did not return all nodes" );
+            return null;
 
         }
 
-        return sortedNodes;
-
-    }
-
-    @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private boolean topologicalSortVisitNode(
-            final DirectedGraphVertex node,
-            final Collection<DirectedGraphVertex> temporarilyMarkedNodes,
-            final SortedSet<DirectedGraphVertex> permanentlyMarkedNodes,
-            final List<DirectedGraphVertex> sortedNodes
-    ) {
+        if ( graph.getVertexCount() != vertices.size() ) {
 
-        if ( temporarilyMarkedNodes.contains( node ) ) {
-
-            return false;
+            throw new HowDidWeGetHereError( "topological sort did not return all nodes" );
 
         }
 
-        if ( !permanentlyMarkedNodes.contains( node ) ) {
-
-            temporarilyMarkedNodes.add( node );
-
-            for ( DirectedGraphEdge dependency : node.getOutBoundEdges() ) {
-
-                if ( !topologicalSortVisitNode( dependency.getDestinationNode(), temporarilyMarkedNodes, permanentlyMarkedNodes, sortedNodes ) ) {
-
-                    return false;
-
-                }
-
-            }
-
-            permanentlyMarkedNodes.add( node );
-            sortedNodes.add( node );
-
-            temporarilyMarkedNodes.remove( node );
-
-        }
+        // Each vertex appears after all of the vertices that it has outbound edges to.
 
-        return true;
+        return graph.getVertices( optOrder.get() );
 
     }
 
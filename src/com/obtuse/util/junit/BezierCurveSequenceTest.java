@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.ui.BezierCurveSequence;
+import com.obtuse.ui.CubicBezierCurve;
+import com.obtuse.util.BasicProgramConfigInfo;
+import hep.wired.heprep.util.NearestPoint;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.Random;
+
+/**
+ Unit test the {@link BezierCurveSequence} class's nearest point searches.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class BezierCurveSequenceTest {
+
+    @Before
+    public void setUp() {
+
+        // BezierCurveSequence logs a few things when it is loaded.
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    private static BezierCurveSequence randomWalk( final Random random, final int pointCount ) {
+
+        BezierCurveSequence sequence = new BezierCurveSequence( null );
+        sequence.setScale( 1.0 );
+        double x = 0.0;
+        double y = 0.0;
+        for ( int ix = 0; ix < pointCount; ix += 1 ) {
+
+            x += 5.0 + random.nextDouble() * 20.0;
+            y += random.nextGaussian() * 30.0;
+            sequence.addPoint( new Point2D.Double( x, y ) );
+
+        }
+
+        return sequence;
+
+    }
+
+    /**
+     The original algorithm: try every curve and keep the first strictly closer one.
+     */
+
+    private static int bruteForceNearest( final List<CubicBezierCurve> curves, final Point2D p ) {
+
+        int rval = -1;
+        double bestDistance = -1.0;
+        for ( int ix = 0; ix < curves.size(); ix += 1 ) {
+
+            double distance = NearestPoint.onCurve( curves.get( ix ), p, new Point2D.Float() );
+            if ( bestDistance < 0.0 || distance < bestDistance ) {
+
+                rval = ix;
+                bestDistance = distance;
+
+            }
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+
+        Random random = new Random( 49L );
+        for ( int pointCount : new int[]{ 2, 3, 7, 60, 400 } ) {
+
+            BezierCurveSequence sequence = randomWalk( random, pointCount );
+            List<CubicBezierCurve> curves = sequence.getCubicCurves();
+            Assert.assertEquals( pointCount - 1, curves.size() );
+
+            Point2D[] queries = new Point2D[200];
+            for ( int ix = 0; ix < queries.length; ix += 1 ) {
+
+                // A wandering point (like a mouse) for the batch queries.
+
+                queries[ix] = new Point2D.Double(
+                        random.nextDouble() * 25.0 * pointCount,
+                        random.nextGaussian() * 100.0
+                );
+
+            }
+
+            BezierCurveSequence.PointOnCurve[] batch = sequence.findNearestPoints( queries );
+            for ( int ix = 0; ix < queries.length; ix += 1 ) {
+
+                int expected = bruteForceNearest( curves, queries[ix] );
+                BezierCurveSequence.PointOnCurve single = sequence.findNearestPoint( queries[ix] );
+                Assert.assertEquals( expected, single.getCurveIndex() );
+                Assert.assertSame( curves.get( expected ), single.getGraphicsElement() );
+                Assert.assertEquals(
+                        sequence.getSquaredDistanceToNearestPointOnCurve( queries[ix] ),
+                        batch[ix].getPoint().distanceSq( queries[ix] ),
+                        1e-9
+                );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testEmptyAndChangedSequences() {
+
+        BezierCurveSequence sequence = new BezierCurveSequence( null );
+        Assert.assertNull( sequence.findNearestPoint( new Point2D.Double( 1.0, 1.0 ) ) );
+        Assert.assertNull( sequence.findNearestPoints( new Point2D[]{ new Point2D.Double( 1.0, 1.0 ) } )[0] );
+
+        sequence.setScale( 1.0 );
+        sequence.addPoint( new Point2D.Double( 0.0, 0.0 ) );
+        sequence.addPoint( new Point2D.Double( 100.0, 0.0 ) );
+        Assert.assertEquals( 0, sequence.findNearestPoint( new Point2D.Double( 500.0, 0.0 ) ).getCurveIndex() );
+
+        // Adding a point must throw away the cached hierarchy.
+
+        sequence.addPoint( new Point2D.Double( 200.0, 0.0 ) );
+        Assert.assertEquals( 1, sequence.findNearestPoint( new Point2D.Double( 500.0, 0.0 ) ).getCurveIndex() );
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import org.apache.commons.text.similarity.BitParallelLevenshteinDistance;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ Unit test the {@link BitParallelLevenshteinDistance} class against the classic {@link LevenshteinDistance} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class BitParallelLevenshteinDistanceTest {
+
+    private static final String ALPHABET = "abcdeéΔ中";
+
+    private static String randomString( final Random rng, final int maxLength ) {
+
+        int length = rng.nextInt( maxLength + 1 );
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < length; i += 1 ) {
+
+            sb.append( ALPHABET.charAt( rng.nextInt( ALPHABET.length() ) ) );
+
+        }
+
+        return sb.toString();
+
+    }
+
+    @Test
+    public void testDocumentedExamples() {
+
+        BitParallelLevenshteinDistance ld = new BitParallelLevenshteinDistance();
+
+        Assert.assertEquals( 0, ld.apply( "", "" ).intValue() );
+        Assert.assertEquals( 1, ld.apply( "", "a" ).intValue() );
+        Assert.assertEquals( 7, ld.apply( "aaapppp", "" ).intValue() );
+        Assert.assertEquals( 1, ld.apply( "frog", "fog" ).intValue() );
+        Assert.assertEquals( 3, ld.apply( "fly", "ant" ).intValue() );
+        Assert.assertEquals( 7, ld.apply( "elephant", "hippo" ).intValue() );
+        Assert.assertEquals( 7, ld.apply( "hippo", "elephant" ).intValue() );
+        Assert.assertEquals( 8, ld.apply( "hippo", "zzzzzzzz" ).intValue() );
+        Assert.assertEquals( 1, ld.apply( "hello", "hallo" ).intValue() );
+
+        Assert.assertEquals( 7, new BitParallelLevenshteinDistance( 7 ).apply( "elephant", "hippo" ).intValue() );
+        Assert.assertEquals( -1, new BitParallelLevenshteinDistance( 6 ).apply( "elephant", "hippo" ).intValue() );
+        Assert.assertEquals( -1, new BitParallelLevenshteinDistance( 6 ).apply( "aaapppp", "" ).intValue() );
+
+    }
+
+    @Test
+    public void testMatchesClassicImplementation() {
+
+        Random rng = new Random( 1 );
+        LevenshteinDistance unlimited = LevenshteinDistance.getDefaultInstance();
+        BitParallelLevenshteinDistance bitParallelUnlimited = new BitParallelLevenshteinDistance();
+
+        // Lengths straddling the 64 character block size exercise both the single and multi-block paths.
+
+        for ( int maxLength : new int[]{ 10, 63, 64, 65, 200 } ) {
+
+            for ( int trial = 0; trial < 300; trial += 1 ) {
+
+                String left = randomString( rng, maxLength );
+                String right = randomString( rng, maxLength );
+
+                Assert.assertEquals(
+                        "\"" + left + "\" vs \"" + right + "\"",
+                        unlimited.apply( left, right ),
+                        bitParallelUnlimited.apply( left, right )
+                );
+
+                int threshold = rng.nextInt( maxLength + 1 );
+                Assert.assertEquals(
+                        "\"" + left + "\" vs \"" + right + "\" with threshold " + threshold,
+                        new LevenshteinDistance( threshold ).apply( left, right ),
+                        new BitParallelLevenshteinDistance( threshold ).apply( left, right )
+                );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testBatch() {
+
+        Random rng = new Random( 2 );
+        LevenshteinDistance classic = new LevenshteinDistance( 20 );
+        BitParallelLevenshteinDistance bitParallel = new BitParallelLevenshteinDistance( 20 );
+
+        String query = randomString( rng, 100 );
+        List<String> candidates = new ArrayList<>();
+        for ( int i = 0; i < 200; i += 1 ) {
+
+            candidates.add( randomString( rng, 100 ) );
+
+        }
+
+        int[] distances = bitParallel.apply( query, candidates );
+        for ( int i = 0; i < candidates.size(); i += 1 ) {
+
+            Assert.assertEquals( classic.apply( query, candidates.get( i ) ).intValue(), distances[i] );
+
+        }
+
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.graphs.CompactDirectedGraph;
+import com.obtuse.graphs.DirectedArc;
+import com.obtuse.graphs.GraphTheoryUtilities;
+import com.obtuse.util.graph.DirectedGraph;
+import com.obtuse.util.graph.DirectedGraphEdge;
+import com.obtuse.util.graph.DirectedGraphVertex;
+import com.obtuse.util.graph.Vertex;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ Unit test the {@link CompactDirectedGraph} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class CompactDirectedGraphTest {
+
+    private static CompactDirectedGraph<Integer> buildGraph( final int[][] arcs ) {
+
+        CompactDirectedGraph.Builder<Integer> builder = new CompactDirectedGraph.Builder<>();
+        for ( int[] arc : arcs ) {
+
+            builder.addArc( arc[0], arc[1] );
+
+        }
+
+        return builder.build();
+
+    }
+
+    private static void assertIsLoop( final CompactDirectedGraph<Integer> graph, final int[] loop ) {
+
+        Assert.assertTrue( loop.length > 0 );
+        for ( int ix = 0; ix < loop.length; ix += 1 ) {
+
+            int v = loop[ix];
+            int w = loop[( ix + 1 ) % loop.length];
+            boolean found = false;
+            for ( int a = 0; a < graph.getOutDegree( v ); a += 1 ) {
+
+                found |= graph.getSuccessor( v, a ) == w;
+
+            }
+
+            Assert.assertTrue( "no arc from " + graph.getVertex( v ) + " to " + graph.getVertex( w ), found );
+
+        }
+
+    }
+
+    @Test
+    public void testTopologicalOrder() {
+
+        CompactDirectedGraph<Integer> graph = buildGraph( new int[][]{ { 1, 2 }, { 2, 3 }, { 2, 4 }, { 3, 5 }, { 4, 5 }, { 6, 5 } } );
+
+        int[] order = graph.topologicalOrder().orElseThrow( AssertionError::new );
+        Assert.assertEquals( graph.getVertexCount(), order.length );
+
+        int[] positions = new int[order.length];
+        for ( int ix = 0; ix < order.length; ix += 1 ) {
+
+            positions[order[ix]] = ix;
+
+        }
+
+        for ( int v = 0; v < graph.getVertexCount(); v += 1 ) {
+
+            for ( int a = 0; a < graph.getOutDegree( v ); a += 1 ) {
+
+                Assert.assertTrue( positions[v] < positions[graph.getSuccessor( v, a )] );
+
+            }
+
+        }
+
+        Assert.assertTrue( graph.isAcyclic() );
+        Assert.assertFalse( graph.findCycle().isPresent() );
+
+    }
+
+    @Test
+    public void testLoops() {
+
+        CompactDirectedGraph<Integer> graph = buildGraph( new int[][]{ { 1, 2 }, { 2, 3 }, { 3, 4 }, { 4, 2 }, { 3, 5 }, { 6, 6 } } );
+
+        Assert.assertFalse( graph.isAcyclic() );
+        assertIsLoop( graph, graph.findCycle().orElseThrow( AssertionError::new ) );
+
+        int[] loop = graph.findCycleThrough( graph.getVertexId( 4 ) ).orElseThrow( AssertionError::new );
+        assertIsLoop( graph, loop );
+        Assert.assertEquals( 4, graph.getVertex( loop[0] ).intValue() );
+
+        Assert.assertArrayEquals( new int[]{ graph.getVertexId( 6 ) }, graph.findCycleThrough( graph.getVertexId( 6 ) ).orElseThrow( AssertionError::new ) );
+        Assert.assertFalse( graph.findCycleThrough( graph.getVertexId( 1 ) ).isPresent() );
+        Assert.assertFalse( graph.findCycleThrough( graph.getVertexId( 5 ) ).isPresent() );
+
+    }
+
+    @Test
+    public void testComponents() {
+
+        CompactDirectedGraph<Integer> graph = buildGraph( new int[][]{ { 1, 2 }, { 2, 3 }, { 3, 1 }, { 3, 4 }, { 5, 6 }, { 6, 5 }, { 7, 8 } } );
+
+        Set<Set<Integer>> components = new HashSet<>();
+        for ( int[] component : graph.stronglyConnectedComponents() ) {
+
+            components.add( new HashSet<>( graph.getVertices( component ) ) );
+
+        }
+
+        Set<Set<Integer>> expected = new HashSet<>();
+        expected.add( new HashSet<>( Arrays.asList( 1, 2, 3 ) ) );
+        expected.add( new HashSet<>( Collections.singletonList( 4 ) ) );
+        expected.add( new HashSet<>( Arrays.asList( 5, 6 ) ) );
+        expected.add( new HashSet<>( Collections.singletonList( 7 ) ) );
+        expected.add( new HashSet<>( Collections.singletonList( 8 ) ) );
+        Assert.assertEquals( expected, components );
+
+        int[] clusters = graph.weaklyConnectedComponents();
+        Assert.assertEquals( clusters[graph.getVertexId( 1 )], clusters[graph.getVertexId( 4 )] );
+        Assert.assertEquals( clusters[graph.getVertexId( 5 )], clusters[graph.getVertexId( 6 )] );
+        Assert.assertTrue( clusters[graph.getVertexId( 1 )] != clusters[graph.getVertexId( 5 )] );
+        Assert.assertTrue( clusters[graph.getVertexId( 5 )] != clusters[graph.getVertexId( 7 )] );
+        Assert.assertEquals( 3, Arrays.stream( clusters ).max().orElse( -1 ) + 1 );
+
+    }
+
+    @Test
+    public void testVeryLongPaths() {
+
+        // Deep enough to blow the stack of any recursive implementation.
+
+        int n = 1000 * 1000;
+        CompactDirectedGraph.Builder<Integer> builder = new CompactDirectedGraph.Builder<>();
+        for ( int v = 0; v < n - 1; v += 1 ) {
+
+            builder.addArc( v, v + 1 );
+
+        }
+
+        CompactDirectedGraph<Integer> chain = builder.build();
+        Assert.assertTrue( chain.isAcyclic() );
+        Assert.assertFalse( chain.findCycle().isPresent() );
+        Assert.assertEquals( n, chain.stronglyConnectedComponents().size() );
+
+        builder = new CompactDirectedGraph.Builder<>();
+        for ( int v = 0; v < n; v += 1 ) {
+
+            builder.addArc( v, ( v + 1 ) % n );
+
+        }
+
+        CompactDirectedGraph<Integer> ring = builder.build();
+        Assert.assertEquals( n, ring.findCycle().orElseThrow( AssertionError::new ).length );
+        Assert.assertEquals( 1, ring.stronglyConnectedComponents().size() );
+        Assert.assertFalse( ring.dependencyOrder().isPresent() );
+        Assert.assertEquals( n, chain.dependencyOrder().orElseThrow( AssertionError::new ).length );
+
+    }
+
+    @Test
+    public void testDependencyOrderIsPinned() {
+
+        CompactDirectedGraph<Integer> graph = buildGraph( new int[][]{ { 1, 2 }, { 2, 3 }, { 2, 4 }, { 3, 5 }, { 4, 5 }, { 6, 5 } } );
+        Assert.assertEquals(
+                Arrays.asList( 5, 3, 4, 2, 1, 6 ),
+                graph.getVertices( graph.dependencyOrder().orElseThrow( AssertionError::new ) )
+        );
+
+        // Adding the same arcs in a different order gives a different (but equally pinned) order.
+
+        graph = buildGraph( new int[][]{ { 6, 5 }, { 2, 4 }, { 1, 2 }, { 4, 5 }, { 2, 3 }, { 3, 5 } } );
+        Assert.assertEquals(
+                Arrays.asList( 5, 6, 4, 3, 2, 1 ),
+                graph.getVertices( graph.dependencyOrder().orElseThrow( AssertionError::new ) )
+        );
+
+        Assert.assertFalse( buildGraph( new int[][]{ { 1, 2 }, { 2, 3 }, { 3, 1 } } ).dependencyOrder().isPresent() );
+
+        List<DirectedArc<String>> arcs = new ArrayList<>();
+        com.obtuse.graphs.Vertex<String> a = new com.obtuse.graphs.Vertex<>( "a" );
+        com.obtuse.graphs.Vertex<String> b = new com.obtuse.graphs.Vertex<>( "b" );
+        com.obtuse.graphs.Vertex<String> c = new com.obtuse.graphs.Vertex<>( "c" );
+        com.obtuse.graphs.Vertex<String> d = new com.obtuse.graphs.Vertex<>( "d" );
+        arcs.add( new DirectedArc<>( a, c ) );
+        arcs.add( new DirectedArc<>( a, b ) );
+        arcs.add( new DirectedArc<>( b, c ) );
+        arcs.add( new DirectedArc<>( d, a ) );
+        Assert.assertEquals( Arrays.asList( c, b, a, d ), GraphTheoryUtilities.topologicalSort( arcs ).orElseThrow( AssertionError::new ) );
+
+    }
+
+    private static class Node implements DirectedGraphVertex {
+
+        private final int _id;
+
+        private final List<DirectedGraphEdge> _edges = new ArrayList<>();
+
+        private Node( final int id ) {
+
+            super();
+
+            _id = id;
+
+        }
+
+        private void addEdgeTo( final Node destination ) {
+
+            _edges.add(
+                    new DirectedGraphEdge() {
+
+                        public DirectedGraphVertex getSourceNode() {
+
+                            return Node.this;
+
+                        }
+
+                        public DirectedGraphVertex getDestinationNode() {
+
+                            return destination;
+
+                        }
+
+                    }
+            );
+
+        }
+
+        public DirectedGraphEdge[] getOutBoundEdges() {
+
+            return _edges.toArray( new DirectedGraphEdge[0] );
+
+        }
+
+        public int compareTo( final @NotNull Vertex rhs ) {
+
+            return Integer.compare( _id, ( (Node)rhs )._id );
+
+        }
+
+        public String toString() {
+
+            return "n" + _id;
+
+        }
+
+    }
+
+    /**
+     The recursive depth-first topological sort that {@link DirectedGraph#topologicalSort(Collection)} used to do.
+     */
+
+    private static boolean oldVisit( final DirectedGraphVertex node, final Set<DirectedGraphVertex> temporary, final Set<DirectedGraphVertex> permanent, final List<DirectedGraphVertex> sorted ) {
+
+        if ( temporary.contains( node ) ) {
+
+            return false;
+
+        }
+
+        if ( !permanent.contains( node ) ) {
+
+            temporary.add( node );
+            for ( DirectedGraphEdge edge : node.getOutBoundEdges() ) {
+
+                if ( !oldVisit( edge.getDestinationNode(), temporary, permanent, sorted ) ) {
+
+                    return false;
+
+                }
+
+            }
+
+            permanent.add( node );
+            sorted.add( node );
+            temporary.remove( node );
+
+        }
+
+        return true;
+
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDirectedGraphOrderMatchesOldDepthFirstSort() {
+
+        Random random = new Random( 30L );
+        for ( int round = 0; round < 100; round += 1 ) {
+
+            // Random DAGs (arcs only go from higher to lower numbered nodes) listed in a random order.
+
+            int n = 1 + random.nextInt( 20 );
+            List<Node> nodes = new ArrayList<>();
+            for ( int ix = 0; ix < n; ix += 1 ) {
+
+                nodes.add( new Node( ix ) );
+
+            }
+
+            for ( int ix = 0; ix < n * 2; ix += 1 ) {
+
+                int from = random.nextInt( n );
+                int to = random.nextInt( n );
+                if ( from > to ) {
+
+                    nodes.get( from ).addEdgeTo( nodes.get( to ) );
+
+                }
+
+            }
+
+            Collections.shuffle( nodes, random );
+
+            List<DirectedGraphVertex> expected = new ArrayList<>();
+            Set<DirectedGraphVertex> permanent = new HashSet<>();
+            for ( Node node : nodes ) {
+
+                Assert.assertTrue( oldVisit( node, new HashSet<>(), permanent, expected ) );
+
+            }
+
+            Assert.assertEquals( expected, new DirectedGraph().topologicalSort( new ArrayList<>( nodes ) ) );
+
+        }
+
+    }
+
+}
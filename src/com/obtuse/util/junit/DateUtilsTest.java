@@ -0,0 +1,321 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.DateUtils;
+import com.obtuse.util.FixedWidthDateTimes;
+import com.obtuse.util.ImmutableDate;
+import com.obtuse.util.exceptions.ParsingException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ Unit test the {@link DateUtils} class against the {@link SimpleDateFormat}s that it used to be built on.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class DateUtilsTest {
+
+    private static final TimeZone[] ZONES = {
+            DateUtils.UTC,
+            DateUtils.PACIFIC_TIME,
+            DateUtils.EASTERN_TIME,
+            TimeZone.getTimeZone( "Asia/Kolkata" ),
+            TimeZone.getTimeZone( "Australia/Lord_Howe" )
+    };
+
+    // 1900-01-01 through 2100-01-01.
+
+    private static final long FIRST_MILLIS = -2208988800000L;
+
+    private static final long LAST_MILLIS = 4102444800000L;
+
+    private static SimpleDateFormat sdf( final String pattern, final TimeZone timeZone ) {
+
+        SimpleDateFormat rval = new SimpleDateFormat( pattern );
+        rval.setTimeZone( timeZone );
+
+        return rval;
+
+    }
+
+    @Test
+    public void testFormatsAgreeWithSimpleDateFormat() {
+
+        Random random = new Random( 42L );
+        for ( int i = 0; i < 20000; i += 1 ) {
+
+            Date date = new Date( FIRST_MILLIS + (long)( random.nextDouble() * ( LAST_MILLIS - FIRST_MILLIS ) ) );
+            TimeZone timeZone = ZONES[i % ZONES.length];
+
+            Assert.assertEquals( sdf( "yyyy-MM-dd HH:mm:ss", timeZone ).format( date ), DateUtils.formatYYYY_MM_DD_HH_MM_SS( date, timeZone ) );
+            Assert.assertEquals( sdf( "yyyy-MM-dd", timeZone ).format( date ), DateUtils.formatYYYY_MM_DD( date, timeZone ) );
+            Assert.assertEquals( sdf( "yyyyMMdd", timeZone ).format( date ), DateUtils.formatYYYYMMDD( date, timeZone ) );
+            Assert.assertEquals( sdf( "yyyy-MM-dd HH:mm:ss.SSS", timeZone ).format( date ), DateUtils.formatYYYY_MM_DD_HH_MM_SS_SSS( date, timeZone ) );
+            Assert.assertEquals( sdf( "hh:mm:ss EEE MMM dd", timeZone ).format( date ), DateUtils.formatHH_MM_SS_12_EEE_MMM_DD( date, timeZone ) );
+            Assert.assertEquals( sdf( "yyyyMMdd_HHmmss_SSS'Z'", DateUtils.UTC ).format( date ), DateUtils.formatMarkerUTC( date ) );
+            Assert.assertEquals( sdf( "yyyy-MM-dd_HH-mm-ss.SSS'Z'", DateUtils.UTC ).format( date ), DateUtils.formatMarker2UTC( date ) );
+
+        }
+
+    }
+
+    @Test
+    public void testParsesAgreeWithSimpleDateFormat()
+            throws ParseException, ParsingException {
+
+        Random random = new Random( 4242L );
+        for ( int i = 0; i < 20000; i += 1 ) {
+
+            Date date = new Date( FIRST_MILLIS + (long)( random.nextDouble() * ( LAST_MILLIS - FIRST_MILLIS ) ) );
+            TimeZone timeZone = ZONES[i % ZONES.length];
+
+            SimpleDateFormat yyyymmdd = sdf( "yyyyMMdd", timeZone );
+            String token = yyyymmdd.format( date );
+            Assert.assertEquals( yyyymmdd.parse( token ), DateUtils.parseYYYYMMDD( token, timeZone, 1 ) );
+
+            SimpleDateFormat hhmmss = sdf( "yyyy-MM-dd HH:mm:ss.SSS", timeZone );
+            token = hhmmss.format( date );
+            Assert.assertEquals( hhmmss.parse( token ), DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( timeZone, token, 1 ) );
+
+            SimpleDateFormat marker = sdf( "yyyyMMdd_HHmmss_SSS'Z'", DateUtils.UTC );
+            token = marker.format( date );
+            Assert.assertEquals( date, DateUtils.parseMarkerUTC( token, 1 ) );
+
+        }
+
+        // Lenient parsing rolls out of range fields over and tolerates short fields and trailing text.
+
+        SimpleDateFormat utc = sdf( "yyyy-MM-dd", DateUtils.UTC );
+        for ( String token : new String[]{ "2018-02-30", "2018-1-5", "2018-13-45", "2016-02-29", "2018-07-04 and then some" } ) {
+
+            Assert.assertEquals( token, utc.parse( token ), DateUtils.parseYYYY_MM_DD_utc( token, 1 ) );
+
+        }
+
+        SimpleDateFormat mmddyyyyhhmm = sdf( "MM/dd/yyyy hh:mmaa", DateUtils.PACIFIC_TIME );
+        for ( String token : new String[]{ "07/04/2001 12:08PM", "07/04/2001 12:08am", "12/31/1999 11:59PM", "2/3/2004 1:02pm" } ) {
+
+            Assert.assertEquals( token, mmddyyyyhhmm.parse( token ), DateUtils.parseMMDDYYYY_HHMM( DateUtils.PACIFIC_TIME, token, 1 ) );
+
+        }
+
+        SimpleDateFormat longDateTime = sdf( "EEE MMM dd HH:mm:ss yyyy", DateUtils.EASTERN_TIME );
+        String token = "Wed Jul 04 12:08:56 2001";
+        Assert.assertEquals( longDateTime.parse( token ), DateUtils.parseLongDateTime( DateUtils.EASTERN_TIME, token, 1 ) );
+
+    }
+
+    /**
+     Odd inputs that the old {@link SimpleDateFormat} based parsers accepted, along with what they used to return (in UTC).
+     */
+
+    @Test
+    public void testLenientParsingMatchesBaseline()
+            throws ParsingException {
+
+        // Digit counts are lenient and the last field soaks up any extra digits (which then roll over).
+
+        Assert.assertEquals( 1516492800000L, DateUtils.parseYYYYMMDD( "201801021", DateUtils.UTC, 1 ).getTime() );   // 2018-01-21
+        Assert.assertEquals( 1514678400000L, DateUtils.parseYYYYMMDD( "2018010", DateUtils.UTC, 1 ).getTime() );     // 2017-12-31
+        Assert.assertEquals( 1514851200000L, DateUtils.parseYYYYMMDD( "2018012", DateUtils.UTC, 1 ).getTime() );     // 2018-01-02
+
+        // Trailing text is ignored.
+
+        Assert.assertEquals( 1509494400000L, DateUtils.parseYYYY_MM_DD_utc( "2017-11-01 12:00", 1 ).getTime() );
+        Assert.assertEquals( 1509494400000L, DateUtils.parseYYYY_MM_DD_utc( "2017-11-01 12:00", 1, false ).getTime() );
+
+        // Dates before the Gregorian cutover are in the Julian calendar.
+
+        Assert.assertEquals( -57817670400000L, DateUtils.parseYYYY_MM_DD_utc( "0137-11-01", 1 ).getTime() );
+        Assert.assertEquals( -14830992000000L, DateUtils.parseYYYYMMDD( "15000101", DateUtils.UTC, 1 ).getTime() );
+        Assert.assertEquals( -14830894554322L, DateUtils.parseMarkerUTC( "15000102_030405_678Z", 1 ).getTime() );
+        Assert.assertEquals( FixedWidthDateTimes.NOT_FIXED_WIDTH, FixedWidthDateTimes.parseYYYYMMDD( "15000101", 0, 8, DateUtils.UTC ) );
+        Assert.assertEquals( "1526-05-01 23:06:40.000", DateUtils.formatYYYY_MM_DD_HH_MM_SS_SSS( new Date( -14000000000000L ), DateUtils.UTC ) );
+        Assert.assertEquals( "15260501_230640_000Z", DateUtils.formatMarkerUTC( new Date( -14000000000000L ) ) );
+
+        // Leading whitespace is skipped.
+
+        Assert.assertEquals( 1514862245000L, DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( DateUtils.UTC, " 2018-01-02 03:04:05.000", 1 ).getTime() );
+        Assert.assertEquals( 1514851200000L, DateUtils.parseYYYY_MM_DD_utc( " 2018-01-02", 1 ).getTime() );
+
+        // The milliseconds are a number of milliseconds rather than a decimal fraction of a second.
+
+        Assert.assertEquals( 1514862245006L, DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( DateUtils.UTC, "2018-01-02 03:04:05.6", 1 ).getTime() );
+        Assert.assertEquals( 1514862245060L, DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( DateUtils.UTC, "2018-01-02 03:04:05.60", 1 ).getTime() );
+        Assert.assertEquals( 1514862251789L, DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( DateUtils.UTC, "2018-01-02 03:04:05.6789", 1 ).getTime() );
+        Assert.assertEquals( 1514862245006L, DateUtils.parseMarkerUTC( "20180102_030405_6Z", 1 ).getTime() );
+
+        // Out of range fields roll over.
+
+        Assert.assertEquals( 1514944922000L, DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( DateUtils.UTC, "2018-01-02 25:61:61.1000", 1 ).getTime() );
+
+    }
+
+    /**
+     Local times in a daylight saving time gap or overlap have to come out the way that {@link SimpleDateFormat} did them.
+     */
+
+    @Test
+    public void testDaylightSavingTimeChanges()
+            throws ParsingException {
+
+        TimeZone newYork = TimeZone.getTimeZone( "America/New_York" );
+        TimeZone saoPaulo = TimeZone.getTimeZone( "America/Sao_Paulo" );
+
+        // The fast paths leave local times near a change to the general purpose parsers (which StreamingCsvParser relies on too).
+
+        Assert.assertEquals( FixedWidthDateTimes.NOT_FIXED_WIDTH, FixedWidthDateTimes.parseYYYY_MM_DD_HH_MM_SS( "2018-03-11 02:30:00", 0, 19, newYork ) );
+        Assert.assertEquals( FixedWidthDateTimes.NOT_FIXED_WIDTH, FixedWidthDateTimes.parseYYYY_MM_DD( "2018-11-04", 0, 10, saoPaulo ) );
+        Assert.assertEquals( 1520571600000L, FixedWidthDateTimes.parseYYYY_MM_DD_HH_MM_SS( "2018-03-09 00:00:00", 0, 19, newYork ) );
+
+        TimeZone oldDefault = TimeZone.getDefault();
+        try {
+
+            TimeZone.setDefault( newYork );
+
+            // 02:30 doesn't exist on the day that clocks spring forward; 01:30 happens twice on the day that they fall back.
+
+            Assert.assertEquals( 1520753400000L, DateUtils.parseYYYY_MM_DD_HH_MM_SS( "2018-03-11 02:30:00", 1 ).getTime() );
+            Assert.assertEquals( 1541313000000L, DateUtils.parseYYYY_MM_DD_HH_MM_SS( "2018-11-04 01:30:00", 1 ).getTime() );
+            Assert.assertEquals( 1520744400000L, DateUtils.parseYYYY_MM_DD( "2018-03-11", 1 ).getTime() );
+
+            // Clocks in Sao Paulo used to spring forward at midnight so 2018-11-04 started at 01:00.
+
+            TimeZone.setDefault( saoPaulo );
+            Assert.assertEquals( 1541300400000L, DateUtils.parseYYYY_MM_DD( "2018-11-04", 1 ).getTime() );
+            Assert.assertEquals( 1541300400000L, DateUtils.parseYYYYMMDD( "20181104", 1 ).getTime() );
+            Assert.assertEquals( 1541302200000L, DateUtils.parseYYYY_MM_DD_HH_MM_SS( "2018-11-04 00:30:00", 1 ).getTime() );
+            Assert.assertEquals( 1550370600000L, DateUtils.parseYYYY_MM_DD_HH_MM_SS( "2019-02-16 23:30:00", 1 ).getTime() );
+
+        } finally {
+
+            TimeZone.setDefault( oldDefault );
+
+        }
+
+        // Every quarter hour for three hours either side of every change in a few timezones.
+
+        for ( TimeZone timeZone : new TimeZone[]{ newYork, saoPaulo, DateUtils.PACIFIC_TIME, TimeZone.getTimeZone( "Australia/Lord_Howe" ) } ) {
+
+            SimpleDateFormat expected = sdf( "yyyy-MM-dd HH:mm:ss", timeZone );
+            SimpleDateFormat utc = sdf( "yyyy-MM-dd HH:mm:ss", DateUtils.UTC );
+            int previousOffset = timeZone.getOffset( FIRST_MILLIS );
+            for ( long utcMillis = FIRST_MILLIS; utcMillis < LAST_MILLIS; utcMillis += 30 * 60 * 1000L ) {
+
+                int offset = timeZone.getOffset( utcMillis );
+                if ( offset != previousOffset ) {
+
+                    for ( long delta = -3 * 60 * 60 * 1000L; delta <= 3 * 60 * 60 * 1000L; delta += 15 * 60 * 1000L ) {
+
+                        String token = utc.format( new Date( utcMillis + previousOffset + delta ) );
+                        try {
+
+                            Assert.assertEquals(
+                                    timeZone.getID() + " " + token,
+                                    expected.parse( token ),
+                                    DateUtils.parseYYYY_MM_DD_HH_MM_SS_SSS( timeZone, token + ".000", 1 )
+                            );
+
+                            long millis = FixedWidthDateTimes.parseYYYY_MM_DD_HH_MM_SS( token, 0, token.length(), timeZone );
+                            if ( millis != FixedWidthDateTimes.NOT_FIXED_WIDTH ) {
+
+                                Assert.assertEquals( timeZone.getID() + " " + token, expected.parse( token ).getTime(), millis );
+
+                            }
+
+                        } catch ( ParseException e ) {
+
+                            Assert.fail( "SimpleDateFormat could not parse " + token );
+
+                        }
+
+                    }
+
+                    previousOffset = offset;
+
+                }
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testParsingErrors() {
+
+        checkParsingError( "2018-0x-01", 6 );
+        checkParsingError( "", 0 );
+        checkParsingError( "July 4th", 0 );
+
+        // Strict parsing rejects dates that lenient parsing would roll over.
+
+        try {
+
+            DateUtils.parseYYYY_MM_DD_utc( "2018-02-30", 17, false );
+            Assert.fail( "strict parsing accepted 2018-02-30" );
+
+        } catch ( ParsingException e ) {
+
+            Assert.assertEquals( 17, e.getErrorLineNumber() );
+            Assert.assertEquals( ParsingException.ErrorType.DATE_FORMAT_ERROR, e.getErrorType() );
+
+        }
+
+    }
+
+    private static void checkParsingError( final String token, final int expectedOffset ) {
+
+        try {
+
+            DateUtils.parseYYYY_MM_DD_utc( token, 42 );
+            Assert.fail( "parsed " + token );
+
+        } catch ( ParsingException e ) {
+
+            Assert.assertEquals( 42, e.getErrorLineNumber() );
+            Assert.assertEquals( token, expectedOffset, e.getErrorOffset() );
+
+            try {
+
+                sdf( "yyyy-MM-dd", DateUtils.UTC ).parse( token );
+                Assert.fail( "SimpleDateFormat parsed " + token );
+
+            } catch ( ParseException e2 ) {
+
+                Assert.assertEquals( token, e2.getErrorOffset(), e.getErrorOffset() );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testFixedWidthRanges() {
+
+        Assert.assertEquals( 0L, FixedWidthDateTimes.parseYYYY_MM_DD_HH_MM_SS( "x1970-01-01 00:00:00x", 1, 20, DateUtils.UTC ) );
+        Assert.assertEquals( 1000L, FixedWidthDateTimes.parseMarkerUTC( "19700101_000001_000Z", 0, 20 ) );
+        Assert.assertEquals( FixedWidthDateTimes.NOT_FIXED_WIDTH, FixedWidthDateTimes.parseYYYYMMDD( "20180230", 0, 8, DateUtils.UTC ) );
+        Assert.assertEquals( FixedWidthDateTimes.NOT_FIXED_WIDTH, FixedWidthDateTimes.parseYYYY_MM_DD( "2018-1-05", 0, 9, DateUtils.UTC ) );
+        Assert.assertEquals( FixedWidthDateTimes.NOT_FIXED_WIDTH, FixedWidthDateTimes.parseYYYY_MM_DD( "2018-01-0x", 0, 10, DateUtils.UTC ) );
+
+        StringBuilder sb = new StringBuilder( "at " );
+        FixedWidthDateTimes.appendYYYY_MM_DD_HH_MM_SS( sb, 0L, DateUtils.PACIFIC_TIME );
+        Assert.assertEquals( "at 1969-12-31 16:00:00", sb.toString() );
+
+        Assert.assertEquals( new ImmutableDate( 0L ), new ImmutableDate( FixedWidthDateTimes.parseYYYY_MM_DD( "1970-01-01", 0, 10, DateUtils.UTC ) ) );
+
+    }
+
+}
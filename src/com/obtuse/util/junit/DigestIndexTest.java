@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.DigestIndex;
+import com.obtuse.util.MessageDigestRecord;
+import com.obtuse.util.ObtuseFiles;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ Unit test the {@link DigestIndex} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class DigestIndexTest {
+
+    private static final int COUNT = 20000;
+
+    private static File tempLogFile()
+            throws IOException {
+
+        File file = File.createTempFile( "DigestIndexTest", ".log" );
+        file.deleteOnExit();
+        new File( file.getPath() + ".table" ).deleteOnExit();
+        Assert.assertTrue( file.delete() );
+
+        return file;
+
+    }
+
+    private static MessageDigestRecord record( final int ix ) {
+
+        byte[] digest = new byte[16];
+        new Random( ix ).nextBytes( digest );
+
+        return new MessageDigestRecord( "file " + ix, digest, "MD5" );
+
+    }
+
+    private static void checkContents( final DigestIndex index, final int count )
+            throws IOException {
+
+        Assert.assertEquals( count, index.size() );
+        for ( int ix = 0; ix < count + 100; ix += 1 ) {
+
+            MessageDigestRecord record = record( ix );
+            Assert.assertEquals( ix < count, index.contains( record.getDigest() ) );
+            Assert.assertEquals( ix < count ? "file " + ix : null, index.getSourceName( record.getDigest() ) );
+
+        }
+
+    }
+
+    @Test
+    public void testAddAndFindDuplicates()
+            throws IOException {
+
+        File logFile = tempLogFile();
+        try ( DigestIndex index = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE ) ) {
+
+            Assert.assertTrue( index.add( record( 0 ) ) );
+            Assert.assertFalse( index.add( new MessageDigestRecord( "a copy", record( 0 ).getDigest(), "MD5" ) ) );
+
+            // A bulk insert which contains duplicates of itself and of what is already in the index (and which makes the table grow).
+
+            List<MessageDigestRecord> batch = new ArrayList<>();
+            for ( int ix = 0; ix < COUNT; ix += 1 ) {
+
+                batch.add( record( ix ) );
+
+            }
+
+            batch.add( record( 7 ) );
+            List<MessageDigestRecord> duplicates = index.addAll( batch );
+            Assert.assertEquals( 2, duplicates.size() );
+            Assert.assertSame( batch.get( 0 ), duplicates.get( 0 ) );
+            Assert.assertSame( batch.get( COUNT ), duplicates.get( 1 ) );
+
+            checkContents( index, COUNT );
+            Assert.assertTrue( index.getBloomFilterBytes() > 0 );
+
+            try {
+
+                index.add( new MessageDigestRecord( "wrong", new byte[32], "SHA-256" ) );
+                Assert.fail( "added a SHA-256 digest to an MD5 index" );
+
+            } catch ( IllegalArgumentException e ) {
+
+                Assert.assertEquals( COUNT, index.size() );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testReopen()
+            throws IOException {
+
+        File logFile = tempLogFile();
+        try ( DigestIndex index = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.FILE ) ) {
+
+            for ( int ix = 0; ix < 1000; ix += 1 ) {
+
+                index.add( record( ix ) );
+
+            }
+
+        }
+
+        // Reopen after a clean close (the table is reused) and add some more.
+
+        try ( DigestIndex index = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE ) ) {
+
+            checkContents( index, 1000 );
+            for ( int ix = 1000; ix < COUNT; ix += 1 ) {
+
+                index.add( record( ix ) );
+
+            }
+
+        }
+
+        try {
+
+            new DigestIndex( logFile, "SHA-256", ObtuseFiles.FsyncPolicy.NONE );
+            Assert.fail( "opened an MD5 index as a SHA-256 index" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Expected.
+
+        }
+
+        try ( DigestIndex index = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE ) ) {
+
+            checkContents( index, COUNT );
+
+        }
+
+    }
+
+    @Test
+    public void testRecoveryAfterCrash()
+            throws IOException {
+
+        File logFile = tempLogFile();
+
+        // "Crash" by never closing the first index.
+
+        DigestIndex crashed = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE );
+        for ( int ix = 0; ix < COUNT; ix += 1 ) {
+
+            crashed.add( record( ix ) );
+
+        }
+
+        // Leave a torn record at the end of the log.
+
+        Files.write( logFile.toPath(), new byte[]{ 0, 0, 0, 40, 16, 1, 2, 3 }, StandardOpenOption.APPEND );
+        long tornLength = logFile.length();
+
+        try ( DigestIndex index = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE ) ) {
+
+            Assert.assertEquals( tornLength - 8, logFile.length() );
+            checkContents( index, COUNT );
+            Assert.assertTrue( index.add( record( COUNT ) ) );
+
+        }
+
+        try ( DigestIndex index = new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE ) ) {
+
+            checkContents( index, COUNT + 1 );
+
+        }
+
+    }
+
+    @Test
+    public void testNotALog()
+            throws IOException {
+
+        File logFile = tempLogFile();
+        Files.write( logFile.toPath(), "hello there".getBytes( StandardCharsets.UTF_8 ) );
+        try {
+
+            new DigestIndex( logFile, "MD5", ObtuseFiles.FsyncPolicy.NONE );
+            Assert.fail( "opened a file which isn't a digest index log" );
+
+        } catch ( IOException e ) {
+
+            Assert.assertTrue( Arrays.equals( "hello there".getBytes( StandardCharsets.UTF_8 ), Files.readAllBytes( logFile.toPath() ) ) );
+
+        }
+
+    }
+
+}
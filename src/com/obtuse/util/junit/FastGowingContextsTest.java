@@ -0,0 +1,330 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.gowing.*;
+import com.obtuse.util.gowing.p2a.GowingConstants;
+import com.obtuse.util.gowing.p2a.GowingEntityReference;
+import com.obtuse.util.gowing.p2a.GowingUnPackedEntityGroup;
+import com.obtuse.util.gowing.p2a.StdGowingPacker;
+import com.obtuse.util.gowing.p2a.StdGowingUnPacker;
+import com.obtuse.util.gowing.p2a.exceptions.GowingUnpackingException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ Unit test that the {@link FastGowingPackerContext} and {@link FastGowingUnPackerContext} classes
+ are drop-in replacements for the {@link StdGowingPackerContext} and {@link StdGowingUnPackerContext} classes.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class FastGowingContextsTest {
+
+    /**
+     A packable node with up to two outgoing references (which can be shared and can form cycles).
+     */
+
+    public static class Node extends GowingAbstractPackableEntity {
+
+        private static final EntityTypeName ENTITY_TYPE_NAME = new EntityTypeName( Node.class );
+
+        private static final int VERSION = 1;
+
+        private static final EntityName NAME = new EntityName( "_name" );
+
+        private static final EntityName LEFT = new EntityName( "_left" );
+
+        private static final EntityName RIGHT = new EntityName( "_right" );
+
+        public static final GowingEntityFactory FACTORY = new GowingEntityFactory( ENTITY_TYPE_NAME ) {
+
+            @Override
+            public int getOldestSupportedVersion() {
+
+                return VERSION;
+
+            }
+
+            @Override
+            public int getNewestSupportedVersion() {
+
+                return VERSION;
+
+            }
+
+            @Override
+            @NotNull
+            public GowingPackable createEntity(
+                    final @NotNull GowingUnPacker unPacker,
+                    final @NotNull GowingPackedEntityBundle bundle,
+                    final @NotNull GowingEntityReference er
+            ) {
+
+                return new Node( unPacker, bundle );
+
+            }
+
+        };
+
+        private final String _name;
+
+        private Node _left;
+
+        private Node _right;
+
+        private GowingEntityReference _leftReference;
+
+        private GowingEntityReference _rightReference;
+
+        private Node( final @NotNull String name ) {
+
+            super( new GowingNameMarkerThing() );
+
+            _name = name;
+
+        }
+
+        private Node( final @NotNull GowingUnPacker unPacker, final @NotNull GowingPackedEntityBundle bundle ) {
+
+            super( unPacker, bundle.getSuperBundle() );
+
+            _name = bundle.MandatoryStringValue( NAME );
+            _leftReference = bundle.getOptionalEntityReference( LEFT ).orElse( null );
+            _rightReference = bundle.getOptionalEntityReference( RIGHT ).orElse( null );
+
+        }
+
+        @NotNull
+        @Override
+        public GowingPackedEntityBundle bundleThyself( final boolean isPackingSuper, final @NotNull GowingPacker packer ) {
+
+            GowingPackedEntityBundle bundle = new GowingPackedEntityBundle(
+                    ENTITY_TYPE_NAME,
+                    VERSION,
+                    super.bundleRoot( packer ),
+                    packer.getPackingContext()
+            );
+
+            bundle.addStringHolder( NAME, _name, true );
+            bundle.addPackableEntityHolder( LEFT, _left, packer, false );
+            bundle.addPackableEntityHolder( RIGHT, _right, packer, false );
+
+            return bundle;
+
+        }
+
+        @Override
+        public boolean finishUnpacking( final @NotNull GowingUnPacker unPacker ) {
+
+            _left = (Node)unPacker.resolveReference( _leftReference ).orElse( null );
+            _right = (Node)unPacker.resolveReference( _rightReference ).orElse( null );
+
+            return true;
+
+        }
+
+        public String toString() {
+
+            return "Node( \"" + _name + "\" )";
+
+        }
+
+    }
+
+    @Before
+    public void setUp() {
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    /**
+     Build a graph of nodes with shared references, a self-loop, and a long cycle.
+     @return the nodes (in the order that they should be queued for packing).
+     */
+
+    private static List<Node> buildGraph() {
+
+        List<Node> nodes = new ArrayList<>();
+        for ( int ix = 0; ix < 200; ix += 1 ) {
+
+            nodes.add( new Node( "node " + ix ) );
+
+        }
+
+        Random random = new Random( 32L );
+        for ( int ix = 0; ix < nodes.size(); ix += 1 ) {
+
+            Node node = nodes.get( ix );
+
+            // A cycle through every node.
+
+            node._left = nodes.get( ( ix + 1 ) % nodes.size() );
+
+            // Lots of nodes share a few popular targets, some refer to themselves and some refer to nothing.
+
+            int what = random.nextInt( 4 );
+            node._right = what == 0 ? nodes.get( random.nextInt( 5 ) ) : what == 1 ? node : what == 2 ? nodes.get( random.nextInt( nodes.size() ) ) : null;
+
+        }
+
+        return nodes;
+
+    }
+
+    private static String pack( final @NotNull List<Node> nodes, final @NotNull GowingPackerContext packerContext ) {
+
+        StringWriter stringWriter = new StringWriter();
+        try (
+                StdGowingPacker packer = new StdGowingPacker(
+                        new EntityName( "FastGowingContextsTest" ),
+                        new File( "FastGowingContextsTest.p2a" ),
+                        new PrintWriter( stringWriter ),
+                        packerContext,
+                        false
+                )
+        ) {
+
+            // Only queue every third node - the rest get packed because they are referenced.
+
+            for ( int ix = 0; ix < nodes.size(); ix += 3 ) {
+
+                packer.queuePackableEntity( nodes.get( ix ) );
+
+            }
+
+            packer.finish();
+
+        }
+
+        // The packer records when the output was created so that line is the one thing which can legitimately differ.
+
+        StringBuilder sb = new StringBuilder();
+        for ( String line : stringWriter.toString().split( "\n", -1 ) ) {
+
+            if ( !line.contains( GowingConstants.METADATA_OUTPUT_ITS + "=" ) ) {
+
+                sb.append( line ).append( '\n' );
+
+            }
+
+        }
+
+        return sb.toString();
+
+    }
+
+    private static List<Node> unPack( final @NotNull String packed, final @NotNull GowingUnPackerContext unPackerContext )
+            throws IOException, GowingUnpackingException {
+
+        try (
+                StdGowingUnPacker unPacker = new StdGowingUnPacker(
+                        new File( "FastGowingContextsTest.p2a" ),
+                        new LineNumberReader( new StringReader( packed ) ),
+                        unPackerContext
+                )
+        ) {
+
+            unPacker.getUnPackerContext().registerFactory( Node.FACTORY );
+            GowingUnPackedEntityGroup group = unPacker.unPack();
+
+            List<Node> rval = new ArrayList<>();
+            for ( GowingPackable entity : group.getAllEntities() ) {
+
+                rval.add( (Node)entity );
+
+            }
+
+            return rval;
+
+        }
+
+    }
+
+    /**
+     Verify that an unpacked graph has the same shape as the original graph.
+     */
+
+    private static void verifyGraph( final @NotNull String what, final @NotNull List<Node> original, final @NotNull List<Node> roots ) {
+
+        // Find every unpacked node by following references from the top-level nodes.
+
+        Map<String, Node> unpacked = new HashMap<>();
+        Deque<Node> toDo = new ArrayDeque<>( roots );
+        while ( !toDo.isEmpty() ) {
+
+            Node node = toDo.removeFirst();
+            Node previous = unpacked.put( node._name, node );
+            if ( previous == null ) {
+
+                for ( Node next : new Node[]{ node._left, node._right } ) {
+
+                    if ( next != null ) {
+
+                        toDo.addLast( next );
+
+                    }
+
+                }
+
+            } else {
+
+                // Shared references must come back as the same object.
+
+                Assert.assertSame( what + ":  two copies of " + node._name, previous, node );
+
+            }
+
+        }
+
+        Assert.assertEquals( what, original.size(), unpacked.size() );
+        for ( Node node : original ) {
+
+            Node copy = unpacked.get( node._name );
+            Assert.assertNotNull( what + ":  " + node._name + " is missing", copy );
+            Assert.assertSame( what + ":  " + node._name + "'s left", unpacked.get( node._left._name ), copy._left );
+            Assert.assertSame( what + ":  " + node._name + "'s right", node._right == null ? null : unpacked.get( node._right._name ), copy._right );
+
+        }
+
+    }
+
+    @Test
+    public void testFastAndStdContextsAreInterchangeable() throws IOException, GowingUnpackingException {
+
+        List<Node> nodes = buildGraph();
+
+        String stdPacked = pack( nodes, new StdGowingPackerContext() );
+        String fastPacked = pack( nodes, new FastGowingPackerContext( 16 ) );
+        Assert.assertTrue( stdPacked.contains( "FastGowingContextsTest.Node" ) );
+        Assert.assertEquals( stdPacked, fastPacked );
+
+        // Packing the same graph again (with the same entity instance ids) still gives the same output.
+
+        Assert.assertEquals( stdPacked, pack( nodes, new FastGowingPackerContext() ) );
+
+        // Either unpacker can read either packer's output.
+
+        for ( String packed : new String[]{ stdPacked, fastPacked } ) {
+
+            verifyGraph( "std unpacker", nodes, unPack( packed, new StdGowingUnPackerContext( new GowingTypeIndex( "std" ) ) ) );
+            verifyGraph( "fast unpacker", nodes, unPack( packed, new FastGowingUnPackerContext( new GowingTypeIndex( "fast" ), 16 ) ) );
+
+        }
+
+    }
+
+}
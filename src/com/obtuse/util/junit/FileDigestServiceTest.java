@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.FileDigestService;
+import com.obtuse.util.MessageDigestRecord;
+import com.obtuse.util.ObtuseUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ Unit test the {@link FileDigestService} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class FileDigestServiceTest {
+
+    private static File tempFile( final byte[] contents )
+            throws IOException {
+
+        File file = File.createTempFile( "FileDigestServiceTest", ".bin" );
+        file.deleteOnExit();
+        Files.write( file.toPath(), contents );
+
+        // Make the file old enough that its digest can be remembered.
+
+        Assert.assertTrue( file.setLastModified( System.currentTimeMillis() - 60000L ) );
+
+        return file;
+
+    }
+
+    @Test
+    public void testDigestsMatchMessageDigest()
+            throws IOException, NoSuchAlgorithmException {
+
+        ExecutorService executor = Executors.newFixedThreadPool( 3 );
+        try {
+
+            FileDigestService service = new FileDigestService( null, executor );
+            List<File> files = new ArrayList<>();
+            List<byte[]> contents = new ArrayList<>();
+            for ( int length : new int[]{ 0, 1, 1000, 256 * 1024 - 1, 256 * 1024, 1000000 } ) {
+
+                byte[] bytes = new byte[length];
+                new Random( length ).nextBytes( bytes );
+                contents.add( bytes );
+                files.add( tempFile( bytes ) );
+
+            }
+
+            for ( FileDigestService.Algorithm algorithm : new FileDigestService.Algorithm[]{ FileDigestService.Algorithm.MD5, FileDigestService.Algorithm.SHA_256 } ) {
+
+                Map<File, MessageDigestRecord> digests = service.digestAll( files, algorithm );
+                Assert.assertEquals( files, new ArrayList<>( digests.keySet() ) );
+                for ( int ix = 0; ix < files.size(); ix += 1 ) {
+
+                    MessageDigestRecord record = digests.get( files.get( ix ) );
+                    Assert.assertEquals( algorithm.getName(), record.getAlgorithm() );
+                    Assert.assertArrayEquals( MessageDigest.getInstance( algorithm.getName() ).digest( contents.get( ix ) ), record.getDigest() );
+
+                }
+
+            }
+
+            Assert.assertEquals(
+                    ObtuseUtil.computeMD5( new ByteArrayInputStream( contents.get( 5 ) ) ),
+                    ObtuseUtil.computeMD5( files.get( 5 ) )
+            );
+
+        } finally {
+
+            executor.shutdown();
+
+        }
+
+    }
+
+    @Test
+    public void testXxh64KnownValues()
+            throws IOException {
+
+        Assert.assertEquals(
+                "ef46db3751d8e999",
+                ObtuseUtil.hexvalue( FileDigestService.computeDigest( tempFile( new byte[0] ), FileDigestService.Algorithm.XXH64 ) )
+        );
+
+        Assert.assertEquals(
+                "44bc2cf5ad770999",
+                ObtuseUtil.hexvalue( FileDigestService.computeDigest( tempFile( "abc".getBytes( StandardCharsets.UTF_8 ) ), FileDigestService.Algorithm.XXH64 ) )
+        );
+
+        // Large enough to be mapped and to use the 32 byte stripes.
+
+        byte[] bytes = new byte[300001];
+        new Random( 3 ).nextBytes( bytes );
+        byte[] digest = FileDigestService.computeDigest( tempFile( bytes ), FileDigestService.Algorithm.XXH64 );
+        Assert.assertEquals( 8, digest.length );
+        bytes[150000] += 1;
+        Assert.assertFalse( Arrays.equals( digest, FileDigestService.computeDigest( tempFile( bytes ), FileDigestService.Algorithm.XXH64 ) ) );
+
+    }
+
+    @Test
+    public void testCacheAvoidsRereadsAndPersists()
+            throws IOException {
+
+        File cacheFile = File.createTempFile( "FileDigestServiceTest", ".cache" );
+        cacheFile.deleteOnExit();
+        Assert.assertTrue( cacheFile.delete() );
+
+        File file = tempFile( "original contents".getBytes( StandardCharsets.UTF_8 ) );
+        long lastModified = file.lastModified();
+
+        FileDigestService service = new FileDigestService( cacheFile, ForkJoinPool.commonPool() );
+        byte[] original = service.digest( file, FileDigestService.Algorithm.SHA_256 ).getDigest();
+        Assert.assertEquals( 1, service.getCacheSize() );
+        service.save();
+
+        // Same size and last-modified time means that the file isn't read again (so this stale digest comes back).
+
+        Files.write( file.toPath(), "modified contents".getBytes( StandardCharsets.UTF_8 ) );
+        Assert.assertTrue( file.setLastModified( lastModified ) );
+        Assert.assertArrayEquals( original, service.digest( file, FileDigestService.Algorithm.SHA_256 ).getDigest() );
+
+        FileDigestService reloaded = new FileDigestService( cacheFile, ForkJoinPool.commonPool() );
+        Assert.assertEquals( 1, reloaded.getCacheSize() );
+        Assert.assertArrayEquals( original, reloaded.digest( file, FileDigestService.Algorithm.SHA_256 ).getDigest() );
+
+        // A new last-modified time means that the file is read again.
+
+        Assert.assertTrue( file.setLastModified( lastModified - 10000L ) );
+        Assert.assertFalse( Arrays.equals( original, reloaded.digest( file, FileDigestService.Algorithm.SHA_256 ).getDigest() ) );
+
+        // Recently modified files are digested but not remembered.
+
+        File fresh = File.createTempFile( "FileDigestServiceTest", ".bin" );
+        fresh.deleteOnExit();
+        service.digest( fresh, FileDigestService.Algorithm.MD5 );
+        Assert.assertEquals( 1, service.getCacheSize() );
+
+    }
+
+}
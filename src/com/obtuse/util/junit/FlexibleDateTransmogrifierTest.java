@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.FlexibleDateTransmogrifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ Check that the single-pass scanner in {@link FlexibleDateTransmogrifier} agrees with its patterns.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class FlexibleDateTransmogrifierTest {
+
+    private static final String[] PIECES = {
+            "0", "00", "1", "01", "9", "12", "13", "29", "31", "32", "123", "932", "0932", "1972", "19720",
+            "ma", "may", "MAY", "mar", "marc", "march", "sept", "sep", "September", "xyz", "<unknown>",
+            "-", ".", "/", ",", "_", "\t",
+    };
+
+    private static void checkAgreement( final String input ) {
+
+        Optional<String> viaPatterns = FlexibleDateTransmogrifier.transmogrifyUsingPatterns( input );
+        Assert.assertEquals( "input \"" + input + "\"", viaPatterns, FlexibleDateTransmogrifier.transmogrify( input ) );
+
+    }
+
+    @Test
+    public void testAgreementOnTestData() {
+
+        for ( String input : FlexibleDateTransmogrifier.getTestDataInputs() ) {
+
+            checkAgreement( input );
+
+        }
+
+    }
+
+    @Test
+    public void testAgreementOnRandomShapes() {
+
+        Random random = new Random( 1957L );
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 200000; i += 1 ) {
+
+            sb.setLength( 0 );
+            int pieceCount = 1 + random.nextInt( 6 );
+            for ( int p = 0; p < pieceCount; p += 1 ) {
+
+                int spaces = random.nextInt( 4 ) == 0 ? random.nextInt( 3 ) : p == 0 ? 0 : 1;
+                for ( int s = 0; s < spaces; s += 1 ) {
+
+                    sb.append( ' ' );
+
+                }
+
+                sb.append( PIECES[random.nextInt( PIECES.length )] );
+
+            }
+
+            checkAgreement( sb.toString() );
+
+        }
+
+    }
+
+    @Test
+    public void testInterpretations() {
+
+        Assert.assertEquals( Optional.of( "1957-10-04" ), FlexibleDateTransmogrifier.transmogrify( " 1957 - 10 - 4 " ) );
+        Assert.assertEquals( Optional.of( "1957-10" ), FlexibleDateTransmogrifier.transmogrify( "1957/10/00" ) );
+        Assert.assertEquals( Optional.of( "1957" ), FlexibleDateTransmogrifier.transmogrify( "1957.0.00" ) );
+        Assert.assertEquals( Optional.of( "1972-03-02" ), FlexibleDateTransmogrifier.transmogrify( "2 MAR 1972" ) );
+        Assert.assertEquals( Optional.of( "1972-03-02" ), FlexibleDateTransmogrifier.transmogrify( "1972 march 2" ) );
+        Assert.assertEquals( Optional.of( "1972-09-19" ), FlexibleDateTransmogrifier.transmogrify( "septeMber 19 , 1972" ) );
+        Assert.assertEquals( Optional.of( "1972-12" ), FlexibleDateTransmogrifier.transmogrify( "deCember 1972" ) );
+        Assert.assertEquals( Optional.empty(), FlexibleDateTransmogrifier.transmogrify( "19 57-10-4" ) );
+        Assert.assertEquals( Optional.empty(), FlexibleDateTransmogrifier.transmogrify( "1972.05-25" ) );
+        Assert.assertEquals( Optional.empty(), FlexibleDateTransmogrifier.transmogrify( "2 marc 1972" ) );
+
+    }
+
+}
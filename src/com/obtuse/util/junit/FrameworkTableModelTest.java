@@ -0,0 +1,258 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.ui.tableutils.CheckBoxRowWrapper;
+import com.obtuse.ui.tableutils.FrameworkTableModel;
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.things.ThingInfo;
+import com.obtuse.util.things.ThingName;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ Unit test the {@link FrameworkTableModel} class's row index.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class FrameworkTableModelTest {
+
+    private static class Thing implements ThingInfo {
+
+        private final String _description;
+
+        private Thing( final String description ) {
+
+            super();
+
+            _description = description;
+
+        }
+
+        public ThingName getThingName() {
+
+            return null;
+
+        }
+
+        public void setThingName( final @NotNull ThingName newName ) {
+
+            throw new UnsupportedOperationException( "Thing.setThingName:  not supported" );
+
+        }
+
+        public String getDescription() {
+
+            return _description;
+
+        }
+
+        public void setDescription( final @Nullable String description ) {
+
+            throw new UnsupportedOperationException( "Thing.setDescription:  not supported" );
+
+        }
+
+    }
+
+    private List<CheckBoxRowWrapper<Thing>> _everyWrapper;
+
+    @Before
+    public void setUp() {
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+        _everyWrapper = new ArrayList<>();
+
+    }
+
+    private CheckBoxRowWrapper<Thing> newWrapper( final FrameworkTableModel<Thing> model ) {
+
+        CheckBoxRowWrapper<Thing> wrapper = new CheckBoxRowWrapper<>( model, new Thing( "thing " + _everyWrapper.size() ) );
+        _everyWrapper.add( wrapper );
+
+        return wrapper;
+
+    }
+
+    /**
+     Verify that every wrapper that we've ever created is indexed at the first row that it appears in (or not at all).
+     */
+
+    private void verify( final FrameworkTableModel<Thing> model, final List<CheckBoxRowWrapper<Thing>> expectedRows ) {
+
+        Assert.assertEquals( expectedRows.size(), model.getRowCount() );
+        for ( int row = 0; row < expectedRows.size(); row += 1 ) {
+
+            Assert.assertSame( expectedRows.get( row ), model.getRowWrapper( row ) );
+
+        }
+
+        for ( CheckBoxRowWrapper<Thing> wrapper : _everyWrapper ) {
+
+            int expectedRow = -1;
+            for ( int row = 0; row < expectedRows.size(); row += 1 ) {
+
+                if ( expectedRows.get( row ) == wrapper ) {
+
+                    expectedRow = row;
+                    break;
+
+                }
+
+            }
+
+            Assert.assertEquals( wrapper.getRowData().getDescription(), expectedRow, model.getRowNumber( wrapper ) );
+
+        }
+
+    }
+
+    @Test
+    public void testRowNumbersAfterAppendsAndRemovals() {
+
+        FrameworkTableModel<Thing> model = new FrameworkTableModel<>( new ArrayList<>(), false, true );
+        List<CheckBoxRowWrapper<Thing>> expectedRows = new ArrayList<>();
+        verify( model, expectedRows );
+
+        // Rows are only ever appended (the first append also puts rows at the head of the table).
+
+        for ( int ix = 0; ix < 5; ix += 1 ) {
+
+            CheckBoxRowWrapper<Thing> wrapper = newWrapper( model );
+            model.addRowWrapper( wrapper );
+            expectedRows.add( wrapper );
+            verify( model, expectedRows );
+
+        }
+
+        List<CheckBoxRowWrapper<Thing>> batch = Arrays.asList( newWrapper( model ), newWrapper( model ), newWrapper( model ) );
+        model.addRowWrappers( batch );
+        expectedRows.addAll( batch );
+        verify( model, expectedRows );
+
+        // Remove from the head, the middle and the tail.
+
+        for ( int row : new int[]{ 0, 3, 5, 0 } ) {
+
+            model.removeRow( row );
+            expectedRows.remove( row );
+            verify( model, expectedRows );
+
+        }
+
+        model.removeRow( expectedRows.size() - 1 );
+        expectedRows.remove( expectedRows.size() - 1 );
+        verify( model, expectedRows );
+
+        // Several rows at once (removed in increasing order).
+
+        model.removeRows( Arrays.asList( 2, 0 ) );
+        expectedRows.remove( 2 );
+        expectedRows.remove( 0 );
+        verify( model, expectedRows );
+
+        model.clear();
+        expectedRows.clear();
+        verify( model, expectedRows );
+
+    }
+
+    @Test
+    public void testRowNumbersWithDuplicateWrappers() {
+
+        FrameworkTableModel<Thing> model = new FrameworkTableModel<>( new ArrayList<>(), false, true );
+        CheckBoxRowWrapper<Thing> a = newWrapper( model );
+        CheckBoxRowWrapper<Thing> b = newWrapper( model );
+        CheckBoxRowWrapper<Thing> c = newWrapper( model );
+
+        List<CheckBoxRowWrapper<Thing>> expectedRows = new ArrayList<>( Arrays.asList( a, b, a, c, b, a ) );
+        model.addRowWrappers( expectedRows );
+        verify( model, expectedRows );
+
+        model.addRowWrapper( c );
+        expectedRows.add( c );
+        verify( model, expectedRows );
+
+        // Removing a wrapper's first row moves its row number to its next appearance.
+
+        model.removeRow( 0 );
+        expectedRows.remove( 0 );
+        verify( model, expectedRows );
+
+        // Removing a later appearance leaves its row number alone.
+
+        model.removeRow( 3 );
+        expectedRows.remove( 3 );
+        verify( model, expectedRows );
+
+        // Keep removing from the head and the tail until there's nothing left.
+
+        Random random = new Random( 27L );
+        while ( !expectedRows.isEmpty() ) {
+
+            int row = random.nextInt( expectedRows.size() );
+            model.removeRow( row );
+            expectedRows.remove( row );
+            verify( model, expectedRows );
+
+        }
+
+    }
+
+    @Test
+    public void testRandomAppendsAndRemovals() {
+
+        FrameworkTableModel<Thing> model = new FrameworkTableModel<>( new ArrayList<>(), false, true );
+        List<CheckBoxRowWrapper<Thing>> expectedRows = new ArrayList<>();
+        Random random = new Random( 2027L );
+        for ( int round = 0; round < 300; round += 1 ) {
+
+            int what = random.nextInt( 4 );
+            if ( what == 0 && !expectedRows.isEmpty() ) {
+
+                int row = random.nextInt( expectedRows.size() );
+                model.removeRow( row );
+                expectedRows.remove( row );
+
+            } else if ( what == 1 && !expectedRows.isEmpty() ) {
+
+                // Append a wrapper which is already in the table.
+
+                CheckBoxRowWrapper<Thing> wrapper = expectedRows.get( random.nextInt( expectedRows.size() ) );
+                model.addRowWrapper( wrapper );
+                expectedRows.add( wrapper );
+
+            } else {
+
+                List<CheckBoxRowWrapper<Thing>> batch = new ArrayList<>();
+                for ( int ix = random.nextInt( 3 ); ix >= 0; ix -= 1 ) {
+
+                    batch.add( newWrapper( model ) );
+
+                }
+
+                model.addRowWrappers( batch );
+                expectedRows.addAll( batch );
+
+            }
+
+            verify( model, expectedRows );
+
+        }
+
+    }
+
+}
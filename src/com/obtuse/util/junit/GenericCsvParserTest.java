@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.GenericCsvParser;
+import com.obtuse.util.exceptions.SyntaxErrorException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ Check that parallel {@link GenericCsvParser}s agree with sequential ones.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class GenericCsvParserTest {
+
+    private static final String SAMPLE =
+            "name,\"quoted title\",n,n\n" +
+            "plain,\"esc\\\"aped\\n\",1,2\r\n" +
+            "\n" +
+            "crlf,\"last\"\r\n" +
+            "short\n" +
+            "trailing,comma,\n" +
+            "naïve,\"café\",3,4";
+
+    private static File writeTempFile( final String contents )
+            throws IOException {
+
+        File file = File.createTempFile( "GenericCsvParserTest", ".csv" );
+        file.deleteOnExit();
+        Files.write( file.toPath(), contents.getBytes( StandardCharsets.UTF_8 ) );
+
+        return file;
+
+    }
+
+    private static GenericCsvParser parseSequentially( final String contents )
+            throws SyntaxErrorException {
+
+        GenericCsvParser parser = new GenericCsvParser( "test", new BufferedReader( new StringReader( contents ) ) );
+        parser.parse();
+
+        return parser;
+
+    }
+
+    private static GenericCsvParser parseInParallel( final String contents )
+            throws IOException, SyntaxErrorException {
+
+        return GenericCsvParser.parseInParallel( "test", writeTempFile( contents ), StandardCharsets.UTF_8, null, ForkJoinPool.commonPool() );
+
+    }
+
+    private static List<SortedMap<String, String>> toList( final Iterable<SortedMap<String, String>> rows ) {
+
+        List<SortedMap<String, String>> rval = new ArrayList<>();
+        for ( SortedMap<String, String> row : rows ) {
+
+            rval.add( new TreeMap<>( row ) );
+
+        }
+
+        return rval;
+
+    }
+
+    private static void checkAgreement( final String contents, final Collection<String> titles )
+            throws IOException, SyntaxErrorException {
+
+        GenericCsvParser sequential = parseSequentially( contents );
+        GenericCsvParser parallel = parseInParallel( contents );
+
+        Assert.assertEquals( sequential.getLineCount(), parallel.getLineCount() );
+        Assert.assertEquals( toList( sequential ), toList( parallel ) );
+
+        for ( int lnum = 0; lnum <= sequential.getLineCount() + 1; lnum += 1 ) {
+
+            Assert.assertEquals( sequential.hasLine( lnum ), parallel.hasLine( lnum ) );
+            for ( String title : titles ) {
+
+                Assert.assertEquals( "line " + lnum + " " + title, sequential.getString( lnum, title ), parallel.getString( lnum, title ) );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testSample()
+            throws IOException, SyntaxErrorException {
+
+        checkAgreement( SAMPLE, Arrays.asList( "name", "quoted title", "n", "nope" ) );
+
+        GenericCsvParser parallel = parseInParallel( SAMPLE );
+        Assert.assertEquals( 6, parallel.getLineCount() );
+        Assert.assertEquals( "esc\"aped\n", parallel.getString( 1, "quoted title" ) );
+        Assert.assertEquals( "2", parallel.getString( 1, "n" ) );
+        Assert.assertEquals( "café", parallel.getString( 6, "quoted title" ) );
+        Assert.assertNull( parallel.getString( 2, "name" ) );
+        Assert.assertNull( parallel.getString( 4, "n" ) );
+
+        try {
+
+            parallel.parse();
+            Assert.fail( "parsed twice" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Expected.
+
+        }
+
+    }
+
+    @Test
+    public void testManyChunks()
+            throws IOException, SyntaxErrorException {
+
+        // Enough data that the file gets split into several chunks.
+
+        Random random = new Random( 4180L );
+        StringBuilder sb = new StringBuilder( "a,b,c\n" );
+        while ( sb.length() < 20 * 1024 * 1024 ) {
+
+            sb.append( random.nextInt() ).append( ",\"x" ).append( random.nextInt( 1000 ) ).append( "\\\\\"," ).append( random.nextLong() );
+            sb.append( random.nextInt( 10 ) == 0 ? "\r\n" : "\n" );
+
+        }
+
+        String contents = sb.toString();
+        GenericCsvParser sequential = parseSequentially( contents );
+        GenericCsvParser parallel = parseInParallel( contents );
+        Assert.assertEquals( sequential.getLineCount(), parallel.getLineCount() );
+
+        for ( int lnum = 1; lnum <= sequential.getLineCount(); lnum += 997 ) {
+
+            Assert.assertEquals( sequential.getString( lnum, "b" ), parallel.getString( lnum, "b" ) );
+            Assert.assertEquals( sequential.getString( lnum, "c" ), parallel.getString( lnum, "c" ) );
+
+        }
+
+        List<String> expected = sequential.stream( false, true ).map( row -> row.get( "c" ) ).collect( Collectors.toList() );
+        Assert.assertEquals( expected, parallel.stream( true, true ).map( row -> row.get( "c" ) ).collect( Collectors.toList() ) );
+        Assert.assertEquals( expected, sequential.stream( true, true ).map( row -> row.get( "c" ) ).collect( Collectors.toList() ) );
+
+        Set<String> unordered = parallel.stream( true, false ).map( row -> row.get( "c" ) ).collect( Collectors.toSet() );
+        Assert.assertEquals( new HashSet<>( expected ), unordered );
+
+        Spliterator<SortedMap<String, String>> spliterator = parallel.spliterator();
+        Assert.assertNotNull( spliterator.trySplit() );
+
+    }
+
+    @Test
+    public void testLoneCarriageReturns()
+            throws IOException, SyntaxErrorException {
+
+        // A carriage return right after a quoted field ends the record in sequential mode and whatever follows it is the next record.
+
+        String contents = "x,y\n\"a\"\rb,c\n";
+        checkAgreement( contents, Arrays.asList( "x", "y" ) );
+
+        GenericCsvParser parallel = parseInParallel( contents );
+        Assert.assertEquals( 2, parallel.getLineCount() );
+        Assert.assertEquals( "a", parallel.getString( 1, "x" ) );
+        Assert.assertEquals( "b", parallel.getString( 2, "x" ) );
+        Assert.assertEquals( "c", parallel.getString( 2, "y" ) );
+
+        for ( String special : new String[]{
+                "\"t\"\r\"itle\"\n\"a\"\r\"b\"\r\r,c\n",
+                "x,y\n\"a\",\"b\"\r\n\"c\"\r",
+                "x,y\nu\rv,\"w\rx\"\r\"\\r\"\rz\n"
+        } ) {
+
+            checkAgreement( special, Arrays.asList( "x", "y", "t", "itle" ) );
+
+        }
+
+        // Random lines built from quoted and unquoted fields with carriage returns scattered around them.
+
+        Random random = new Random( 3710L );
+        String[] pieces = { "\"q\"", "\"q\\r\"", "\"\r\"", "u", "u\ru", "", "\r", ",", "\n", "\r\n" };
+        for ( int round = 0; round < 200; round += 1 ) {
+
+            StringBuilder sb = new StringBuilder( "x,y,z\n" );
+            int length = random.nextInt( 40 );
+            for ( int ix = 0; ix < length; ix += 1 ) {
+
+                String piece = pieces[random.nextInt( pieces.length )];
+                if ( piece.startsWith( "\"" ) && sb.length() > 0 && "\r\n,".indexOf( sb.charAt( sb.length() - 1 ) ) < 0 ) {
+
+                    // Sequential mode doesn't allow a quoted field in the middle of another field.
+
+                    sb.append( ',' );
+
+                }
+
+                sb.append( piece );
+                if ( piece.startsWith( "\"" ) ) {
+
+                    sb.append( "\r,\n".charAt( random.nextInt( 3 ) ) );
+
+                }
+
+            }
+
+            checkAgreement( sb.toString(), Arrays.asList( "x", "y", "z" ) );
+
+        }
+
+    }
+
+    @Test
+    public void testSyntaxErrors()
+            throws IOException {
+
+        for ( String bad : new String[]{ "a,b\nc,\"unterminated\n", "a,b\nc,\"quoted\"junk\n", "a,b\nc,\"bad\\q\"\n" } ) {
+
+            try {
+
+                parseInParallel( bad );
+                Assert.fail( "parsed " + bad );
+
+            } catch ( SyntaxErrorException e ) {
+
+                Assert.assertTrue( e.getMessage(), e.getMessage().startsWith( "test line 1 has " ) );
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.gowing.GowingInstanceId;
+import com.obtuse.util.gowing.GowingPackable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ Unit test the {@link GowingInstanceId} class's id allocation from many threads at once.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class GowingInstanceIdTest {
+
+    private static final int THREAD_COUNT = 8;
+
+    private static final int IDS_PER_THREAD = 50 * 1000;
+
+    // Types which nobody else uses so that the threads below race to allocate their type ids.
+
+    private abstract static class FirstFreshType implements GowingPackable {
+    }
+
+    private abstract static class SecondFreshType implements GowingPackable {
+    }
+
+    private interface IdMaker {
+
+        GowingInstanceId make( int threadNumber, int ix );
+
+    }
+
+    /**
+     Have several threads make instance ids at the same time.
+     @return the instance ids made by each thread.
+     */
+
+    private static List<List<GowingInstanceId>> makeIds( final IdMaker idMaker ) throws InterruptedException {
+
+        List<List<GowingInstanceId>> rval = new ArrayList<>();
+        CountDownLatch startLine = new CountDownLatch( 1 );
+        Thread[] threads = new Thread[THREAD_COUNT];
+        Map<Thread, Throwable> failures = new ConcurrentHashMap<>();
+        for ( int t = 0; t < THREAD_COUNT; t += 1 ) {
+
+            List<GowingInstanceId> ids = new ArrayList<>( IDS_PER_THREAD );
+            rval.add( ids );
+            final int threadNumber = t;
+            threads[t] = new Thread(
+                    () -> {
+
+                        try {
+
+                            startLine.await();
+                            for ( int ix = 0; ix < IDS_PER_THREAD; ix += 1 ) {
+
+                                ids.add( idMaker.make( threadNumber, ix ) );
+
+                            }
+
+                        } catch ( Throwable e ) {
+
+                            failures.put( Thread.currentThread(), e );
+
+                        }
+
+                    }
+            );
+            threads[t].start();
+
+        }
+
+        startLine.countDown();
+        for ( Thread thread : threads ) {
+
+            thread.join();
+
+        }
+
+        Assert.assertEquals( "failures:  " + failures, 0, failures.size() );
+
+        return rval;
+
+    }
+
+    @Test
+    public void testEntityIdsAreUnique() throws InterruptedException {
+
+        List<List<GowingInstanceId>> idsByThread = makeIds(
+                ( threadNumber, ix ) -> ix % 2 == 0
+                        ? new GowingInstanceId( FirstFreshType.class )
+                        : new GowingInstanceId( "GowingInstanceIdTest.entityIds" )
+        );
+
+        Set<Long> entityIds = new HashSet<>();
+        for ( List<GowingInstanceId> ids : idsByThread ) {
+
+            Assert.assertEquals( IDS_PER_THREAD, ids.size() );
+            long previous = 0;
+            for ( GowingInstanceId id : ids ) {
+
+                Assert.assertTrue( "entity id " + id.getEntityId() + " is not positive", id.getEntityId() > 0 );
+                Assert.assertTrue( "duplicate entity id " + id.getEntityId(), entityIds.add( id.getEntityId() ) );
+
+                // Each thread sees increasing ids.
+
+                Assert.assertTrue( id.getEntityId() > previous );
+                previous = id.getEntityId();
+
+            }
+
+        }
+
+        Assert.assertEquals( THREAD_COUNT * IDS_PER_THREAD, entityIds.size() );
+
+    }
+
+    @Test
+    public void testTypeIdsAreStableAcrossThreads() throws InterruptedException {
+
+        // Every thread asks for the same handful of brand new type names (and classes) in a different order.
+
+        List<List<GowingInstanceId>> idsByThread = makeIds(
+                ( threadNumber, ix ) -> {
+
+                    int which = ( ix + threadNumber ) % 12;
+                    if ( which == 10 ) {
+
+                        return new GowingInstanceId( FirstFreshType.class );
+
+                    } else if ( which == 11 ) {
+
+                        return new GowingInstanceId( SecondFreshType.class );
+
+                    } else {
+
+                        return new GowingInstanceId( "GowingInstanceIdTest.type" + which );
+
+                    }
+
+                }
+        );
+
+        Map<String, Integer> typeIds = new HashMap<>();
+        for ( List<GowingInstanceId> ids : idsByThread ) {
+
+            for ( GowingInstanceId id : ids ) {
+
+                Integer typeId = typeIds.putIfAbsent( id.getTypeName(), id.getTypeId() );
+                if ( typeId != null ) {
+
+                    Assert.assertEquals( id.getTypeName(), typeId.intValue(), id.getTypeId() );
+
+                }
+
+            }
+
+        }
+
+        Assert.assertEquals( 12, typeIds.size() );
+        Assert.assertEquals( 12, new HashSet<>( typeIds.values() ).size() );
+        for ( Map.Entry<String, Integer> entry : typeIds.entrySet() ) {
+
+            Assert.assertEquals( entry.getValue(), GowingInstanceId.lookupTypeId( entry.getKey() ) );
+            Assert.assertEquals( entry.getKey(), GowingInstanceId.lookupTypeName( entry.getValue() ) );
+            Assert.assertEquals( entry.getValue().intValue(), GowingInstanceId.allocateTypeId( entry.getKey() ) );
+
+        }
+
+        Assert.assertEquals( FirstFreshType.class.getCanonicalName(), new GowingInstanceId( FirstFreshType.class ).getTypeName() );
+
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.ui.IndexCardBox;
+import com.obtuse.ui.SelectableIndexCard;
+import com.obtuse.ui.layout.LinearOrientation;
+import com.obtuse.util.BasicProgramConfigInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.awt.event.MouseEvent;
+import java.util.*;
+
+/**
+ Unit test the {@link IndexCardBox} class's card index and bulk selection methods.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class IndexCardBoxTest {
+
+    private static class Card extends JPanel implements SelectableIndexCard {
+
+        private final String _what;
+
+        private boolean _selected = false;
+
+        private int _selectionChanges = 0;
+
+        private Card( final String what ) {
+
+            super();
+
+            _what = what;
+
+        }
+
+        public void setSelected( final boolean isSelected ) {
+
+            _selected = isSelected;
+            _selectionChanges += 1;
+
+        }
+
+        public boolean isSelected() {
+
+            return _selected;
+
+        }
+
+        public boolean wereWeClicked( final MouseEvent mEvent ) {
+
+            return false;
+
+        }
+
+        public String getWhat() {
+
+            return _what;
+
+        }
+
+    }
+
+    @Before
+    public void setUp() {
+
+        // IndexCardBox logs selection changes.
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    private static void verifyIndices( final IndexCardBox<Card> box, final List<Card> expected, final Card gone ) {
+
+        Assert.assertEquals( expected.size(), box.getModelSize() );
+        for ( int ix = 0; ix < expected.size(); ix += 1 ) {
+
+            Assert.assertSame( expected.get( ix ), box.getModelElementAt( ix ) );
+            Assert.assertEquals( ix, box.getComponentIx( expected.get( ix ) ) );
+
+        }
+
+        if ( gone != null ) {
+
+            Assert.assertEquals( -1, box.getComponentIx( gone ) );
+
+        }
+
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+
+        IndexCardBox<Card> box = new IndexCardBox<>( "test", LinearOrientation.VERTICAL, b -> {} );
+        List<Card> expected = new ArrayList<>();
+        for ( int ix = 0; ix < 50; ix += 1 ) {
+
+            Card card = new Card( "card " + ix );
+            box.add( card );
+            expected.add( card );
+
+        }
+
+        verifyIndices( box, expected, null );
+
+        Card inserted = new Card( "inserted" );
+        box.add( inserted, 10 );
+        expected.add( 10, inserted );
+        verifyIndices( box, expected, null );
+
+        Card last = expected.remove( expected.size() - 1 );
+        box.remove( last );
+        verifyIndices( box, expected, last );
+
+        Card middle = expected.remove( 20 );
+        box.remove( middle );
+        verifyIndices( box, expected, middle );
+
+        Card moved = expected.remove( 30 );
+        expected.add( 0, moved );
+        box.setComponentZOrder( moved, 0 );
+        verifyIndices( box, expected, null );
+
+        box.removeAll();
+        verifyIndices( box, Collections.emptyList(), moved );
+
+    }
+
+    @Test
+    public void testBulkSelection() {
+
+        IndexCardBox<Card> box = new IndexCardBox<>( "test", LinearOrientation.VERTICAL, b -> {} );
+        List<Card> cards = new ArrayList<>();
+        for ( int ix = 0; ix < 100; ix += 1 ) {
+
+            Card card = new Card( "card " + ix );
+            box.add( card );
+            cards.add( card );
+
+        }
+
+        box.setSelectedValues( Arrays.asList( cards.get( 5 ), cards.get( 3 ), cards.get( 4 ), cards.get( 90 ), new Card( "stranger" ) ) );
+        Assert.assertArrayEquals( new int[]{ 3, 4, 5, 90 }, box.getSelectedIndices() );
+        Assert.assertEquals( Arrays.asList( cards.get( 3 ), cards.get( 4 ), cards.get( 5 ), cards.get( 90 ) ), box.getSelectedValuesList() );
+
+        // Cards outside the changed range are never told anything.
+
+        Assert.assertEquals( 0, cards.get( 50 )._selectionChanges );
+        for ( int ix = 0; ix < cards.size(); ix += 1 ) {
+
+            Assert.assertEquals( ix == 3 || ix == 4 || ix == 5 || ix == 90, cards.get( ix ).isSelected() );
+
+        }
+
+        box.removeSelectedValues( Collections.singletonList( cards.get( 4 ) ) );
+        box.addSelectedValues( Collections.singletonList( cards.get( 10 ) ) );
+        Assert.assertArrayEquals( new int[]{ 3, 5, 10, 90 }, box.getSelectedIndices() );
+        Assert.assertFalse( cards.get( 4 ).isSelected() );
+        Assert.assertTrue( cards.get( 10 ).isSelected() );
+
+        box.setSelectedValue( cards.get( 42 ), false );
+        Assert.assertArrayEquals( new int[]{ 42 }, box.getSelectedIndices() );
+        Assert.assertTrue( cards.get( 42 ).isSelected() );
+        Assert.assertFalse( cards.get( 90 ).isSelected() );
+
+        box.setSelectedIndices( new int[]{ 99, 98, 150, 97 } );
+        Assert.assertArrayEquals( new int[]{ 97, 98, 99 }, box.getSelectedIndices() );
+
+        box.selectAll();
+        Assert.assertEquals( 100, box.getSelectedIndices().length );
+        Assert.assertTrue( cards.get( 0 ).isSelected() );
+
+    }
+
+    @Test
+    public void testBulkSelectionEvents() {
+
+        IndexCardBox<Card> box = new IndexCardBox<>( "test", LinearOrientation.VERTICAL, b -> {} );
+        List<Card> cards = new ArrayList<>();
+        for ( int ix = 0; ix < 20; ix += 1 ) {
+
+            Card card = new Card( "card " + ix );
+            box.add( card );
+            cards.add( card );
+
+        }
+
+        int[] adjustingEvents = { 0 };
+        int[] finalEvents = { 0 };
+        box.addListSelectionListener(
+                e -> {
+
+                    if ( e.getValueIsAdjusting() ) {
+
+                        adjustingEvents[0] += 1;
+
+                    } else {
+
+                        finalEvents[0] += 1;
+
+                    }
+
+                }
+        );
+
+        box.setSelectedValues( Arrays.asList( cards.get( 3 ), cards.get( 4 ), cards.get( 5 ), cards.get( 10 ), cards.get( 12 ) ) );
+
+        // One adjusting event per run (the selection was already empty so clearing it changes nothing) and then one final event.
+
+        Assert.assertEquals( 3, adjustingEvents[0] );
+        Assert.assertEquals( 1, finalEvents[0] );
+        for ( int ix : new int[]{ 3, 4, 5, 10, 12 } ) {
+
+            Assert.assertEquals( 1, cards.get( ix )._selectionChanges );
+
+        }
+
+        // Clearing the selection deselects card 4 and then the run puts it back.
+        // Card 4 ends up where it started so it hears nothing although the model tells listeners about both changes.
+
+        adjustingEvents[0] = 0;
+        finalEvents[0] = 0;
+        box.setSelectedValues( Arrays.asList( cards.get( 4 ), cards.get( 15 ) ) );
+        Assert.assertArrayEquals( new int[]{ 4, 15 }, box.getSelectedIndices() );
+        Assert.assertEquals( 3, adjustingEvents[0] );
+        Assert.assertEquals( 1, finalEvents[0] );
+        Assert.assertEquals( 1, cards.get( 4 )._selectionChanges );
+        Assert.assertTrue( cards.get( 4 ).isSelected() );
+        for ( int ix : new int[]{ 3, 5, 10, 12, 15 } ) {
+
+            Assert.assertEquals( ix == 15 ? 1 : 2, cards.get( ix )._selectionChanges );
+            Assert.assertEquals( ix == 15, cards.get( ix ).isSelected() );
+
+        }
+
+        Assert.assertEquals( 0, cards.get( 0 )._selectionChanges );
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.IntLongSlotIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ Unit test the {@link IntLongSlotIndex} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class IntLongSlotIndexTest {
+
+    @Test
+    public void testSlotsAreDense() {
+
+        IntLongSlotIndex index = new IntLongSlotIndex();
+
+        Assert.assertTrue( index.isEmpty() );
+        Assert.assertEquals( -1, index.find( 1, 1L ) );
+
+        Assert.assertEquals( 0, index.findOrAdd( 1, 1L ) );
+        Assert.assertEquals( 1, index.findOrAdd( 2, 1L ) );
+        Assert.assertEquals( 2, index.findOrAdd( 1, 2L ) );
+        Assert.assertEquals( 0, index.findOrAdd( 1, 1L ) );
+        Assert.assertEquals( 3, index.size() );
+
+        Assert.assertEquals( 2, index.getIntKey( 1 ) );
+        Assert.assertEquals( 2L, index.getLongKey( 2 ) );
+
+        index.clear();
+        Assert.assertEquals( -1, index.find( 1, 1L ) );
+        Assert.assertEquals( 0, index.findOrAdd( 1, 2L ) );
+
+    }
+
+    @Test( expected = IndexOutOfBoundsException.class )
+    public void testUnassignedSlot() {
+
+        new IntLongSlotIndex().getIntKey( 0 );
+
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+
+        // Start small so that the index has to grow several times.
+
+        IntLongSlotIndex index = new IntLongSlotIndex( 0 );
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random( 42L );
+
+        for ( int i = 0; i < 100000; i += 1 ) {
+
+            int intKey = random.nextInt( 10 );
+            long longKey = random.nextInt( 50000 );
+            String key = intKey + ":" + longKey;
+
+            int before = index.size();
+            int slot = index.findOrAdd( intKey, longKey );
+            Integer expectedSlot = expected.get( key );
+            if ( expectedSlot == null ) {
+
+                Assert.assertEquals( before, slot );
+                expected.put( key, slot );
+
+            } else {
+
+                Assert.assertEquals( expectedSlot.intValue(), slot );
+
+            }
+
+        }
+
+        Assert.assertEquals( expected.size(), index.size() );
+        for ( Map.Entry<String, Integer> entry : expected.entrySet() ) {
+
+            int slot = entry.getValue();
+            Assert.assertEquals( entry.getKey(), index.getIntKey( slot ) + ":" + index.getLongKey( slot ) );
+            Assert.assertEquals( slot, index.find( index.getIntKey( slot ), index.getLongKey( slot ) ) );
+
+        }
+
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.kv.LayeredObtuseDictionary;
+import com.obtuse.util.kv.ObtuseDictionary;
+import com.obtuse.util.kv.ObtuseKeyword;
+import com.obtuse.util.kv.ObtuseKeywordValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ Unit test the {@link LayeredObtuseDictionary} class against {@link ObtuseDictionary#layerOver(String, Set, boolean, ObtuseDictionary)}.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class LayeredObtuseDictionaryTest {
+
+    private static final String[] KEYWORDS = { "HOST", "PORT", "USER", "TIMEOUT", "COLOUR", "MODE" };
+
+    private static ObtuseDictionary randomLayer( final Random random, final String layerName ) {
+
+        List<ObtuseKeywordValue> keywordValues = new ArrayList<>();
+        for ( String keyword : KEYWORDS ) {
+
+            switch ( random.nextInt( 3 ) ) {
+
+                case 0:
+                    break;
+
+                case 1:
+                    keywordValues.add( new ObtuseKeywordValue( new ObtuseKeyword( keyword ), null ) );
+                    break;
+
+                default:
+                    keywordValues.add( new ObtuseKeywordValue( new ObtuseKeyword( keyword ), layerName + "-" + keyword ) );
+                    break;
+
+            }
+
+        }
+
+        return new ObtuseDictionary( keywordValues );
+
+    }
+
+    private static List<String> describe( final Collection<ObtuseKeywordValue> keywordValues ) {
+
+        List<String> rval = new ArrayList<>();
+        for ( ObtuseKeywordValue keywordValue : keywordValues ) {
+
+            rval.add( keywordValue.getKeywordName() + "=" + keywordValue.getValue() );
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testMatchesPairwiseLayering() {
+
+        Random random = new Random( 46L );
+        Set<ObtuseKeyword> required = new HashSet<>( Arrays.asList( new ObtuseKeyword( "HOST" ), new ObtuseKeyword( "PORT" ) ) );
+        for ( int trial = 0; trial < 500; trial += 1 ) {
+
+            ObtuseDictionary defaults = randomLayer( random, "defaults" );
+            ObtuseDictionary site = randomLayer( random, "site" );
+            ObtuseDictionary user = randomLayer( random, "user" );
+            LayeredObtuseDictionary layered = new LayeredObtuseDictionary( "test", Arrays.asList( defaults, site, user ) );
+            LayeredObtuseDictionary.Resolved resolved = layered.resolve();
+
+            Collection<ObtuseKeywordValue> pairwise = user.layerOver(
+                    "test", Collections.emptySet(), false, new ObtuseDictionary( site.layerOver( "test", Collections.emptySet(), false, defaults ) )
+            );
+            Assert.assertEquals( describe( pairwise ), describe( resolved.getKeywordValues() ) );
+
+            for ( String keyword : KEYWORDS ) {
+
+                Optional<String> expected = Optional.empty();
+                for ( ObtuseKeywordValue keywordValue : pairwise ) {
+
+                    if ( keywordValue.getKeywordName().equals( keyword ) ) {
+
+                        expected = Optional.ofNullable( keywordValue.getValue() );
+
+                    }
+
+                }
+
+                Assert.assertEquals( expected, layered.getStringValue( keyword ) );
+
+            }
+
+            boolean pairwiseFailed = false;
+            Collection<ObtuseKeywordValue> pairwiseRequired = null;
+            try {
+
+                pairwiseRequired = user.layerOver(
+                        "test", required, true, new ObtuseDictionary( site.layerOver( "test", Collections.emptySet(), false, defaults ) )
+                );
+
+            } catch ( IllegalArgumentException e ) {
+
+                pairwiseFailed = true;
+
+            }
+
+            Assert.assertEquals( pairwiseFailed, resolved.findMissingKeyword( required ).isPresent() );
+            if ( !pairwiseFailed ) {
+
+                Assert.assertEquals( describe( pairwiseRequired ), describe( resolved.getKeywordValues( required, true ) ) );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testCachingAndInvalidation() {
+
+        ObtuseDictionary defaults = new ObtuseDictionary(
+                Arrays.asList( new ObtuseKeywordValue( new ObtuseKeyword( "HOST" ), "localhost" ), new ObtuseKeywordValue( new ObtuseKeyword( "PORT" ), "80" ) )
+        );
+        ObtuseDictionary site = new ObtuseDictionary( Collections.singletonList( new ObtuseKeywordValue( new ObtuseKeyword( "PORT" ), "8080" ) ) );
+        LayeredObtuseDictionary layered = new LayeredObtuseDictionary( "test", Arrays.asList( defaults, site ) );
+
+        LayeredObtuseDictionary.Resolved resolved = layered.resolve();
+        Assert.assertSame( resolved, layered.resolve() );
+        Assert.assertEquals( Optional.of( "8080" ), resolved.getStringValue( "PORT" ) );
+
+        layered.setLayer( 1, new ObtuseDictionary( Collections.singletonList( new ObtuseKeywordValue( new ObtuseKeyword( "PORT" ), "443" ) ) ) );
+        Assert.assertNotSame( resolved, layered.resolve() );
+        Assert.assertEquals( Optional.of( "443" ), layered.getStringValue( "PORT" ) );
+        Assert.assertEquals( Optional.of( "8080" ), resolved.getStringValue( "PORT" ) );
+
+        LayeredObtuseDictionary.Resolved request = layered.resolve().withTopLayer(
+                new ObtuseDictionary( Collections.singletonList( new ObtuseKeywordValue( new ObtuseKeyword( "USER" ), "fred" ) ) )
+        );
+        Assert.assertEquals( Optional.of( "fred" ), request.getStringValue( "USER" ) );
+        Assert.assertEquals( Optional.of( "localhost" ), request.getStringValue( "HOST" ) );
+        Assert.assertEquals( Optional.empty(), layered.getStringValue( "USER" ) );
+
+        Set<ObtuseKeyword> required = Collections.singleton( new ObtuseKeyword( "USER" ) );
+        try {
+
+            layered.resolve().getKeywordValues( required, false );
+            Assert.fail( "missing required keyword was not noticed" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            Assert.assertEquals( Optional.of( "USER" ), layered.resolve().findMissingKeyword( required ) );
+
+        }
+
+        Assert.assertEquals( Arrays.asList( "USER=fred" ), describe( request.getKeywordValues( required, true ) ) );
+
+    }
+
+    @Test
+    public void testTopLayersMatchFullResolution() {
+
+        // A view with one or two top layers must look exactly like resolving all of the layers from scratch.
+
+        Random random = new Random( 1046L );
+        Set<ObtuseKeyword> required = new HashSet<>( Arrays.asList( new ObtuseKeyword( "USER" ), new ObtuseKeyword( "MODE" ) ) );
+        for ( int trial = 0; trial < 500; trial += 1 ) {
+
+            ObtuseDictionary defaults = randomLayer( random, "defaults" );
+            ObtuseDictionary site = randomLayer( random, "site" );
+            ObtuseDictionary request = randomLayer( random, "request" );
+            ObtuseDictionary subRequest = randomLayer( random, "subRequest" );
+
+            LayeredObtuseDictionary.Resolved base = new LayeredObtuseDictionary( "test", Arrays.asList( defaults, site ) ).resolve();
+            List<String> baseBefore = describe( base.getKeywordValues() );
+
+            LayeredObtuseDictionary.Resolved oneTop = base.withTopLayer( request );
+            LayeredObtuseDictionary.Resolved twoTops = oneTop.withTopLayer( subRequest );
+            LayeredObtuseDictionary.Resolved[] expected = {
+                    new LayeredObtuseDictionary( "test", Arrays.asList( defaults, site, request ) ).resolve(),
+                    new LayeredObtuseDictionary( "test", Arrays.asList( defaults, site, request, subRequest ) ).resolve()
+            };
+            LayeredObtuseDictionary.Resolved[] actual = { oneTop, twoTops };
+
+            for ( int ix = 0; ix < actual.length; ix += 1 ) {
+
+                Assert.assertEquals( expected[ix].size(), actual[ix].size() );
+                Assert.assertEquals( describe( expected[ix].getKeywordValues() ), describe( actual[ix].getKeywordValues() ) );
+                for ( String keyword : KEYWORDS ) {
+
+                    Assert.assertEquals( expected[ix].getStringValue( keyword ), actual[ix].getStringValue( keyword ) );
+
+                }
+
+                Assert.assertEquals( expected[ix].findMissingKeyword( required ), actual[ix].findMissingKeyword( required ) );
+                if ( !expected[ix].findMissingKeyword( required ).isPresent() ) {
+
+                    Assert.assertEquals(
+                            describe( expected[ix].getKeywordValues( required, true ) ),
+                            describe( actual[ix].getKeywordValues( required, true ) )
+                    );
+
+                }
+
+            }
+
+            // The shared table underneath is left alone.
+
+            Assert.assertEquals( baseBefore, describe( base.getKeywordValues() ) );
+
+        }
+
+    }
+
+}
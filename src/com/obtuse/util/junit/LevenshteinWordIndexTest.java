@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.LevenshteinWordIndex;
+import com.obtuse.util.NounsList;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ Unit test the {@link LevenshteinWordIndex} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class LevenshteinWordIndexTest {
+
+    private static final String[] TARGETS = { "", "cat", "hat", "boulet", "elephant", "zzzzzz", "mountain", "rivr" };
+
+    /**
+     Find the answer the slow way.
+     */
+
+    private static List<String> bruteForce( final Collection<String> words, final String target, final int threshold, final int maxResults ) {
+
+        LevenshteinDistance ld = new LevenshteinDistance( threshold );
+        SortedSet<String> ordered = new TreeSet<>();
+        for ( String word : words ) {
+
+            int distance = ld.apply( target, word ).intValue();
+            if ( distance >= 0 ) {
+
+                // Zero-padding the distance makes the natural String ordering match Match.compareTo.
+
+                ordered.add( String.format( "%04d %s", distance, word ) );
+
+            }
+
+        }
+
+        List<String> rval = new ArrayList<>();
+        for ( String s : ordered ) {
+
+            if ( rval.size() == maxResults ) {
+
+                break;
+
+            }
+
+            rval.add( s );
+
+        }
+
+        return rval;
+
+    }
+
+    private static List<String> describe( final List<LevenshteinWordIndex.Match> matches ) {
+
+        List<String> rval = new ArrayList<>();
+        for ( LevenshteinWordIndex.Match match : matches ) {
+
+            rval.add( String.format( "%04d %s", match.getDistance(), match.getWord() ) );
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testEmptyIndex() {
+
+        LevenshteinWordIndex index = new LevenshteinWordIndex( new ArrayList<>() );
+
+        Assert.assertTrue( index.isEmpty() );
+        Assert.assertTrue( index.findClosest( "anything", 3, 10 ).isEmpty() );
+
+    }
+
+    @Test
+    public void testDuplicatesIndexedOnce() {
+
+        List<String> words = new ArrayList<>();
+        words.add( "cat" );
+        words.add( "hat" );
+        words.add( "cat" );
+
+        Assert.assertEquals( 2, new LevenshteinWordIndex( words ).size() );
+
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+
+        SortedSet<String> words = NounsList.getAllWords();
+        LevenshteinWordIndex index = new LevenshteinWordIndex( words );
+
+        for ( String target : TARGETS ) {
+
+            for ( int threshold = 0; threshold <= 4; threshold += 1 ) {
+
+                for ( int maxResults : new int[]{ 1, 5, 25, Integer.MAX_VALUE } ) {
+
+                    Assert.assertEquals(
+                            "target=\"" + target + "\", threshold=" + threshold + ", maxResults=" + maxResults,
+                            bruteForce( words, target, threshold, maxResults ),
+                            describe( index.findClosest( target, threshold, maxResults ) )
+                    );
+
+                }
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testCancellation() {
+
+        LevenshteinWordIndex index = new LevenshteinWordIndex( NounsList.getAllWords() );
+
+        Assert.assertTrue( index.findClosest( "cat", 100, 10, () -> true ).isEmpty() );
+
+    }
+
+}
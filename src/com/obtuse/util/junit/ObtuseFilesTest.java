@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.ObtuseFiles;
+import com.obtuse.util.ObtuseUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ Unit test the {@link ObtuseFiles} class and the {@link ObtuseUtil} file helpers which are built on it.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class ObtuseFilesTest {
+
+    @Before
+    public void setUp() {
+
+        // ObtuseUtil.copyFile logs how much it copied.
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    private static File tempFile()
+            throws IOException {
+
+        File file = File.createTempFile( "ObtuseFilesTest", ".bin" );
+        file.deleteOnExit();
+
+        return file;
+
+    }
+
+    private static byte[] randomBytes( final int length ) {
+
+        byte[] rval = new byte[length];
+        new Random( length ).nextBytes( rval );
+
+        return rval;
+
+    }
+
+    @Test
+    public void testReadWriteAndCopy()
+            throws IOException {
+
+        for ( int length : new int[]{ 0, 1, 65537, ObtuseFiles.MAPPED_READ_THRESHOLD + 3 } ) {
+
+            byte[] bytes = randomBytes( length );
+            File file = tempFile();
+            ObtuseFiles.writeFile( bytes, file, ObtuseFiles.FsyncPolicy.NONE );
+            Assert.assertArrayEquals( bytes, ObtuseFiles.readFile( file ) );
+            Assert.assertArrayEquals( Arrays.copyOf( bytes, Math.min( length, 10 ) ), ObtuseFiles.readFile( file, 10 ) );
+            Assert.assertArrayEquals( bytes, ObtuseUtil.readEntireFile( file, Integer.MAX_VALUE, true ) );
+
+            File copy = new File( file.getPath() + ".copy" );
+            copy.deleteOnExit();
+            Assert.assertTrue( ObtuseUtil.copyFile( file, copy, false ) );
+            Assert.assertArrayEquals( bytes, Files.readAllBytes( copy.toPath() ) );
+            Assert.assertFalse( ObtuseUtil.copyFile( file, copy, false ) );
+
+            try {
+
+                ObtuseFiles.copyFile( file, copy, ObtuseFiles.FsyncPolicy.FILE );
+                Assert.fail( "copied over an existing file" );
+
+            } catch ( FileAlreadyExistsException e ) {
+
+                Assert.assertEquals( length, copy.length() );
+
+            }
+
+            //noinspection ResultOfMethodCallIgnored
+            copy.delete();
+
+        }
+
+    }
+
+    @Test
+    public void testAppendAndAtomicWrite()
+            throws IOException {
+
+        File file = tempFile();
+        ObtuseFiles.writeAtomically( "old".getBytes( "UTF-8" ), file, ObtuseFiles.FsyncPolicy.FILE_AND_DIRECTORY );
+        Assert.assertTrue( ObtuseUtil.appendBytesToFile( " and more".getBytes( "UTF-8" ), file, true ) );
+        Assert.assertEquals( "old and more", new String( ObtuseFiles.readFile( file ), "UTF-8" ) );
+
+        ObtuseFiles.writeAtomically( "new".getBytes( "UTF-8" ), file, ObtuseFiles.FsyncPolicy.NONE );
+        Assert.assertEquals( "new", new String( ObtuseFiles.readFile( file ), "UTF-8" ) );
+
+        // No temporary files are left behind.
+
+        String[] leftovers = file.getAbsoluteFile().getParentFile().list( ( dir, name ) -> name.startsWith( "." + file.getName() ) );
+        Assert.assertNotNull( leftovers );
+        Assert.assertEquals( 0, leftovers.length );
+
+    }
+
+    @Test
+    public void testReadStreamDoesNotStopAtShortReads()
+            throws IOException {
+
+        byte[] bytes = randomBytes( 100000 );
+
+        // A stream which never returns more than 7 bytes at a time.
+
+        InputStream trickle = new InputStream() {
+
+            private int _position = 0;
+
+            @Override
+            public int read() {
+
+                return _position < bytes.length ? bytes[_position++] & 0xff : -1;
+
+            }
+
+            @Override
+            public int read( final byte[] b, final int off, final int len ) {
+
+                if ( _position == bytes.length ) {
+
+                    return -1;
+
+                }
+
+                int count = Math.min( Math.min( len, 7 ), bytes.length - _position );
+                System.arraycopy( bytes, _position, b, off, count );
+                _position += count;
+
+                return count;
+
+            }
+
+        };
+
+        Assert.assertArrayEquals( Arrays.copyOf( bytes, 50000 ), ObtuseUtil.readEntireStream( trickle, 50000, true ) );
+        Assert.assertArrayEquals( Arrays.copyOfRange( bytes, 50000, bytes.length ), ObtuseFiles.readStream( trickle, Integer.MAX_VALUE ) );
+
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.RandomCentral;
+import ec.util.MersenneTwisterFast;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ Unit test the {@link RandomCentral} class.
+ <p/>
+ {@link RandomCentral} is a singleton which can only be configured before it is first used so each test puts it back into the state that it is in
+ when the JVM starts.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class RandomCentralTest {
+
+    private static final int VALUES = 1000;
+
+    private static void setStaticField( final @NotNull String fieldName, final Object value )
+            throws ReflectiveOperationException {
+
+        Field field = RandomCentral.class.getDeclaredField( fieldName );
+        field.setAccessible( true );
+        field.set( null, value );
+
+    }
+
+    /**
+     Forget the singleton instance and how it was configured.
+     <p/>
+     Threads that have already used a non-secure generator keep it so everything which uses the per-thread generators runs on a new thread.
+     */
+
+    private static void resetRandomCentral()
+            throws ReflectiveOperationException {
+
+        setStaticField( "_ourInstance", null );
+        setStaticField( "s_seed", null );
+        setStaticField( "s_beSecure", true );
+
+        Field nextThreadStream = RandomCentral.class.getDeclaredField( "s_nextThreadStream" );
+        nextThreadStream.setAccessible( true );
+        ( (AtomicLong)nextThreadStream.get( null ) ).set( 0L );
+
+    }
+
+    @Before
+    public void setUp()
+            throws ReflectiveOperationException {
+
+        resetRandomCentral();
+
+    }
+
+    @After
+    public void tearDown()
+            throws ReflectiveOperationException {
+
+        resetRandomCentral();
+
+    }
+
+    @NotNull
+    private static <T> T onNewThread( final @NotNull Supplier<T> work )
+            throws InterruptedException {
+
+        AtomicReference<T> result = new AtomicReference<>();
+        Thread thread = new Thread( () -> result.set( work.get() ), "RandomCentralTest" );
+        thread.start();
+        thread.join();
+
+        Assert.assertNotNull( "work on new thread failed", result.get() );
+
+        return result.get();
+
+    }
+
+    @NotNull
+    private static long[] longsFrom( final @NotNull MersenneTwisterFast generator ) {
+
+        long[] values = new long[VALUES];
+        for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+            values[ix] = generator.nextLong();
+
+        }
+
+        return values;
+
+    }
+
+    /**
+     Use a non-secure {@link RandomCentral} with a given seed the way a fresh JVM would.
+
+     @param seed    the central seed.
+     @param useFill {@code true} if the first thread's values should come from the {@code fill} methods; {@code false} if they should come one at a time.
+     @return the values from a derived generator, the first thread's longs, the first thread's doubles (as bits) and the second thread's longs.
+     */
+
+    @NotNull
+    private static long[] seededRun( final long seed, final boolean useFill )
+            throws ReflectiveOperationException, InterruptedException {
+
+        resetRandomCentral();
+        RandomCentral.setBeSecure( false );
+        RandomCentral.setSeed( seed );
+
+        Assert.assertFalse( RandomCentral.areWeSecure() );
+        Assert.assertEquals( seed, RandomCentral.getSeed() );
+
+        try {
+
+            RandomCentral.setSeed( seed + 1 );
+            Assert.fail( "seed changed after the instance was created" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Just what we expected.
+
+        }
+
+        // A derived generator's values only depend on the seed and the stream number (not on the thread or on how many generators there are).
+
+        long[] derived = longsFrom( RandomCentral.newGenerator( 5L ) );
+        Assert.assertArrayEquals( derived, longsFrom( RandomCentral.newGenerator( 5L ) ) );
+        Assert.assertArrayEquals( derived, onNewThread( () -> longsFrom( RandomCentral.newGenerator( 5L ) ) ) );
+        Assert.assertFalse( Arrays.equals( derived, longsFrom( RandomCentral.newGenerator( 6L ) ) ) );
+        Assert.assertFalse( Arrays.equals( derived, longsFrom( RandomCentral.newGenerator( 5L << 32 ) ) ) );
+
+        // The per-thread generators depend on the order in which threads first ask for a value.
+
+        long[] firstThread = onNewThread(
+                () -> {
+
+                    long[] longs = new long[VALUES];
+                    double[] doubles = new double[VALUES];
+                    if ( useFill ) {
+
+                        RandomCentral.fill( longs );
+                        RandomCentral.fill( doubles );
+
+                    } else {
+
+                        for ( int ix = 0; ix < VALUES; ix += 1 ) {
+
+                            longs[ix] = RandomCentral.nextLong();
+
+                        }
+
+                        for ( int ix = 0; ix < VALUES; ix += 1 ) {
+
+                            doubles[ix] = RandomCentral.nextDouble();
+
+                        }
+
+                    }
+
+                    long[] rval = Arrays.copyOf( longs, 2 * VALUES );
+                    for ( int ix = 0; ix < VALUES; ix += 1 ) {
+
+                        Assert.assertTrue( doubles[ix] >= 0.0 && doubles[ix] < 1.0 );
+                        rval[VALUES + ix] = Double.doubleToLongBits( doubles[ix] );
+
+                    }
+
+                    return rval;
+
+                }
+        );
+
+        long[] secondThread = onNewThread(
+                () -> {
+
+                    long[] longs = new long[VALUES];
+                    RandomCentral.fill( longs );
+
+                    return longs;
+
+                }
+        );
+
+        Assert.assertFalse( Arrays.equals( Arrays.copyOf( firstThread, VALUES ), secondThread ) );
+        Assert.assertFalse( Arrays.equals( Arrays.copyOf( derived, VALUES ), secondThread ) );
+
+        long[] rval = Arrays.copyOf( derived, derived.length + firstThread.length + secondThread.length );
+        System.arraycopy( firstThread, 0, rval, derived.length, firstThread.length );
+        System.arraycopy( secondThread, 0, rval, derived.length + firstThread.length, secondThread.length );
+
+        return rval;
+
+    }
+
+    @Test
+    public void testSeededRunsAreReproducible()
+            throws ReflectiveOperationException, InterruptedException {
+
+        long[] first = seededRun( 1044L, true );
+
+        Assert.assertArrayEquals( first, seededRun( 1044L, true ) );
+
+        // Filling an array gives the same values as asking for them one at a time.
+
+        Assert.assertArrayEquals( first, seededRun( 1044L, false ) );
+
+        Assert.assertFalse( Arrays.equals( first, seededRun( 1045L, true ) ) );
+
+    }
+
+    @Test
+    public void testSecureMode()
+            throws InterruptedException {
+
+        Assert.assertTrue( RandomCentral.areWeSecure() );
+
+        try {
+
+            RandomCentral.newGenerator( 5L );
+            Assert.fail( "derived generator in secure mode" );
+
+        } catch ( IllegalStateException e ) {
+
+            // Just what we expected.
+
+        }
+
+        try {
+
+            RandomCentral.getSeed();
+            Assert.fail( "seed in secure mode" );
+
+        } catch ( IllegalStateException e ) {
+
+            // Just what we expected.
+
+        }
+
+        try {
+
+            RandomCentral.setBeSecure( false );
+            Assert.fail( "mode changed after the instance was created" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Just what we expected.
+
+        }
+
+        long[] longs = new long[VALUES];
+        RandomCentral.fill( longs );
+        Assert.assertTrue( Arrays.stream( longs ).distinct().count() > VALUES - 2 );
+
+        double[] doubles = onNewThread(
+                () -> {
+
+                    double[] values = new double[VALUES];
+                    RandomCentral.fill( values );
+
+                    return values;
+
+                }
+        );
+
+        for ( double value : doubles ) {
+
+            Assert.assertTrue( value >= 0.0 && value < 1.0 );
+
+        }
+
+    }
+
+}
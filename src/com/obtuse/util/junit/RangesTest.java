@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.Range;
+import com.obtuse.util.RangeFactory;
+import com.obtuse.util.Ranges;
+import com.obtuse.util.exceptions.RejectRangeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ Unit test the {@link Ranges} class's adds and overlap queries against brute force.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class RangesTest {
+
+    private static final RangeFactory<Integer> FACTORY = ( sortedByStartValue, sortedByEndValue ) -> range(
+            sortedByStartValue.firstKey(),
+            sortedByEndValue.lastKey()
+    );
+
+    private static Range<Integer> range( final int start, final int end ) {
+
+        return new Range<>( start, end, start, end );
+
+    }
+
+    private static List<String> describe( final Iterable<Range<Integer>> ranges ) {
+
+        List<String> rval = new ArrayList<>();
+        for ( Range<Integer> r : ranges ) {
+
+            rval.add( r.formatRange() );
+
+        }
+
+        return rval;
+
+    }
+
+    /**
+     Compute what the ranges should be by marking each covered value.
+     */
+
+    private static List<String> expected( final List<Range<Integer>> added, final int limit ) {
+
+        boolean[] covered = new boolean[limit + 2];
+        for ( Range<Integer> r : added ) {
+
+            for ( int v = r.getStartValue(); v <= r.getEndValue(); v += 1 ) {
+
+                covered[v] = true;
+
+            }
+
+        }
+
+        List<String> rval = new ArrayList<>();
+        int v = 0;
+        while ( v <= limit ) {
+
+            if ( covered[v] ) {
+
+                int start = v;
+                while ( covered[v + 1] ) {
+
+                    v += 1;
+
+                }
+
+                rval.add( range( start, v ).formatRange() );
+
+            }
+
+            v += 1;
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testAddsAndQueriesMatchBruteForce()
+            throws RejectRangeException {
+
+        Random random = new Random( 45L );
+        for ( int trial = 0; trial < 50; trial += 1 ) {
+
+            int limit = 2000;
+            List<Range<Integer>> added = new ArrayList<>();
+            Ranges<Integer> oneAtATime = new Ranges<>( FACTORY );
+            for ( int ix = 0; ix < 100; ix += 1 ) {
+
+                int start = random.nextInt( limit - 20 );
+                Range<Integer> r = range( start, start + random.nextInt( 20 ) );
+                added.add( r );
+                oneAtATime.add( r );
+
+            }
+
+            List<String> expected = expected( added, limit );
+            Assert.assertEquals( expected, describe( oneAtATime ) );
+
+            Ranges<Integer> bulk = new Ranges<>( FACTORY ).addAll( added );
+            Assert.assertEquals( expected, describe( bulk ) );
+
+            Ranges<Integer> halves = new Ranges<>( FACTORY ).addAll( added.subList( 0, 50 ) );
+            halves.union( new Ranges<>( FACTORY ).addAll( added.subList( 50, 100 ) ) );
+            Assert.assertEquals( expected, describe( halves ) );
+
+            for ( int query = 0; query < 200; query += 1 ) {
+
+                int start = random.nextInt( limit );
+                Range<Integer> probe = range( start, start + random.nextInt( 40 ) );
+                List<Range<Integer>> overlapping = new ArrayList<>();
+                for ( Range<Integer> r : oneAtATime ) {
+
+                    if ( r.overlaps( probe ) ) {
+
+                        overlapping.add( r );
+
+                    }
+
+                }
+
+                Assert.assertEquals( describe( overlapping ), describe( oneAtATime.getOverlappingRanges( probe ) ) );
+                Assert.assertEquals( describe( overlapping ), describe( oneAtATime.getOverlappingDateRanges( probe, FACTORY ) ) );
+                Assert.assertEquals( !overlapping.isEmpty(), oneAtATime.hasOverlappedRanges( probe ) );
+
+            }
+
+        }
+
+    }
+
+}
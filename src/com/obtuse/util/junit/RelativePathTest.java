@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.names.AbsolutePath;
+import com.obtuse.util.names.RelativePath;
+import com.obtuse.util.names.SegmentName;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ Unit test the trie-backed {@link RelativePath} and {@link AbsolutePath} classes.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class RelativePathTest {
+
+    @Before
+    public void setUp() {
+
+        // AbsolutePath.makeRelative logs what it did.
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    /**
+     The hash code that {@link RelativePath#hashCode()} has always returned.
+     */
+
+    private static int oldHashCode( final RelativePath path ) {
+
+        int hc = 0;
+        int offset = 0;
+        for ( SegmentName sn : path ) {
+
+            hc ^= Integer.rotateLeft( sn.hashCode(), offset );
+            offset += ( hc & 3 ) + 1;
+
+        }
+
+        return hc;
+
+    }
+
+    @Test
+    public void testEqualityAndInterning() {
+
+        RelativePath a = new RelativePath( "usr", "local", "lib" );
+        RelativePath b = RelativePath.concat( new RelativePath( "usr", "local" ), "lib" );
+        AbsolutePath c = new AbsolutePath( "usr", "local", "lib" );
+
+        Assert.assertEquals( a, b );
+        Assert.assertEquals( a.hashCode(), b.hashCode() );
+        Assert.assertEquals( oldHashCode( a ), a.hashCode() );
+        Assert.assertEquals( oldHashCode( c ), c.hashCode() );
+        Assert.assertFalse( a.equals( c ) );
+        Assert.assertEquals( "{usr->local->lib}", a.toString() );
+        Assert.assertEquals( "{[root]->usr->local->lib}", c.toString() );
+
+        Assert.assertSame( a.intern(), b.intern() );
+        Assert.assertSame( a.intern(), a.intern().intern() );
+        Assert.assertNotSame( a.intern(), c.intern() );
+        Assert.assertTrue( c.intern() instanceof AbsolutePath );
+
+        // Segment names which contain the separator no longer make different paths look equal.
+
+        Assert.assertFalse( new RelativePath( "a->b" ).equals( new RelativePath( "a", "b" ) ) );
+
+    }
+
+    @Test
+    public void testNavigation() {
+
+        AbsolutePath path = new AbsolutePath( "usr", "local", "lib" );
+        RelativePath parent = path.getParent();
+        Assert.assertEquals( new AbsolutePath( "usr", "local" ), parent );
+        Assert.assertTrue( parent instanceof AbsolutePath );
+        Assert.assertSame( parent, parent.getChild( "lib" ).getParent() );
+        Assert.assertEquals( path, parent.getChild( "lib" ) );
+
+        Assert.assertEquals( AbsolutePath.ABSOLUTE_ROOT_PATH, new AbsolutePath( "usr" ).getParent() );
+        Assert.assertNull( AbsolutePath.ABSOLUTE_ROOT_PATH.getParent() );
+        Assert.assertNull( new RelativePath( new SegmentName[0] ).getParent() );
+        Assert.assertEquals( new RelativePath( new SegmentName[0] ), new RelativePath( "x" ).getParent() );
+
+        try {
+
+            new RelativePath( "x" ).getChild( SegmentName.ROOT_SEGMENT );
+            Assert.fail( "root segment accepted as a child" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Expected.
+
+        }
+
+        Assert.assertTrue( path.startsWith( path ) );
+        Assert.assertTrue( path.startsWith( parent ) );
+        Assert.assertTrue( path.startsWith( AbsolutePath.ABSOLUTE_ROOT_PATH ) );
+        Assert.assertFalse( parent.startsWith( path ) );
+        Assert.assertFalse( path.startsWith( new AbsolutePath( "usr", "lib" ) ) );
+        Assert.assertFalse( path.startsWith( new RelativePath( "usr" ) ) );
+        Assert.assertTrue( new RelativePath( "a", "b" ).startsWith( new RelativePath( new SegmentName[0] ) ) );
+
+    }
+
+    @Test
+    public void testConcat() {
+
+        RelativePath tail = new RelativePath( "b", "c" );
+        Assert.assertEquals( new RelativePath( "a", "b", "c" ), RelativePath.concat( new RelativePath( "a" ), tail ) );
+        Assert.assertEquals( new AbsolutePath( "a", "b", "c" ), AbsolutePath.concat( new AbsolutePath( "a" ), tail ) );
+        Assert.assertEquals( new AbsolutePath( "b", "c" ), RelativePath.concat( new RelativePath( new SegmentName[0] ), new AbsolutePath( "b", "c" ) ) );
+        Assert.assertEquals( new AbsolutePath( "b", "c" ), RelativePath.concat( AbsolutePath.ABSOLUTE_ROOT_PATH, new AbsolutePath( "b", "c" ) ) );
+        Assert.assertEquals( new AbsolutePath( "a", "b" ), RelativePath.concat( new AbsolutePath( "a" ), new SegmentName( "b" ) ) );
+        Assert.assertEquals( new RelativePath( "a" ), new AbsolutePath( "a" ).makeRelative() );
+
+        try {
+
+            RelativePath.concat( new AbsolutePath( "a" ), new AbsolutePath( "b" ) );
+            Assert.fail( "absolute path concatenated onto a non-trivial absolute path" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Expected.
+
+        }
+
+        try {
+
+            RelativePath.concat( new RelativePath( "a" ), new AbsolutePath( "b" ) );
+            Assert.fail( "absolute path concatenated onto a non-empty relative path" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Expected.
+
+        }
+
+    }
+
+    @Test
+    public void testOrderingMatchesSegmentComparison() {
+
+        Random random = new Random( 47L );
+        String[] names = { "a", "b", "c", "aa", "ab" };
+        List<RelativePath> paths = new ArrayList<>();
+        for ( int ix = 0; ix < 300; ix += 1 ) {
+
+            String[] segments = new String[random.nextInt( 5 )];
+            for ( int jx = 0; jx < segments.length; jx += 1 ) {
+
+                segments[jx] = names[random.nextInt( names.length )];
+
+            }
+
+            paths.add( random.nextBoolean() ? new AbsolutePath( segments ) : new RelativePath( segments ) );
+
+        }
+
+        for ( RelativePath left : paths ) {
+
+            for ( RelativePath right : paths ) {
+
+                Assert.assertEquals( left + " vs " + right, Integer.signum( segmentWiseCompare( left, right ) ), Integer.signum( left.compareTo( right ) ) );
+                Assert.assertEquals( left + " vs " + right, left.toString().equals( right.toString() ), left.equals( right ) );
+                Assert.assertEquals( left + " vs " + right, isSegmentPrefix( right, left ), left.startsWith( right ) );
+
+            }
+
+        }
+
+    }
+
+    private static int segmentWiseCompare( final RelativePath left, final RelativePath right ) {
+
+        if ( left.isAbsolute() != right.isAbsolute() ) {
+
+            return left.isAbsolute() ? 1 : -1;
+
+        }
+
+        List<SegmentName> leftNames = left.getNames();
+        List<SegmentName> rightNames = right.getNames();
+        for ( int ix = 0; ix < leftNames.size() && ix < rightNames.size(); ix += 1 ) {
+
+            int rval = leftNames.get( ix ).compareTo( rightNames.get( ix ) );
+            if ( rval != 0 ) {
+
+                return rval;
+
+            }
+
+        }
+
+        return leftNames.size() - rightNames.size();
+
+    }
+
+    private static boolean isSegmentPrefix( final RelativePath prefix, final RelativePath path ) {
+
+        return prefix.isAbsolute() == path.isAbsolute() &&
+               prefix.size() <= path.size() &&
+               path.getNames().subList( 0, prefix.size() ).equals( prefix.getNames() );
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.ui.RingBufferListModel;
+import com.obtuse.ui.SearchableLinesListModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.*;
+
+/**
+ Unit test the {@link RingBufferListModel} and {@link SearchableLinesListModel} classes.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class RingBufferListModelTest {
+
+    private static List<Integer> range( final int from, final int to ) {
+
+        List<Integer> rval = new ArrayList<>();
+        for ( int ix = from; ix < to; ix += 1 ) {
+
+            rval.add( ix );
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testMatchesSlidingWindow() {
+
+        Random random = new Random( 48L );
+        RingBufferListModel<Integer> model = new RingBufferListModel<>( 10 );
+        List<String> events = new ArrayList<>();
+        model.addListDataListener(
+                new ListDataListener() {
+
+                    public void intervalAdded( final ListDataEvent e ) {
+
+                        events.add( "+" + e.getIndex0() + "-" + e.getIndex1() );
+
+                    }
+
+                    public void intervalRemoved( final ListDataEvent e ) {
+
+                        events.add( "-" + e.getIndex0() + "-" + e.getIndex1() );
+
+                    }
+
+                    public void contentsChanged( final ListDataEvent e ) {
+
+                        events.add( "?" );
+
+                    }
+
+                }
+        );
+
+        LinkedList<Integer> expected = new LinkedList<>();
+        int next = 0;
+        for ( int round = 0; round < 200; round += 1 ) {
+
+            int batchSize = random.nextInt( 15 );
+            events.clear();
+            model.addAll( range( next, next + batchSize ) );
+            int oldSize = expected.size();
+            for ( int ix = next; ix < next + batchSize; ix += 1 ) {
+
+                expected.addLast( ix );
+
+            }
+
+            while ( expected.size() > 10 ) {
+
+                expected.removeFirst();
+
+            }
+
+            next += batchSize;
+
+            Assert.assertEquals( expected, model.toList() );
+            Assert.assertTrue( events.size() <= 2 );
+            if ( batchSize > 0 ) {
+
+                int discarded = oldSize + Math.min( batchSize, 10 ) - expected.size();
+                Assert.assertEquals( "+" + ( expected.size() - Math.min( batchSize, 10 ) ) + "-" + ( expected.size() - 1 ), events.get( events.size() - 1 ) );
+                Assert.assertEquals( discarded > 0, events.size() == 2 );
+
+            }
+
+            for ( int ix = 0; ix < expected.size(); ix += 1 ) {
+
+                Assert.assertEquals( expected.get( ix ), model.getElementAt( ix ) );
+                Assert.assertEquals( (long)expected.get( ix ), model.getSequenceNumber( ix ) );
+                Assert.assertEquals( ix, model.getIndex( expected.get( ix ) ) );
+
+            }
+
+            if ( !expected.isEmpty() ) {
+
+                Assert.assertEquals( -1, model.getIndex( expected.getFirst() - 1 ) );
+
+            }
+
+        }
+
+        model.clear();
+        Assert.assertEquals( 0, model.getSize() );
+        Assert.assertEquals( -1, model.getIndex( next - 1 ) );
+
+    }
+
+    @Test
+    public void testWordIndex() {
+
+        SearchableLinesListModel model = new SearchableLinesListModel( 3 );
+        model.addAll( Arrays.asList( "Disk full on /dev/sda1", "disk ok", "network DOWN, disk full" ) );
+
+        Assert.assertArrayEquals( new int[]{ 0, 2 }, model.findLinesWithWords( "full DISK" ) );
+        Assert.assertArrayEquals( new int[]{ 0, 1, 2 }, model.findLinesWithWords( "disk" ) );
+        Assert.assertArrayEquals( new int[0], model.findLinesWithWords( "disk missing" ) );
+        Assert.assertArrayEquals( new int[]{ 0, 1, 2 }, model.findLinesWithWords( "  " ) );
+        Assert.assertArrayEquals( new int[]{ 0 }, model.findLinesContaining( "DEV/S" ) );
+        Assert.assertEquals( 2, model.findNextLineWithWords( "full", 0 ) );
+        Assert.assertEquals( 0, model.findNextLineWithWords( "full", 2 ) );
+        Assert.assertEquals( -1, model.findNextLineWithWords( "nothing", -1 ) );
+
+        // The oldest line goes away, and so do the words that only it contained.
+
+        model.add( "all quiet" );
+        Assert.assertArrayEquals( new int[]{ 1 }, model.findLinesWithWords( "full" ) );
+        Assert.assertArrayEquals( new int[0], model.findLinesWithWords( "sda1" ) );
+        Assert.assertArrayEquals( new int[]{ 2 }, model.findLinesWithWords( "quiet" ) );
+
+        model.clear();
+        Assert.assertEquals( 0, model.getIndexedWordCount() );
+
+    }
+
+}
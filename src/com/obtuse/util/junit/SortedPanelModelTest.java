@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.ui.entitySorter.*;
+import com.obtuse.util.BasicProgramConfigInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.awt.Component;
+import java.awt.event.ContainerAdapter;
+import java.awt.event.ContainerEvent;
+import java.util.*;
+
+/**
+ Unit test the {@link SortedPanelModel} class's batched sorting key changes.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class SortedPanelModelTest {
+
+    private static class Word implements SortableEntity {
+
+        private final String _word;
+
+        private Word( final String word ) {
+
+            super();
+
+            _word = word;
+
+        }
+
+        @Override
+        public <K extends Comparable<K>, E extends SortableEntity> SortableEntityView<K, E> createEntityView(
+                final SortedPanelModel<K, E> panelModel,
+                final K key
+        ) {
+
+            @SuppressWarnings("unchecked") SortableEntityView<K, E> rval = (SortableEntityView<K, E>)new WordView( this, (String)key );
+
+            return rval;
+
+        }
+
+    }
+
+    private static class WordView extends JLabel implements SortableEntityView<String, Word> {
+
+        private final Word _entity;
+
+        private String _key;
+
+        private WordView( final Word entity, final String key ) {
+
+            super( entity._word );
+
+            _entity = entity;
+
+            _key = key;
+
+        }
+
+        public String getActiveKey() {
+
+            return _key;
+
+        }
+
+        public void setActiveKey( final String key ) {
+
+            _key = key;
+
+        }
+
+        public Word getEntity() {
+
+            return _entity;
+
+        }
+
+    }
+
+    @Before
+    public void setUp() {
+
+        // SortedPanelModel traces what it does.
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    private static void assertLis( final int[] values, final int expectedLength ) {
+
+        boolean[] inLis = SortedPanelModel.longestIncreasingSubsequence( values );
+        Assert.assertEquals( values.length, inLis.length );
+
+        int length = 0;
+        int previous = Integer.MIN_VALUE;
+        for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+            if ( inLis[ix] ) {
+
+                Assert.assertTrue( Arrays.toString( values ) + " subsequence is not strictly increasing at " + ix, length == 0 || values[ix] > previous );
+                previous = values[ix];
+                length += 1;
+
+            }
+
+        }
+
+        Assert.assertEquals( Arrays.toString( values ), expectedLength, length );
+
+    }
+
+    @Test
+    public void testLongestIncreasingSubsequence() {
+
+        assertLis( new int[0], 0 );
+        assertLis( new int[]{ 7 }, 1 );
+        assertLis( new int[]{ 0, 1, 2, 3, 4 }, 5 );
+        assertLis( new int[]{ 4, 3, 2, 1, 0 }, 1 );
+        assertLis( new int[]{ 2, 2, 2, 2 }, 1 );
+        assertLis( new int[]{ 1, 3, 3, 2, 4, 4, 5 }, 4 );
+        assertLis( new int[]{ 3, 0, 2, 4, 1 }, 3 );
+
+        Assert.assertEquals(
+                "[false, true, true, true, false]",
+                Arrays.toString( SortedPanelModel.longestIncreasingSubsequence( new int[]{ 3, 0, 2, 4, 1 } ) )
+        );
+
+        // Compare the length against a quadratic dynamic programming solution.
+
+        Random random = new Random( 26L );
+        for ( int round = 0; round < 200; round += 1 ) {
+
+            int[] values = new int[random.nextInt( 30 )];
+            for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+                values[ix] = random.nextInt( 10 );
+
+            }
+
+            int[] lengths = new int[values.length];
+            int best = 0;
+            for ( int ix = 0; ix < values.length; ix += 1 ) {
+
+                lengths[ix] = 1;
+                for ( int jx = 0; jx < ix; jx += 1 ) {
+
+                    if ( values[jx] < values[ix] ) {
+
+                        lengths[ix] = Math.max( lengths[ix], lengths[jx] + 1 );
+
+                    }
+
+                }
+
+                best = Math.max( best, lengths[ix] );
+
+            }
+
+            assertLis( values, best );
+
+        }
+
+    }
+
+    @Test
+    public void testChangeSortingKeysMovesOnlyViewsOutsideTheLis() {
+
+        SortedPanel<String, Word> panel = new SortedPanel<>( "panel" );
+        SortedPanelModel<String, Word> model = new SortedPanelModel<>( SortableKeySpace.getKey( "SortedPanelModelTest" ), "model" );
+
+        // SortedPanel.verifyConsistency rejects every non-empty panel so this test has to run without consistency checks.
+
+        model.setConsistencyChecking( false );
+        Map<String, Word> words = new LinkedHashMap<>();
+        for ( String key : new String[]{ "a", "b", "c", "d", "e" } ) {
+
+            Word word = new Word( key.toUpperCase() );
+            words.put( key, word );
+            model.addEntity( key, word );
+
+        }
+
+        panel.setModel( model );
+        Map<Word, Component> views = new IdentityHashMap<>();
+        for ( Component view : panel.getComponents() ) {
+
+            views.put( ( (WordView)view ).getEntity(), view );
+
+        }
+
+        Assert.assertEquals( 5, views.size() );
+
+        Set<Component> removed = Collections.newSetFromMap( new IdentityHashMap<>() );
+        panel.addContainerListener(
+                new ContainerAdapter() {
+
+                    public void componentRemoved( final ContainerEvent e ) {
+
+                        removed.add( e.getChild() );
+
+                    }
+
+                }
+        );
+
+        // The new order is d, a, c, e, b which came from old positions 3, 0, 2, 4, 1.
+        // The longest increasing run of old positions is 0, 2, 4 (a, c and e) so only b and d should move.
+
+        List<SortedPanelModel.SortingKeyChange<String, Word>> changes = new ArrayList<>();
+        changes.add( new SortedPanelModel.SortingKeyChange<>( "b", "f", words.get( "b" ) ) );
+        changes.add( new SortedPanelModel.SortingKeyChange<>( "d", "0", words.get( "d" ) ) );
+
+        Assert.assertEquals( 2, model.changeSortingKeys( changes ) );
+
+        Set<Component> expectedRemoved = Collections.newSetFromMap( new IdentityHashMap<>() );
+        expectedRemoved.add( views.get( words.get( "b" ) ) );
+        expectedRemoved.add( views.get( words.get( "d" ) ) );
+        Assert.assertEquals( expectedRemoved, removed );
+
+        String[] expectedWords = { "D", "A", "C", "E", "B" };
+        String[] expectedKeys = { "0", "a", "c", "e", "f" };
+        Assert.assertEquals( 5, panel.getComponentCount() );
+        for ( int ix = 0; ix < expectedWords.length; ix += 1 ) {
+
+            WordView view = (WordView)panel.getComponent( ix );
+            Assert.assertSame( views.get( view.getEntity() ), view );
+            Assert.assertEquals( expectedWords[ix], view.getText() );
+            Assert.assertEquals( expectedKeys[ix], view.getActiveKey() );
+
+        }
+
+        // Changes which don't disturb the order don't move anything.
+
+        removed.clear();
+        changes.clear();
+        changes.add( new SortedPanelModel.SortingKeyChange<>( "c", "cc", words.get( "c" ) ) );
+        Assert.assertEquals( 0, model.changeSortingKeys( changes ) );
+        Assert.assertTrue( removed.isEmpty() );
+        Assert.assertEquals( "cc", ( (WordView)panel.getComponent( 2 ) ).getActiveKey() );
+
+    }
+
+    @Test
+    public void testConsistencyCheckingIsOnByDefault() {
+
+        SortedPanelModel<String, Word> model = new SortedPanelModel<>( SortableKeySpace.getKey( "SortedPanelModelTest" ), "model" );
+        Assert.assertTrue( model.isConsistencyChecking() );
+
+        // Without an owner, the checks pass.
+
+        model.addEntity( "x", new Word( "X" ) );
+        model.addEntity( "y", new Word( "Y" ) );
+        Assert.assertEquals( 2, model.size() );
+
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.ChunkedCaptureBuffer;
+import com.obtuse.util.StreamCaptureService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ Unit test the {@link StreamCaptureService} and {@link ChunkedCaptureBuffer} classes.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class StreamCaptureServiceTest {
+
+    /**
+     A stream which never has anything available and whose reads block until it is closed (interrupting a reader doesn't unblock it).
+     */
+
+    private static class StuckInputStream extends InputStream {
+
+        private final CountDownLatch _reading = new CountDownLatch( 1 );
+
+        private final CountDownLatch _closed = new CountDownLatch( 1 );
+
+        @Override
+        public int available() {
+
+            return 0;
+
+        }
+
+        @Override
+        public int read()
+                throws IOException {
+
+            _reading.countDown();
+            while ( true ) {
+
+                try {
+
+                    _closed.await();
+
+                    throw new IOException( "stream closed" );
+
+                } catch ( InterruptedException e ) {
+
+                    // Keep waiting.
+
+                }
+
+            }
+
+        }
+
+        @Override
+        public void close() {
+
+            _closed.countDown();
+
+        }
+
+    }
+
+    private static byte[] randomBytes( final Random random, final int length ) {
+
+        byte[] rval = new byte[length];
+        random.nextBytes( rval );
+
+        return rval;
+
+    }
+
+    @Test
+    public void testChunkedCaptureBuffer() {
+
+        Random random = new Random( 38L );
+        byte[] data = randomBytes( random, 3 * 1024 * 1024 + 17 );
+        ChunkedCaptureBuffer buffer = new ChunkedCaptureBuffer( data.length - 100 );
+
+        int offset = 0;
+        int kept = 0;
+        while ( offset < data.length ) {
+
+            int length = Math.min( data.length - offset, random.nextInt( 100000 ) );
+            kept += offset % 2 == 0 ? buffer.write( data, offset, length ) : buffer.write( ByteBuffer.wrap( data, offset, length ) );
+            offset += length;
+
+        }
+
+        Assert.assertEquals( data.length - 100, kept );
+        Assert.assertEquals( 0L, buffer.remaining() );
+        Assert.assertArrayEquals( Arrays.copyOf( data, data.length - 100 ), buffer.toByteArray() );
+
+    }
+
+    @Test
+    public void testManyStreamsOnFewThreads()
+            throws IOException {
+
+        Random random = new Random( 380L );
+        List<byte[]> inputs = new ArrayList<>();
+        List<StreamCaptureService.Capture> captures = new ArrayList<>();
+        AtomicInteger notified = new AtomicInteger();
+
+        try ( StreamCaptureService service = new StreamCaptureService( "test", 2, 1L ) ) {
+
+            for ( int ix = 0; ix < 200; ix += 1 ) {
+
+                byte[] input = randomBytes( random, random.nextInt( 200000 ) );
+                inputs.add( input );
+                captures.add(
+                        service.capture(
+                                "stream " + ix,
+                                new ByteArrayInputStream( input ),
+                                () -> true,
+                                capture -> notified.incrementAndGet(),
+                                "id " + ix,
+                                100000L,
+                                ix % 2 == 0,
+                                true
+                        )
+                );
+
+            }
+
+            for ( int ix = 0; ix < captures.size(); ix += 1 ) {
+
+                StreamCaptureService.Capture capture = captures.get( ix );
+                capture.waitUntilDone();
+
+                byte[] input = inputs.get( ix );
+                int expectedLength = Math.min( input.length, 100000 );
+                Assert.assertArrayEquals( Arrays.copyOf( input, expectedLength ), capture.getCapturedBytes().toByteArray() );
+
+                if ( capture.discardAfterMaxCaptureLength() ) {
+
+                    Assert.assertTrue( capture.wasDataReadUntilEOF() );
+                    Assert.assertEquals( input.length - expectedLength, capture.getDiscardedByteCount() );
+
+                } else {
+
+                    Assert.assertEquals( 0L, capture.getDiscardedByteCount() );
+                    Assert.assertEquals( input.length < 100000, capture.wasAllDataCaptured() );
+
+                }
+
+            }
+
+            Assert.assertEquals( captures.size(), notified.get() );
+
+        }
+
+    }
+
+    @Test
+    public void testStreamWhoseWriterIsSlow()
+            throws IOException, InterruptedException {
+
+        PipedOutputStream out = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream( out, 16 );
+        AtomicBoolean writerFinished = new AtomicBoolean( false );
+
+        try ( StreamCaptureService service = new StreamCaptureService( "test", 1, 1L ) ) {
+
+            StreamCaptureService.Capture capture = service.capture( "piped", in, writerFinished::get, null, "piped", 1000L, true, true );
+
+            for ( int ix = 0; ix < 10; ix += 1 ) {
+
+                out.write( ( "line " + ix + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+                Thread.sleep( 5L );
+
+            }
+
+            Assert.assertFalse( capture.isDone() );
+            out.close();
+            writerFinished.set( true );
+
+            capture.waitUntilDone();
+            Assert.assertTrue( capture.wasAllDataCaptured() );
+            Assert.assertTrue( capture.getCapturedBytes().toString( StandardCharsets.UTF_8 ).endsWith( "line 9\n" ) );
+
+        }
+
+    }
+
+    @Test
+    public void testCloseUnblocksDrainThreads()
+            throws IOException, InterruptedException {
+
+        StuckInputStream stuck = new StuckInputStream();
+        StreamCaptureService service = new StreamCaptureService( "test", 1, 1L );
+        StreamCaptureService.Capture capture = service.capture( "stuck", stuck, () -> true, null, "stuck", 1000L, true, false );
+
+        // Wait until a drain thread is blocked reading the stream.
+
+        stuck._reading.await();
+        Assert.assertFalse( capture.isDone() );
+
+        service.close();
+        Assert.assertTrue( capture.isDone() );
+        Assert.assertFalse( capture.wasDataReadUntilEOF() );
+
+        try {
+
+            service.capture( "late", new ByteArrayInputStream( new byte[1] ), () -> true, null, "late", 10L, true, false );
+            Assert.fail( "capture after close worked" );
+
+        } catch ( IllegalStateException e ) {
+
+            // Just what we expected.
+
+        }
+
+        // Closing again does no harm.
+
+        service.close();
+
+    }
+
+    @Test
+    public void testSelectableChannels()
+            throws IOException {
+
+        try ( StreamCaptureService service = new StreamCaptureService( "test", 2, 50L ) ) {
+
+            Pipe discarding = Pipe.open();
+            Pipe keeping = Pipe.open();
+            StreamCaptureService.Capture discarded = service.capture( "discarding", discarding.source(), null, "discarding", 10L, true, true );
+            StreamCaptureService.Capture kept = service.capture( "keeping", keeping.source(), null, "keeping", 10L, false, false );
+
+            byte[] data = "0123456789abcdefghij".getBytes( StandardCharsets.UTF_8 );
+            discarding.sink().write( ByteBuffer.wrap( data ) );
+            discarding.sink().close();
+            keeping.sink().write( ByteBuffer.wrap( data ) );
+
+            discarded.waitUntilDone();
+            Assert.assertEquals( "0123456789", discarded.getCapturedBytes().toString( StandardCharsets.UTF_8 ) );
+            Assert.assertEquals( 10L, discarded.getDiscardedByteCount() );
+            Assert.assertTrue( discarded.wasDataReadUntilEOF() );
+
+            // The capture which doesn't discard leaves the rest of the data in the channel.
+
+            kept.waitUntilDone();
+            Assert.assertFalse( kept.wasDataReadUntilEOF() );
+            ByteBuffer rest = ByteBuffer.allocate( 20 );
+            Assert.assertEquals( 10, keeping.source().read( rest ) );
+            Assert.assertEquals( 'a', rest.get( 0 ) );
+
+        }
+
+    }
+
+}
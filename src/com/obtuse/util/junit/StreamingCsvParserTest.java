@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.StreamingCsvParser;
+import com.obtuse.util.exceptions.SyntaxErrorException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ Unit test the {@link StreamingCsvParser} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class StreamingCsvParserTest {
+
+    private static final String RFC_SAMPLE =
+            "title,\"quoted, with comma\",n\r\n" +
+            "plain,\"she said \"\"hi\"\"\",1\r\n" +
+            "\"multi\nline\",,-42\n" +
+            "\n" +
+            "trailing,comma,\n" +
+            "no,final,newline";
+
+    private static final List<List<String>> RFC_EXPECTED = Arrays.asList(
+            Arrays.asList( "title", "quoted, with comma", "n" ),
+            Arrays.asList( "plain", "she said \"hi\"", "1" ),
+            Arrays.asList( "multi\nline", "", "-42" ),
+            Arrays.asList( "" ),
+            Arrays.asList( "trailing", "comma", "" ),
+            Arrays.asList( "no", "final", "newline" )
+    );
+
+    private static List<List<String>> parseAll( final StreamingCsvParser parser )
+            throws SyntaxErrorException, IOException {
+
+        List<List<String>> rval = new ArrayList<>();
+        StreamingCsvParser.Row row;
+        while ( ( row = parser.nextRow() ) != null ) {
+
+            rval.add( row.toList() );
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testRfc4180()
+            throws SyntaxErrorException, IOException {
+
+        Assert.assertEquals( RFC_EXPECTED, parseAll( new StreamingCsvParser( RFC_SAMPLE ) ) );
+
+        // A tiny buffer forces the parser to move partial records around and to grow its buffer for the long ones.
+
+        for ( int bufferSize = 1; bufferSize < 8; bufferSize += 1 ) {
+
+            Assert.assertEquals( RFC_EXPECTED, parseAll( new StreamingCsvParser( new StringReader( RFC_SAMPLE ), bufferSize ) ) );
+
+        }
+
+    }
+
+    @Test
+    public void testLineNumbersAndViews()
+            throws SyntaxErrorException, IOException {
+
+        StreamingCsvParser parser = new StreamingCsvParser( new StringReader( RFC_SAMPLE ), 3 );
+        Assert.assertEquals( Arrays.asList( "title", "quoted, with comma", "n" ), parser.readHeader() );
+        Assert.assertEquals( 2, parser.getColumnIndex( "n" ) );
+        Assert.assertEquals( -1, parser.getColumnIndex( "nope" ) );
+
+        StreamingCsvParser.Row row = parser.nextRow();
+        Assert.assertNotNull( row );
+        Assert.assertEquals( 2, row.getLineNumber() );
+        Assert.assertEquals( 1L, row.getRowNumber() );
+        CharSequence said = row.getField( "quoted, with comma" );
+        Assert.assertEquals( 13, said.length() );
+        Assert.assertEquals( '"', said.charAt( 9 ) );
+        Assert.assertEquals( "said", said.subSequence( 4, 8 ).toString() );
+        Assert.assertEquals( 1L, row.getLong( "n" ) );
+
+        row = parser.nextRow();
+        Assert.assertNotNull( row );
+        Assert.assertEquals( 3, row.getLineNumber() );
+        Assert.assertTrue( row.isEmpty( 1 ) );
+        Assert.assertEquals( -42, row.getInt( 2 ) );
+
+        row = parser.nextRow();
+        Assert.assertNotNull( row );
+        Assert.assertEquals( 5, row.getLineNumber() );
+
+    }
+
+    @Test
+    public void testTypedValues()
+            throws SyntaxErrorException, IOException {
+
+        StreamingCsvParser parser = new StreamingCsvParser(
+                "9223372036854775807,-9223372036854775808, 17 \n" +
+                "1.5,-0.001,1e10,123456789.123456789,.5,-0,4.9e-324\n" +
+                "2018-07-04 12:08:56,2018-7-4 12:08:56\n"
+        );
+
+        StreamingCsvParser.Row row = parser.nextRow();
+        Assert.assertNotNull( row );
+        Assert.assertEquals( Long.MAX_VALUE, row.getLong( 0 ) );
+        Assert.assertEquals( Long.MIN_VALUE, row.getLong( 1 ) );
+        Assert.assertEquals( 17L, row.getLong( 2 ) );
+
+        row = parser.nextRow();
+        Assert.assertNotNull( row );
+        for ( int ix = 0; ix < row.getFieldCount(); ix += 1 ) {
+
+            Assert.assertEquals(
+                    Double.doubleToLongBits( Double.parseDouble( row.getString( ix ) ) ),
+                    Double.doubleToLongBits( row.getDouble( ix ) )
+            );
+
+        }
+
+        row = parser.nextRow();
+        Assert.assertNotNull( row );
+        Assert.assertEquals( com.obtuse.util.CSVParser.parseDate( "2018-07-04 12:08:56" ), row.getDate( 0 ) );
+        Assert.assertEquals( com.obtuse.util.CSVParser.parseDate( "2018-7-4 12:08:56" ), row.getDate( 1 ) );
+
+    }
+
+    @Test
+    public void testRandomDoublesMatchParseDouble()
+            throws SyntaxErrorException, IOException {
+
+        Random random = new Random( 99L );
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 20000; i += 1 ) {
+
+            sb.append( random.nextInt( 2000000 ) - 1000000 ).append( '.' ).append( random.nextInt( 100000 ) );
+            sb.append( i % 3 == 0 ? "e" + ( random.nextInt( 40 ) - 20 ) : "" );
+            sb.append( '\n' );
+
+        }
+
+        StreamingCsvParser parser = new StreamingCsvParser( sb );
+        StreamingCsvParser.Row row;
+        while ( ( row = parser.nextRow() ) != null ) {
+
+            Assert.assertEquals( row.getString( 0 ), Double.parseDouble( row.getString( 0 ) ), row.getDouble( 0 ), 0.0 );
+
+        }
+
+    }
+
+    @Test
+    public void testByteBuffer()
+            throws SyntaxErrorException, IOException {
+
+        String sample = "naïve,\"café, s'il vous plaît\",ø\n" + RFC_SAMPLE;
+        ByteBuffer bytes = ByteBuffer.wrap( sample.getBytes( StandardCharsets.UTF_8 ) );
+
+        List<List<String>> expected = new ArrayList<>();
+        expected.add( Arrays.asList( "naïve", "café, s'il vous plaît", "ø" ) );
+        expected.addAll( RFC_EXPECTED );
+
+        Assert.assertEquals( expected, parseAll( new StreamingCsvParser( bytes, StandardCharsets.UTF_8 ) ) );
+        Assert.assertEquals( 0, bytes.position() );
+
+    }
+
+    @Test
+    public void testSyntaxErrors()
+            throws IOException {
+
+        for ( String bad : new String[]{ "a,\"unterminated\n", "a,\"quoted\"junk,b\n" } ) {
+
+            try {
+
+                parseAll( new StreamingCsvParser( bad ) );
+                Assert.fail( "parsed " + bad );
+
+            } catch ( SyntaxErrorException e ) {
+
+                Assert.assertTrue( e.getMessage(), e.getMessage().startsWith( "line 1 " ) );
+
+            }
+
+        }
+
+        try {
+
+            StreamingCsvParser.Row row = new StreamingCsvParser( "x,12z\n" ).nextRow();
+            Assert.assertNotNull( row );
+            row.getLong( 1 );
+            Assert.fail( "parsed 12z as a long" );
+
+        } catch ( SyntaxErrorException e ) {
+
+            Assert.assertTrue( e.getMessage(), e.getMessage().endsWith( "on line 1" ) );
+
+        }
+
+    }
+
+}
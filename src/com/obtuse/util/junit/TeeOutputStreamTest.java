@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.BasicProgramConfigInfo;
+import com.obtuse.util.TeeOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ Unit test the asynchronous flavour of the {@link TeeOutputStream} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class TeeOutputStreamTest {
+
+    /**
+     A downstream stream which remembers whether it has been closed.
+     */
+
+    private static class DownstreamStream extends ByteArrayOutputStream {
+
+        private boolean _closed = false;
+
+        @Override
+        public void close() {
+
+            _closed = true;
+
+        }
+
+    }
+
+    @Before
+    public void setUp() {
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    private static byte[] readTeeFile( final @NotNull TeeOutputStream tee ) throws IOException {
+
+        return Files.readAllBytes( tee.getTeeFile().toPath() );
+
+    }
+
+    private static void deleteTeeFile( final @NotNull TeeOutputStream tee ) {
+
+        File teeFile = tee.getTeeFile();
+        if ( !teeFile.delete() ) {
+
+            teeFile.deleteOnExit();
+
+        }
+
+    }
+
+    /**
+     Write a mix of single bytes, whole arrays and slices of arrays.
+     */
+
+    private static void writeMix( final @NotNull TeeOutputStream tee, final @NotNull Random random, final int total ) throws IOException {
+
+        int written = 0;
+        while ( written < total ) {
+
+            byte[] chunk = new byte[Math.min( total - written, 1 + random.nextInt( 100 ) )];
+            random.nextBytes( chunk );
+            switch ( random.nextInt( 3 ) ) {
+
+                case 0:
+                    for ( byte b : chunk ) {
+
+                        tee.write( b );
+
+                    }
+
+                    break;
+
+                case 1:
+                    tee.write( chunk );
+
+                    break;
+
+                default:
+                    byte[] padded = new byte[chunk.length + 10];
+                    System.arraycopy( chunk, 0, padded, 5, chunk.length );
+                    tee.write( padded, 5, chunk.length );
+
+            }
+
+            written += chunk.length;
+
+        }
+
+    }
+
+    @Test
+    public void testBlockingTeeGetsEverything() throws IOException {
+
+        // Ring buffers which are tiny (including one byte), an odd size and roomy.
+
+        for ( int ringBufferSize : new int[]{ 1, 7, 64, 64 * 1024 } ) {
+
+            DownstreamStream downstream = new DownstreamStream();
+            TeeOutputStream tee = new TeeOutputStream( "TeeOutputStreamTest-block", downstream, ringBufferSize, TeeOutputStream.OverflowPolicy.BLOCK );
+            try {
+
+                Assert.assertTrue( tee.isAsynchronous() );
+                writeMix( tee, new Random( ringBufferSize ), 50 * 1000 );
+                tee.close();
+
+                Assert.assertEquals( 50 * 1000, downstream.size() );
+                Assert.assertTrue( "ring buffer size " + ringBufferSize, Arrays.equals( downstream.toByteArray(), readTeeFile( tee ) ) );
+                Assert.assertEquals( 0L, tee.getDroppedTeeByteCount() );
+
+            } finally {
+
+                deleteTeeFile( tee );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testDroppingTeeDropsWholeWrites() throws IOException {
+
+        final int ringBufferSize = 16;
+
+        DownstreamStream downstream = new DownstreamStream();
+        TeeOutputStream tee = new TeeOutputStream( "TeeOutputStreamTest-drop", downstream, ringBufferSize, TeeOutputStream.OverflowPolicy.DROP );
+        try {
+
+            // Every write is full of its own (unique) byte value so we can tell which writes made it to the log file.
+            // Writes bigger than the ring buffer never fit. Whether the others fit depends on how the background writer is doing.
+
+            Random random = new Random( 39L );
+            List<byte[]> writes = new ArrayList<>();
+            long written = 0L;
+            for ( int ix = 0; ix < 250; ix += 1 ) {
+
+                byte[] bytes = new byte[ix % 10 == 0 ? 1 : 1 + random.nextInt( ringBufferSize * 2 )];
+                Arrays.fill( bytes, (byte)ix );
+                writes.add( bytes );
+                if ( bytes.length == 1 ) {
+
+                    tee.write( bytes[0] );
+
+                } else {
+
+                    tee.write( bytes );
+
+                }
+
+                written += bytes.length;
+
+            }
+
+            tee.close();
+
+            byte[] teeBytes = readTeeFile( tee );
+            Assert.assertEquals( written, downstream.size() );
+            Assert.assertEquals( written - teeBytes.length, tee.getDroppedTeeByteCount() );
+
+            int offset = 0;
+            int oversized = 0;
+            for ( byte[] bytes : writes ) {
+
+                if ( offset < teeBytes.length && teeBytes[offset] == bytes[0] ) {
+
+                    Assert.assertTrue( "oversized write made it into the log file", bytes.length <= ringBufferSize );
+                    Assert.assertTrue( "partial write", offset + bytes.length <= teeBytes.length );
+                    Assert.assertArrayEquals( "partial write", bytes, Arrays.copyOfRange( teeBytes, offset, offset + bytes.length ) );
+                    offset += bytes.length;
+
+                } else if ( bytes.length > ringBufferSize ) {
+
+                    oversized += bytes.length;
+
+                }
+
+            }
+
+            Assert.assertEquals( "log file has more than the writes that were not dropped", teeBytes.length, offset );
+            Assert.assertTrue( tee.getDroppedTeeByteCount() >= oversized );
+            Assert.assertTrue( oversized > 0 );
+
+        } finally {
+
+            deleteTeeFile( tee );
+
+        }
+
+    }
+
+    @Test
+    public void testFlushTee() throws IOException {
+
+        DownstreamStream downstream = new DownstreamStream();
+        TeeOutputStream tee = new TeeOutputStream( "TeeOutputStreamTest-flush", downstream, 100, TeeOutputStream.OverflowPolicy.BLOCK );
+        try {
+
+            Random random = new Random( 1039L );
+            for ( int round = 0; round < 20; round += 1 ) {
+
+                writeMix( tee, random, 1 + random.nextInt( 1000 ) );
+                tee.flushTee( round % 2 == 0 );
+
+                // Everything written so far has to be in the log file before the tee is closed.
+
+                Assert.assertTrue( "round " + round, Arrays.equals( downstream.toByteArray(), readTeeFile( tee ) ) );
+
+            }
+
+            // Flushing with nothing new is fine.
+
+            tee.flushTee( true );
+            tee.close();
+
+        } finally {
+
+            deleteTeeFile( tee );
+
+        }
+
+    }
+
+    @Test
+    public void testCloseDrainsRingBuffer() throws IOException {
+
+        DownstreamStream downstream = new DownstreamStream();
+        TeeOutputStream tee = new TeeOutputStream( "TeeOutputStreamTest-close", downstream, 1024 * 1024, TeeOutputStream.OverflowPolicy.BLOCK );
+        try {
+
+            // Fill most of a big ring buffer and close right away (before the background writer can possibly have caught up).
+
+            byte[] bytes = new byte[1000 * 1000];
+            new Random( 2039L ).nextBytes( bytes );
+            tee.write( bytes );
+            tee.close();
+
+            Assert.assertTrue( downstream._closed );
+            Assert.assertTrue( Arrays.equals( bytes, readTeeFile( tee ) ) );
+
+            // The tee refuses writes once it is closed.
+
+            try {
+
+                tee.getTeeOutputStream().write( 42 );
+                Assert.fail( "write after close worked" );
+
+            } catch ( IOException e ) {
+
+                // Just what we expected.
+
+            }
+
+            // Closing again does no harm.
+
+            tee.getTeeOutputStream().close();
+
+        } finally {
+
+            deleteTeeFile( tee );
+
+        }
+
+    }
+
+}
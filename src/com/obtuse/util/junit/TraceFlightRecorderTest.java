@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.TraceFlightRecorder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Unit test the {@link TraceFlightRecorder} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class TraceFlightRecorderTest {
+
+    @Before
+    public void clearRecorder() {
+
+        TraceFlightRecorder.clear();
+
+    }
+
+    private static List<String> eventsFrom( final List<TraceFlightRecorder.Event> events, final long threadId ) {
+
+        List<String> rval = new ArrayList<>();
+        for ( TraceFlightRecorder.Event event : events ) {
+
+            if ( event.getThreadId() == threadId ) {
+
+                rval.add( event.getEvent() );
+
+            }
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testThreadsKeepTheirOrder()
+            throws InterruptedException {
+
+        int perThread = 1000;
+        Thread[] threads = new Thread[4];
+        for ( int t = 0; t < threads.length; t += 1 ) {
+
+            final int tNumber = t;
+            threads[t] = new Thread( () -> {
+
+                for ( int i = 0; i < perThread; i += 1 ) {
+
+                    TraceFlightRecorder.record( tNumber + ":" + i, null );
+
+                }
+
+            } );
+            threads[t].start();
+
+        }
+
+        for ( Thread thread : threads ) {
+
+            thread.join();
+
+        }
+
+        List<TraceFlightRecorder.Event> events = TraceFlightRecorder.snapshot( Integer.MAX_VALUE );
+        Assert.assertEquals( perThread * threads.length, events.size() );
+
+        for ( int ix = 1; ix < events.size(); ix += 1 ) {
+
+            Assert.assertTrue( events.get( ix - 1 ).getTimeStamp() <= events.get( ix ).getTimeStamp() );
+
+        }
+
+        for ( int t = 0; t < threads.length; t += 1 ) {
+
+            List<String> mine = eventsFrom( events, threads[t].getId() );
+            Assert.assertEquals( perThread, mine.size() );
+            for ( int i = 0; i < perThread; i += 1 ) {
+
+                Assert.assertEquals( t + ":" + i, mine.get( i ) );
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testRingOverwritesOldestEvents() {
+
+        int total = TraceFlightRecorder.EVENTS_PER_THREAD + 10;
+        for ( int i = 0; i < total; i += 1 ) {
+
+            TraceFlightRecorder.record( "event " + i, null );
+
+        }
+
+        List<String> mine = eventsFrom( TraceFlightRecorder.snapshot( Integer.MAX_VALUE ), Thread.currentThread().getId() );
+        Assert.assertEquals( TraceFlightRecorder.EVENTS_PER_THREAD, mine.size() );
+        Assert.assertEquals( "event 10", mine.get( 0 ) );
+        Assert.assertEquals( "event " + ( total - 1 ), mine.get( mine.size() - 1 ) );
+
+        List<TraceFlightRecorder.Event> lastFew = TraceFlightRecorder.snapshot( 3 );
+        Assert.assertEquals( 3, lastFew.size() );
+        Assert.assertEquals( "event " + ( total - 1 ), lastFew.get( 2 ).getEvent() );
+
+    }
+
+    @Test
+    public void testBinaryRoundTrip()
+            throws IOException {
+
+        for ( int i = 0; i < 100; i += 1 ) {
+
+            TraceFlightRecorder.record( "repeated event", i % 10 == 0 ? new IllegalArgumentException( "oops " + i ) : null );
+            TraceFlightRecorder.record( "event " + i + " with a non-ASCII character ø", null );
+
+        }
+
+        List<TraceFlightRecorder.Event> expected = TraceFlightRecorder.snapshot( Integer.MAX_VALUE );
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Assert.assertEquals( expected.size(), TraceFlightRecorder.writeSnapshot( bos, Integer.MAX_VALUE ) );
+
+        List<TraceFlightRecorder.Event> actual = TraceFlightRecorder.readSnapshot( new ByteArrayInputStream( bos.toByteArray() ) );
+        Assert.assertEquals( expected.size(), actual.size() );
+        for ( int ix = 0; ix < expected.size(); ix += 1 ) {
+
+            TraceFlightRecorder.Event e = expected.get( ix );
+            TraceFlightRecorder.Event a = actual.get( ix );
+            Assert.assertEquals( e.getTimeStamp(), a.getTimeStamp() );
+            Assert.assertEquals( e.getThreadId(), a.getThreadId() );
+            Assert.assertEquals( e.getThreadName(), a.getThreadName() );
+            Assert.assertEquals( e.getDescription(), a.getDescription() );
+
+        }
+
+    }
+
+    @Test( expected = IOException.class )
+    public void testNotASnapshot()
+            throws IOException {
+
+        TraceFlightRecorder.readSnapshot( new ByteArrayInputStream( new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8 } ) );
+
+    }
+
+}
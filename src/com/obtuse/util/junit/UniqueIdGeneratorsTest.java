@@ -0,0 +1,438 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.*;
+import com.obtuse.util.gowing.*;
+import com.obtuse.util.gowing.p2a.GowingConstants;
+import com.obtuse.util.gowing.p2a.GowingEntityReference;
+import com.obtuse.util.gowing.p2a.GowingUnPackedEntityGroup;
+import com.obtuse.util.gowing.p2a.StdGowingPacker;
+import com.obtuse.util.gowing.p2a.StdGowingUnPacker;
+import com.obtuse.util.gowing.p2a.exceptions.GowingUnpackingException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ Unit test the unique id generators and {@link UniqueId}'s small id cache.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class UniqueIdGeneratorsTest {
+
+    private static final int THREADS = 4;
+
+    private static final int IDS_PER_THREAD = 50000;
+
+    /**
+     A packable entity which refers to a {@link UniqueId}.
+     */
+
+    public static class IdHolder extends GowingAbstractPackableEntity {
+
+        private static final EntityTypeName ENTITY_TYPE_NAME = new EntityTypeName( IdHolder.class );
+
+        private static final int VERSION = 1;
+
+        private static final EntityName NAME = new EntityName( "_name" );
+
+        private static final EntityName ID = new EntityName( "_id" );
+
+        public static final GowingEntityFactory FACTORY = new GowingEntityFactory( ENTITY_TYPE_NAME ) {
+
+            @Override
+            public int getOldestSupportedVersion() {
+
+                return VERSION;
+
+            }
+
+            @Override
+            public int getNewestSupportedVersion() {
+
+                return VERSION;
+
+            }
+
+            @Override
+            @NotNull
+            public GowingPackable createEntity(
+                    final @NotNull GowingUnPacker unPacker,
+                    final @NotNull GowingPackedEntityBundle bundle,
+                    final @NotNull GowingEntityReference er
+            ) {
+
+                return new IdHolder( unPacker, bundle );
+
+            }
+
+        };
+
+        private final String _name;
+
+        private UniqueId _id;
+
+        private GowingEntityReference _idReference;
+
+        private IdHolder( final @NotNull String name, final @NotNull UniqueId id ) {
+
+            super( new GowingNameMarkerThing() );
+
+            _name = name;
+            _id = id;
+
+        }
+
+        private IdHolder( final @NotNull GowingUnPacker unPacker, final @NotNull GowingPackedEntityBundle bundle ) {
+
+            super( unPacker, bundle.getSuperBundle() );
+
+            _name = bundle.MandatoryStringValue( NAME );
+            _idReference = bundle.getOptionalEntityReference( ID ).orElse( null );
+
+        }
+
+        @NotNull
+        @Override
+        public GowingPackedEntityBundle bundleThyself( final boolean isPackingSuper, final @NotNull GowingPacker packer ) {
+
+            GowingPackedEntityBundle bundle = new GowingPackedEntityBundle(
+                    ENTITY_TYPE_NAME,
+                    VERSION,
+                    super.bundleRoot( packer ),
+                    packer.getPackingContext()
+            );
+
+            bundle.addStringHolder( NAME, _name, true );
+            bundle.addPackableEntityHolder( ID, _id, packer, true );
+
+            return bundle;
+
+        }
+
+        @Override
+        public boolean finishUnpacking( final @NotNull GowingUnPacker unPacker ) {
+
+            _id = (UniqueId)unPacker.resolveReference( _idReference ).orElse( null );
+
+            return true;
+
+        }
+
+        public String toString() {
+
+            return "IdHolder( \"" + _name + "\", " + _id + " )";
+
+        }
+
+    }
+
+    @Before
+    public void setUp() {
+
+        if ( !BasicProgramConfigInfo.isInitialized() ) {
+
+            BasicProgramConfigInfo.init( "Obtuse", "Utils", "Test" );
+
+        }
+
+    }
+
+    /**
+     Generate ids on several threads at once and make sure that none are duplicated.
+     */
+
+    private static Set<Long> generateConcurrently( final LongSupplier generator )
+            throws InterruptedException {
+
+        List<long[]> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for ( int t = 0; t < THREADS; t += 1 ) {
+
+            long[] ids = new long[IDS_PER_THREAD];
+            results.add( ids );
+            threads.add(
+                    new Thread(
+                            () -> {
+
+                                for ( int ix = 0; ix < ids.length; ix += 1 ) {
+
+                                    ids[ix] = generator.getAsLong();
+
+                                }
+
+                            }
+                    )
+            );
+
+        }
+
+        for ( Thread thread : threads ) {
+
+            thread.start();
+
+        }
+
+        for ( Thread thread : threads ) {
+
+            thread.join();
+
+        }
+
+        Set<Long> rval = new HashSet<>();
+        for ( long[] ids : results ) {
+
+            for ( long id : ids ) {
+
+                Assert.assertTrue( "id " + id + " is not positive", id > 0 );
+                Assert.assertTrue( "id " + id + " was generated twice", rval.add( id ) );
+
+            }
+
+        }
+
+        return rval;
+
+    }
+
+    @Test
+    public void testConcurrentUniqueness()
+            throws InterruptedException {
+
+        SimpleUniqueLongIdGenerator simple = new SimpleUniqueLongIdGenerator( "simple" );
+        Set<Long> ids = generateConcurrently( simple::getUniqueId );
+        Assert.assertEquals( (long)THREADS * IDS_PER_THREAD, ids.stream().mapToLong( Long::longValue ).max().orElse( 0L ) );
+
+        generateConcurrently( new BlockLeasingUniqueLongIdGenerator( "leasing", 100 )::getUniqueId );
+        generateConcurrently( () -> UniqueId.getJvmLocalUniqueId().getLongID() );
+
+    }
+
+    @Test
+    public void testSimpleGeneratorLimits() {
+
+        SimpleUniqueLongIdGenerator wrapping = new SimpleUniqueLongIdGenerator( "wrapping", true ).setLastId( Long.MAX_VALUE - 1 );
+        Assert.assertEquals( Long.MAX_VALUE, wrapping.getUniqueId() );
+        Assert.assertEquals( 1L, wrapping.getUniqueId() );
+
+        SimpleUniqueLongIdGenerator strict = new SimpleUniqueLongIdGenerator( "strict" ).setLastId( Long.MAX_VALUE );
+        try {
+
+            strict.getUniqueId();
+            Assert.fail( "strict generator wrapped around" );
+
+        } catch ( IllegalArgumentException e ) {
+
+            // Expected.
+
+        }
+
+    }
+
+    @Test
+    public void testPersistentHighWaterMark()
+            throws IOException, InterruptedException {
+
+        File file = File.createTempFile( "UniqueIdGeneratorsTest", ".hwm" );
+        file.deleteOnExit();
+
+        // An empty file isn't a fresh start (it could be a damaged file whose ids have been handed out already).
+
+        try {
+
+            new IdReservationFile( file, 10L ).reserve( 1L );
+            Assert.fail( "empty reservation file accepted" );
+
+        } catch ( IOException e ) {
+
+            // Just what we expected.
+
+        }
+
+        Files.write( file.toPath(), "not a number\n".getBytes( StandardCharsets.US_ASCII ) );
+        try {
+
+            new IdReservationFile( file, 10L ).reserve( 1L );
+            Assert.fail( "reservation file without a mark accepted" );
+
+        } catch ( IOException e ) {
+
+            // Just what we expected.
+
+        }
+
+        // A reservation file that doesn't exist yet is a fresh start.
+
+        Assert.assertTrue( file.delete() );
+
+        // Three "runs" of a program that share a reservation file must never hand out the same id.
+
+        Set<Long> allIds = new HashSet<>();
+        for ( int run = 0; run < 3; run += 1 ) {
+
+            BlockLeasingUniqueLongIdGenerator generator = new BlockLeasingUniqueLongIdGenerator(
+                    "persistent", 64, new IdReservationFile( file, 10000L )
+            );
+
+            for ( long id : generateConcurrently( generator::getUniqueId ) ) {
+
+                Assert.assertTrue( "id " + id + " was generated in an earlier run", allIds.add( id ) );
+
+            }
+
+        }
+
+        long mark = Long.parseLong( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.US_ASCII ).trim() );
+        for ( long id : allIds ) {
+
+            Assert.assertTrue( id < mark );
+
+        }
+
+        BlockLeasingUniqueLongIdGenerator raised = new BlockLeasingUniqueLongIdGenerator( "raised", 64, new IdReservationFile( file, 1000L ) );
+        raised.setLastId( mark + 5000L );
+        Assert.assertEquals( mark + 5001L, raised.getUniqueId() );
+
+        // Anything after the new mark is cleaned up.
+
+        Files.write( file.toPath(), "7                    \n".getBytes( StandardCharsets.US_ASCII ) );
+        Assert.assertEquals( 7L, new IdReservationFile( file, 3L ).reserve( 1L ) );
+        Assert.assertEquals( "10\n", new String( Files.readAllBytes( file.toPath() ), StandardCharsets.US_ASCII ) );
+
+    }
+
+    @Test
+    public void testSmallIdCache() {
+
+        Assert.assertSame( UniqueId.get( 0L ), UniqueId.get( 0L ) );
+        Assert.assertSame( UniqueId.get( UniqueId.SMALL_ID_CACHE_SIZE - 1 ), UniqueId.get( UniqueId.SMALL_ID_CACHE_SIZE - 1 ) );
+        Assert.assertNotSame( UniqueId.get( UniqueId.SMALL_ID_CACHE_SIZE ), UniqueId.get( UniqueId.SMALL_ID_CACHE_SIZE ) );
+        Assert.assertEquals( UniqueId.get( UniqueId.SMALL_ID_CACHE_SIZE ), UniqueId.get( UniqueId.SMALL_ID_CACHE_SIZE ) );
+        Assert.assertNotSame( UniqueId.get( -1L ), UniqueId.get( -1L ) );
+        Assert.assertEquals( 42L, UniqueId.get( 42L ).getLongID() );
+
+    }
+
+    private static String pack( final @NotNull List<? extends GowingPackable> entities ) {
+
+        StringWriter stringWriter = new StringWriter();
+        try (
+                StdGowingPacker packer = new StdGowingPacker(
+                        new EntityName( "UniqueIdGeneratorsTest" ),
+                        new File( "UniqueIdGeneratorsTest.p2a" ),
+                        new PrintWriter( stringWriter ),
+                        new StdGowingPackerContext(),
+                        false
+                )
+        ) {
+
+            for ( GowingPackable entity : entities ) {
+
+                packer.queuePackableEntity( entity );
+
+            }
+
+            packer.finish();
+
+        }
+
+        // Leave out the line that records when the output was created.
+
+        StringBuilder sb = new StringBuilder();
+        for ( String line : stringWriter.toString().split( "\n", -1 ) ) {
+
+            if ( !line.contains( GowingConstants.METADATA_OUTPUT_ITS + "=" ) ) {
+
+                sb.append( line ).append( '\n' );
+
+            }
+
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     Verify that interned small ids survive being packed and unpacked (an interned id is one packable entity shared by everyone who uses it).
+     */
+
+    @Test
+    public void testSmallIdCachePacking()
+            throws IOException, GowingUnpackingException {
+
+        UniqueId interned = UniqueId.get( 5L );
+        List<GowingPackable> entities = Arrays.asList(
+                new IdHolder( "a", UniqueId.get( 5L ) ),
+                new IdHolder( "b", UniqueId.get( 5L ) ),
+                new IdHolder( "c", new UniqueId( 5L ) ),
+                new IdHolder( "d", UniqueId.get( 6L ) ),
+                interned
+        );
+
+        // The interned instance (and its instance id) is the same in every packing.
+
+        String packed = pack( entities );
+        Assert.assertEquals( packed, pack( entities ) );
+
+        Map<String, IdHolder> holders = new HashMap<>();
+        Set<UniqueId> unpackedIds = Collections.newSetFromMap( new IdentityHashMap<>() );
+        try (
+                StdGowingUnPacker unPacker = new StdGowingUnPacker(
+                        new File( "UniqueIdGeneratorsTest.p2a" ),
+                        new LineNumberReader( new StringReader( packed ) ),
+                        new StdGowingUnPackerContext( new GowingTypeIndex( "UniqueIdGeneratorsTest" ) )
+                )
+        ) {
+
+            unPacker.getUnPackerContext().registerFactory( IdHolder.FACTORY );
+            unPacker.getUnPackerContext().registerFactory( UniqueId.FACTORY );
+            GowingUnPackedEntityGroup group = unPacker.unPack();
+            for ( GowingPackable entity : group.getAllEntities() ) {
+
+                if ( entity instanceof IdHolder ) {
+
+                    holders.put( ( (IdHolder)entity )._name, (IdHolder)entity );
+
+                } else {
+
+                    unpackedIds.add( (UniqueId)entity );
+
+                }
+
+            }
+
+        }
+
+        Assert.assertEquals( 4, holders.size() );
+
+        // Everyone who shared the interned id (including the top level) still shares one (unpacked) id.
+        // The id that was merely equal to it is still a separate instance.
+
+        Assert.assertEquals( 3, unpackedIds.size() );
+        Assert.assertTrue( unpackedIds.contains( holders.get( "a" )._id ) );
+        Assert.assertSame( holders.get( "a" )._id, holders.get( "b" )._id );
+        Assert.assertNotSame( holders.get( "a" )._id, holders.get( "c" )._id );
+        Assert.assertEquals( holders.get( "a" )._id, holders.get( "c" )._id );
+        Assert.assertEquals( 5L, holders.get( "a" )._id.getLongID() );
+        Assert.assertEquals( 6L, holders.get( "d" )._id.getLongID() );
+
+        // Unpacking makes new instances so the interned one is left alone.
+
+        Assert.assertSame( interned, UniqueId.get( 5L ) );
+        Assert.assertNotSame( interned, holders.get( "a" )._id );
+
+    }
+
+}
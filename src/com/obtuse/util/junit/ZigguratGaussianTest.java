@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.junit;
+
+import com.obtuse.util.ZigguratGaussian;
+import ec.util.MersenneTwisterFast;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ Unit test the {@link ZigguratGaussian} class.
+ */
+
+@SuppressWarnings("ClassHasNoToStringMethod")
+public class ZigguratGaussianTest {
+
+    private static final int SAMPLES = 2000000;
+
+    @Test
+    public void testMomentsAndTails() {
+
+        MersenneTwisterFast rng = new MersenneTwisterFast( new int[]{ 1, 2, 3 } );
+        double sum = 0.0;
+        double sumOfSquares = 0.0;
+        double sumOfFourthPowers = 0.0;
+        int[] beyond = new int[4];
+        for ( int ix = 0; ix < SAMPLES; ix += 1 ) {
+
+            double value = ZigguratGaussian.nextGaussian( rng );
+            sum += value;
+            sumOfSquares += value * value;
+            sumOfFourthPowers += value * value * value * value;
+            for ( int sigmas = 1; sigmas <= 4; sigmas += 1 ) {
+
+                if ( Math.abs( value ) > sigmas ) {
+
+                    beyond[sigmas - 1] += 1;
+
+                }
+
+            }
+
+        }
+
+        Assert.assertEquals( 0.0, sum / SAMPLES, 0.005 );
+        Assert.assertEquals( 1.0, sumOfSquares / SAMPLES, 0.005 );
+        Assert.assertEquals( 3.0, sumOfFourthPowers / SAMPLES, 0.05 );
+
+        // The fractions of a normal distribution beyond one, two, three and four standard deviations
+        // (the last two exercise the layer edges and the tail beyond 3.44).
+
+        double[] expected = { 0.3173105, 0.0455003, 0.0026998, 0.0000633 };
+        for ( int ix = 0; ix < expected.length; ix += 1 ) {
+
+            double actual = beyond[ix] / (double)SAMPLES;
+            Assert.assertEquals( "beyond " + ( ix + 1 ) + " sigmas", expected[ix], actual, 5.0 * Math.sqrt( expected[ix] / SAMPLES ) );
+
+        }
+
+    }
+
+    @Test
+    public void testReproducible() {
+
+        MersenneTwisterFast a = new MersenneTwisterFast( new int[]{ 42 } );
+        MersenneTwisterFast b = new MersenneTwisterFast( new int[]{ 42 } );
+        for ( int ix = 0; ix < 1000; ix += 1 ) {
+
+            Assert.assertEquals( ZigguratGaussian.nextGaussian( a ), ZigguratGaussian.nextGaussian( b ), 0.0 );
+
+        }
+
+    }
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.kv;
+
+import com.obtuse.util.ObtuseUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ A stack of {@link ObtuseDictionary} layers (for example defaults, site, user) which is resolved into one flat lookup table.
+ <p>A keyword's value is the non-null value from the highest layer which has one.
+ A keyword which has no non-null value in any layer is treated as if it doesn't exist.
+ This is the same rule as {@link ObtuseDictionary#layerOver(String, Set, boolean, ObtuseDictionary)}
+ applied to every layer at once.</p>
+ <p>The layers are resolved the first time {@link #resolve()} (or a lookup) is called
+ and the result is reused until a layer is replaced via {@link #setLayer(int, ObtuseDictionary)}.
+ Lookups in a resolved view take constant time,
+ and a resolved view remembers which required keywords are missing for each set of required keywords that it is asked about.</p>
+ <p>Instances of this class are thread safe. {@link Resolved} instances are immutable (apart from their caches).</p>
+ */
+
+public class LayeredObtuseDictionary {
+
+    private final String _who;
+
+    /**
+     The layers, lowest precedence first.
+     */
+
+    private final List<ObtuseDictionary> _layers;
+
+    private volatile Resolved _resolved = null;
+
+    private long _version = 0L;
+
+    /**
+     A resolved, flattened view of some layers.
+     <p>A view created by {@link #withTopLayer(ObtuseDictionary)} doesn't copy the flattened lookup table.
+     It looks in its own (small) top layer first and then in the shared flattened table underneath it.</p>
+     */
+
+    public static class Resolved {
+
+        private final String _who;
+
+        private final long _version;
+
+        /**
+         The shared flattened table underneath this view's top layer ({@code null} if this view is the flattened table).
+         */
+
+        private final Resolved _base;
+
+        /**
+         The flattened table if {@link #_base} is {@code null}; otherwise just the top layer's keywords which have non-null values.
+         */
+
+        private final Map<String, ObtuseKeywordValue> _values;
+
+        private final int _size;
+
+        private final Map<Set<ObtuseKeyword>, Optional<String>> _missingKeywords = new ConcurrentHashMap<>();
+
+        private final Map<Set<ObtuseKeyword>, Collection<ObtuseKeywordValue>> _requiredOnly = new ConcurrentHashMap<>();
+
+        private Collection<ObtuseKeywordValue> _sortedValues = null;
+
+        private Resolved(
+                final @NotNull String who,
+                final long version,
+                final @Nullable Resolved base,
+                final @NotNull Map<String, ObtuseKeywordValue> values
+        ) {
+
+            super();
+
+            _who = who;
+            _version = version;
+            _base = base;
+            _values = values;
+
+            if ( base == null ) {
+
+                _size = values.size();
+
+            } else {
+
+                int size = base._size;
+                for ( String keywordString : values.keySet() ) {
+
+                    if ( !base._values.containsKey( keywordString ) ) {
+
+                        size += 1;
+
+                    }
+
+                }
+
+                _size = size;
+
+            }
+
+        }
+
+        /**
+         Look up a keyword's value in the top layer (if there is one) and then in the flattened table.
+         @return the keyword's value or {@code null} if no layer gives it a non-null value.
+         */
+
+        private ObtuseKeywordValue lookup( final @NotNull String keywordString ) {
+
+            ObtuseKeywordValue keywordValue = _values.get( keywordString );
+            if ( keywordValue == null && _base != null ) {
+
+                keywordValue = _base._values.get( keywordString );
+
+            }
+
+            return keywordValue;
+
+        }
+
+        /**
+         Get the {@link String} value of a keyword.
+         @param keywordString the keyword as a {@link String}.
+         @return an {@link Optional}{@code <String>} which contains the keyword's value if some layer gives it a non-null value.
+         */
+
+        @NotNull
+        public Optional<String> getStringValue( final @NotNull String keywordString ) {
+
+            ObtuseKeywordValue keywordValue = lookup( keywordString );
+
+            return keywordValue == null ? Optional.empty() : Optional.of( keywordValue.getNonNullValue() );
+
+        }
+
+        @NotNull
+        public Optional<ObtuseKeywordValue> getKeywordValue( final @NotNull String keywordString ) {
+
+            return Optional.ofNullable( lookup( keywordString ) );
+
+        }
+
+        @NotNull
+        public Optional<ObtuseKeywordValue> getKeywordValue( final @NotNull ObtuseKeyword keyword ) {
+
+            return getKeywordValue( keyword.getKeywordName() );
+
+        }
+
+        /**
+         Get the keywords which have non-null values, in keyword order.
+         */
+
+        @NotNull
+        public synchronized Collection<ObtuseKeywordValue> getKeywordValues() {
+
+            if ( _sortedValues == null ) {
+
+                SortedMap<String, ObtuseKeywordValue> sortedValues = new TreeMap<>( _base == null ? _values : _base._values );
+                if ( _base != null ) {
+
+                    sortedValues.putAll( _values );
+
+                }
+
+                _sortedValues = Collections.unmodifiableCollection( sortedValues.values() );
+
+            }
+
+            return _sortedValues;
+
+        }
+
+        /**
+         Find the first (in keyword order) of a set of required keywords which has no non-null value.
+         <p>The answer is remembered for each distinct set of required keywords.</p>
+         @param requiredKeywords the required keywords.
+         @return the name of a missing keyword or an empty {@link Optional} if none are missing.
+         */
+
+        @NotNull
+        public Optional<String> findMissingKeyword( final @NotNull Set<ObtuseKeyword> requiredKeywords ) {
+
+            Optional<String> rval = _missingKeywords.get( requiredKeywords );
+            if ( rval == null ) {
+
+                rval = Optional.empty();
+                for ( ObtuseKeyword requiredKeyword : new TreeSet<>( requiredKeywords ) ) {
+
+                    if ( lookup( requiredKeyword.getKeywordName() ) == null ) {
+
+                        rval = Optional.of( requiredKeyword.getKeywordName() );
+                        break;
+
+                    }
+
+                }
+
+                // Copy the key in case the caller changes their set later.
+
+                _missingKeywords.put( Collections.unmodifiableSet( new HashSet<>( requiredKeywords ) ), rval );
+
+            }
+
+            return rval;
+
+        }
+
+        /**
+         Get the keyword-value pairs in the same form as {@link ObtuseDictionary#layerOver(String, Set, boolean, ObtuseDictionary)} returns them.
+         @param requiredKeywords the keywords which must have non-null values.
+         @param ignoreOptionalKeywords if {@code true} then any keywords that are not in the {@code requiredKeywords} set are discarded.
+         @return the keyword-value pairs in keyword order.
+         @throws IllegalArgumentException if a required keyword has no non-null value in any layer.
+         */
+
+        @NotNull
+        public Collection<ObtuseKeywordValue> getKeywordValues( final @NotNull Set<ObtuseKeyword> requiredKeywords, final boolean ignoreOptionalKeywords ) {
+
+            Optional<String> missing = findMissingKeyword( requiredKeywords );
+            if ( missing.isPresent() ) {
+
+                throw new IllegalArgumentException(
+                        "LayeredObtuseDictionary(" + _who + "):  required keyword " + ObtuseUtil.enquoteJavaObject( missing.get() ) +
+                        " not found in any layer"
+                );
+
+            }
+
+            if ( !ignoreOptionalKeywords ) {
+
+                return getKeywordValues();
+
+            }
+
+            Collection<ObtuseKeywordValue> rval = _requiredOnly.get( requiredKeywords );
+            if ( rval == null ) {
+
+                SortedMap<String, ObtuseKeywordValue> requiredOnly = new TreeMap<>();
+                for ( ObtuseKeyword requiredKeyword : requiredKeywords ) {
+
+                    requiredOnly.put( requiredKeyword.getKeywordName(), lookup( requiredKeyword.getKeywordName() ) );
+
+                }
+
+                rval = Collections.unmodifiableCollection( requiredOnly.values() );
+                _requiredOnly.put( Collections.unmodifiableSet( new HashSet<>( requiredKeywords ) ), rval );
+
+            }
+
+            return rval;
+
+        }
+
+        /**
+         Create a resolved view with one more layer on top of this one (for example the parameters of a single request).
+         <p>The new view shares this view's flattened lookup table so this only costs as much as the new layer is big.
+         Putting a layer on top of a view that already has a top layer merges the two top layers.</p>
+         @param topLayer the new top layer.
+         @return the new view.
+         */
+
+        @NotNull
+        public Resolved withTopLayer( final @NotNull ObtuseDictionary topLayer ) {
+
+            Map<String, ObtuseKeywordValue> values = _base == null ? new HashMap<>() : new HashMap<>( _values );
+            addLayer( values, topLayer );
+
+            return new Resolved( _who, _version, _base == null ? this : _base, values );
+
+        }
+
+        public int size() {
+
+            return _size;
+
+        }
+
+        public String toString() {
+
+            return "LayeredObtuseDictionary.Resolved( " + _who + ", version " + _version + ", " + _size + " keywords )";
+
+        }
+
+    }
+
+    /**
+     Create a layered dictionary.
+     @param who the owner's name (used in exception messages).
+     @param layers the layers, lowest precedence (typically the defaults) first.
+     */
+
+    public LayeredObtuseDictionary( final @NotNull String who, final @NotNull List<ObtuseDictionary> layers ) {
+
+        super();
+
+        _who = who;
+        _layers = new ArrayList<>( layers );
+
+    }
+
+    public int getLayerCount() {
+
+        return _layers.size();
+
+    }
+
+    @NotNull
+    public synchronized ObtuseDictionary getLayer( final int index ) {
+
+        return _layers.get( index );
+
+    }
+
+    /**
+     Replace a layer (which discards the resolved view).
+     @param index which layer (0 is the lowest precedence layer).
+     @param layer the new layer.
+     */
+
+    public synchronized void setLayer( final int index, final @NotNull ObtuseDictionary layer ) {
+
+        if ( _layers.get( index ) != layer ) {
+
+            _layers.set( index, layer );
+            _version += 1;
+            _resolved = null;
+
+        }
+
+    }
+
+    /**
+     Get the resolved view of the current layers, resolving them if a layer has been replaced since the last call.
+     */
+
+    @NotNull
+    public Resolved resolve() {
+
+        Resolved resolved = _resolved;
+        if ( resolved == null ) {
+
+            synchronized ( this ) {
+
+                if ( _resolved == null ) {
+
+                    Map<String, ObtuseKeywordValue> values = new HashMap<>();
+                    for ( ObtuseDictionary layer : _layers ) {
+
+                        addLayer( values, layer );
+
+                    }
+
+                    _resolved = new Resolved( _who, _version, null, values );
+
+                }
+
+                resolved = _resolved;
+
+            }
+
+        }
+
+        return resolved;
+
+    }
+
+    /**
+     Put a layer on top of a lookup table.
+     */
+
+    private static void addLayer( final @NotNull Map<String, ObtuseKeywordValue> values, final @NotNull ObtuseDictionary layer ) {
+
+        for ( ObtuseKeywordValue keywordValue : layer ) {
+
+            if ( keywordValue.hasNonNullValue() ) {
+
+                values.put( keywordValue.getKeywordName(), keywordValue );
+
+            }
+
+        }
+
+    }
+
+    /**
+     Get the {@link String} value of a keyword from the resolved view.
+     Equivalent to {@code resolve().getStringValue( keywordString )}.
+     */
+
+    @NotNull
+    public Optional<String> getStringValue( final @NotNull String keywordString ) {
+
+        return resolve().getStringValue( keywordString );
+
+    }
+
+    public String toString() {
+
+        return "LayeredObtuseDictionary( " + _who + ", " + _layers.size() + " layers )";
+
+    }
+
+}
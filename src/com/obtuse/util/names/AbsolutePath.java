@@ -82,6 +82,11 @@ public class AbsolutePath extends RelativePath {
 
     }
 
+    AbsolutePath( final @NotNull PathTrieNode node ) {
+        super( node );
+
+    }
+
     private AbsolutePath( final @NotNull GowingUnPacker unPacker, final @NotNull GowingPackedEntityBundle bundle ) {
         super( unPacker, bundle.getSuperBundle() );
 
@@ -0,0 +1,346 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package com.obtuse.util.names;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ A node in the global trie of path segments which backs {@link RelativePath} and {@link AbsolutePath} instances.
+ <p/>
+ There is exactly one node for each distinct path which is currently in use.
+ Paths which share a prefix share the nodes for that prefix, which means that two paths are equal if-and-only-if they have the same node
+ and that the memory used by a large number of paths is proportional to the number of distinct segments rather than to the total length of the paths.
+ <p/>
+ A node refers to its parent but its parent only has weak references to its children.
+ A node (and, unless they are in use elsewhere, its ancestors) can therefore be garbage collected once no path refers to it.
+ <p/>
+ All the relative paths descend from {@link #RELATIVE_ROOT} (the empty relative path).
+ All the absolute paths descend from {@link #ABSOLUTE_ROOT} (the child of {@link #RELATIVE_ROOT} named {@link SegmentName#ROOT_SEGMENT}).
+ <p/>
+ Instances of this class are immutable (apart from their table of children and their lazily created canonical path) and are thread safe.
+ */
+
+final class PathTrieNode {
+
+    /**
+     Where the garbage collector tells us about children which no longer exist.
+     */
+
+    private static final ReferenceQueue<PathTrieNode> s_staleChildren = new ReferenceQueue<>();
+
+    static final PathTrieNode RELATIVE_ROOT = new PathTrieNode( null, null );
+
+    static final PathTrieNode ABSOLUTE_ROOT = RELATIVE_ROOT.getChild( SegmentName.ROOT_SEGMENT );
+
+    private final PathTrieNode _parent;
+
+    private final SegmentName _segment;
+
+    private final int _depth;
+
+    private final boolean _absolute;
+
+    /**
+     The path's hash code (the same value that {@link RelativePath#hashCode()} has always returned for the path).
+     */
+
+    private final int _hashCode;
+
+    private final int _hashOffset;
+
+    private Map<String, ChildReference> _children = null;
+
+    private RelativePath _canonicalPath = null;
+
+    private static final class ChildReference extends WeakReference<PathTrieNode> {
+
+        private final PathTrieNode _parent;
+
+        private final String _name;
+
+        private ChildReference( final @NotNull PathTrieNode child ) {
+
+            super( child, s_staleChildren );
+
+            _parent = child._parent;
+            _name = child._segment.getSegmentName();
+
+        }
+
+    }
+
+    private PathTrieNode( final @Nullable PathTrieNode parent, final @Nullable SegmentName segment ) {
+
+        super();
+
+        _parent = parent;
+        _segment = segment;
+
+        if ( parent == null || segment == null ) {
+
+            _depth = 0;
+            _absolute = false;
+            _hashCode = 0;
+            _hashOffset = 0;
+
+        } else {
+
+            _depth = parent._depth + 1;
+            _absolute = parent._absolute || SegmentName.ROOT_SEGMENT.equals( segment );
+            _hashCode = parent._hashCode ^ Integer.rotateLeft( segment.hashCode(), parent._hashOffset );
+            _hashOffset = parent._hashOffset + ( _hashCode & 3 ) + 1;
+
+        }
+
+    }
+
+    /**
+     Get the node for this node's path with one more segment on the end, creating it if necessary.
+     <p/>This method does no checking of the segment; that is the caller's job.
+     @param segment the segment.
+     @return the child node.
+     */
+
+    @NotNull
+    PathTrieNode getChild( final @NotNull SegmentName segment ) {
+
+        expungeStaleChildren();
+
+        synchronized ( this ) {
+
+            if ( _children == null ) {
+
+                _children = new HashMap<>();
+
+            }
+
+            ChildReference childReference = _children.get( segment.getSegmentName() );
+            PathTrieNode child = childReference == null ? null : childReference.get();
+            if ( child == null ) {
+
+                child = new PathTrieNode( this, segment );
+                _children.put( segment.getSegmentName(), new ChildReference( child ) );
+
+            }
+
+            return child;
+
+        }
+
+    }
+
+    /**
+     Forget the children which have been garbage collected.
+     */
+
+    private static void expungeStaleChildren() {
+
+        Reference<? extends PathTrieNode> reference;
+        while ( ( reference = s_staleChildren.poll() ) != null ) {
+
+            ChildReference childReference = (ChildReference)reference;
+            PathTrieNode parent = childReference._parent;
+            synchronized ( parent ) {
+
+                // The name may have been given to a new child since this one went away.
+
+                if ( parent._children != null && parent._children.get( childReference._name ) == childReference ) {
+
+                    parent._children.remove( childReference._name );
+                    if ( parent._children.isEmpty() ) {
+
+                        parent._children = null;
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    @Nullable
+    PathTrieNode getParent() {
+
+        return _parent;
+
+    }
+
+    @Nullable
+    SegmentName getSegment() {
+
+        return _segment;
+
+    }
+
+    int getDepth() {
+
+        return _depth;
+
+    }
+
+    boolean isAbsolute() {
+
+        return _absolute;
+
+    }
+
+    int getHashCode() {
+
+        return _hashCode;
+
+    }
+
+    /**
+     Get this node's ancestor at a specified depth.
+     @param depth the depth (at most this node's depth).
+     @return the ancestor (this node if {@code depth} is this node's depth).
+     */
+
+    @NotNull
+    PathTrieNode getAncestor( final int depth ) {
+
+        if ( depth < 0 || depth > _depth ) {
+
+            throw new IllegalArgumentException( "PathTrieNode.getAncestor:  depth " + depth + " is not in [0," + _depth + "]" );
+
+        }
+
+        PathTrieNode node = this;
+        while ( node._depth > depth ) {
+
+            node = node._parent;
+
+        }
+
+        return node;
+
+    }
+
+    /**
+     Determine if this node's path is a prefix of (or the same as) another node's path.
+     <p/>This takes time proportional to the difference in the two paths' lengths.
+     */
+
+    boolean isPrefixOf( final @NotNull PathTrieNode other ) {
+
+        return other._depth >= _depth && other.getAncestor( _depth ) == this;
+
+    }
+
+    /**
+     Get this node's path's segments, starting with the one closest to the root.
+     */
+
+    @NotNull
+    SegmentName[] getSegments() {
+
+        SegmentName[] segments = new SegmentName[_depth];
+        for ( PathTrieNode node = this; node._depth > 0; node = node._parent ) {
+
+            segments[node._depth - 1] = node._segment;
+
+        }
+
+        return segments;
+
+    }
+
+    /**
+     Compare this node's path to another node's path, segment by segment (see {@link RelativePath#compareTo(RelativePath)}).
+     <p/>Only the segments below the two paths' closest common ancestor are looked at.
+     */
+
+    int compareTo( final @NotNull PathTrieNode rhs ) {
+
+        if ( this == rhs ) {
+
+            return 0;
+
+        }
+
+        PathTrieNode left = this;
+        PathTrieNode right = rhs;
+        while ( left._depth > right._depth ) {
+
+            left = left._parent;
+
+        }
+
+        while ( right._depth > left._depth ) {
+
+            right = right._parent;
+
+        }
+
+        if ( left == right ) {
+
+            // One path is a prefix of the other.
+
+            return _depth - rhs._depth;
+
+        }
+
+        while ( left._parent != right._parent ) {
+
+            left = left._parent;
+            right = right._parent;
+
+        }
+
+        return left._segment.compareTo( right._segment );
+
+    }
+
+    /**
+     Get the path instance which is shared by everyone who asks for this node's path via {@link RelativePath#intern()}.
+     */
+
+    @NotNull
+    synchronized RelativePath getCanonicalPath() {
+
+        if ( _canonicalPath == null ) {
+
+            _canonicalPath = _absolute ? new AbsolutePath( this ) : new RelativePath( this );
+
+        }
+
+        return _canonicalPath;
+
+    }
+
+    /**
+     Format this node's path the way that {@link RelativePath#toString()} always has (for example, {@code "{[root]->usr->lib}"}).
+     */
+
+    @NotNull
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder( "{" );
+        String separator = "";
+        for ( SegmentName segment : getSegments() ) {
+
+            sb.append( separator ).append( segment.getSegmentName() );
+            separator = SegmentName.SEPARATOR;
+
+        }
+
+        sb.append( "}" );
+
+        return sb.toString();
+
+    }
+
+}
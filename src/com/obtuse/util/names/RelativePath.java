@@ -5,6 +5,7 @@
 
 package com.obtuse.util.names;
 
+import com.obtuse.exceptions.HowDidWeGetHereError;
 import com.obtuse.util.BasicProgramConfigInfo;
 import com.obtuse.util.Logger;
 import com.obtuse.util.ObtuseUtil;
@@ -20,6 +21,11 @@ import java.util.function.Supplier;
 /**
  Represent a relative path/name.
  <p/>Instances of this class are immutable.
+ <p/>Each path is a node in a global trie of segments (see {@link PathTrieNode}) which is shared by every instance with the same segments.
+ This makes {@link #equals(Object)} and {@link #hashCode()} constant time operations,
+ {@link #getParent()}, {@link #getChild(SegmentName)} and {@link #startsWith(RelativePath)} cheap,
+ and means that a large number of paths with long common prefixes costs memory in proportion to their number of distinct segments.
+ Use {@link #intern()} to get the one instance of a path which everyone else who calls {@link #intern()} also gets.
  */
 
 public class RelativePath
@@ -63,8 +69,8 @@ public class RelativePath
 
     };
 
-    private List<SegmentName> _segments;
-    private final String _compareValue;
+    private PathTrieNode _node;
+    private String _unpackedCompareValue;
     private GowingEntityReference _segmentsEntityReference;
 
     private String _canonicalFormString;
@@ -86,7 +92,7 @@ public class RelativePath
     public RelativePath( final @NotNull SegmentName@NotNull[] segments ) {
         super( new GowingNameMarkerThing() );
 
-        _compareValue = finishConstructor( this instanceof AbsolutePath, segments );
+        finishConstructor( this instanceof AbsolutePath, segments );
 
     }
 
@@ -114,16 +120,32 @@ public class RelativePath
 
         }
 
-        _compareValue = finishConstructor( this instanceof AbsolutePath, segments );
+        finishConstructor( this instanceof AbsolutePath, segments );
 
     }
 
-    @NotNull
-    private String finishConstructor( final boolean shouldBeAbsoluteInstance, @Nullable final SegmentName @NotNull [] segments ) {
+    /**
+     Create an instance for a node in the trie of segments (see {@link PathTrieNode#getCanonicalPath()}).
+     */
+
+    RelativePath( final @NotNull PathTrieNode node ) {
+        super( new GowingNameMarkerThing() );
+
+        if ( node.isAbsolute() != this instanceof AbsolutePath ) {
+
+            throw new HowDidWeGetHereError(
+                    "RelativePath:  " + ( node.isAbsolute() ? "absolute" : "relative" ) + " node " + node +
+                    " in a " + getClass().getSimpleName() + " instance"
+            );
+
+        }
+
+        _node = node;
+
+    }
+
+    private void finishConstructor( final boolean shouldBeAbsoluteInstance, @Nullable final SegmentName @NotNull [] segments ) {
 
-        List<SegmentName> tmpSegments = new ArrayList<>();
-        StringBuilder sb = new StringBuilder( "{" );
-        String separator = "";
         boolean isAbsolutePath = this instanceof AbsolutePath;
         if ( shouldBeAbsoluteInstance != isAbsolutePath ) {
 
@@ -137,13 +159,7 @@ public class RelativePath
 
         }
 
-        if ( isAbsolutePath ) {
-
-            tmpSegments.add( SegmentName.ROOT_SEGMENT );
-            sb.append( separator ).append( SegmentName.ROOT_SEGMENT );
-            separator = SegmentName.SEPARATOR;
-
-        }
+        PathTrieNode node = isAbsolutePath ? PathTrieNode.ABSOLUTE_ROOT : PathTrieNode.RELATIVE_ROOT;
 
         boolean gotNonRoot = false;
 
@@ -177,17 +193,11 @@ public class RelativePath
 
             gotNonRoot = true;
 
-            tmpSegments.add( segmentName );
-            sb.append( separator ).append( segmentName.getSegmentName() );
-            separator = SegmentName.SEPARATOR;
+            node = node.getChild( segmentName );
 
         }
 
-        _segments = Collections.unmodifiableList( tmpSegments );
-
-        sb.append( "}" );
-
-        return sb.toString();
+        _node = node;
 
     }
 
@@ -195,7 +205,7 @@ public class RelativePath
         super( unPacker, bundle.getSuperBundle() );
 
         _segmentsEntityReference = bundle.getMandatoryEntityReference( SEGMENTS );
-        _compareValue = bundle.MandatoryStringValue( COMPARE_VALUE );
+        _unpackedCompareValue = bundle.MandatoryStringValue( COMPARE_VALUE );
 
         ObtuseUtil.doNothing();
 
@@ -260,7 +270,110 @@ public class RelativePath
     @NotNull
     public List<SegmentName> getNames() {
 
-        return _segments == null ? Collections.emptyList() : _segments;
+        return _node == null ? Collections.emptyList() : Collections.unmodifiableList( Arrays.asList( _node.getSegments() ) );
+
+    }
+
+    /**
+     Get the trie node which represents this path.
+     @throws IllegalStateException if this instance is still being unpacked.
+     */
+
+    @NotNull
+    private PathTrieNode getNode() {
+
+        if ( _node == null ) {
+
+            throw new IllegalStateException( "RelativePath:  path " + this + " is still being unpacked" );
+
+        }
+
+        return _node;
+
+    }
+
+    /**
+     Get the one instance of this path which is shared by everyone who calls this method.
+     <p/>Two paths are equal if-and-only-if their interned instances are the same object.
+     Interned instances stay around for as long as any instance of the same path does.
+     @return the interned instance (which may be this instance).
+     @throws IllegalStateException if this instance is still being unpacked.
+     */
+
+    @NotNull
+    public RelativePath intern() {
+
+        return getNode().getCanonicalPath();
+
+    }
+
+    /**
+     Get this path without its last segment.
+     @return the (interned) parent path, or {@code null} if this is an empty relative path or the absolute root path.
+     An absolute path's parent is an {@link AbsolutePath}.
+     @throws IllegalStateException if this instance is still being unpacked.
+     */
+
+    @Nullable
+    public RelativePath getParent() {
+
+        PathTrieNode parent = getNode().getParent();
+
+        return parent == null || parent.isAbsolute() != _node.isAbsolute() ? null : parent.getCanonicalPath();
+
+    }
+
+    /**
+     Get this path with one more segment on the end.
+     <p/>Unlike the {@code concat} methods, this method doesn't look at any of this path's existing segments.
+     @param segmentName the segment to add.
+     @return the (interned) child path. It is an {@link AbsolutePath} if this path is one.
+     @throws IllegalArgumentException if {@code segmentName} is the {@link SegmentName#ROOT_SEGMENT}.
+     @throws IllegalStateException if this instance is still being unpacked.
+     */
+
+    @NotNull
+    public RelativePath getChild( final @NotNull SegmentName segmentName ) {
+
+        if ( SegmentName.ROOT_SEGMENT.equals( segmentName ) ) {
+
+            throw new IllegalArgumentException( "RelativePath.getChild:  ROOT segment not allowed after first segment - " + this );
+
+        }
+
+        return getNode().getChild( segmentName ).getCanonicalPath();
+
+    }
+
+    /**
+     Get this path with one more segment on the end.
+     <p/>This method is exactly equivalent to
+     <blockquote>
+     {@code getChild( new SegmentName( segmentName ) )}
+     </blockquote>
+     */
+
+    @NotNull
+    public RelativePath getChild( final @NotNull String segmentName ) {
+
+        return getChild( new SegmentName( segmentName ) );
+
+    }
+
+    /**
+     Determine if a specified path is a prefix of this path.
+     <p/>Every path starts with itself and every relative path starts with the empty relative path.
+     An absolute path never starts with a relative path (and vice versa).
+     This takes time proportional to the difference in the two paths' lengths.
+     @param prefix the possible prefix.
+     @return {@code true} if this path's first {@code prefix.size()} segments are {@code prefix}'s segments and
+     both paths are absolute or both are relative; {@code false} otherwise.
+     @throws IllegalStateException if either instance is still being unpacked.
+     */
+
+    public boolean startsWith( final @NotNull RelativePath prefix ) {
+
+        return prefix.getNode().isAbsolute() == getNode().isAbsolute() && prefix._node.isPrefixOf( _node );
 
     }
 
@@ -283,7 +396,7 @@ public class RelativePath
 
             String arrow = "";
 
-            for ( SegmentName segmentName : _segments ) {
+            for ( SegmentName segmentName : getNames() ) {
 
                 sb.append( arrow ).append( segmentName.getSegmentName() );
 
@@ -320,7 +433,7 @@ public class RelativePath
 
     public int size() {
 
-        return _segments == null ? 0 : _segments.size();
+        return _node == null ? 0 : _node.getDepth();
 
     }
 
@@ -333,7 +446,7 @@ public class RelativePath
 
     public boolean isEmpty() {
 
-        return _segments == null || _segments.isEmpty();
+        return _node == null || _node.getDepth() == 0;
 
     }
 
@@ -383,18 +496,7 @@ public class RelativePath
 
         }
 
-        SegmentName[] prefix = new SegmentName[ head.size() + 1 ];
-        int ix = 0;
-        for ( SegmentName sn : head.getNames() ) {
-
-            prefix[ix] = sn;
-            ix += 1;
-
-        }
-
-        prefix[ix] = new SegmentName( segmentName );
-
-        return head instanceof AbsolutePath ? new AbsolutePath( prefix ) : new RelativePath( prefix );
+        return head.append( new SegmentName( segmentName ) );
 
     }
 
@@ -410,18 +512,7 @@ public class RelativePath
     @NotNull
     public static AbsolutePath concat( final @NotNull AbsolutePath head, final @NotNull String segmentName ) {
 
-        SegmentName[] prefix = new SegmentName[ head.size() + 1 ];
-        int ix = 0;
-        for ( SegmentName sn : head.getNames() ) {
-
-            prefix[ix] = sn;
-            ix += 1;
-
-        }
-
-        prefix[ix] = new SegmentName( segmentName );
-
-        return new AbsolutePath( prefix );
+        return (AbsolutePath)( (RelativePath)head ).append( new SegmentName( segmentName ) );
 
     }
 
@@ -443,17 +534,29 @@ public class RelativePath
 
         }
 
-        SegmentName[] prefix = new SegmentName[ head.size() + 1 ];
-        int ix = 0;
-        for ( SegmentName sn : head.getNames() ) {
+        return head.append( segmentName );
 
-            prefix[ix] = sn;
-            ix += 1;
+    }
+
+    /**
+     Create a new path with one more segment on the end of this path.
+     <p/>A {@link SegmentName#ROOT_SEGMENT} is handled by the constructors so that it gets their special treatment (and their exceptions).
+     */
+
+    @NotNull
+    private RelativePath append( final @NotNull SegmentName segmentName ) {
+
+        if ( SegmentName.ROOT_SEGMENT.equals( segmentName ) ) {
+
+            SegmentName[] prefix = concat( getNames(), new SegmentName[] { segmentName } );
+
+            return this instanceof AbsolutePath ? new AbsolutePath( prefix ) : new RelativePath( prefix );
 
         }
-        prefix[ix] = segmentName;
 
-        return head instanceof AbsolutePath ? new AbsolutePath( prefix ) : new RelativePath( prefix );
+        PathTrieNode node = getNode().getChild( segmentName );
+
+        return this instanceof AbsolutePath ? new AbsolutePath( node ) : new RelativePath( node );
 
     }
 
@@ -475,38 +578,40 @@ public class RelativePath
 
         }
 
-        SegmentName[] prefix = new SegmentName[ head.size() + tail.size() ];
-        int ix = 0;
-        for ( SegmentName sn : head.getNames() ) {
+        PathTrieNode headNode = head.getNode();
+        PathTrieNode tailNode = tail.getNode();
 
-            prefix[ix] = sn;
-            ix += 1;
+        if ( tailNode.isAbsolute() ) {
 
-        }
+            if ( headNode.isAbsolute() && headNode.getDepth() > 1 ) {
 
-        if ( ix > 1 && SegmentName.ROOT_SEGMENT.equals( prefix[0] ) && tail.size() > 0 && SegmentName.ROOT_STRING_NAME.equals( tail.getNames().get( 0 ).getSegmentName() ) ) {
+                throw new IllegalArgumentException( "RelativePath.concat:  cannot concatenate an absolute name (" + tail + ") to the end of a non-trivial relative or absolute name (" + head + ")" );
 
-            throw new IllegalArgumentException( "RelativePath.concat:  cannot concatenate an absolute name (" + tail + ") to the end of a non-trivial relative or absolute name (" + head + ")" );
+            }
 
-        }
+            // An absolute tail can only follow the absolute root path or an empty relative path.
 
-        for ( SegmentName sn: tail.getNames() ) {
+            if ( headNode != PathTrieNode.ABSOLUTE_ROOT && headNode != PathTrieNode.RELATIVE_ROOT ) {
 
-            prefix[ix] = sn;
-            ix += 1;
+                throw new IllegalArgumentException( "RelativePath:  ROOT segment not allowed after first non-root segment" );
 
-        }
+            }
+
+            return new AbsolutePath( tailNode );
 
-        if ( prefix.length > 0 && SegmentName.ROOT_SEGMENT.equals( prefix[0] ) ) {
+        }
 
-            return new AbsolutePath( prefix );
+        // Walk the tail's segments down from the head's node.
 
-        } else {
+        PathTrieNode node = headNode;
+        for ( SegmentName sn : tailNode.getSegments() ) {
 
-            return new RelativePath( prefix );
+            node = node.getChild( sn );
 
         }
 
+        return node.isAbsolute() ? new AbsolutePath( node ) : new RelativePath( node );
+
     }
 
     /**
@@ -616,41 +721,43 @@ public class RelativePath
         }
 
         // Compare the two paths according to the rules described in the Javadocs above.
+        // Only the segments after the paths' longest common prefix need to be looked at.
 
-        int ix = 0;
-        int leftSize = _segments.size();
-        int rightSize = rhs._segments.size();
+        return getNode().compareTo( rhs.getNode() );
 
-        while ( ix < leftSize && ix < rightSize ) {
+    }
 
-            SegmentName left = _segments.get( ix );
-            SegmentName right = rhs._segments.get( ix );
+    /**
+     Determine if this instance is the same as a specified other object.
+     @param rhs the other instance.
+     @return {@code true} if-and-only-if the other object is an instance of this class with exactly the same segments in the same order
+     (in other words, with the same node in the trie of segments); {@code false} otherwise.
+     */
 
-            int rval = left.compareTo( right );
-            if ( rval != 0 ) {
+    public boolean equals( @Nullable final Object rhs ) {
 
-                return rval;
+        if ( this == rhs ) {
 
-            }
+            return true;
 
-            ix += 1;
+        }
+
+        if ( !( rhs instanceof RelativePath ) ) {
+
+            return false;
 
         }
 
-        return leftSize - rightSize;
+        RelativePath other = (RelativePath)rhs;
+        if ( _node == null || other._node == null ) {
 
-    }
+            // At least one of us is still being unpacked.
 
-    /**
-     Determine if this instance is the same as a specified other object.
-     @param rhs the other instance.
-     @return {@code true} if-and-only-if the other object is an instance of this class and invoking {@code toString()} on that instance yields
-     exactly the same string as invoking {@code toString()} on this instace; {@code false} otherwise.
-     */
+            return toString().equals( other.toString() );
 
-    public boolean equals( @Nullable final Object rhs ) {
+        }
 
-        return rhs instanceof RelativePath && _compareValue.equals( ((RelativePath)rhs)._compareValue );
+        return _node == other._node;
 
     }
 
@@ -662,23 +769,14 @@ public class RelativePath
     @Override
     public int hashCode() {
 
-        int hc = 0;
-        int offset = 0;
         //noinspection NonFinalFieldReferencedInHashCode
-        for ( SegmentName sn : _segments ) {
-
-            hc ^= Integer.rotateLeft( sn.hashCode(), offset );
-            offset += ( hc & 3 ) + 1;
-
-        }
-
-        return hc;
+        return _node == null ? 0 : _node.getHashCode();
 
     }
 
     public String toString() {
 
-        return _compareValue;
+        return _node == null ? String.valueOf( _unpackedCompareValue ) : _node.toString();
 
     }
 
@@ -899,7 +997,7 @@ public class RelativePath
 
     public int stringLength() {
 
-        return _compareValue.length();
+        return toString().length();
 
     }
 
@@ -1083,7 +1181,7 @@ public class RelativePath
 
         Logger.logMsg( "RelativePath:  bundling " + SEGMENTS + "=" + segments );
         bundle.addPackableEntityHolder( SEGMENTS, segments, packer, true );
-        bundle.addStringHolder( COMPARE_VALUE, _compareValue, true );
+        bundle.addStringHolder( COMPARE_VALUE, toString(), true );
 
         return bundle;
 
@@ -1121,19 +1219,22 @@ public class RelativePath
 
         }
 
-        String expectedCompareValue = finishConstructor( isAbsolutePath, tmpSegments );
+        finishConstructor( isAbsolutePath, tmpSegments );
+        String expectedCompareValue = _node.toString();
 
         String ourName = isAbsolutePath ? "AbsolutePath" : "RelativePath";
 
-        if ( !expectedCompareValue.equals( _compareValue ) ) {
+        if ( !expectedCompareValue.equals( _unpackedCompareValue ) ) {
 
             throw new IllegalArgumentException(
-                    "RelativePath." + ourName + ":  unpacked compare path " + _compareValue +
+                    "RelativePath." + ourName + ":  unpacked compare path " + _unpackedCompareValue +
                     " not identical to computed compare path " + expectedCompareValue
             );
 
         }
 
+        _unpackedCompareValue = null;
+
         return true;
 
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package org.apache.commons.text.similarity;
+
+import com.obtuse.util.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Compare the speed of {@link LevenshteinDistance} and {@link BitParallelLevenshteinDistance}.
+ <p/>Each implementation is run against every pair of words in the {@link NounsList} with the same threshold
+ (the sort of thing that happens on each keystroke when suggesting alternatives).
+ Each measurement is repeated a few times so that the JIT compiler has a chance to settle down before the final numbers are reported.
+ */
+
+public class BenchmarkLevenshteinDistance {
+
+    private static final int ROUNDS = 5;
+
+    private static final int THRESHOLD = 3;
+
+    private interface Scorer {
+
+        long scoreAll( List<String> words );
+
+    }
+
+    private static void measure( final String what, final List<String> words, final Scorer scorer ) {
+
+        long comparisons = (long)words.size() * words.size();
+        for ( int round = 1; round <= ROUNDS; round += 1 ) {
+
+            long startTime = System.nanoTime();
+            long checksum = scorer.scoreAll( words );
+            long elapsedNanos = System.nanoTime() - startTime;
+
+            Logger.logMsg(
+                    ObtuseUtil.rpad( what, 40 ) + " round " + round + ":  " +
+                    ObtuseUtil.readable( (long)( comparisons / ( elapsedNanos / 1e9 ) ) ) + " comparisons per second" +
+                    " (checksum " + checksum + ")"
+            );
+
+        }
+
+    }
+
+    public static void main( final String[] args ) {
+
+        BasicProgramConfigInfo.init( "Obtuse", "ObtuseUtil", "testing" );
+
+        List<String> words = new ArrayList<>( NounsList.getAllWords() );
+        Logger.logMsg( "comparing each of " + words.size() + " words against every word with threshold " + THRESHOLD );
+
+        LevenshteinDistance classic = new LevenshteinDistance( THRESHOLD );
+        measure(
+                "LevenshteinDistance",
+                words,
+                list -> {
+                    long checksum = 0;
+                    for ( String w1 : list ) {
+
+                        for ( String w2 : list ) {
+
+                            checksum += classic.apply( w1, w2 );
+
+                        }
+
+                    }
+
+                    return checksum;
+                }
+        );
+
+        BitParallelLevenshteinDistance bitParallel = new BitParallelLevenshteinDistance( THRESHOLD );
+        measure(
+                "BitParallelLevenshteinDistance",
+                words,
+                list -> {
+                    long checksum = 0;
+                    for ( String w1 : list ) {
+
+                        for ( String w2 : list ) {
+
+                            checksum += bitParallel.apply( w1, w2 );
+
+                        }
+
+                    }
+
+                    return checksum;
+                }
+        );
+
+        measure(
+                "BitParallelLevenshteinDistance (batch)",
+                words,
+                list -> {
+                    long checksum = 0;
+                    for ( String w1 : list ) {
+
+                        for ( int distance : bitParallel.apply( w1, list ) ) {
+
+                            checksum += distance;
+
+                        }
+
+                    }
+
+                    return checksum;
+                }
+        );
+
+    }
+
+}
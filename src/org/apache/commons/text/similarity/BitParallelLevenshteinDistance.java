@@ -0,0 +1,453 @@
+/*
+ * Copyright © 2018 Daniel Boulet
+ * All rights reserved.
+ */
+
+package org.apache.commons.text.similarity;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ A bit-parallel implementation of the Levenshtein distance.
+ <p/>This implementation uses Myers' bit-vector algorithm as reformulated for edit distance by Hyyrö
+ (<i>A bit-vector algorithm for computing Levenshtein and Damerau edit distances</i>, 2003).
+ Each column of the classic dynamic programming table is represented by two bit vectors
+ recording where the vertical differences between adjacent cells are +1 and -1.
+ A whole column is then advanced with a dozen or so word-wide logical and arithmetic operations
+ instead of one cell at a time.
+ <p/>Patterns of up to 64 characters fit in a single <tt>long</tt>.
+ Longer patterns are processed in 64 character blocks with the horizontal difference carried from one block to the next.
+ The work done is therefore roughly <tt>O(ceil(m/64) * n)</tt> rather than the <tt>O(m * n)</tt> of {@link LevenshteinDistance}.
+ <p/>Results are identical to those of {@link LevenshteinDistance} including the threshold semantics
+ (a distance greater than the threshold is reported as -1).
+ <p/>Instances of this class are immutable and thread safe.
+ The {@link Pattern} objects returned by {@link #compile(CharSequence)} are not thread safe.
+ */
+
+public class BitParallelLevenshteinDistance implements EditDistance<Integer> {
+
+    private static final int BLOCK_SIZE = Long.SIZE;
+
+    private static final int LATIN1_SIZE = 256;
+
+    private final int _threshold;
+
+    /**
+     Create an instance which computes unlimited distances.
+     */
+
+    public BitParallelLevenshteinDistance() {
+
+        this( null );
+
+    }
+
+    /**
+     Create an instance which optionally limits the distances that it computes.
+
+     @param threshold if <tt>null</tt> then distances are not limited.
+     Otherwise, distances greater than the threshold are reported as -1. Must not be negative.
+     */
+
+    public BitParallelLevenshteinDistance( final Integer threshold ) {
+
+        super();
+
+        if ( threshold != null && threshold.intValue() < 0 ) {
+
+            throw new IllegalArgumentException( "Threshold must not be negative" );
+
+        }
+
+        _threshold = threshold == null ? Integer.MAX_VALUE : threshold.intValue();
+
+    }
+
+    /**
+     Get the distance threshold.
+
+     @return the distance threshold or <tt>null</tt> if distances are unlimited.
+     */
+
+    public Integer getThreshold() {
+
+        return _threshold == Integer.MAX_VALUE ? null : _threshold;
+
+    }
+
+    /**
+     Find the Levenshtein distance between two character sequences.
+
+     @param left  the first character sequence (must not be <tt>null</tt>).
+     @param right the second character sequence (must not be <tt>null</tt>).
+     @return the distance or -1 if the distance exceeds this instance's threshold.
+     @throws IllegalArgumentException if either character sequence is <tt>null</tt>.
+     */
+
+    @Override
+    @NotNull
+    public Integer apply( final CharSequence left, final CharSequence right ) {
+
+        if ( left == null || right == null ) {
+
+            throw new IllegalArgumentException( "Strings must not be null" );
+
+        }
+
+        if ( Math.abs( left.length() - right.length() ) > _threshold ) {
+
+            return -1;
+
+        }
+
+        // The shorter string makes for fewer blocks.
+        // Filling in a Latin-1 lookup table costs more than it saves for a single comparison so we don't bother.
+
+        return left.length() <= right.length()
+                ? new Pattern( left, _threshold, false ).distance( right )
+                : new Pattern( right, _threshold, false ).distance( left );
+
+    }
+
+    /**
+     Find the Levenshtein distance between a query and each of a list of candidates.
+     <p/>The query is preprocessed once and the scratch space is reused for every candidate.
+
+     @param query      the query (must not be <tt>null</tt>).
+     @param candidates the candidates (none of which may be <tt>null</tt>).
+     @return an array whose <tt>i</tt>th element is the distance between the query and the <tt>i</tt>th candidate
+     (or -1 if that distance exceeds this instance's threshold).
+     @throws IllegalArgumentException if the query or any of the candidates are <tt>null</tt>.
+     */
+
+    @NotNull
+    public int[] apply( final CharSequence query, final @NotNull List<? extends CharSequence> candidates ) {
+
+        Pattern pattern = compile( query );
+        int[] distances = new int[candidates.size()];
+        int ix = 0;
+        for ( CharSequence candidate : candidates ) {
+
+            distances[ix] = pattern.distance( candidate );
+            ix += 1;
+
+        }
+
+        return distances;
+
+    }
+
+    /**
+     Preprocess a query so that it can be efficiently compared against any number of candidates.
+
+     @param query the query (must not be <tt>null</tt>).
+     @return the preprocessed query.
+     @throws IllegalArgumentException if the query is <tt>null</tt>.
+     */
+
+    @NotNull
+    public Pattern compile( final CharSequence query ) {
+
+        if ( query == null ) {
+
+            throw new IllegalArgumentException( "Strings must not be null" );
+
+        }
+
+        return new Pattern( query, _threshold, true );
+
+    }
+
+    /**
+     A preprocessed query along with the scratch space needed to compare it against candidates.
+     <p/>Instances of this class are not thread safe since they reuse their scratch space from one call to the next.
+     */
+
+    public static class Pattern {
+
+        private final int _length;
+
+        private final int _blocks;
+
+        private final int _threshold;
+
+        /**
+         The match masks for Latin-1 characters (<tt>null</tt> if this pattern doesn't use a Latin-1 lookup table).
+         The mask for character <tt>c</tt> in block <tt>b</tt> is at <tt>_latin1Masks[c * _blocks + b]</tt>.
+         */
+
+        private final long[] _latin1Masks;
+
+        /**
+         The distinct characters in the query which are not covered by {@link #_latin1Masks} in ascending order.
+         */
+
+        private final char[] _otherChars;
+
+        /**
+         The match masks for the characters in {@link #_otherChars} laid out like {@link #_latin1Masks}.
+         */
+
+        private final long[] _otherMasks;
+
+        private final long[] _pv;
+
+        private final long[] _mv;
+
+        private Pattern( final @NotNull CharSequence query, final int threshold, final boolean latin1Table ) {
+
+            super();
+
+            _length = query.length();
+            _blocks = ( _length + BLOCK_SIZE - 1 ) / BLOCK_SIZE;
+            _threshold = threshold;
+
+            _latin1Masks = latin1Table ? new long[LATIN1_SIZE * _blocks] : null;
+
+            char[] otherChars = new char[_length];
+            int otherCount = 0;
+            for ( int i = 0; i < _length; i += 1 ) {
+
+                char c = query.charAt( i );
+                if ( !latin1Table || c >= LATIN1_SIZE ) {
+
+                    otherChars[otherCount] = c;
+                    otherCount += 1;
+
+                }
+
+            }
+
+            Arrays.sort( otherChars, 0, otherCount );
+            int distinct = 0;
+            for ( int i = 0; i < otherCount; i += 1 ) {
+
+                if ( distinct == 0 || otherChars[distinct - 1] != otherChars[i] ) {
+
+                    otherChars[distinct] = otherChars[i];
+                    distinct += 1;
+
+                }
+
+            }
+
+            _otherChars = Arrays.copyOf( otherChars, distinct );
+            _otherMasks = new long[distinct * _blocks];
+
+            for ( int i = 0; i < _length; i += 1 ) {
+
+                char c = query.charAt( i );
+                long bit = 1L << ( i % BLOCK_SIZE );
+                int block = i / BLOCK_SIZE;
+                if ( latin1Table && c < LATIN1_SIZE ) {
+
+                    _latin1Masks[c * _blocks + block] |= bit;
+
+                } else {
+
+                    _otherMasks[Arrays.binarySearch( _otherChars, c ) * _blocks + block] |= bit;
+
+                }
+
+            }
+
+            _pv = new long[_blocks];
+            _mv = new long[_blocks];
+
+        }
+
+        /**
+         Get the length of the query that this pattern was compiled from.
+
+         @return the length of the query.
+         */
+
+        public int length() {
+
+            return _length;
+
+        }
+
+        private long mask( final char c, final int block ) {
+
+            if ( _latin1Masks != null && c < LATIN1_SIZE ) {
+
+                return _latin1Masks[c * _blocks + block];
+
+            }
+
+            int ix = Arrays.binarySearch( _otherChars, c );
+
+            return ix < 0 ? 0L : _otherMasks[ix * _blocks + block];
+
+        }
+
+        /**
+         Find the Levenshtein distance between this pattern's query and a candidate.
+
+         @param candidate the candidate (must not be <tt>null</tt>).
+         @return the distance or -1 if the distance exceeds the threshold of the {@link BitParallelLevenshteinDistance} which created this pattern.
+         @throws IllegalArgumentException if the candidate is <tt>null</tt>.
+         */
+
+        public int distance( final CharSequence candidate ) {
+
+            if ( candidate == null ) {
+
+                throw new IllegalArgumentException( "Strings must not be null" );
+
+            }
+
+            int n = candidate.length();
+            if ( Math.abs( n - _length ) > _threshold ) {
+
+                return -1;
+
+            }
+
+            if ( _length == 0 ) {
+
+                return n;
+
+            }
+
+            if ( n == 0 ) {
+
+                return _length;
+
+            }
+
+            return _blocks == 1 ? singleBlockDistance( candidate, n ) : multiBlockDistance( candidate, n );
+
+        }
+
+        private int singleBlockDistance( final @NotNull CharSequence candidate, final int n ) {
+
+            long pv = -1L;
+            long mv = 0L;
+            long last = 1L << ( _length - 1 );
+            int score = _length;
+
+            for ( int j = 0; j < n; j += 1 ) {
+
+                long eq = mask( candidate.charAt( j ), 0 );
+                long xv = eq | mv;
+                long xh = ( ( ( eq & pv ) + pv ) ^ pv ) | eq;
+                long ph = mv | ~( xh | pv );
+                long mh = pv & xh;
+
+                if ( ( ph & last ) != 0 ) {
+
+                    score += 1;
+
+                } else if ( ( mh & last ) != 0 ) {
+
+                    score -= 1;
+
+                }
+
+                // The top row of the table increases by one per column hence the 1 shifted into ph.
+
+                ph = ( ph << 1 ) | 1L;
+                mh <<= 1;
+                pv = mh | ~( xv | ph );
+                mv = ph & xv;
+
+                // Each remaining column can reduce the score by at most one.
+
+                if ( score - ( n - j - 1 ) > _threshold ) {
+
+                    return -1;
+
+                }
+
+            }
+
+            return score <= _threshold ? score : -1;
+
+        }
+
+        private int multiBlockDistance( final @NotNull CharSequence candidate, final int n ) {
+
+            Arrays.fill( _pv, -1L );
+            Arrays.fill( _mv, 0L );
+            int lastBlock = _blocks - 1;
+            long last = 1L << ( ( _length - 1 ) % BLOCK_SIZE );
+            int score = _length;
+
+            for ( int j = 0; j < n; j += 1 ) {
+
+                char c = candidate.charAt( j );
+
+                // The horizontal difference entering the top of the first block is always +1.
+
+                int hin = 1;
+                for ( int b = 0; b <= lastBlock; b += 1 ) {
+
+                    long pv = _pv[b];
+                    long mv = _mv[b];
+                    long eq = mask( c, b );
+                    long xv = eq | mv;
+                    if ( hin < 0 ) {
+
+                        eq |= 1L;
+
+                    }
+
+                    long xh = ( ( ( eq & pv ) + pv ) ^ pv ) | eq;
+                    long ph = mv | ~( xh | pv );
+                    long mh = pv & xh;
+
+                    long high = b == lastBlock ? last : Long.MIN_VALUE;
+                    int hout = ( ph & high ) != 0 ? 1 : ( ( mh & high ) != 0 ? -1 : 0 );
+
+                    ph <<= 1;
+                    mh <<= 1;
+                    if ( hin < 0 ) {
+
+                        mh |= 1L;
+
+                    } else if ( hin > 0 ) {
+
+                        ph |= 1L;
+
+                    }
+
+                    _pv[b] = mh | ~( xv | ph );
+                    _mv[b] = ph & xv;
+                    hin = hout;
+
+                }
+
+                score += hin;
+
+                if ( score - ( n - j - 1 ) > _threshold ) {
+
+                    return -1;
+
+                }
+
+            }
+
+            return score <= _threshold ? score : -1;
+
+        }
+
+        public String toString() {
+
+            return "BitParallelLevenshteinDistance.Pattern( length=" + _length + ", blocks=" + _blocks + " )";
+
+        }
+
+    }
+
+    public String toString() {
+
+        return "BitParallelLevenshteinDistance( threshold=" + getThreshold() + " )";
+
+    }
+
+}